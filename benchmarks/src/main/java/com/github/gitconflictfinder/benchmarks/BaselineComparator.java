@@ -0,0 +1,152 @@
+package com.github.gitconflictfinder.benchmarks;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result ({@code -rf json}) with the recorded baseline and fails on regressions.
+ *
+ * How does it work?
+ * - reads both files with the streaming Jackson API, keyed by the benchmark name and its parameters,
+ *   with the score, its 99.9% confidence interval ({@code scoreError}) and the JDK it ran on,
+ * - a result is a regression only if it is worse than the baseline by more than the threshold
+ *   (lower for the throughput mode, higher for the time modes) and the two confidence intervals do not overlap,
+ *   so a difference within the noise of either run is reported as OK,
+ * - warns if the result ran on another JDK feature release than the baseline (the numbers are not comparable then),
+ * - prints one line per benchmark and exits with 1 if there was a regression.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar com.github.gitconflictfinder.benchmarks.BaselineComparator baseline.json result.json [thresholdPercent]}
+ */
+public final class BaselineComparator {
+    public static final double DEFAULT_THRESHOLD_PERCENT = 15;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    record Score(String mode, double score, double error, String unit, String jdkVersion) {
+        double low() {
+            return score - error;
+        }
+
+        double high() {
+            return score + error;
+        }
+    }
+
+    private BaselineComparator() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparator <baseline.json> <result.json> [thresholdPercent]");
+            System.exit(2);
+        }
+
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        Map<String, Score> baseline = read(new File(args[0]));
+        Map<String, Score> current = read(new File(args[1]));
+
+        boolean regressed = false;
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("NEW        %-90s %12.3f +/- %.3f %s%n", entry.getKey(), now.score(), now.error(), now.unit());
+                continue;
+            }
+            if (!featureRelease(now.jdkVersion()).equals(featureRelease(before.jdkVersion()))) {
+                System.out.printf("WARNING    %-90s ran on JDK %s, the baseline on JDK %s%n", entry.getKey(), now.jdkVersion(), before.jdkVersion());
+            }
+
+            double change = (now.score() - before.score()) / before.score() * 100;
+            boolean higherIsBetter = now.mode().equals("thrpt");
+            double worse = higherIsBetter ? -change : change;
+            boolean separated = now.low() > before.high() || now.high() < before.low();
+
+            String verdict = !separated ? "OK" : worse > threshold ? "REGRESSION" : worse < -threshold ? "IMPROVED" : "OK";
+            regressed |= verdict.equals("REGRESSION");
+
+            System.out.printf("%-10s %-90s %12.3f +/- %.3f -> %12.3f +/- %.3f %s (%+.1f%%)%n",
+                    verdict, entry.getKey(), before.score(), before.error(), now.score(), now.error(), now.unit(), change);
+        }
+
+        System.exit(regressed ? 1 : 0);
+    }
+
+    /**
+     * Reads a JMH JSON result into a map from "benchmark {param=value, ...}" to its primary score and its error.
+     */
+    static Map<String, Score> read(File file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+
+        try (JsonParser parser = JSON_FACTORY.createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Not a JMH JSON result: " + file);
+            }
+
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String benchmark = null;
+                String mode = null;
+                String jdkVersion = "";
+                double error = 0;
+                Map<String, String> params = new TreeMap<>();
+                double score = Double.NaN;
+                String unit = "";
+
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    if (field.equals("benchmark") && value == JsonToken.VALUE_STRING) {
+                        benchmark = parser.getText();
+                    } else if (field.equals("mode") && value == JsonToken.VALUE_STRING) {
+                        mode = parser.getText();
+                    } else if (field.equals("jdkVersion") && value == JsonToken.VALUE_STRING) {
+                        jdkVersion = parser.getText();
+                    } else if (field.equals("params") && value == JsonToken.START_OBJECT) {
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String name = parser.currentName();
+                            parser.nextToken();
+                            params.put(name, parser.getText());
+                        }
+                    } else if (field.equals("primaryMetric") && value == JsonToken.START_OBJECT) {
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String metricField = parser.currentName();
+                            JsonToken metricValue = parser.nextToken();
+                            if (metricField.equals("score") && metricValue.isNumeric()) {
+                                score = parser.getDoubleValue();
+                            } else if (metricField.equals("scoreError") && metricValue.isNumeric()) {
+                                // with a single iteration JMH writes "NaN" as a string, the error stays 0 then
+                                error = parser.getDoubleValue();
+                            } else if (metricField.equals("scoreUnit") && metricValue == JsonToken.VALUE_STRING) {
+                                unit = parser.getText();
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+
+                if (benchmark != null) {
+                    scores.put(benchmark + " " + params, new Score(mode, score, error, unit, jdkVersion));
+                }
+            }
+        }
+
+        return scores;
+    }
+
+    /**
+     * Returns the feature release of a JDK version ("21" for "21.0.1").
+     */
+    static String featureRelease(String jdkVersion) {
+        int dot = jdkVersion.indexOf('.');
+        return dot < 0 ? jdkVersion : jdkVersion.substring(0, dot);
+    }
+}
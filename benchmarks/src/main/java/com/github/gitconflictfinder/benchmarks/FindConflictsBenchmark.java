@@ -0,0 +1,116 @@
+package com.github.gitconflictfinder.benchmarks;
+
+import com.github.gitconflictfinder.clients.GitCommandClient;
+import com.github.gitconflictfinder.clients.GitHubApiClient;
+import com.github.gitconflictfinder.core.GitConflictResolver;
+import com.github.gitconflictfinder.core.GitHubRepoContext;
+import com.github.gitconflictfinder.strategies.CompareDiffStrategy;
+import com.github.gitconflictfinder.strategies.PerCommitDiffStrategy;
+import com.github.gitconflictfinder.strategies.RemoteDiffStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@code findConflicts} against a synthetic repository and an in-process GitHub stub with an injected latency.
+ *
+ * The remote branch has {@value #REMOTE_COMMITS} commits with {@value #FILES_PER_COMMIT} files each,
+ * the local branch changes {@value #LOCAL_CHANGES} of the {@value #BASE_FILES} files, some of them changed remotely as well.
+ * All remote files fit into one compare page (less than 300), so the compare strategy needs a single request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(3)
+public class FindConflictsBenchmark {
+    static final int BASE_FILES = 2000;
+    static final int LOCAL_CHANGES = 500;
+    static final int REMOTE_COMMITS = 50;
+    static final int FILES_PER_COMMIT = 5;
+
+    private static final String OWNER = "bench";
+    private static final String REPO = "repo";
+    private static final String SINCE = "2025-04-04T10:00:00Z";
+
+    @Param({"0", "20"})
+    public long latencyMillis;
+
+    @Param({"per-commit", "concurrent", "compare"})
+    public String strategy;
+
+    private Path repo;
+    private LatencyStubServer server;
+    private GitCommandClient cmdClient;
+    private GitConflictResolver resolver;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        List<String> basePaths = SyntheticPayloads.paths(BASE_FILES);
+        repo = SyntheticRepo.create(basePaths, basePaths.subList(0, LOCAL_CHANGES), true);
+
+        cmdClient = new GitCommandClient();
+        String mergeBase = cmdClient.resolveCommit(repo.toString(), "main");
+
+        server = new LatencyStubServer(latencyMillis);
+        String api = "/repos/" + OWNER + "/" + REPO;
+
+        ArrayList<String> commits = new ArrayList<>();
+        LinkedHashSet<String> remoteFiles = new LinkedHashSet<>();
+        for (int i = 0; i < REMOTE_COMMITS; i++) {
+            String sha = SyntheticPayloads.sha(1000 + i);
+            commits.add(sha);
+
+            // Every commit touches a few locally changed files and the rest of the base files.
+            List<String> files = new ArrayList<>();
+            for (int j = 0; j < FILES_PER_COMMIT; j++) {
+                files.add(SyntheticPayloads.path((i * 37 + j * 101) % BASE_FILES));
+            }
+            remoteFiles.addAll(files);
+            server.respond(api + "/commits/" + sha + "?per_page=300", SyntheticPayloads.commitFilesPage(files));
+        }
+
+        server.respond(api + "/commits/" + mergeBase + "?per_page=1&page=1", SyntheticPayloads.commitDetails());
+        server.respond(api + "/commits?sha=main&since=" + SINCE + "&per_page=100", SyntheticPayloads.commitsPage(commits));
+        server.respond(api + "/compare/" + mergeBase + "...main?per_page=100&page=1", SyntheticPayloads.comparePage(commits, new ArrayList<>(remoteFiles)));
+
+        GitHubRepoContext context = new GitHubRepoContext(OWNER, REPO, "", repo.toString(), "main", "dev", server.getBaseUrl());
+        GitHubApiClient githubClient = new GitHubApiClient(context);
+
+        RemoteDiffStrategy remoteDiffStrategy = switch (strategy) {
+            case "concurrent" -> new PerCommitDiffStrategy(githubClient, 8);
+            case "compare" -> new CompareDiffStrategy(githubClient);
+            default -> new PerCommitDiffStrategy(githubClient);
+        };
+        resolver = new GitConflictResolver(cmdClient, githubClient, remoteDiffStrategy);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+        cmdClient.close();
+        SyntheticRepo.delete(repo);
+    }
+
+    @Benchmark
+    public ArrayList<String> findConflicts() throws Exception {
+        return resolver.findConflicts();
+    }
+}
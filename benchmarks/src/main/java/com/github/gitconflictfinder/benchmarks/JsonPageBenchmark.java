@@ -0,0 +1,56 @@
+package com.github.gitconflictfinder.benchmarks;
+
+import com.github.gitconflictfinder.parsers.GitHubJsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extraction of the needed values from GitHub API pages: the file names of a commit page (with patches)
+ * and the SHAs of a commits list page, on synthetic payloads from 1 KB to 10 MB.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class JsonPageBenchmark {
+    @Param({"1024", "102400", "1048576", "10485760"})
+    public int payloadBytes;
+
+    private byte[] commitFilesPage;
+    private byte[] commitsPage;
+
+    @Setup
+    public void setUp() {
+        commitFilesPage = SyntheticPayloads.commitFilesPage(payloadBytes);
+        commitsPage = SyntheticPayloads.commitsPage(payloadBytes);
+    }
+
+    @Benchmark
+    public ArrayList<String> parseCommitFiles() throws Exception {
+        ArrayList<String> files = new ArrayList<>();
+        GitHubJsonParser.parseCommitFiles(new ByteArrayInputStream(commitFilesPage), files);
+        return files;
+    }
+
+    @Benchmark
+    public ArrayList<String> parseCommitShas() throws Exception {
+        ArrayList<String> commits = new ArrayList<>();
+        GitHubJsonParser.parseCommitShas(new ByteArrayInputStream(commitsPage), null, commits);
+        return commits;
+    }
+}
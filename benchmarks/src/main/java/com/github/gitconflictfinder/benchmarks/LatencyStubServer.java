@@ -0,0 +1,88 @@
+package com.github.gitconflictfinder.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-process stand-in for the GitHub API, with an injected latency.
+ *
+ * How does it work?
+ * - listens on a free port of the loopback interface ({@link #getBaseUrl()} is passed as the API base URL),
+ * - answers {@code GET} requests from a map of path-and-query to a prepared body, an unknown route gets a 404,
+ * - waits {@code latencyMillis} before every answer (like a round trip to GitHub), on a virtual thread per request,
+ *   so concurrent requests wait in parallel, as they would on the network,
+ * - sends a huge rate limit budget in the {@code X-RateLimit-*} headers, so the client does not pace the requests
+ *   (without the headers it would assume the 60 requests per hour of an anonymous client).
+ */
+public class LatencyStubServer implements AutoCloseable {
+    private static final long RATE_LIMIT_BUDGET = 1_000_000_000L;
+
+    static {
+        // The JDK server writes the headers and the body separately, Nagle's algorithm would add ~40 ms to every response.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, byte[]> routes = new ConcurrentHashMap<>();
+    private final long latencyMillis;
+
+    public LatencyStubServer(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Answers the path (with its query, e.g. {@code /repos/o/r/commits?sha=main&page=1}) with the body.
+     */
+    public LatencyStubServer respond(String pathAndQuery, byte[] body) {
+        routes.put(pathAndQuery, body);
+        return this;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+
+            byte[] body = routes.get(exchange.getRequestURI().toString());
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+            exchange.getResponseHeaders().add("X-RateLimit-Remaining", String.valueOf(RATE_LIMIT_BUDGET));
+            exchange.getResponseHeaders().add("X-RateLimit-Reset", String.valueOf(System.currentTimeMillis() / 1000 + 3600));
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
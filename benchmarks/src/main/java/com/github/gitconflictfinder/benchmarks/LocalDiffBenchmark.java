@@ -0,0 +1,62 @@
+package com.github.gitconflictfinder.benchmarks;
+
+import com.github.gitconflictfinder.clients.GitCommandClient;
+import com.github.gitconflictfinder.clients.GitObjectReaderClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listing and parsing the local changed paths (10^3 to 10^6 of them) between two commits of a synthetic repository,
+ * through git ({@code git diff -z}, streamed) and through the pure-Java object reader.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(3)
+public class LocalDiffBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int paths;
+
+    @Param({"git", "object-reader"})
+    public String client;
+
+    private Path repo;
+    private GitCommandClient cmdClient;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        List<String> allPaths = SyntheticPayloads.paths(paths);
+        repo = SyntheticRepo.create(allPaths, allPaths, false);
+        cmdClient = client.equals("git") ? new GitCommandClient() : new GitObjectReaderClient();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cmdClient.close();
+        SyntheticRepo.delete(repo);
+    }
+
+    @Benchmark
+    public int forEachChangedFile() throws Exception {
+        int[] count = {0};
+        cmdClient.forEachChangedFile(repo.toString(), "main", "dev", path -> count[0]++);
+        return count[0];
+    }
+}
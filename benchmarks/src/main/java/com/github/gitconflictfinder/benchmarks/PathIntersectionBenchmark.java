@@ -0,0 +1,83 @@
+package com.github.gitconflictfinder.benchmarks;
+
+import com.github.gitconflictfinder.core.PathDictionary;
+import com.github.gitconflictfinder.core.PathSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Intersection of the local and the remote changed paths, from 10^3 to 10^6 paths per side (10% of them on both sides).
+ * Compares copying the local list into a set and calling {@code retainAll} with the streaming filter
+ * of {@code GitConflictResolver} (each local path is checked against the remote set once),
+ * and with the same filter over a {@link PathSet} (the dictionary-backed set the remote strategies fill).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class PathIntersectionBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int paths;
+
+    private List<String> localPaths;
+    private Set<String> remotePaths;
+    private PathSet remotePathSet;
+
+    @Setup
+    public void setUp() {
+        localPaths = SyntheticPayloads.paths(paths);
+
+        remotePaths = new HashSet<>();
+        for (int i = paths - paths / 10; i < 2 * paths - paths / 10; i++) {
+            remotePaths.add(SyntheticPayloads.path(i));
+        }
+        remotePathSet = new PathSet();
+        remotePathSet.addAll(remotePaths);
+    }
+
+    @Benchmark
+    public Set<String> retainAll() {
+        HashSet<String> conflicts = new HashSet<>(localPaths);
+        conflicts.retainAll(remotePaths);
+        return conflicts;
+    }
+
+    @Benchmark
+    public List<String> streamingContains() {
+        ArrayList<String> conflicts = new ArrayList<>();
+        for (String path : localPaths) {
+            if (remotePaths.contains(path)) {
+                conflicts.add(path);
+            }
+        }
+        return conflicts;
+    }
+
+    @Benchmark
+    public List<String> pathSetContains() {
+        ArrayList<String> conflicts = new ArrayList<>();
+        for (String path : localPaths) {
+            if (remotePathSet.idOf(path) != PathDictionary.NOT_FOUND) {
+                conflicts.add(path);
+            }
+        }
+        return conflicts;
+    }
+}
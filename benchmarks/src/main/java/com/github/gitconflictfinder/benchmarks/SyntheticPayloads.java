@@ -0,0 +1,263 @@
+package com.github.gitconflictfinder.benchmarks;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generator of synthetic GitHub API payloads and file paths for the benchmarks.
+ *
+ * How does it work?
+ * - builds the responses with the same shape as the real API (commit pages with patches, commit lists, compare results),
+ *   including the fields the parsers skip, so the parsers do the same amount of work as on real data,
+ * - grows a page until it reaches the requested size,
+ * - uses a fixed seed, so every run (and the baseline) gets exactly the same bytes.
+ */
+public final class SyntheticPayloads {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String DATE = "2025-04-04T10:00:00Z";
+
+    private SyntheticPayloads() {}
+
+    /**
+     * Returns {@code count} distinct, repository-like file paths.
+     */
+    public static List<String> paths(int count) {
+        ArrayList<String> paths = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            paths.add(path(i));
+        }
+        return paths;
+    }
+
+    public static String path(int i) {
+        return "module-" + (i % 50) + "/src/main/java/com/example/pkg" + (i % 1000) + "/File" + i + ".java";
+    }
+
+    /**
+     * Returns a 40-hex commit SHA derived from the number.
+     */
+    public static String sha(long n) {
+        return String.format("%040x", n);
+    }
+
+    /**
+     * A single commit page ({@code GET /commits/{sha}}) of at least {@code targetBytes}, with a patch for every file.
+     */
+    public static byte[] commitFilesPage(int targetBytes) {
+        Random random = new Random(42);
+        return write(generator -> {
+            generator.writeStartObject();
+            writeCommitFields(generator, 1);
+
+            generator.writeArrayFieldStart("files");
+            int written = 0;
+            int i = 0;
+            do {
+                String patch = patch(random, 8 + random.nextInt(32));
+                writeFile(generator, path(i++), patch);
+                generator.flush();
+                written += patch.length() + 600;
+            } while (written < targetBytes);
+            generator.writeEndArray();
+
+            generator.writeObjectFieldStart("stats");
+            generator.writeNumberField("total", i);
+            generator.writeEndObject();
+            generator.writeEndObject();
+        });
+    }
+
+    /**
+     * A single commit page listing the given files.
+     */
+    public static byte[] commitFilesPage(List<String> files) {
+        Random random = new Random(files.size());
+        return write(generator -> {
+            generator.writeStartObject();
+            writeCommitFields(generator, files.size());
+            generator.writeArrayFieldStart("files");
+            for (String file : files) {
+                writeFile(generator, file, patch(random, 4));
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        });
+    }
+
+    /**
+     * A commits list page ({@code GET /commits?sha=...}) of at least {@code targetBytes}.
+     */
+    public static byte[] commitsPage(int targetBytes) {
+        return write(generator -> {
+            generator.writeStartArray();
+            int written = 0;
+            int i = 0;
+            do {
+                writeListedCommit(generator, sha(i + 1L), sha(i + 2L));
+                written += 1400;
+                i++;
+            } while (written < targetBytes);
+            generator.writeEndArray();
+        });
+    }
+
+    /**
+     * A commits list page with the given SHAs.
+     */
+    public static byte[] commitsPage(List<String> shas) {
+        return write(generator -> {
+            generator.writeStartArray();
+            for (int i = 0; i < shas.size(); i++) {
+                writeListedCommit(generator, shas.get(i), i + 1 < shas.size() ? shas.get(i + 1) : sha(0));
+            }
+            generator.writeEndArray();
+        });
+    }
+
+    /**
+     * A compare page ({@code GET /compare/base...head}) with the given commits and files.
+     */
+    public static byte[] comparePage(List<String> shas, List<String> files) {
+        Random random = new Random(7);
+        return write(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("status", "ahead");
+            generator.writeNumberField("ahead_by", shas.size());
+            generator.writeNumberField("total_commits", shas.size());
+            generator.writeArrayFieldStart("commits");
+            for (String sha : shas) {
+                writeListedCommit(generator, sha, sha(0));
+            }
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("files");
+            for (String file : files) {
+                writeFile(generator, file, patch(random, 4));
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        });
+    }
+
+    /**
+     * The commit details used to read the merge base date.
+     */
+    public static byte[] commitDetails() {
+        return write(generator -> {
+            generator.writeStartObject();
+            writeCommitFields(generator, 0);
+            generator.writeEndObject();
+        });
+    }
+
+    private interface JsonWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    private static byte[] write(JsonWriter writer) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            writer.write(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeCommitFields(JsonGenerator generator, int files) throws IOException {
+        generator.writeStringField("sha", sha(1));
+        generator.writeStringField("node_id", "C_kwDOAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA");
+        generator.writeObjectFieldStart("commit");
+        writePerson(generator, "author");
+        writePerson(generator, "committer");
+        generator.writeStringField("message", "Change " + files + " files\n\nA longer description of the change, as commits usually have.");
+        generator.writeObjectFieldStart("tree");
+        generator.writeStringField("sha", sha(2));
+        generator.writeEndObject();
+        generator.writeNumberField("comment_count", 0);
+        generator.writeEndObject();
+        generator.writeArrayFieldStart("parents");
+        generator.writeStartObject();
+        generator.writeStringField("sha", sha(0));
+        generator.writeEndObject();
+        generator.writeEndArray();
+    }
+
+    private static void writeListedCommit(JsonGenerator generator, String sha, String parent) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("sha", sha);
+        generator.writeStringField("node_id", "C_kwDOAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA");
+        generator.writeObjectFieldStart("commit");
+        writePerson(generator, "author");
+        writePerson(generator, "committer");
+        generator.writeStringField("message", "A commit message that is about as long as a usual one");
+        generator.writeObjectFieldStart("tree");
+        generator.writeStringField("sha", parent);
+        generator.writeStringField("url", "https://api.github.com/repos/bench/repo/git/trees/" + parent);
+        generator.writeEndObject();
+        generator.writeStringField("url", "https://api.github.com/repos/bench/repo/git/commits/" + sha);
+        generator.writeNumberField("comment_count", 0);
+        generator.writeObjectFieldStart("verification");
+        generator.writeBooleanField("verified", false);
+        generator.writeStringField("reason", "unsigned");
+        generator.writeEndObject();
+        generator.writeEndObject();
+        generator.writeStringField("url", "https://api.github.com/repos/bench/repo/commits/" + sha);
+        generator.writeStringField("html_url", "https://github.com/bench/repo/commit/" + sha);
+        generator.writeStringField("comments_url", "https://api.github.com/repos/bench/repo/commits/" + sha + "/comments");
+        generator.writeObjectFieldStart("author");
+        generator.writeStringField("login", "bench");
+        generator.writeNumberField("id", 1);
+        generator.writeStringField("avatar_url", "https://avatars.githubusercontent.com/u/1?v=4");
+        generator.writeStringField("type", "User");
+        generator.writeBooleanField("site_admin", false);
+        generator.writeEndObject();
+        generator.writeArrayFieldStart("parents");
+        generator.writeStartObject();
+        generator.writeStringField("sha", parent);
+        generator.writeStringField("url", "https://api.github.com/repos/bench/repo/commits/" + parent);
+        generator.writeEndObject();
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static void writePerson(JsonGenerator generator, String field) throws IOException {
+        generator.writeObjectFieldStart(field);
+        generator.writeStringField("name", "Bench Mark");
+        generator.writeStringField("email", "bench@example.com");
+        generator.writeStringField("date", DATE);
+        generator.writeEndObject();
+    }
+
+    private static void writeFile(JsonGenerator generator, String path, String patch) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("sha", sha(path.hashCode() & 0xffffffffL));
+        generator.writeStringField("filename", path);
+        generator.writeStringField("status", "modified");
+        generator.writeNumberField("additions", 3);
+        generator.writeNumberField("deletions", 2);
+        generator.writeNumberField("changes", 5);
+        generator.writeStringField("blob_url", "https://github.com/bench/repo/blob/main/" + path);
+        generator.writeStringField("raw_url", "https://github.com/bench/repo/raw/main/" + path);
+        generator.writeStringField("contents_url", "https://api.github.com/repos/bench/repo/contents/" + path + "?ref=main");
+        generator.writeStringField("patch", patch);
+        generator.writeEndObject();
+    }
+
+    private static String patch(Random random, int lines) {
+        StringBuilder patch = new StringBuilder();
+        int start = 1 + random.nextInt(500);
+        patch.append("@@ -").append(start).append(',').append(lines).append(" +").append(start).append(',').append(lines).append(" @@ class File {\n");
+        for (int i = 0; i < lines; i++) {
+            patch.append(i % 2 == 0 ? '-' : '+').append("        int value").append(random.nextInt(1000)).append(" = \"text\\twith \\\"escapes\\\"\";\n");
+        }
+        return patch.toString();
+    }
+}
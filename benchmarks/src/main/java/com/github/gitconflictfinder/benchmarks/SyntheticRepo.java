@@ -0,0 +1,108 @@
+package com.github.gitconflictfinder.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Generator of synthetic local git repositories for the benchmarks.
+ *
+ * How does it work?
+ * - creates the history with {@code git fast-import}, so even a million paths take seconds
+ *   (all files share two blobs, nothing is written to the working tree unless asked),
+ * - the {@code main} branch holds the base paths, the {@code dev} branch changes the given paths on top of it,
+ * - with {@code checkout}, the working tree is switched to {@code dev}, so a diff against {@code main}
+ *   shows the changed paths as local changes.
+ */
+public final class SyntheticRepo {
+    private SyntheticRepo() {}
+
+    public static Path create(List<String> basePaths, List<String> changedPaths, boolean checkout) throws IOException, InterruptedException {
+        Path repo = Files.createTempDirectory("synthetic-repo");
+        git(repo, null, "init", "-q", "-b", "main");
+
+        StringBuilder stream = new StringBuilder(64 * (basePaths.size() + changedPaths.size()));
+        appendBlob(stream, 1, "base\n");
+        appendBlob(stream, 2, "changed\n");
+
+        stream.append("commit refs/heads/main\nmark :3\ncommitter Bench <bench@example.com> 1743760800 +0000\n");
+        appendData(stream, "base");
+        for (String path : basePaths) {
+            stream.append("M 100644 :1 ").append(path).append('\n');
+        }
+
+        stream.append("commit refs/heads/dev\nmark :4\ncommitter Bench <bench@example.com> 1743764400 +0000\n");
+        appendData(stream, "dev");
+        stream.append("from :3\n");
+        for (String path : changedPaths) {
+            stream.append("M 100644 :2 ").append(path).append('\n');
+        }
+        stream.append("done\n");
+
+        git(repo, stream.toString().getBytes(StandardCharsets.UTF_8), "fast-import", "--quiet", "--done");
+
+        if (checkout) {
+            git(repo, null, "checkout", "-q", "-f", "dev");
+        }
+        return repo;
+    }
+
+    public static void delete(Path repo) {
+        if (repo == null) {
+            return;
+        }
+
+        try {
+            Files.walkFileTree(repo, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                    Files.delete(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void appendBlob(StringBuilder stream, int mark, String content) {
+        stream.append("blob\nmark :").append(mark).append('\n');
+        appendData(stream, content);
+    }
+
+    private static void appendData(StringBuilder stream, String data) {
+        stream.append("data ").append(data.getBytes(StandardCharsets.UTF_8).length).append('\n').append(data).append('\n');
+    }
+
+    private static void git(Path repo, byte[] input, String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of("git"));
+        command.addAll(Arrays.asList(args));
+
+        Process process = new ProcessBuilder(command).directory(repo.toFile()).redirectErrorStream(true).start();
+        try (OutputStream stdin = process.getOutputStream()) {
+            if (input != null) {
+                stdin.write(input);
+            }
+        }
+
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        if (process.waitFor() != 0) {
+            throw new IOException("git " + args[0] + " failed: " + output);
+        }
+    }
+}
@@ -1,13 +1,28 @@
 package com.github.gitconflictfinder;
 
+import com.github.gitconflictfinder.cache.ConflictResultCache;
+import com.github.gitconflictfinder.cache.ETagStore;
 import com.github.gitconflictfinder.clients.GitCommandClient;
 import com.github.gitconflictfinder.clients.GitHubApiClient;
+import com.github.gitconflictfinder.clients.TokenPool;
+import com.github.gitconflictfinder.core.BatchConflictResolver;
+import com.github.gitconflictfinder.core.ConflictReport;
 import com.github.gitconflictfinder.core.GitConflictResolver;
 import com.github.gitconflictfinder.core.GitHubRepoContext;
 import com.github.gitconflictfinder.exceptions.GitHubApiException;
+import com.github.gitconflictfinder.instrumentation.Instrumentation;
+import com.github.gitconflictfinder.instrumentation.MetricsListener;
+import com.github.gitconflictfinder.strategies.CompareDiffStrategy;
+import com.github.gitconflictfinder.strategies.PerCommitDiffStrategy;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Main entry point for finding file conflicts between two branches.
@@ -21,6 +36,28 @@ import java.util.ArrayList;
  * 5) branchA - remote branch that exists on remotely and locally,
  * 6) branchB - local branch, branched from the branchA.
  *
+ * To check many local branches against the same branchA at once, pass the list of local branches instead of the branchB.
+ * The remote commits are then fetched only once for all of them, and the result maps every branch to its conflicted files.
+ * For large sweeps, pass a {@link TokenPool} instead of the access token: every request goes to the token with the most budget left.
+ *
+ * To skip files changed on both sides in unrelated places, call {@code findConflictReport()} (precision mode):
+ * it returns only the files whose changed line ranges overlap or touch, together with those ranges,
+ * and a per-phase summary of the time, the requests and the git commands of the run ({@code getMetrics()}).
+ * {@link MetricsListener}s passed to it get every single measurement as well.
+ *
+ * To make repeated runs (e.g. separate CLI invocations) cheap, pass a cache directory to {@code findConflicts()}:
+ * the result is stored there, keyed by the merge base, the branchA head and the local state, and returned as long as none of them changed
+ * (the branchA head is checked with one conditional request).
+ *
+ * If only a yes/no answer is needed (e.g. a merge gate), call {@code hasConflicts()}: the local changes are read first,
+ * and the remote commits are walked newest first only until the first file changed on both sides is found.
+ *
+ * To run many checks without a waiting thread per check, call {@code findConflictsAsync()} with an executor (e.g. virtual threads)
+ * and a timeout: the local and the remote side run in parallel, and cancelling the future stops the check.
+ *
+ * Every call has its own client state (the validated token, the ETags), so any number of calls can run concurrently in one JVM,
+ * with different tokens and repositories.
+ *
  * How to get the access token?
  * - In the upper-right corner of any page on GitHub, click your profile photo, then click Settings.
  *   In the left sidebar, click Developer settings. In the left sidebar, under Personal access tokens,
@@ -28,11 +65,68 @@ import java.util.ArrayList;
  */
 public class GitConflictFinder {
     public static ArrayList<String> findConflicts(String ownerName, String repoName, String accessToken, String localRepoPath, String branchA, String branchB) throws GitHubApiException, IOException, InterruptedException {
-        GitCommandClient cmdClient = new GitCommandClient();
+        try (GitCommandClient cmdClient = new GitCommandClient()) {
+            GitHubRepoContext context = new GitHubRepoContext(ownerName, repoName, accessToken, localRepoPath, branchA, branchB);
+            GitHubApiClient gitHubApiClient = new GitHubApiClient(context);
+
+            return new GitConflictResolver(cmdClient, gitHubApiClient).findConflicts();
+        }
+    }
+
+    public static ArrayList<String> findConflicts(String ownerName, String repoName, String accessToken, String localRepoPath, String branchA, String branchB, Path cacheDirectory) throws GitHubApiException, IOException, InterruptedException {
+        try (GitCommandClient cmdClient = new GitCommandClient();
+             ETagStore eTagStore = new ETagStore(cacheDirectory.resolve("etags.bin"));
+             ConflictResultCache resultCache = new ConflictResultCache(cacheDirectory.resolve("conflict-results.bin"))) {
+            GitHubRepoContext context = new GitHubRepoContext(ownerName, repoName, accessToken, localRepoPath, branchA, branchB);
+            GitHubApiClient gitHubApiClient = new GitHubApiClient(context, eTagStore);
+
+            return new GitConflictResolver(cmdClient, gitHubApiClient, new PerCommitDiffStrategy(gitHubApiClient), resultCache).findConflicts();
+        }
+    }
+
+    public static boolean hasConflicts(String ownerName, String repoName, String accessToken, String localRepoPath, String branchA, String branchB) throws GitHubApiException, IOException, InterruptedException {
+        try (GitCommandClient cmdClient = new GitCommandClient()) {
+            GitHubRepoContext context = new GitHubRepoContext(ownerName, repoName, accessToken, localRepoPath, branchA, branchB);
+            GitHubApiClient gitHubApiClient = new GitHubApiClient(context);
 
+            return new GitConflictResolver(cmdClient, gitHubApiClient).anyConflict();
+        }
+    }
+
+    public static CompletableFuture<ConflictReport> findConflictsAsync(String ownerName, String repoName, String accessToken, String localRepoPath, String branchA, String branchB, Executor executor, Duration timeout) {
+        GitCommandClient cmdClient = new GitCommandClient();
         GitHubRepoContext context = new GitHubRepoContext(ownerName, repoName, accessToken, localRepoPath, branchA, branchB);
         GitHubApiClient gitHubApiClient = new GitHubApiClient(context);
 
-        return new GitConflictResolver(cmdClient, gitHubApiClient).findConflicts();
+        CompletableFuture<ConflictReport> report = new GitConflictResolver(cmdClient, gitHubApiClient, new CompareDiffStrategy(gitHubApiClient)).findConflictsAsync(executor, timeout);
+        report.whenComplete((conflicts, error) -> cmdClient.close());
+        return report;
+    }
+
+    public static ConflictReport findConflictReport(String ownerName, String repoName, String accessToken, String localRepoPath, String branchA, String branchB, MetricsListener... listeners) throws GitHubApiException, IOException, InterruptedException {
+        try (GitCommandClient cmdClient = new GitCommandClient()) {
+            GitHubRepoContext context = new GitHubRepoContext(ownerName, repoName, accessToken, localRepoPath, branchA, branchB);
+            GitHubApiClient gitHubApiClient = new GitHubApiClient(context);
+
+            return new GitConflictResolver(cmdClient, gitHubApiClient, new PerCommitDiffStrategy(gitHubApiClient), new Instrumentation(listeners)).findConflictReport();
+        }
+    }
+
+    public static Map<String, ArrayList<String>> findConflicts(String ownerName, String repoName, String accessToken, String localRepoPath, String branchA, List<String> localBranches) throws GitHubApiException, IOException, InterruptedException {
+        try (GitCommandClient cmdClient = new GitCommandClient(true)) {
+            GitHubRepoContext context = new GitHubRepoContext(ownerName, repoName, accessToken, localRepoPath, branchA, null);
+            GitHubApiClient gitHubApiClient = new GitHubApiClient(context);
+
+            return new BatchConflictResolver(cmdClient, gitHubApiClient).findConflicts(localBranches);
+        }
+    }
+
+    public static Map<String, ArrayList<String>> findConflicts(String ownerName, String repoName, TokenPool tokenPool, String localRepoPath, String branchA, List<String> localBranches) throws GitHubApiException, IOException, InterruptedException {
+        try (GitCommandClient cmdClient = new GitCommandClient(true)) {
+            GitHubRepoContext context = new GitHubRepoContext(ownerName, repoName, null, localRepoPath, branchA, null);
+            GitHubApiClient gitHubApiClient = new GitHubApiClient(context, new ETagStore(), tokenPool);
+
+            return new BatchConflictResolver(cmdClient, gitHubApiClient).findConflicts(localBranches);
+        }
     }
 }
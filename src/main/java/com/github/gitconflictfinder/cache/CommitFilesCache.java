@@ -0,0 +1,420 @@
+package com.github.gitconflictfinder.cache;
+
+import com.github.gitconflictfinder.strategies.PerCommitDiffStrategy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent on-disk cache that maps a commit SHA to the list of files changed by that commit.
+ * A commit never changes once it exists, so its file list can be cached forever (until evicted).
+ *
+ * How does it work?
+ * - the data file ({@code commit-files.dat}) is append-only, every record holds:
+ *   [int length][int crc32][20 bytes SHA][varint file count][varint length + UTF-8 bytes per file],
+ * - the index file ({@code commit-files.idx}) is a memory-mapped open-addressing hash table
+ *   of [20 bytes SHA][long record offset] slots, so every lookup is O(1),
+ * - when the data file grows over {@code maxSizeBytes} (or the index gets too full), the oldest records are evicted:
+ *   only the newest half is kept, compacted in place, and the index is rebuilt,
+ * - if the index does not match the data file (e.g. the process crashed in between), it is rebuilt from the data file,
+ *   stopping at the first broken record.
+ *
+ * The directory is locked while the cache is open. If another process already holds it,
+ * or if any I/O error happens, the cache turns itself off and every lookup is a miss - caching never fails a run.
+ *
+ * Used by {@link PerCommitDiffStrategy} before fetching the files of a commit.
+ */
+public class CommitFilesCache implements AutoCloseable {
+    public static final long DEFAULT_MAX_SIZE_BYTES = 64L * 1024 * 1024;
+
+    private static final String DATA_FILE_NAME = "commit-files.dat";
+    private static final String INDEX_FILE_NAME = "commit-files.idx";
+
+    private static final int DATA_MAGIC = 0x47434644;
+    private static final int INDEX_MAGIC = 0x47434649;
+    private static final int VERSION = 1;
+
+    private static final int DATA_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int INDEX_HEADER_SIZE = 24;
+    private static final int SHA_SIZE = 20;
+    private static final int SLOT_SIZE = SHA_SIZE + 8;
+    private static final int AVERAGE_RECORD_SIZE = 128;
+
+    private final long maxSizeBytes;
+    private final int capacity;
+
+    private FileChannel dataChannel;
+    private FileChannel indexChannel;
+    private FileLock lock;
+    private MappedByteBuffer index;
+
+    private int size;
+    private long dataLength;
+    private boolean disabled;
+
+    public CommitFilesCache(Path directory) throws IOException {
+        this(directory, DEFAULT_MAX_SIZE_BYTES);
+    }
+
+    public CommitFilesCache(Path directory, long maxSizeBytes) throws IOException {
+        if (maxSizeBytes < 1024) {
+            throw new IllegalArgumentException("maxSizeBytes must be at least 1024");
+        }
+
+        this.maxSizeBytes = maxSizeBytes;
+        int slots = Math.clamp(maxSizeBytes / AVERAGE_RECORD_SIZE, 1024, 1 << 24);
+        this.capacity = Integer.highestOneBit(slots - 1) << 1;
+
+        Files.createDirectories(directory);
+        dataChannel = FileChannel.open(directory.resolve(DATA_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            lock = dataChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+
+        if (lock == null) {
+            disabled = true;
+            dataChannel.close();
+            return;
+        }
+
+        openDataFile();
+
+        indexChannel = FileChannel.open(directory.resolve(INDEX_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER_SIZE + (long) capacity * SLOT_SIZE);
+
+        boolean isIndexValid = index.getInt(0) == INDEX_MAGIC && index.getInt(4) == VERSION && index.getInt(8) == capacity && index.getLong(16) == dataChannel.size();
+        if (isIndexValid) {
+            size = index.getInt(12);
+            dataLength = index.getLong(16);
+        } else {
+            rebuildIndex();
+        }
+    }
+
+    public synchronized boolean isEnabled() {
+        return !disabled;
+    }
+
+    /**
+     * Returns the cached files of the commit, or null if the commit is not cached.
+     */
+    public synchronized List<String> get(String sha) {
+        byte[] key = toKey(sha);
+        if (disabled || key == null) {
+            return null;
+        }
+
+        try {
+            int slot = findSlot(key);
+            long offset = index.getLong(slotPosition(slot) + SHA_SIZE);
+            if (offset == 0) {
+                return null;
+            }
+
+            return decodeFiles(readRecord(offset));
+
+        } catch (IOException | RuntimeException e) {
+            disable();
+            return null;
+        }
+    }
+
+    public synchronized void put(String sha, Collection<String> files) {
+        byte[] key = toKey(sha);
+        if (disabled || key == null) {
+            return;
+        }
+
+        try {
+            if (index.getLong(slotPosition(findSlot(key)) + SHA_SIZE) != 0) {
+                return;
+            }
+
+            byte[] record = encodeRecord(key, files);
+            if (record.length > maxSizeBytes / 2) {
+                return;
+            }
+
+            if (dataLength + record.length > maxSizeBytes || size + 1 > capacity / 4 * 3) {
+                evict();
+            }
+
+            long offset = dataLength;
+            writeFully(ByteBuffer.wrap(record), offset);
+            dataLength += record.length;
+
+            insertSlot(key, offset);
+            writeIndexHeader();
+
+        } catch (IOException | RuntimeException e) {
+            disable();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (index != null) {
+            index.force();
+        }
+        if (lock != null && lock.isValid()) {
+            lock.release();
+        }
+        if (indexChannel != null) {
+            indexChannel.close();
+        }
+        if (dataChannel != null) {
+            dataChannel.close();
+        }
+        disabled = true;
+    }
+
+    private void openDataFile() throws IOException {
+        if (dataChannel.size() >= DATA_HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(DATA_HEADER_SIZE);
+            dataChannel.read(header, 0);
+            if (header.getInt(0) == DATA_MAGIC && header.getInt(4) == VERSION) {
+                return;
+            }
+        }
+
+        dataChannel.truncate(0);
+        writeFully(ByteBuffer.allocate(DATA_HEADER_SIZE).putInt(DATA_MAGIC).putInt(VERSION).flip(), 0);
+    }
+
+    private void rebuildIndex() throws IOException {
+        for (long position = INDEX_HEADER_SIZE; position < INDEX_HEADER_SIZE + (long) capacity * SLOT_SIZE; position += 8) {
+            index.putLong((int) position, 0);
+        }
+        size = 0;
+
+        long fileLength = dataChannel.size();
+        long offset = DATA_HEADER_SIZE;
+        while (offset + RECORD_HEADER_SIZE <= fileLength) {
+            byte[] record = readRecordIfValid(offset, fileLength);
+            if (record == null || size + 1 > capacity / 4 * 3) {
+                break;
+            }
+
+            byte[] key = new byte[SHA_SIZE];
+            System.arraycopy(record, 0, key, 0, SHA_SIZE);
+            insertSlot(key, offset);
+
+            offset += RECORD_HEADER_SIZE + record.length;
+        }
+
+        dataChannel.truncate(offset);
+        dataLength = offset;
+        writeIndexHeader();
+    }
+
+    private void evict() throws IOException {
+        ArrayList<Long> offsets = new ArrayList<>();
+        long offset = DATA_HEADER_SIZE;
+        while (offset < dataLength) {
+            offsets.add(offset);
+            offset += RECORD_HEADER_SIZE + readInt(offset);
+        }
+
+        long keepFrom = dataLength;
+        int kept = 0;
+        for (int i = offsets.size() - 1; i >= 0; i--) {
+            if (dataLength - offsets.get(i) > maxSizeBytes / 2 || kept + 1 > capacity / 4) {
+                break;
+            }
+            keepFrom = offsets.get(i);
+            kept++;
+        }
+
+        ByteBuffer keptRecords = ByteBuffer.allocate((int) (dataLength - keepFrom));
+        readFully(keptRecords, keepFrom);
+        writeFully(keptRecords.flip(), DATA_HEADER_SIZE);
+        dataChannel.truncate(DATA_HEADER_SIZE + (dataLength - keepFrom));
+
+        rebuildIndex();
+    }
+
+    private int findSlot(byte[] key) {
+        int mask = capacity - 1;
+        int slot = ByteBuffer.wrap(key).getInt() & mask;
+        byte[] slotSha = new byte[SHA_SIZE];
+
+        while (true) {
+            int position = slotPosition(slot);
+            if (index.getLong(position + SHA_SIZE) == 0) {
+                return slot;
+            }
+
+            index.get(position, slotSha);
+            if (Arrays.equals(slotSha, key)) {
+                return slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void insertSlot(byte[] key, long offset) {
+        int position = slotPosition(findSlot(key));
+        if (index.getLong(position + SHA_SIZE) == 0) {
+            size++;
+        }
+
+        index.put(position, key);
+        index.putLong(position + SHA_SIZE, offset);
+    }
+
+    private int slotPosition(int slot) {
+        return INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private void writeIndexHeader() {
+        index.putInt(0, INDEX_MAGIC);
+        index.putInt(4, VERSION);
+        index.putInt(8, capacity);
+        index.putInt(12, size);
+        index.putLong(16, dataLength);
+    }
+
+    private byte[] readRecord(long offset) throws IOException {
+        byte[] record = readRecordIfValid(offset, dataLength);
+        if (record == null) {
+            throw new IOException("Corrupted commit files cache record at offset " + offset);
+        }
+
+        return record;
+    }
+
+    /**
+     * Reads the record body (SHA + files) at the offset, or returns null if the record is incomplete or its checksum does not match.
+     */
+    private byte[] readRecordIfValid(long offset, long fileLength) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        readFully(header, offset);
+
+        int length = header.getInt(0);
+        if (length < SHA_SIZE + 1 || offset + RECORD_HEADER_SIZE + length > fileLength) {
+            return null;
+        }
+
+        byte[] body = new byte[length];
+        readFully(ByteBuffer.wrap(body), offset + RECORD_HEADER_SIZE);
+
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue() == header.getInt(4) ? body : null;
+    }
+
+    private byte[] encodeRecord(byte[] key, Collection<String> files) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(SHA_SIZE + files.size() * 48);
+        body.writeBytes(key);
+        writeVarInt(body, files.size());
+        for (String file : files) {
+            byte[] bytes = file.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(body, bytes.length);
+            body.writeBytes(bytes);
+        }
+
+        byte[] bodyBytes = body.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bodyBytes);
+
+        return ByteBuffer.allocate(RECORD_HEADER_SIZE + bodyBytes.length).putInt(bodyBytes.length).putInt((int) crc.getValue()).put(bodyBytes).array();
+    }
+
+    private List<String> decodeFiles(byte[] body) {
+        ByteBuffer buffer = ByteBuffer.wrap(body, SHA_SIZE, body.length - SHA_SIZE);
+
+        int count = readVarInt(buffer);
+        ArrayList<String> files = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = readVarInt(buffer);
+            files.add(new String(body, buffer.position(), length, StandardCharsets.UTF_8));
+            buffer.position(buffer.position() + length);
+        }
+
+        return files;
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private int readInt(long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        readFully(buffer, offset);
+        return buffer.getInt(0);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = dataChannel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of the commit files cache");
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            dataChannel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private void disable() {
+        disabled = true;
+    }
+
+    /**
+     * Converts a 40 characters long hex SHA-1 into its 20 bytes, or returns null if the SHA cannot be cached.
+     */
+    private static byte[] toKey(String sha) {
+        if (sha == null || sha.length() != SHA_SIZE * 2) {
+            return null;
+        }
+
+        byte[] key = new byte[SHA_SIZE];
+        for (int i = 0; i < SHA_SIZE; i++) {
+            int high = Character.digit(sha.charAt(2 * i), 16);
+            int low = Character.digit(sha.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            key[i] = (byte) ((high << 4) | low);
+        }
+
+        return key;
+    }
+}
@@ -0,0 +1,253 @@
+package com.github.gitconflictfinder.cache;
+
+import com.github.gitconflictfinder.core.GitConflictResolver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Store of whole conflict results, so a run with nothing changed on either side costs no remote diff at all.
+ *
+ * How does it work?
+ * - a result is keyed by everything it depends on: the repository, the merge base, the remote branchA head,
+ *   the local HEAD and a fingerprint of the local changes (index and worktree included), see {@link Key},
+ * - keeps the least recently used entries in memory up to {@code maxEntries},
+ * - if a file is given, every stored entry (and every hit, as a small touch record) is appended to it,
+ *   so separate runs share the results and the recency,
+ * - on load, the file is compacted (only the newest entries within the limit are kept, in their LRU order),
+ *   a file of another format version is dropped,
+ * - the file is locked (on a {@code .lock} file next to it) while the cache is open: a cache that does not get the lock,
+ *   because another process (or cache) holds it, only loads the file and keeps its own entries in memory,
+ *   so appends of two processes never interleave and a compaction never drops the appends of another one.
+ *
+ * Persistence errors never fail a run - the store just keeps working in memory.
+ *
+ * Used by {@link GitConflictResolver#findConflicts()}.
+ */
+public class ConflictResultCache implements AutoCloseable {
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private static final int FILE_MAGIC = 0x47434652;
+    private static final int VERSION = 1;
+
+    private static final byte PUT = 'P';
+    private static final byte TOUCH = 'T';
+
+    /**
+     * Everything a conflict result depends on. The local fingerprint is a hash of the local changed paths.
+     */
+    public record Key(String repository, String mergeBaseCommit, String remoteHead, String localHead, String localFingerprint) {}
+
+    private final int maxEntries;
+    private final Path file;
+    private final LinkedHashMap<Key, List<String>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private DataOutputStream fileOutput;
+    private FileChannel lockChannel;
+    private FileLock lock;
+
+    public ConflictResultCache() {
+        this.maxEntries = DEFAULT_MAX_ENTRIES;
+        this.file = null;
+    }
+
+    public ConflictResultCache(Path file) throws IOException {
+        this(file, DEFAULT_MAX_ENTRIES);
+    }
+
+    public ConflictResultCache(Path file, int maxEntries) throws IOException {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+
+        this.maxEntries = maxEntries;
+        this.file = file;
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        lockChannel = FileChannel.open(lockFile(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+
+        load();
+        if (lock == null) {
+            // another process owns the file: its entries are used, but nothing is written to it
+            releaseLock();
+            return;
+        }
+
+        try {
+            compact();
+            fileOutput = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        } catch (IOException e) {
+            releaseLock();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the cached conflicted files, or null if the result is not cached.
+     */
+    public synchronized List<String> get(Key key) {
+        List<String> files = entries.get(key);
+        if (files != null && fileOutput != null) {
+            try {
+                fileOutput.writeByte(TOUCH);
+                writeKey(fileOutput, key);
+                fileOutput.flush();
+            } catch (IOException e) {
+                closeQuietly();
+            }
+        }
+
+        return files;
+    }
+
+    public synchronized void put(Key key, List<String> files) {
+        List<String> copy = List.copyOf(files);
+        putInMemory(key, copy);
+
+        if (fileOutput != null) {
+            try {
+                writeEntry(fileOutput, key, copy);
+                fileOutput.flush();
+            } catch (IOException e) {
+                closeQuietly();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (fileOutput != null) {
+            fileOutput.close();
+            fileOutput = null;
+        }
+        releaseLock();
+    }
+
+    private void releaseLock() throws IOException {
+        if (lock != null && lock.isValid()) {
+            lock.release();
+        }
+        if (lockChannel != null) {
+            lockChannel.close();
+            lockChannel = null;
+        }
+    }
+
+    private void putInMemory(Key key, List<String> files) {
+        entries.put(key, files);
+        if (entries.size() > maxEntries) {
+            entries.pollFirstEntry();
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != FILE_MAGIC || input.readInt() != VERSION) {
+                return;
+            }
+
+            while (true) {
+                byte type = input.readByte();
+                Key key = readKey(input);
+                if (type == TOUCH) {
+                    entries.get(key);
+                    continue;
+                }
+                if (type != PUT) {
+                    throw new IOException("Unknown conflict result cache record: " + type);
+                }
+
+                int count = input.readInt();
+                ArrayList<String> files = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    files.add(input.readUTF());
+                }
+                putInMemory(key, List.copyOf(files));
+            }
+        } catch (EOFException e) {
+            // end of the log (or a partially written last entry)
+        } catch (IOException | RuntimeException e) {
+            entries.clear();
+        }
+    }
+
+    private void compact() throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            output.writeInt(FILE_MAGIC);
+            output.writeInt(VERSION);
+            for (Map.Entry<Key, List<String>> entry : entries.entrySet()) {
+                writeEntry(output, entry.getKey(), entry.getValue());
+            }
+        }
+
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * The lock is taken on a file of its own, the compaction replaces the store file (and so would drop a lock on it).
+     */
+    private static Path lockFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".lock");
+    }
+
+    private static void writeEntry(DataOutputStream output, Key key, List<String> files) throws IOException {
+        output.writeByte(PUT);
+        writeKey(output, key);
+        output.writeInt(files.size());
+        for (String file : files) {
+            output.writeUTF(file);
+        }
+    }
+
+    private static void writeKey(DataOutputStream output, Key key) throws IOException {
+        output.writeUTF(key.repository());
+        output.writeUTF(key.mergeBaseCommit());
+        output.writeUTF(key.remoteHead());
+        output.writeUTF(key.localHead());
+        output.writeUTF(key.localFingerprint());
+    }
+
+    private static Key readKey(DataInputStream input) throws IOException {
+        return new Key(input.readUTF(), input.readUTF(), input.readUTF(), input.readUTF(), input.readUTF());
+    }
+
+    private void closeQuietly() {
+        try {
+            fileOutput.close();
+        } catch (IOException ignored) {
+            // the store keeps working in memory
+        }
+        fileOutput = null;
+    }
+}
@@ -0,0 +1,246 @@
+package com.github.gitconflictfinder.cache;
+
+import com.github.gitconflictfinder.clients.GitHubApiClient;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Store of ETags and response bodies for conditional GitHub API requests (If-None-Match).
+ *
+ * How does it work?
+ * - keeps the last ETag, body and {@code Link} header (the page links, empty if none) per URL in memory, the least recently used entries are dropped
+ *   once the bodies take more than {@code maxSizeBytes},
+ * - a body larger than {@code DEFAULT_MAX_ENTRY_BYTES} (e.g. a commit with large patches) is not stored at all, it would only push
+ *   many small entries out, and the client stops copying it once it passes that size,
+ * - if a file is given, every stored entry is also appended to it, so the next run can revalidate instead of downloading,
+ * - on load, the file is compacted (only the newest entry per URL, within the size limit, is kept),
+ *   a file of another format version is dropped,
+ * - the file is locked (on a {@code .lock} file next to it) while the store is open: a store that does not get the lock,
+ *   because another process (or store) holds it, only loads the file and keeps its own entries in memory,
+ *   so appends of two processes never interleave and a compaction never drops the appends of another one.
+ *
+ * Persistence errors never fail a request - the store just keeps working in memory.
+ *
+ * Used by {@link GitHubApiClient}.
+ */
+public class ETagStore implements AutoCloseable {
+    public static final long DEFAULT_MAX_SIZE_BYTES = 32L * 1024 * 1024;
+    public static final int DEFAULT_MAX_ENTRY_BYTES = 1024 * 1024;
+
+    public record Entry(String etag, String links, byte[] body) {}
+
+    private static final int FILE_MAGIC = 0x47434645;
+    private static final int VERSION = 2;
+
+    private final long maxSizeBytes;
+    private final int maxEntryBytes;
+    private final Path file;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long sizeBytes;
+    private DataOutputStream fileOutput;
+    private FileChannel lockChannel;
+    private FileLock lock;
+
+    public ETagStore() {
+        this.maxSizeBytes = DEFAULT_MAX_SIZE_BYTES;
+        this.maxEntryBytes = DEFAULT_MAX_ENTRY_BYTES;
+        this.file = null;
+    }
+
+    public ETagStore(Path file) throws IOException {
+        this(file, DEFAULT_MAX_SIZE_BYTES);
+    }
+
+    public ETagStore(Path file, long maxSizeBytes) throws IOException {
+        this.maxSizeBytes = maxSizeBytes;
+        this.maxEntryBytes = (int) Math.min(DEFAULT_MAX_ENTRY_BYTES, maxSizeBytes);
+        this.file = file;
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        lockChannel = FileChannel.open(lockFile(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+
+        load();
+        if (lock == null) {
+            // another process owns the file: its entries are used, but nothing is written to it
+            releaseLock();
+            return;
+        }
+
+        try {
+            compact();
+            fileOutput = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        } catch (IOException e) {
+            releaseLock();
+            throw e;
+        }
+    }
+
+    public void put(String url, String etag, byte[] body) {
+        put(url, etag, "", body);
+    }
+
+    public synchronized Entry get(String url) {
+        return entries.get(url);
+    }
+
+    /**
+     * Bodies larger than this are not stored, so the client stops recording them once they pass it.
+     */
+    public int getMaxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    public synchronized void put(String url, String etag, String links, byte[] body) {
+        if (body.length > maxEntryBytes) {
+            remove(url);
+            return;
+        }
+
+        Entry entry = new Entry(etag, links, body);
+        putInMemory(url, entry);
+
+        if (fileOutput != null) {
+            try {
+                writeEntry(fileOutput, url, entry);
+                fileOutput.flush();
+            } catch (IOException e) {
+                closeQuietly();
+            }
+        }
+    }
+
+    /**
+     * Drops the entry of the URL, e.g. when its new body is too large to store, so its outdated ETag is not sent again.
+     * Only the memory is updated, an entry loaded again from the file is at worst revalidated with a 200.
+     */
+    public synchronized void remove(String url) {
+        Entry previous = entries.remove(url);
+        if (previous != null) {
+            sizeBytes -= previous.body().length;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (fileOutput != null) {
+            fileOutput.close();
+            fileOutput = null;
+        }
+        releaseLock();
+    }
+
+    private void releaseLock() throws IOException {
+        if (lock != null && lock.isValid()) {
+            lock.release();
+        }
+        if (lockChannel != null) {
+            lockChannel.close();
+            lockChannel = null;
+        }
+    }
+
+    private void putInMemory(String url, Entry entry) {
+        Entry previous = entries.put(url, entry);
+        if (previous != null) {
+            sizeBytes -= previous.body().length;
+        }
+        sizeBytes += entry.body().length;
+
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (sizeBytes > maxSizeBytes && eldest.hasNext()) {
+            sizeBytes -= eldest.next().getValue().body().length;
+            eldest.remove();
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != FILE_MAGIC || input.readInt() != VERSION) {
+                return;
+            }
+
+            while (true) {
+                String url = input.readUTF();
+                String etag = input.readUTF();
+                String links = input.readUTF();
+                byte[] body = new byte[input.readInt()];
+                input.readFully(body);
+
+                putInMemory(url, new Entry(etag, links, body));
+            }
+        } catch (EOFException e) {
+            // end of the log (or a partially written last entry)
+        } catch (IOException | RuntimeException e) {
+            entries.clear();
+            sizeBytes = 0;
+        }
+    }
+
+    private void compact() throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            output.writeInt(FILE_MAGIC);
+            output.writeInt(VERSION);
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                writeEntry(output, entry.getKey(), entry.getValue());
+            }
+        }
+
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * The lock is taken on a file of its own, the compaction replaces the store file (and so would drop a lock on it).
+     */
+    private static Path lockFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".lock");
+    }
+
+    private static void writeEntry(DataOutputStream output, String url, Entry entry) throws IOException {
+        output.writeUTF(url);
+        output.writeUTF(entry.etag());
+        output.writeUTF(entry.links());
+        output.writeInt(entry.body().length);
+        output.write(entry.body());
+    }
+
+    private void closeQuietly() {
+        try {
+            fileOutput.close();
+        } catch (IOException ignored) {
+            // the store keeps working in memory
+        }
+        fileOutput = null;
+    }
+}
@@ -0,0 +1,197 @@
+package com.github.gitconflictfinder.clients;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A long-running {@code git cat-file --batch-check} (or {@code --batch}) process for one repository.
+ *
+ * How does it work?
+ * - the process is started once and kept open,
+ * - every request is one revision written as a line to its stdin,
+ * - every answer is read from its stdout ({@code <sha> <type> <size>}, followed by the object content in the {@code --batch} mode),
+ * - many revisions can be pipelined: they are written by a separate virtual thread while the answers are read,
+ *   so neither side blocks on a full pipe.
+ *
+ * Requests are serialized with a lock (not a monitor, so a virtual thread waiting for git does not pin its carrier),
+ * so one process can be shared by many threads.
+ *
+ * Used by {@link GitCommandClient} in the persistent-process mode.
+ */
+class GitCatFileProcess implements AutoCloseable {
+    private final Process process;
+    private final OutputStream stdin;
+    private final InputStream stdout;
+    private final boolean withContent;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    GitCatFileProcess(File repoDirectory, boolean withContent) throws IOException {
+        ProcessBuilder builder = new ProcessBuilder("git", "cat-file", withContent ? "--batch" : "--batch-check");
+        builder.directory(repoDirectory);
+        builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+
+        this.process = builder.start();
+        this.stdin = new BufferedOutputStream(process.getOutputStream());
+        this.stdout = new BufferedInputStream(process.getInputStream());
+        this.withContent = withContent;
+    }
+
+    boolean isAlive() {
+        return process.isAlive();
+    }
+
+    /**
+     * Returns the object SHA of the revision, or null if the revision does not exist.
+     */
+    String resolve(String revision) throws IOException {
+        lock.lock();
+        try {
+            writeRequest(revision);
+            stdin.flush();
+
+            return readAnswer();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Resolves all revisions in one pipelined round trip. Missing revisions are returned as null.
+     */
+    List<String> resolveAll(List<String> revisions) throws IOException {
+        for (String revision : revisions) {
+            checkRevision(revision);
+        }
+
+        lock.lock();
+        try {
+            return pipeline(revisions);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<String> pipeline(List<String> revisions) throws IOException {
+        IOException[] writeError = new IOException[1];
+        Thread writer = Thread.startVirtualThread(() -> {
+            try {
+                for (String revision : revisions) {
+                    writeRequest(revision);
+                }
+                stdin.flush();
+            } catch (IOException e) {
+                writeError[0] = e;
+            }
+        });
+
+        ArrayList<String> shas = new ArrayList<>(revisions.size());
+        try {
+            for (int i = 0; i < revisions.size(); i++) {
+                shas.add(readAnswer());
+            }
+            writer.join();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while resolving revisions", e);
+        }
+
+        if (writeError[0] != null) {
+            throw writeError[0];
+        }
+
+        return shas;
+    }
+
+    /**
+     * Returns the raw content of the object (only in the {@code --batch} mode), or null if it does not exist.
+     */
+    byte[] readObject(String revision) throws IOException {
+        if (!withContent) {
+            throw new IllegalStateException("The process was started without --batch");
+        }
+
+        lock.lock();
+        try {
+            return readContent(revision);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private byte[] readContent(String revision) throws IOException {
+        writeRequest(revision);
+        stdin.flush();
+
+        String header = readLine();
+        if (header.endsWith(" missing") || header.endsWith(" ambiguous")) {
+            return null;
+        }
+
+        int size = Integer.parseInt(header.substring(header.lastIndexOf(' ') + 1));
+        byte[] content = stdout.readNBytes(size);
+        if (content.length != size || stdout.read() != '\n') {
+            throw new IOException("Unexpected end of the git cat-file output");
+        }
+
+        return content;
+    }
+
+    @Override
+    public void close() {
+        try {
+            stdin.close();
+        } catch (IOException ignored) {
+            // the process is destroyed anyway
+        }
+        process.destroy();
+    }
+
+    private void writeRequest(String revision) throws IOException {
+        checkRevision(revision);
+        stdin.write(revision.getBytes(StandardCharsets.UTF_8));
+        stdin.write('\n');
+    }
+
+    private String readAnswer() throws IOException {
+        String header = readLine();
+        if (header.endsWith(" missing") || header.endsWith(" ambiguous")) {
+            return null;
+        }
+
+        if (withContent) {
+            long size = Long.parseLong(header.substring(header.lastIndexOf(' ') + 1));
+            stdout.skipNBytes(size + 1);
+        }
+
+        return header.substring(0, header.indexOf(' '));
+    }
+
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        int b;
+        while ((b = stdout.read()) != '\n') {
+            if (b < 0) {
+                throw new IOException("git cat-file stopped unexpectedly");
+            }
+            line.write(b);
+        }
+
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void checkRevision(String revision) {
+        if (revision.isEmpty() || revision.indexOf('\n') >= 0) {
+            throw new IllegalArgumentException("Invalid revision: " + revision);
+        }
+    }
+}
@@ -1,37 +1,87 @@
 package com.github.gitconflictfinder.clients;
 
 import com.github.gitconflictfinder.core.GitConflictResolver;
+import com.github.gitconflictfinder.instrumentation.Instrumentation;
+import com.github.gitconflictfinder.parsers.HunkParser;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 
 /**
  * Client responsible for executing Git commands on the local file system.
  *
  * How does it work?
- * - runs the provided shell command in the given repo directory,
+ * - runs git directly with the given arguments (no shell in between, so nothing can be injected into the command),
+ * - at most {@code maxProcesses} git processes run at the same time (the rest wait for a free slot),
+ * - in the persistent-process mode, keeps a {@code git cat-file} process per repository open
+ *   and sends revision lookups and object reads to it, instead of starting a new process every time,
+ * - remembers which directories are git repositories, so the file system is checked only once per path,
+ * - streams the changed paths ({@code git diff -z}) one by one to a consumer, through one reusable buffer,
+ *   so even hundreds of thousands of paths need constant memory (and names with newlines or non-ASCII characters stay intact),
+ * - streams the changed line ranges ({@code git diff -U0}) of the given files to a {@link HunkParser.HunkConsumer},
+ * - reports every git process (command, exit code, running time) to its {@link Instrumentation},
  * - returns the output if the command successful
  * - throws exception (IOException, NullPointerException) if there is an error.
  *
+ * The client should be closed when it is no longer needed, so the persistent processes are stopped.
+ *
  * Used by {@link GitConflictResolver} to compare local file changes.
  */
-public class GitCommandClient {
-    public GitCommandClient() {}
+public class GitCommandClient implements AutoCloseable {
+    public static final int DEFAULT_MAX_PROCESSES = Math.max(2, Runtime.getRuntime().availableProcessors());
 
-    public String runCommand(String command, String localRepoPath) throws IOException, InterruptedException {
-        if (localRepoPath == null || localRepoPath.isEmpty()) {
-            throw new NullPointerException("localRepoPath is null");
-        }
+    private static final int PATH_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_PATHS_PER_COMMAND = 1000;
 
-        File repoDirectory = new File(localRepoPath).getAbsoluteFile();
+    private final boolean persistentProcesses;
+    private final Semaphore processSlots;
+    private final Map<String, File> gitRepoCache = new ConcurrentHashMap<>();
+    private final Map<File, GitCatFileProcess> batchCheckProcesses = new ConcurrentHashMap<>();
+    private final Map<File, GitCatFileProcess> batchProcesses = new ConcurrentHashMap<>();
+    private volatile Instrumentation instrumentation = Instrumentation.disabled();
 
-        if (!isGitRepo(repoDirectory)) {
-            throw new IOException("The local repository is not a git repo");
-        }
+    public GitCommandClient() {
+        this(false);
+    }
+
+    public GitCommandClient(boolean persistentProcesses) {
+        this(persistentProcesses, DEFAULT_MAX_PROCESSES);
+    }
+
+    public GitCommandClient(boolean persistentProcesses, int maxProcesses) {
+        this.persistentProcesses = persistentProcesses;
+        this.processSlots = new Semaphore(maxProcesses);
+    }
+
+    public Instrumentation getInstrumentation() {
+        return instrumentation;
+    }
+
+    public void setInstrumentation(Instrumentation instrumentation) {
+        this.instrumentation = Instrumentation.orDisabled(instrumentation);
+    }
+
+    /**
+     * Runs the command through the shell. Prefer {@link #runGitCommand(String, String...)}, which does not start a shell.
+     */
+    public String runCommand(String command, String localRepoPath) throws IOException, InterruptedException {
+        File repoDirectory = getRepoDirectory(localRepoPath);
 
         boolean isWindows = System.getProperty("os.name").toLowerCase().startsWith("windows");
         List<String> shellCommand = isWindows ? Arrays.asList("cmd.exe", "/c", command) : Arrays.asList("bash", "-c", command);
@@ -58,6 +108,148 @@ public class GitCommandClient {
         return output.toString().trim();
     }
 
+    /**
+     * Runs git with the given arguments (without a shell) and returns its trimmed output.
+     */
+    public String runGitCommand(String localRepoPath, String... args) throws IOException, InterruptedException {
+        GitResult result = executeGit(getRepoDirectory(localRepoPath), args);
+        if (result.exitCode() != 0) {
+            throw new IOException("git " + args[0] + " failed with exit code " + result.exitCode() + ": " + result.error().trim());
+        }
+
+        return result.output().trim();
+    }
+
+    public String getMergeBase(String localRepoPath, String revisionA, String revisionB) throws IOException, InterruptedException {
+        return runGitCommand(localRepoPath, "merge-base", checkRevision(revisionA), checkRevision(revisionB));
+    }
+
+    /**
+     * Returns the files changed in the working tree since the given commit.
+     */
+    public ArrayList<String> getChangedFiles(String localRepoPath, String fromCommit) throws IOException, InterruptedException {
+        ArrayList<String> files = new ArrayList<>();
+        forEachChangedFile(localRepoPath, fromCommit, files::add);
+        return files;
+    }
+
+    /**
+     * Returns the files changed between the two commits.
+     */
+    public ArrayList<String> getChangedFiles(String localRepoPath, String fromCommit, String toCommit) throws IOException, InterruptedException {
+        ArrayList<String> files = new ArrayList<>();
+        forEachChangedFile(localRepoPath, fromCommit, toCommit, files::add);
+        return files;
+    }
+
+    /**
+     * Passes every file changed in the working tree since the given commit to the consumer, as soon as git prints it.
+     */
+    public void forEachChangedFile(String localRepoPath, String fromCommit, Consumer<String> consumer) throws IOException, InterruptedException {
+        forEachChangedPath(localRepoPath, fromCommit, path -> consumer.accept(path.toString()));
+    }
+
+    /**
+     * Like {@link #forEachChangedFile(String, String, Consumer)}, but passes every path as a reused char buffer
+     * (only valid during the call of the consumer).
+     */
+    public void forEachChangedPath(String localRepoPath, String fromCommit, Consumer<CharSequence> consumer) throws IOException, InterruptedException {
+        streamPaths(getRepoDirectory(localRepoPath), consumer, "diff", "-z", "--name-only", checkRevision(fromCommit));
+    }
+
+    /**
+     * Passes every file changed between the two commits to the consumer, as soon as git prints it.
+     */
+    public void forEachChangedFile(String localRepoPath, String fromCommit, String toCommit, Consumer<String> consumer) throws IOException, InterruptedException {
+        forEachChangedPath(localRepoPath, fromCommit, toCommit, path -> consumer.accept(path.toString()));
+    }
+
+    /**
+     * Like {@link #forEachChangedFile(String, String, String, Consumer)}, but passes every path as a reused char buffer,
+     * so no string is created per path (e.g. for looking the paths up in a {@code PathSet}).
+     * The buffer is only valid during the call of the consumer.
+     */
+    public void forEachChangedPath(String localRepoPath, String fromCommit, String toCommit, Consumer<CharSequence> consumer) throws IOException, InterruptedException {
+        streamPaths(getRepoDirectory(localRepoPath), consumer, "diff", "-z", "--name-only", checkRevision(fromCommit), checkRevision(toCommit));
+    }
+
+    /**
+     * Passes the changed line ranges of the given files (in the working tree since the given commit) to the consumer.
+     * The ranges are in the coordinates of the given commit. Long path lists are split over several git processes.
+     */
+    public void forEachHunk(String localRepoPath, String fromCommit, Collection<String> paths, HunkParser.HunkConsumer consumer) throws IOException, InterruptedException {
+        File repoDirectory = getRepoDirectory(localRepoPath);
+        checkRevision(fromCommit);
+
+        List<String> pathList = new ArrayList<>(paths);
+        for (int from = 0; from < pathList.size(); from += MAX_PATHS_PER_COMMAND) {
+            List<String> chunk = pathList.subList(from, Math.min(pathList.size(), from + MAX_PATHS_PER_COMMAND));
+
+            // the prefixes are pinned for the parser (whatever diff.noprefix or diff.srcPrefix say), textconv would shift the lines
+            List<String> args = new ArrayList<>(chunk.size() + 10);
+            args.addAll(List.of("diff", "-U0", "--no-color", "--no-ext-diff", "--no-textconv", "--no-renames", "--src-prefix=a/", "--dst-prefix=b/", fromCommit, "--"));
+            args.addAll(chunk);
+
+            streamOutput(repoDirectory, output -> HunkParser.parseUnifiedDiff(output, consumer), args.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * Returns the commit SHA the revision points to, or null if there is no such commit.
+     */
+    public String resolveCommit(String localRepoPath, String revision) throws IOException, InterruptedException {
+        File repoDirectory = getRepoDirectory(localRepoPath);
+        checkRevision(revision);
+
+        if (persistentProcesses) {
+            return getCatFileProcess(repoDirectory, false).resolve(revision + "^{commit}");
+        }
+
+        GitResult result = executeGit(repoDirectory, "rev-parse", "--verify", "--quiet", revision + "^{commit}");
+        return result.exitCode() == 0 ? result.output().trim() : null;
+    }
+
+    /**
+     * Resolves many revisions at once (pipelined in the persistent-process mode). Missing commits are returned as null.
+     */
+    public List<String> resolveCommits(String localRepoPath, List<String> revisions) throws IOException, InterruptedException {
+        if (!persistentProcesses) {
+            ArrayList<String> shas = new ArrayList<>(revisions.size());
+            for (String revision : revisions) {
+                shas.add(resolveCommit(localRepoPath, revision));
+            }
+            return shas;
+        }
+
+        List<String> commitRevisions = revisions.stream().map(revision -> checkRevision(revision) + "^{commit}").toList();
+        return getCatFileProcess(getRepoDirectory(localRepoPath), false).resolveAll(commitRevisions);
+    }
+
+    /**
+     * Returns the author time of the commit (in seconds since the epoch).
+     */
+    public long getCommitTime(String localRepoPath, String sha) throws IOException, InterruptedException {
+        File repoDirectory = getRepoDirectory(localRepoPath);
+        checkRevision(sha);
+
+        String timestamp;
+        if (persistentProcesses) {
+            byte[] commit = getCatFileProcess(repoDirectory, true).readObject(sha + "^{commit}");
+            if (commit == null) {
+                throw new IOException("Could not find the commit " + sha);
+            }
+            timestamp = parseAuthorTime(new String(commit, StandardCharsets.UTF_8));
+        } else {
+            timestamp = runGitCommand(localRepoPath, "show", "-s", "--format=%at", sha);
+        }
+
+        try {
+            return Long.parseLong(timestamp.trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Could not get the date of the commit " + sha, e);
+        }
+    }
+
     public boolean isGitRepo(File repoDirectory) {
         if (repoDirectory == null || !repoDirectory.exists()) {
             return false;
@@ -66,4 +258,209 @@ public class GitCommandClient {
         File gitDir = new File(repoDirectory, ".git");
         return gitDir.exists() && gitDir.isDirectory();
     }
+
+    @Override
+    public void close() {
+        batchCheckProcesses.values().forEach(GitCatFileProcess::close);
+        batchCheckProcesses.clear();
+        batchProcesses.values().forEach(GitCatFileProcess::close);
+        batchProcesses.clear();
+    }
+
+    protected File getRepoDirectory(String localRepoPath) throws IOException {
+        if (localRepoPath == null || localRepoPath.isEmpty()) {
+            throw new NullPointerException("localRepoPath is null");
+        }
+
+        File cached = gitRepoCache.get(localRepoPath);
+        if (cached != null) {
+            return cached;
+        }
+
+        File repoDirectory = new File(localRepoPath).getAbsoluteFile();
+        if (!isGitRepo(repoDirectory)) {
+            throw new IOException("The local repository is not a git repo");
+        }
+
+        gitRepoCache.put(localRepoPath, repoDirectory);
+        return repoDirectory;
+    }
+
+    /**
+     * Rejects a revision git would read as an option (e.g. a branch named {@code --output=...}), as the revisions come from the user.
+     * Refs cannot start with a dash, so no real revision is rejected.
+     */
+    private static String checkRevision(String revision) {
+        if (revision == null || revision.isEmpty() || revision.startsWith("-")) {
+            throw new IllegalArgumentException("Invalid revision: " + revision);
+        }
+        return revision;
+    }
+
+    private GitCatFileProcess getCatFileProcess(File repoDirectory, boolean withContent) throws IOException {
+        Map<File, GitCatFileProcess> processes = withContent ? batchProcesses : batchCheckProcesses;
+
+        synchronized (processes) {
+            GitCatFileProcess process = processes.get(repoDirectory);
+            if (process == null || !process.isAlive()) {
+                process = new GitCatFileProcess(repoDirectory, withContent);
+                processes.put(repoDirectory, process);
+            }
+            return process;
+        }
+    }
+
+    private record GitResult(int exitCode, String output, String error) {}
+
+    private GitResult executeGit(File repoDirectory, String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(args.length + 1);
+        command.add("git");
+        command.addAll(Arrays.asList(args));
+
+        processSlots.acquire();
+        try {
+            long start = System.nanoTime();
+            ProcessBuilder builder = new ProcessBuilder(command);
+            builder.directory(repoDirectory);
+
+            Process process = builder.start();
+            process.getOutputStream().close();
+
+            byte[][] error = new byte[1][];
+            Thread errorReader = Thread.startVirtualThread(() -> error[0] = readQuietly(process.getErrorStream()));
+
+            byte[] output = process.getInputStream().readAllBytes();
+            int exitCode = process.waitFor();
+            errorReader.join();
+            instrumentation.gitCommandFinished("git " + args[0], exitCode, System.nanoTime() - start);
+
+            return new GitResult(exitCode, new String(output, StandardCharsets.UTF_8), new String(error[0], StandardCharsets.UTF_8));
+
+        } finally {
+            processSlots.release();
+        }
+    }
+
+    private interface OutputReader {
+        void read(InputStream output) throws IOException;
+    }
+
+    /**
+     * Runs git and passes every NUL-terminated path of its output to the consumer.
+     * The output is read into one buffer, which only grows if a single path does not fit into it,
+     * and every path is decoded into one reused char buffer.
+     */
+    private void streamPaths(File repoDirectory, Consumer<CharSequence> consumer, String... args) throws IOException, InterruptedException {
+        streamOutput(repoDirectory, output -> {
+            PathDecoder decoder = new PathDecoder();
+            byte[] buffer = new byte[PATH_BUFFER_SIZE];
+            int length = 0;
+            int read;
+            while ((read = output.read(buffer, length, buffer.length - length)) >= 0) {
+                int end = length + read;
+                int start = 0;
+                for (int i = length; i < end; i++) {
+                    if (buffer[i] == 0) {
+                        consumer.accept(decoder.decode(buffer, start, i - start));
+                        start = i + 1;
+                    }
+                }
+
+                length = end - start;
+                System.arraycopy(buffer, start, buffer, 0, length);
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+
+            if (length > 0) {
+                consumer.accept(decoder.decode(buffer, 0, length));
+            }
+        }, args);
+    }
+
+    /**
+     * Decodes UTF-8 paths into one reused char buffer (malformed bytes are replaced, like {@code new String(bytes, UTF_8)} does).
+     */
+    private static class PathDecoder {
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private CharBuffer chars = CharBuffer.allocate(1024);
+
+        CharBuffer decode(byte[] bytes, int offset, int length) {
+            if (chars.capacity() < length) {
+                chars = CharBuffer.allocate(Math.max(length, chars.capacity() * 2));
+            }
+
+            chars.clear();
+            decoder.reset();
+            decoder.decode(ByteBuffer.wrap(bytes, offset, length), chars, true);
+            decoder.flush(chars);
+            return chars.flip();
+        }
+    }
+
+    /**
+     * Runs git and hands its standard output to the reader while the process is still running.
+     */
+    private void streamOutput(File repoDirectory, OutputReader reader, String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(args.length + 1);
+        command.add("git");
+        command.addAll(Arrays.asList(args));
+
+        processSlots.acquire();
+        Process process = null;
+        try {
+            long start = System.nanoTime();
+            ProcessBuilder builder = new ProcessBuilder(command);
+            builder.directory(repoDirectory);
+
+            process = builder.start();
+            process.getOutputStream().close();
+
+            InputStream errorStream = process.getErrorStream();
+            byte[][] error = new byte[1][];
+            Thread errorReader = Thread.startVirtualThread(() -> error[0] = readQuietly(errorStream));
+
+            try (InputStream output = process.getInputStream()) {
+                reader.read(output);
+            }
+
+            int exitCode = process.waitFor();
+            errorReader.join();
+            instrumentation.gitCommandFinished("git " + args[0], exitCode, System.nanoTime() - start);
+            if (exitCode != 0) {
+                throw new IOException("git " + args[0] + " failed with exit code " + exitCode + ": " + new String(error[0], StandardCharsets.UTF_8).trim());
+            }
+
+        } finally {
+            if (process != null && process.isAlive()) {
+                process.destroy();
+            }
+            processSlots.release();
+        }
+    }
+
+    private static byte[] readQuietly(InputStream stream) {
+        try (stream) {
+            return stream.readAllBytes();
+        } catch (IOException e) {
+            return new byte[0];
+        }
+    }
+
+    private static String parseAuthorTime(String commit) {
+        for (String line : commit.split("\n")) {
+            if (line.isEmpty()) {
+                break;
+            }
+            if (line.startsWith("author ")) {
+                String[] parts = line.split(" ");
+                return parts[parts.length - 2];
+            }
+        }
+
+        return "";
+    }
 }
@@ -1,14 +1,29 @@
 package com.github.gitconflictfinder.clients;
 
+import com.github.gitconflictfinder.cache.ETagStore;
+import com.github.gitconflictfinder.core.AsyncTasks;
 import com.github.gitconflictfinder.core.GitConflictResolver;
 import com.github.gitconflictfinder.exceptions.GitHubApiException;
 import com.github.gitconflictfinder.core.GitHubRepoContext;
+import com.github.gitconflictfinder.instrumentation.Instrumentation;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 /**
  * Client responsible for managing GitHub API calls to fetch remote file data.
@@ -17,107 +32,501 @@ import java.net.http.HttpResponse;
  * How does it work?
  * - tries accessing the repo file data,
  * - if the repo is private, tries accessing again, but with access token,
+ * - paces every request with the {@link RateLimitGovernor} of the access token (based on the rate limit headers),
+ * - with a {@link TokenPool}, sends every request (and every retry) with the token that has the most headroom left,
+ * - sends every request with If-None-Match when an ETag is stored for the URL, a 304 response is served from the {@link ETagStore},
+ *   bodies of commits and trees fetched by SHA (immutable, cached by their callers) and oversized bodies are not recorded,
+ * - can send the GET requests asynchronously ({@link HttpClient#sendAsync}), waiting for the rate limit without blocking a thread,
+ * - walks paginated endpoints by their {@code Link} header ({@link JsonPages}), the header is stored with the ETag so a 304 keeps it,
+ * - can also POST queries to the GraphQL API (with its own rate limit governor, GraphQL has a separate point budget),
+ * - reports every request (waiting time, body bytes and reading time, 304 cache hits, retries) to its {@link Instrumentation},
  * - returns the JSON response if the access is successful
  * - throws {@link GitHubApiException} if there is an error.
  *
+ * The client is thread-safe, so one instance can be shared by concurrent fetches. It keeps no static state besides
+ * the shared {@link HttpClient}: whether the token is valid belongs to its {@link GitHubCredentials}, so the clients
+ * of many finders (with different tokens and repositories) can run concurrently in one JVM.
+ *
  * Used by {@link GitConflictResolver} to compare remote file changes.
  */
 public class GitHubApiClient {
+    /**
+     * One HTTP client for all instances, so concurrent finders share its connection pool and selector thread.
+     */
+    private static final HttpClient SHARED_CLIENT = HttpClient.newHttpClient();
+
     private final HttpClient client;
     private final GitHubRepoContext context;
+    private final ETagStore eTagStore;
+    private final GitHubCredentials credentials;
 
-    public static Boolean isAccessTokenValid = null;
-    public static int requestCnt = 0;
+    private final AtomicLong revalidatedRequestCnt = new AtomicLong();
+    private final AtomicLong transferredRequestCnt = new AtomicLong();
+    private volatile Instrumentation instrumentation = Instrumentation.disabled();
+    private volatile Duration maxRateLimitWait = RateLimitGovernor.DEFAULT_MAX_WAIT;
+
+    private static final int MAX_RATE_LIMIT_RETRIES = 3;
+    private static final Executor VALIDATION_EXECUTOR = task -> Thread.ofVirtual().name("github-token-validation").start(task);
+    private static final Pattern CONTENT_ADDRESSED_API = Pattern.compile("/(commits|git/trees)/[0-9a-f]{40}([?/]|$)");
 
     public GitHubApiClient(GitHubRepoContext gitHubRepoContext) {
-        this.client = HttpClient.newHttpClient();
+        this(gitHubRepoContext, new ETagStore());
+    }
+
+    public GitHubApiClient(GitHubRepoContext gitHubRepoContext, ETagStore eTagStore) {
+        this(gitHubRepoContext, eTagStore, GitHubCredentials.of(gitHubRepoContext));
+    }
+
+    /**
+     * With a token pool, the access token of the context is not used, every request takes a token from the pool.
+     */
+    public GitHubApiClient(GitHubRepoContext gitHubRepoContext, ETagStore eTagStore, TokenPool tokenPool) {
+        this(gitHubRepoContext, eTagStore, GitHubCredentials.of(tokenPool));
+    }
+
+    /**
+     * Clients passed the same credentials validate them only once, e.g. one token used for many repositories.
+     */
+    public GitHubApiClient(GitHubRepoContext gitHubRepoContext, ETagStore eTagStore, GitHubCredentials credentials) {
+        this.client = SHARED_CLIENT;
         this.context = gitHubRepoContext;
+        this.eTagStore = eTagStore;
+        this.credentials = credentials;
     }
 
     public GitHubRepoContext getContext() {
         return context;
     }
 
+    public GitHubCredentials getCredentials() {
+        return credentials;
+    }
+
+    public Instrumentation getInstrumentation() {
+        return instrumentation;
+    }
+
+    public void setInstrumentation(Instrumentation instrumentation) {
+        this.instrumentation = Instrumentation.orDisabled(instrumentation);
+    }
+
+    /**
+     * Sets how long a request of this client may wait for the rate limit before failing, other clients of the token keep their own.
+     */
+    public void setMaxRateLimitWait(Duration maxRateLimitWait) {
+        this.maxRateLimitWait = maxRateLimitWait;
+    }
+
     public String fetchJsonData(String api) throws GitHubApiException {
-        if (isAccessTokenValid) {
-            return fetchWithAccessToken(api);
+        try (InputStream body = fetchJsonStream(api)) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+
+        } catch (IOException e) {
+            throw new GitHubApiException("Error reading the data from the GitHub API.", e);
         }
+    }
 
-        return fetchWithoutAccessToken(api);
+    /**
+     * Returns the response body as a stream, so large payloads can be parsed without holding them in memory.
+     * The credentials are validated first, if that did not happen yet. The caller must close the stream.
+     */
+    public InputStream fetchJsonStream(String api) throws GitHubApiException {
+        return send(api, validateAccessToken()).body();
     }
 
-    private String fetchWithoutAccessToken(String api) throws GitHubApiException {
-        if (requestCnt > 60) {
-            throw new GitHubApiException("Rate limit exceeded. The maximum number of requests without a valid access token is 60.");
+    /**
+     * Sends a conditional GET request, paced by the {@link RateLimitGovernor} of the token.
+     * If the stored ETag is still valid (304 Not Modified), the stored body is returned.
+     * Secondary rate limit responses are retried after the time GitHub asks for.
+     */
+    private JsonPages.Page send(String api, boolean isAuthenticated) throws GitHubApiException {
+        Instrumentation.Request measured = instrumentation.startRequest("GET", api);
+
+        for (int attempt = 0; ; attempt++) {
+            String authorizationHeader = isAuthenticated ? nextAuthorizationHeader() : null;
+            RateLimitGovernor governor = governor(authorizationHeader);
+            governor.acquire(maxRateLimitWait);
+
+            ETagStore.Entry stored = eTagStore.get(api);
+            HttpResponse<InputStream> response = sendConditional(api, authorizationHeader, stored);
+            measured.responded(response.statusCode());
+            governor.update(response.headers());
+
+            if (governor.retryDelay(response.statusCode(), response.headers(), attempt) == null) {
+                return handleResponse(api, response, stored, measured);
+            }
+
+            closeQuietly(response.body());
+            measured.retried();
+            if (attempt == MAX_RATE_LIMIT_RETRIES) {
+                throw new GitHubApiException("Rate limit exceeded. GitHub kept rejecting the request after " + MAX_RATE_LIMIT_RETRIES + " retries.");
+            }
         }
+    }
+
+    /**
+     * Like {@link #fetchJsonStream(String)}, but sends the request with {@link HttpClient#sendAsync}, so no thread waits for the response.
+     * The future completes with the body stream once the headers arrived (reading the body may still block).
+     * Cancelling the future cancels the request (or the wait for the rate limit).
+     * Like the blocking version, the credentials are validated first if that did not happen yet.
+     */
+    public CompletableFuture<InputStream> fetchJsonStreamAsync(String api) {
+        CompletableFuture<JsonPages.Page> page = AsyncTasks.thenCompose(validateAccessTokenAsync(),
+                isAuthenticated -> sendAsync(api, isAuthenticated, instrumentation.startRequest("GET", api), 0));
+        return AsyncTasks.thenCompose(page, sent -> CompletableFuture.completedFuture(sent.body()));
+    }
+
+    /**
+     * Like {@link #validateAccessToken()}, but the caller does not wait: credentials not validated yet are validated on a virtual thread.
+     */
+    public CompletableFuture<Boolean> validateAccessTokenAsync() {
+        Boolean isValid = credentials.isValid();
+        if (isValid != null) {
+            return CompletableFuture.completedFuture(isValid);
+        }
+
+        return AsyncTasks.supplyInterruptibly(VALIDATION_EXECUTOR, this::validateAccessToken);
+    }
+
+    /**
+     * Returns the pages of a paginated endpoint, starting with the given URL and following the {@code Link} header (see {@link JsonPages}).
+     * The pages are sent asynchronously, so the next ones download while the current one is parsed.
+     * The credentials are validated first, if that did not happen yet. The caller must close the pages and every returned body.
+     */
+    public JsonPages fetchJsonPages(String api) throws GitHubApiException {
+        boolean isAuthenticated = validateAccessToken();
+        return new JsonPages(api, pageApi -> sendAsync(pageApi, isAuthenticated, instrumentation.startRequest("GET", pageApi), 0));
+    }
 
+    private CompletableFuture<JsonPages.Page> sendAsync(String api, boolean isAuthenticated, Instrumentation.Request measured, int attempt) {
+        String authorizationHeader;
         try {
-            HttpResponse<String> response = client.send(
-                HttpRequest.newBuilder().uri(URI.create(api)).GET().build(),
-                HttpResponse.BodyHandlers.ofString()
-            );
+            authorizationHeader = isAuthenticated ? nextAuthorizationHeader() : null;
+        } catch (GitHubApiException e) {
+            return CompletableFuture.failedFuture(e);
+        }
 
-            requestCnt++;
+        RateLimitGovernor governor = governor(authorizationHeader);
+        return AsyncTasks.thenCompose(governor.acquireAsync(maxRateLimitWait), ignored -> {
+            ETagStore.Entry stored = eTagStore.get(api);
+            CompletableFuture<HttpResponse<InputStream>> sent = client.sendAsync(buildConditionalRequest(api, authorizationHeader, stored), HttpResponse.BodyHandlers.ofInputStream());
 
-            if (response.statusCode() == 200) {
-                return response.body();
-            }
+            return AsyncTasks.handleCompose(sent, (response, error) -> {
+                if (error != null) {
+                    return CompletableFuture.failedFuture(new GitHubApiException("Error fetching the data from the GitHub API.", error));
+                }
 
-            throw new GitHubApiException("Unexpected status code: " + response.statusCode() + ".\n\nPlease check if any of these may be the cause of the error:\n1) the repository does not exist,\n2) the repository is private, while no access token was provided,\n3) invalid access token was provided.\n");
+                measured.responded(response.statusCode());
+                governor.update(response.headers());
+
+                try {
+                    if (governor.retryDelay(response.statusCode(), response.headers(), attempt) == null) {
+                        return CompletableFuture.completedFuture(handleResponse(api, response, stored, measured));
+                    }
+
+                    closeQuietly(response.body());
+                    measured.retried();
+                    if (attempt == MAX_RATE_LIMIT_RETRIES) {
+                        throw new GitHubApiException("Rate limit exceeded. GitHub kept rejecting the request after " + MAX_RATE_LIMIT_RETRIES + " retries.");
+                    }
+
+                } catch (GitHubApiException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+
+                return sendAsync(api, isAuthenticated, measured, attempt + 1);
+            });
+        });
+    }
+
+    private HttpResponse<InputStream> sendConditional(String api, String authorizationHeader, ETagStore.Entry stored) throws GitHubApiException {
+        return execute(buildConditionalRequest(api, authorizationHeader, stored));
+    }
+
+    private static HttpRequest buildConditionalRequest(String api, String authorizationHeader, ETagStore.Entry stored) {
+        HttpRequest.Builder request = HttpRequest.newBuilder().uri(URI.create(api)).GET();
+        if (authorizationHeader != null) {
+            request.header("Authorization", authorizationHeader);
+        }
+
+        if (stored != null) {
+            request.header("If-None-Match", stored.etag());
+        }
+
+        return request.build();
+    }
+
+    private HttpResponse<InputStream> execute(HttpRequest request) throws GitHubApiException {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofInputStream());
 
         } catch (IOException | InterruptedException e) {
-            throw new GitHubApiException("Error fetching with access token.", e);
+            throw new GitHubApiException("Error fetching the data from the GitHub API.", e);
         }
     }
 
-    private String fetchWithAccessToken(String api) throws GitHubApiException {
-        if (requestCnt > 5000) {
-            throw new GitHubApiException("Rate limit exceeded. The maximum number of requests with a valid access token is 5000.");
+    /**
+     * Posts a GraphQL request body ({@code {"query": ..., "variables": ...}}) and returns the response as a stream.
+     * The GraphQL API cannot be used without a valid access token. The caller must close the stream.
+     */
+    public InputStream postGraphQL(String requestBody) throws GitHubApiException {
+        if (!Boolean.TRUE.equals(credentials.isValid())) {
+            throw new GitHubApiException("The GitHub GraphQL API requires a valid access token.");
         }
 
-        try {
-            HttpResponse<String> response = client.send(
-                HttpRequest.newBuilder().uri(URI.create(api)).header("Authorization", context.getAuthorizationHeader()).GET().build(),
-                HttpResponse.BodyHandlers.ofString()
-            );
+        Instrumentation.Request measured = instrumentation.startRequest("POST", context.getGraphQLUrl());
+        for (int attempt = 0; ; attempt++) {
+            String authorizationHeader = credentials.nextAuthorizationHeader(context.getGraphQLUrl());
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(context.getGraphQLUrl()))
+                    .header("Authorization", authorizationHeader)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(requestBody, StandardCharsets.UTF_8))
+                    .build();
+
+            // GraphQL has a point budget of its own, so it has a governor of its own
+            RateLimitGovernor governor = RateLimitGovernor.forToken(context.getGraphQLUrl(), authorizationHeader);
+            governor.acquire(maxRateLimitWait);
+
+            HttpResponse<InputStream> response = execute(request);
+            measured.responded(response.statusCode());
+            governor.update(response.headers());
 
-            requestCnt++;
+            if (governor.retryDelay(response.statusCode(), response.headers(), attempt) == null) {
+                if (response.statusCode() == 200) {
+                    transferredRequestCnt.incrementAndGet();
+                    return measured.trackBody(response.body());
+                }
+
+                closeQuietly(response.body());
+                measured.finished(false);
+                throw new GitHubApiException("Unexpected status code from the GraphQL API: " + response.statusCode() + ".");
+            }
+
+            closeQuietly(response.body());
+            measured.retried();
+            if (attempt == MAX_RATE_LIMIT_RETRIES) {
+                throw new GitHubApiException("Rate limit exceeded. GitHub kept rejecting the request after " + MAX_RATE_LIMIT_RETRIES + " retries.");
+            }
+        }
+    }
+
+    private JsonPages.Page handleResponse(String api, HttpResponse<InputStream> response, ETagStore.Entry stored,
+                                          Instrumentation.Request measured) throws GitHubApiException {
+        try {
+            if (response.statusCode() == 304 && stored != null) {
+                response.body().close();
+                revalidatedRequestCnt.incrementAndGet();
+                measured.finished(true);
+                String links = response.headers().firstValue("Link").orElse(stored.links());
+                return new JsonPages.Page(new ByteArrayInputStream(stored.body()), links);
+            }
 
             if (response.statusCode() == 200) {
-                isAccessTokenValid = true;
-                return response.body();
+                transferredRequestCnt.incrementAndGet();
+
+                String links = response.headers().firstValue("Link").orElse("");
+                Optional<String> etag = response.headers().firstValue("ETag");
+                if (etag.isPresent() && !isContentAddressed(api)) {
+                    RecordingInputStream recording = new RecordingInputStream(response.body(), eTagStore.getMaxEntryBytes(),
+                            body -> eTagStore.put(api, etag.get(), links, body), () -> eTagStore.remove(api));
+                    return new JsonPages.Page(measured.trackBody(recording), links);
+                }
+
+                return new JsonPages.Page(measured.trackBody(response.body()), links);
             }
 
+            response.body().close();
+            measured.finished(false);
+
             throw new GitHubApiException("Unexpected status code: " + response.statusCode() + ".\n\nPlease check if any of these may be the cause of the error:\n1) the repository does not exist,\n2) the repository is private, while no access token was provided,\n3) invalid access token was provided.\n");
 
-        } catch (IOException | InterruptedException e) {
-            throw new GitHubApiException("Error fetching with access token.", e);
+        } catch (IOException e) {
+            throw new GitHubApiException("Error fetching the data from the GitHub API.", e);
         }
     }
 
-    public Boolean validateAccessToken() throws GitHubApiException {
-        if (isAccessTokenValid != null) {
-            return isAccessTokenValid;
-        }
+    /**
+     * A commit or tree fetched by its SHA never changes, and its parsed content is kept by the callers
+     * ({@link com.github.gitconflictfinder.cache.CommitFilesCache}, the tree cache of the tree strategy),
+     * so its (often large) body is not recorded for the ETag store.
+     */
+    private static boolean isContentAddressed(String api) {
+        return CONTENT_ADDRESSED_API.matcher(api).find();
+    }
 
-        if (context.getAuthorizationHeader() == null) {
-            isAccessTokenValid = false;
-            return isAccessTokenValid;
+    private String nextAuthorizationHeader() throws GitHubApiException {
+        return credentials.nextAuthorizationHeader(context.getApiBaseUrl());
+    }
+
+    private RateLimitGovernor governor(String authorizationHeader) {
+        return RateLimitGovernor.forToken(context.getApiBaseUrl(), authorizationHeader);
+    }
+
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException ignored) {
+            // the response is dropped anyway
         }
+    }
+
+    public long getRevalidatedRequestCount() {
+        return revalidatedRequestCnt.get();
+    }
 
-            String testApi = "https://api.github.com/user";
+    public long getTransferredRequestCount() {
+        return transferredRequestCnt.get();
+    }
+
+    /**
+     * Validates the credentials once (per {@link GitHubCredentials} instance) and returns the result.
+     */
+    public Boolean validateAccessToken() throws GitHubApiException {
+        return credentials.validate(() -> credentials.getTokenPool() != null ? validateTokenPool() : validateSingleToken());
+    }
+
+    private boolean validateSingleToken() throws GitHubApiException {
+        String authorizationHeader = nextAuthorizationHeader();
+        String testApi = context.getApiBaseUrl() + "/user";
+        RateLimitGovernor governor = governor(authorizationHeader);
+        governor.acquire(maxRateLimitWait);
+        Instrumentation.Request measured = instrumentation.startRequest("GET", testApi);
         try {
             HttpResponse<String> response = client.send(
-                HttpRequest.newBuilder().uri(URI.create(testApi)).header("Authorization", context.getAuthorizationHeader()).GET().build(),
+                HttpRequest.newBuilder().uri(URI.create(testApi)).header("Authorization", authorizationHeader).GET().build(),
                 HttpResponse.BodyHandlers.ofString()
             );
 
-            requestCnt++;
-            isAccessTokenValid = (response.statusCode() == 200);
-            return isAccessTokenValid;
+            measured.responded(response.statusCode());
+            measured.finished(response.body().getBytes(StandardCharsets.UTF_8).length, false);
+            governor.update(response.headers());
+            return response.statusCode() == 200;
 
         } catch (IOException | InterruptedException e) {
             throw new GitHubApiException("Failed to validate the access token", e);
         }
     }
+
+    /**
+     * Checks every token of the pool with {@code /rate_limit}, which costs no budget and accepts GitHub App installation tokens,
+     * so the pool also starts from the real budget of every token. Rejected tokens are removed from the pool.
+     */
+    private boolean validateTokenPool() throws GitHubApiException {
+        String testApi = context.getApiBaseUrl() + "/rate_limit";
+
+        TokenPool tokenPool = credentials.getTokenPool();
+        boolean isAnyTokenValid = false;
+        for (String authorizationHeader : tokenPool.getAuthorizationHeaders()) {
+            Instrumentation.Request measured = instrumentation.startRequest("GET", testApi);
+            try {
+                HttpResponse<String> response = client.send(
+                    HttpRequest.newBuilder().uri(URI.create(testApi)).header("Authorization", authorizationHeader).GET().build(),
+                    HttpResponse.BodyHandlers.ofString()
+                );
+
+                measured.responded(response.statusCode());
+                measured.finished(response.body().getBytes(StandardCharsets.UTF_8).length, false);
+                governor(authorizationHeader).update(response.headers());
+
+                if (response.statusCode() == 200) {
+                    isAnyTokenValid = true;
+                } else {
+                    tokenPool.remove(authorizationHeader);
+                }
+
+            } catch (IOException | InterruptedException e) {
+                throw new GitHubApiException("Failed to validate the access token", e);
+            }
+        }
+
+        return isAnyTokenValid;
+    }
+
+    /**
+     * Passes the body through to the reader and keeps a copy of it.
+     * The copy is handed over only if the whole body was read, so a partially read body is never stored.
+     * Once the body passes {@code maxBytes}, the copy is dropped ({@code onOversized}) and the rest is only passed through.
+     * A body closed before anything was read (e.g. a prefetched page nobody needed) is not downloaded.
+     */
+    private static class RecordingInputStream extends FilterInputStream {
+        private final int maxBytes;
+        private final Consumer<byte[]> onComplete;
+        private final Runnable onOversized;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        private boolean isComplete;
+
+        RecordingInputStream(InputStream body, int maxBytes, Consumer<byte[]> onComplete, Runnable onOversized) {
+            super(body);
+            this.maxBytes = maxBytes;
+            this.onComplete = onComplete;
+            this.onOversized = onOversized;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                complete();
+            } else if (copy != null) {
+                copy.write(b);
+                checkSize();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read < 0) {
+                complete();
+            } else if (copy != null) {
+                copy.write(buffer, offset, read);
+                checkSize();
+            }
+            return read;
+        }
+
+        private void checkSize() {
+            if (copy.size() > maxBytes) {
+                copy = null;
+                isComplete = true;
+                onOversized.run();
+            }
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] buffer = new byte[(int) Math.min(Math.max(n, 0), 8192)];
+            return Math.max(read(buffer, 0, buffer.length), 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * The parsers stop at the end of the JSON value, usually before the stream reported its end,
+         * so the rest (typically nothing or a newline) is read here to record the body.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                byte[] buffer = new byte[8192];
+                while (!isComplete && copy != null && copy.size() > 0 && read(buffer, 0, buffer.length) >= 0) {
+                    // recorded by read()
+                }
+            } finally {
+                super.close();
+            }
+        }
+
+        private void complete() {
+            if (!isComplete) {
+                isComplete = true;
+                onComplete.accept(copy.toByteArray());
+            }
+        }
+    }
 }
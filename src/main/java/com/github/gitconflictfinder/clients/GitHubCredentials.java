@@ -0,0 +1,98 @@
+package com.github.gitconflictfinder.clients;
+
+import com.github.gitconflictfinder.core.GitHubRepoContext;
+import com.github.gitconflictfinder.exceptions.GitHubApiException;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The credentials a {@link GitHubApiClient} sends its requests with, and whether they were found valid.
+ *
+ * How does it work?
+ * - holds one access token (none for a public repository) or a {@link TokenPool},
+ * - keeps the result of the validation per instance, so clients with other tokens (or for other repositories)
+ *   in the same JVM never see each other's state, while clients sharing the instance validate it only once,
+ * - the validation runs once, concurrent callers wait for its result (with a lock rather than a monitor,
+ *   so waiting virtual threads are not pinned while the validation request is running).
+ *
+ * Created by {@link GitHubApiClient} from its {@link GitHubRepoContext} (or pool), or passed to it to be shared.
+ */
+public class GitHubCredentials {
+    /**
+     * Sends the validation request(s) and returns whether the credentials can be used.
+     */
+    @FunctionalInterface
+    public interface Validator {
+        boolean validate() throws GitHubApiException;
+    }
+
+    private final String authorizationHeader;
+    private final TokenPool tokenPool;
+    private final ReentrantLock validationLock = new ReentrantLock();
+
+    private volatile Boolean isValid;
+
+    private GitHubCredentials(String authorizationHeader, TokenPool tokenPool) {
+        this.authorizationHeader = authorizationHeader;
+        this.tokenPool = tokenPool;
+    }
+
+    /**
+     * Returns the credentials of the access token of the context (none if the context has no token).
+     */
+    public static GitHubCredentials of(GitHubRepoContext context) {
+        return new GitHubCredentials(context.getAuthorizationHeader(), null);
+    }
+
+    public static GitHubCredentials of(TokenPool tokenPool) {
+        return new GitHubCredentials(null, tokenPool);
+    }
+
+    public boolean hasAccessToken() {
+        return authorizationHeader != null || tokenPool != null;
+    }
+
+    /**
+     * Returns the token pool, or null if the credentials are a single access token.
+     */
+    public TokenPool getTokenPool() {
+        return tokenPool;
+    }
+
+    /**
+     * Returns the Authorization header for the next request to the given API: the token of the pool with the most headroom there,
+     * or the single token.
+     */
+    public String nextAuthorizationHeader(String apiUrl) throws GitHubApiException {
+        return tokenPool != null ? tokenPool.nextAuthorizationHeader(apiUrl) : authorizationHeader;
+    }
+
+    /**
+     * Returns true or false once the credentials were validated, null before.
+     */
+    public Boolean isValid() {
+        return isValid;
+    }
+
+    /**
+     * Returns the validation result, running the validator first if the credentials were not validated yet.
+     * Credentials without any token are invalid without a request.
+     */
+    public boolean validate(Validator validator) throws GitHubApiException {
+        Boolean known = isValid;
+        if (known != null) {
+            return known;
+        }
+
+        validationLock.lock();
+        try {
+            if (isValid == null) {
+                isValid = hasAccessToken() && validator.validate();
+            }
+            return isValid;
+
+        } finally {
+            validationLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.github.gitconflictfinder.clients;
+
+import com.github.gitconflictfinder.core.GitConflictResolver;
+import com.github.gitconflictfinder.objects.LocalRepository;
+import com.github.gitconflictfinder.objects.UnsupportedRepositoryException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * A {@link GitCommandClient} that answers the local questions by reading the {@code .git} directory directly.
+ *
+ * How does it work?
+ * - the merge base, the changed files, commit lookups and commit times are computed by a {@link LocalRepository}
+ *   (memory-mapped packs, commit-graph, tree diffs that skip unchanged subtrees) - no git process is started,
+ * - every repository is opened once and kept for the lifetime of the client
+ *   (a repository the reader cannot open at all is remembered too, and answered by git from then on),
+ * - if the repository uses something the reader does not support (see {@link UnsupportedRepositoryException}),
+ *   that one call is answered by git, like in the {@link GitCommandClient},
+ * - the paths changed between two commits are streamed as the trees are walked; the working-tree diff
+ *   collects and sorts the changed paths first (it reads the whole index anyway), so it is not constant-memory.
+ *
+ * Renamed files are reported with both the old and the new path (git would report only the new one),
+ * which can only add conflict candidates, never hide one.
+ *
+ * Pass it to the {@link GitConflictResolver} instead of the {@link GitCommandClient} to use it.
+ */
+public class GitObjectReaderClient extends GitCommandClient {
+    private final Map<File, LocalRepository> repositories = new ConcurrentHashMap<>();
+    private final Map<File, UnsupportedRepositoryException> unsupportedRepositories = new ConcurrentHashMap<>();
+
+    public GitObjectReaderClient() {
+        super();
+    }
+
+    public GitObjectReaderClient(boolean persistentProcesses) {
+        super(persistentProcesses);
+    }
+
+    public GitObjectReaderClient(boolean persistentProcesses, int maxProcesses) {
+        super(persistentProcesses, maxProcesses);
+    }
+
+    @Override
+    public String getMergeBase(String localRepoPath, String revisionA, String revisionB) throws IOException, InterruptedException {
+        try {
+            return getRepository(localRepoPath).mergeBase(revisionA, revisionB);
+        } catch (UnsupportedRepositoryException e) {
+            return super.getMergeBase(localRepoPath, revisionA, revisionB);
+        }
+    }
+
+    @Override
+    public void forEachChangedFile(String localRepoPath, String fromCommit, Consumer<String> consumer) throws IOException, InterruptedException {
+        List<String> files;
+        try {
+            files = getRepository(localRepoPath).diffWorktree(fromCommit);
+        } catch (UnsupportedRepositoryException e) {
+            super.forEachChangedFile(localRepoPath, fromCommit, consumer);
+            return;
+        }
+        files.forEach(consumer);
+    }
+
+    @Override
+    public void forEachChangedPath(String localRepoPath, String fromCommit, Consumer<CharSequence> consumer) throws IOException, InterruptedException {
+        List<String> files;
+        try {
+            files = getRepository(localRepoPath).diffWorktree(fromCommit);
+        } catch (UnsupportedRepositoryException e) {
+            super.forEachChangedPath(localRepoPath, fromCommit, consumer);
+            return;
+        }
+        files.forEach(consumer);
+    }
+
+    @Override
+    public void forEachChangedFile(String localRepoPath, String fromCommit, String toCommit, Consumer<String> consumer) throws IOException, InterruptedException {
+        int[] passed = {0};
+        try {
+            getRepository(localRepoPath).diffCommits(fromCommit, toCommit, path -> {
+                consumer.accept(path);
+                passed[0]++;
+            });
+        } catch (UnsupportedRepositoryException e) {
+            super.forEachChangedFile(localRepoPath, fromCommit, toCommit, skipFirst(passed[0], consumer));
+        }
+    }
+
+    @Override
+    public void forEachChangedPath(String localRepoPath, String fromCommit, String toCommit, Consumer<CharSequence> consumer) throws IOException, InterruptedException {
+        int[] passed = {0};
+        try {
+            getRepository(localRepoPath).diffCommits(fromCommit, toCommit, path -> {
+                consumer.accept(path);
+                passed[0]++;
+            });
+        } catch (UnsupportedRepositoryException e) {
+            super.forEachChangedPath(localRepoPath, fromCommit, toCommit, skipFirst(passed[0], consumer));
+        }
+    }
+
+    @Override
+    public String resolveCommit(String localRepoPath, String revision) throws IOException, InterruptedException {
+        try {
+            return getRepository(localRepoPath).resolveCommit(revision);
+        } catch (UnsupportedRepositoryException e) {
+            return super.resolveCommit(localRepoPath, revision);
+        }
+    }
+
+    @Override
+    public List<String> resolveCommits(String localRepoPath, List<String> revisions) throws IOException, InterruptedException {
+        ArrayList<String> shas = new ArrayList<>(revisions.size());
+        for (String revision : revisions) {
+            shas.add(resolveCommit(localRepoPath, revision));
+        }
+        return shas;
+    }
+
+    @Override
+    public long getCommitTime(String localRepoPath, String sha) throws IOException, InterruptedException {
+        try {
+            return getRepository(localRepoPath).getAuthorTime(sha);
+        } catch (UnsupportedRepositoryException e) {
+            return super.getCommitTime(localRepoPath, sha);
+        }
+    }
+
+    @Override
+    public void close() {
+        repositories.clear();
+        unsupportedRepositories.clear();
+        super.close();
+    }
+
+    private LocalRepository getRepository(String localRepoPath) throws IOException {
+        File repoDirectory = getRepoDirectory(localRepoPath);
+
+        LocalRepository repository = repositories.get(repoDirectory);
+        if (repository == null) {
+            UnsupportedRepositoryException unsupported = unsupportedRepositories.get(repoDirectory);
+            if (unsupported != null) {
+                throw unsupported;
+            }
+
+            try {
+                repository = LocalRepository.open(repoDirectory);
+            } catch (UnsupportedRepositoryException e) {
+                unsupportedRepositories.putIfAbsent(repoDirectory, e);
+                throw e;
+            }
+            LocalRepository existing = repositories.putIfAbsent(repoDirectory, repository);
+            if (existing != null) {
+                repository = existing;
+            }
+        }
+        return repository;
+    }
+
+    /**
+     * Git prints the changed paths in the same (tree) order as the reader finds them,
+     * so when git takes over in the middle of a diff, the paths already passed on are skipped.
+     */
+    private static <T> Consumer<T> skipFirst(int count, Consumer<T> consumer) {
+        int[] skipped = {0};
+        return path -> {
+            if (skipped[0] < count) {
+                skipped[0]++;
+            } else {
+                consumer.accept(path);
+            }
+        };
+    }
+}
@@ -0,0 +1,175 @@
+package com.github.gitconflictfinder.clients;
+
+import com.github.gitconflictfinder.exceptions.GitHubApiException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lazy sequence of the pages of a paginated GitHub endpoint, following the {@code Link} response header.
+ *
+ * How does it work?
+ * - the first page is requested right away, every further page only as the reader gets closer to it,
+ * - once a response names the last page ({@code rel="last"}), the pages up to it are requested concurrently,
+ *   at most {@link #MAX_PAGES_IN_FLIGHT} ahead of the reader, and returned in their order,
+ * - until then, the next page ({@code rel="next"}) is requested as soon as the current one arrives,
+ *   so it downloads while the current one is parsed,
+ * - the sequence ends with the first response without a {@code rel="next"} link, so a {@code per_page} capped by GitHub
+ *   can no longer end the walk early, and no request is sent for an empty page.
+ *
+ * Every returned body must be closed by the reader. Closing the pages cancels the requests still running
+ * (e.g. when the reader stopped early) and closes the bodies nobody read.
+ * One instance is meant for one reader thread.
+ *
+ * Created by {@link GitHubApiClient#fetchJsonPages(String)}.
+ */
+public class JsonPages implements AutoCloseable {
+    static final int MAX_PAGES_IN_FLIGHT = 4;
+
+    private static final Pattern LINK = Pattern.compile("<([^>]*)>\\s*;\\s*rel=\"([^\"]*)\"");
+    private static final Pattern PAGE_PARAMETER = Pattern.compile("([?&]page=)(\\d+)");
+
+    /**
+     * A response body with the value of its {@code Link} header (empty if there is none).
+     */
+    record Page(InputStream body, String links) {}
+
+    private final Function<String, CompletableFuture<Page>> fetcher;
+    private final ArrayDeque<CompletableFuture<Page>> requested = new ArrayDeque<>();
+
+    private String lastPageApi;
+    private int lastPage;
+    private int nextPage;
+
+    JsonPages(String api, Function<String, CompletableFuture<Page>> fetcher) {
+        this.fetcher = fetcher;
+        requested.add(fetcher.apply(api));
+    }
+
+    private JsonPages(InputStream[] bodies) {
+        this.fetcher = null;
+        for (InputStream body : bodies) {
+            requested.add(CompletableFuture.completedFuture(new Page(body, "")));
+        }
+    }
+
+    /**
+     * Returns pages made of the given bodies (e.g. responses read elsewhere), no request is sent.
+     */
+    public static JsonPages of(InputStream... bodies) {
+        return new JsonPages(bodies);
+    }
+
+    /**
+     * Returns the body of the next page, or null if there are no more pages. Waits until the page arrives.
+     */
+    public InputStream next() throws GitHubApiException {
+        CompletableFuture<Page> future = requested.poll();
+        if (future == null) {
+            return null;
+        }
+
+        Page page = await(future);
+        if (fetcher != null) {
+            requestMore(page.links());
+        }
+
+        return page.body();
+    }
+
+    @Override
+    public void close() {
+        for (CompletableFuture<Page> future : requested) {
+            future.cancel(true);
+            future.thenAccept(page -> closeQuietly(page.body()));
+        }
+        requested.clear();
+        lastPage = 0;
+    }
+
+    private void requestMore(String links) {
+        if (lastPage == 0) {
+            Map<String, String> rels = parseLinks(links);
+            String next = rels.get("next");
+            String last = rels.get("last");
+
+            int nextNumber = next != null ? pageNumber(next) : -1;
+            int lastNumber = last != null ? pageNumber(last) : -1;
+            if (nextNumber > 0 && lastNumber >= nextNumber) {
+                lastPageApi = last;
+                lastPage = lastNumber;
+                nextPage = nextNumber;
+            } else if (next != null && requested.isEmpty()) {
+                requested.add(fetcher.apply(next));
+                return;
+            }
+        }
+
+        while (lastPage > 0 && nextPage <= lastPage && requested.size() < MAX_PAGES_IN_FLIGHT) {
+            requested.add(fetcher.apply(withPage(lastPageApi, nextPage++)));
+        }
+    }
+
+    private Page await(CompletableFuture<Page> future) throws GitHubApiException {
+        try {
+            return future.get();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new GitHubApiException("Interrupted while fetching the pages from the GitHub API.", e);
+
+        } catch (ExecutionException e) {
+            close();
+            if (e.getCause() instanceof GitHubApiException cause) {
+                throw cause;
+            }
+            throw new GitHubApiException("Error fetching the data from the GitHub API.", e.getCause());
+        }
+    }
+
+    /**
+     * Parses a {@code Link} header ({@code <url>; rel="next", <url>; rel="last"}) into a map from the rel to the URL.
+     */
+    static Map<String, String> parseLinks(String links) {
+        HashMap<String, String> rels = new HashMap<>();
+        Matcher matcher = LINK.matcher(links);
+        while (matcher.find()) {
+            rels.put(matcher.group(2), matcher.group(1));
+        }
+        return rels;
+    }
+
+    private static int pageNumber(String api) {
+        Matcher matcher = PAGE_PARAMETER.matcher(api);
+        if (!matcher.find()) {
+            return -1;
+        }
+
+        try {
+            return Integer.parseInt(matcher.group(2));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String withPage(String api, int page) {
+        return PAGE_PARAMETER.matcher(api).replaceFirst("$1" + page);
+    }
+
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException ignored) {
+            // the page is dropped anyway
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.github.gitconflictfinder.clients;
+
+import com.github.gitconflictfinder.core.AsyncTasks;
+import com.github.gitconflictfinder.exceptions.GitHubApiException;
+
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paces GitHub API requests of one access token on one API, based on the rate limit headers GitHub sends back.
+ *
+ * How does it work?
+ * - there is one governor per API and access token (or one per API for all requests without a token), shared by all clients
+ *   in the JVM, as the budget belongs to the token (a GitHub Enterprise server, or the GraphQL API, has a budget of its own),
+ * - a governor whose window is over (and that is not blocked) holds nothing a new one would not, so it is dropped
+ *   when another governor is created,
+ * - every response updates the budget from {@code X-RateLimit-Remaining} and {@code X-RateLimit-Reset},
+ * - while plenty of budget is left, requests are never delayed,
+ * - only the last {@code LOW_BUDGET} requests of a window are spread over the time until the reset,
+ *   so a nearly used up token does not burn its rest at once,
+ * - when the budget is used up, requests wait for the reset,
+ * - a secondary rate limit response (403/429 with {@code Retry-After}, or with no remaining budget)
+ *   blocks the token for the given time, after which the request is retried,
+ * - if a request would have to wait longer than the {@code maxWait} of the caller, {@link GitHubApiException} is thrown instead
+ *   (it is passed on every call, so each client keeps its own limit while sharing the budget).
+ *
+ * Used by {@link GitHubApiClient} around every request, and by {@link TokenPool} to pick the token with the most headroom.
+ */
+public class RateLimitGovernor {
+    public static final Duration DEFAULT_MAX_WAIT = Duration.ofMinutes(2);
+
+    private static final Map<String, RateLimitGovernor> GOVERNORS = new ConcurrentHashMap<>();
+
+    private static final int UNAUTHENTICATED_LIMIT = 60;
+    private static final int AUTHENTICATED_LIMIT = 5000;
+    private static final int LOW_BUDGET = 50;
+    private static final long SECONDARY_LIMIT_BACKOFF_MILLIS = Duration.ofMinutes(1).toMillis();
+
+    private long remaining;
+    private long resetEpochMillis;
+    private long nextRequestMillis;
+    private long blockedUntilMillis;
+
+    RateLimitGovernor(int limit) {
+        this.remaining = limit;
+    }
+
+    /**
+     * Returns the governor shared by all requests sent to the API (its base URL) with the given Authorization header (null for no token).
+     */
+    public static RateLimitGovernor forToken(String apiUrl, String authorizationHeader) {
+        String key = apiUrl + " " + (authorizationHeader == null ? "anonymous" : fingerprint(authorizationHeader));
+
+        RateLimitGovernor governor = GOVERNORS.get(key);
+        if (governor == null) {
+            long now = System.currentTimeMillis();
+            GOVERNORS.values().removeIf(existing -> existing.isIdle(now));
+            governor = GOVERNORS.computeIfAbsent(key, ignored -> new RateLimitGovernor(authorizationHeader == null ? UNAUTHENTICATED_LIMIT : AUTHENTICATED_LIMIT));
+        }
+        return governor;
+    }
+
+    public synchronized long getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * Returns when the budget allows the next request (epoch millis, in the past if it does now):
+     * the reset if the budget is used up, or the end of a secondary rate limit block.
+     */
+    public synchronized long getAvailableAtMillis() {
+        restoreAfterReset(System.currentTimeMillis());
+
+        long availableAt = blockedUntilMillis;
+        if (remaining <= 0) {
+            availableAt = Math.max(availableAt, resetEpochMillis);
+        } else if (remaining <= LOW_BUDGET) {
+            availableAt = Math.max(availableAt, nextRequestMillis);
+        }
+        return availableAt;
+    }
+
+    /**
+     * Waits until the next request may be sent, or throws {@link GitHubApiException} if that is more than {@code maxWait} away.
+     */
+    public void acquire(Duration maxWait) throws GitHubApiException {
+        long waitMillis;
+        while ((waitMillis = tryAcquire(maxWait)) > 0) {
+            try {
+                Thread.sleep(waitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GitHubApiException("Interrupted while waiting for the rate limit.", e);
+            }
+        }
+    }
+
+    /**
+     * Like {@link #acquire(Duration)}, but completes the returned future when the next request may be sent, without blocking a thread.
+     */
+    public CompletableFuture<Void> acquireAsync(Duration maxWait) {
+        long waitMillis;
+        try {
+            waitMillis = tryAcquire(maxWait);
+        } catch (GitHubApiException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        if (waitMillis == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Void> wait = new CompletableFuture<Void>().completeOnTimeout(null, waitMillis, TimeUnit.MILLISECONDS);
+        return AsyncTasks.thenCompose(wait, ignored -> acquireAsync(maxWait));
+    }
+
+    /**
+     * Takes a request from the budget and returns 0, or returns how long to wait before trying again.
+     */
+    private long tryAcquire(Duration maxWait) throws GitHubApiException {
+        long now = System.currentTimeMillis();
+        long waitMillis;
+
+        synchronized (this) {
+            restoreAfterReset(now);
+
+            if (now < blockedUntilMillis) {
+                waitMillis = blockedUntilMillis - now;
+            } else if (remaining <= 0 && now < resetEpochMillis) {
+                waitMillis = resetEpochMillis - now;
+            } else if (remaining > LOW_BUDGET || now >= nextRequestMillis) {
+                if (remaining <= LOW_BUDGET && resetEpochMillis > now) {
+                    nextRequestMillis = now + (resetEpochMillis - now) / Math.max(remaining, 1);
+                }
+                remaining--;
+                return 0;
+            } else {
+                waitMillis = nextRequestMillis - now;
+            }
+        }
+
+        if (waitMillis > maxWait.toMillis()) {
+            throw new GitHubApiException("Rate limit exceeded. The request budget of the access token is used up until " + Instant.ofEpochMilli(now + waitMillis) + ".");
+        }
+
+        return Math.max(waitMillis, 1);
+    }
+
+    /**
+     * Updates the budget from the rate limit headers of a response.
+     */
+    public synchronized void update(HttpHeaders headers) {
+        OptionalLong remainingHeader = headers.firstValueAsLong("X-RateLimit-Remaining");
+        OptionalLong resetHeader = headers.firstValueAsLong("X-RateLimit-Reset");
+        if (remainingHeader.isEmpty() || resetHeader.isEmpty()) {
+            return;
+        }
+
+        long reset = resetHeader.getAsLong() * 1000;
+
+        // responses of concurrent requests can arrive out of order, within one window the lowest budget wins
+        if (reset == resetEpochMillis && remainingHeader.getAsLong() > remaining) {
+            return;
+        }
+
+        remaining = remainingHeader.getAsLong();
+        resetEpochMillis = reset;
+    }
+
+    /**
+     * Returns how long to wait before retrying, if the response is a (secondary) rate limit response, otherwise null.
+     * All requests of the token are held back for that time.
+     */
+    public synchronized Duration retryDelay(int statusCode, HttpHeaders headers, int attempt) {
+        if (statusCode != 403 && statusCode != 429) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        OptionalLong retryAfter = headers.firstValueAsLong("Retry-After");
+
+        long delayMillis;
+        if (retryAfter.isPresent()) {
+            delayMillis = retryAfter.getAsLong() * 1000;
+        } else if (headers.firstValueAsLong("X-RateLimit-Remaining").orElse(-1) == 0) {
+            delayMillis = headers.firstValueAsLong("X-RateLimit-Reset").orElse(0) * 1000 - now + 1000;
+        } else if (statusCode == 429) {
+            delayMillis = SECONDARY_LIMIT_BACKOFF_MILLIS << Math.min(attempt, 4);
+        } else {
+            return null;
+        }
+
+        delayMillis = Math.max(delayMillis, 0);
+        blockedUntilMillis = Math.max(blockedUntilMillis, now + delayMillis);
+        return Duration.ofMillis(delayMillis);
+    }
+
+    /**
+     * Returns true if the window the governor knows about is over and it is not blocked, so a new governor would behave the same.
+     */
+    private synchronized boolean isIdle(long now) {
+        return resetEpochMillis != 0 && now >= resetEpochMillis && now >= blockedUntilMillis;
+    }
+
+    /**
+     * After the reset the budget is back, but its size is only known from the next response.
+     */
+    private void restoreAfterReset(long now) {
+        if (resetEpochMillis != 0 && now >= resetEpochMillis && remaining <= 0) {
+            remaining = 1;
+        }
+    }
+
+    private static String fingerprint(String authorizationHeader) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(authorizationHeader.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
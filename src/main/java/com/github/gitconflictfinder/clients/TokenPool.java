@@ -0,0 +1,88 @@
+package com.github.gitconflictfinder.clients;
+
+import com.github.gitconflictfinder.exceptions.GitHubApiException;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pool of access tokens, so the requests of one client are spread over the rate limit budgets of many tokens.
+ *
+ * How does it work?
+ * - the tokens come from a {@link TokenProvider}: a fixed list ({@link #of(String...)}), or e.g. GitHub App installation tokens
+ *   that the provider renews on its own (it is asked on every request, so it should return cached tokens),
+ * - every request goes to the token with the most remaining budget, as tracked by its {@link RateLimitGovernor}
+ *   from the rate limit headers (each request also takes one from the budget, so equal tokens take turns),
+ * - a token whose budget is used up (or that got a secondary rate limit) is parked until its reset:
+ *   it is only picked again if every token is parked, and then the one that is available first is picked,
+ * - a token rejected as invalid is removed ({@link #remove(String)}).
+ *
+ * The pool is thread-safe. Pass it to {@link GitHubApiClient#GitHubApiClient(com.github.gitconflictfinder.core.GitHubRepoContext, com.github.gitconflictfinder.cache.ETagStore, TokenPool)}.
+ */
+public class TokenPool {
+    /**
+     * Supplies the current access tokens of the pool.
+     */
+    @FunctionalInterface
+    public interface TokenProvider {
+        List<String> getAccessTokens() throws GitHubApiException;
+    }
+
+    private final TokenProvider provider;
+    private final Set<String> removedHeaders = ConcurrentHashMap.newKeySet();
+
+    public TokenPool(TokenProvider provider) {
+        this.provider = provider;
+    }
+
+    public static TokenPool of(String... accessTokens) {
+        List<String> tokens = List.of(accessTokens);
+        return new TokenPool(() -> tokens);
+    }
+
+    /**
+     * Returns the Authorization header of the token with the most headroom on the given API (see the class comment).
+     */
+    public String nextAuthorizationHeader(String apiUrl) throws GitHubApiException {
+        long now = System.currentTimeMillis();
+
+        String best = null;
+        long bestRemaining = -1;
+        long bestAvailableAt = Long.MAX_VALUE;
+        for (String authorizationHeader : getAuthorizationHeaders()) {
+            RateLimitGovernor governor = RateLimitGovernor.forToken(apiUrl, authorizationHeader);
+            long availableAt = Math.max(governor.getAvailableAtMillis(), now);
+            long remaining = governor.getRemaining();
+
+            if (availableAt < bestAvailableAt || (availableAt == bestAvailableAt && remaining > bestRemaining)) {
+                best = authorizationHeader;
+                bestRemaining = remaining;
+                bestAvailableAt = availableAt;
+            }
+        }
+
+        if (best == null) {
+            throw new GitHubApiException("The token pool has no valid access token.");
+        }
+
+        return best;
+    }
+
+    /**
+     * Returns the Authorization headers of all tokens in the pool, without the removed ones.
+     */
+    public List<String> getAuthorizationHeaders() throws GitHubApiException {
+        return provider.getAccessTokens().stream()
+                .map(token -> "Bearer " + token)
+                .filter(header -> !removedHeaders.contains(header))
+                .toList();
+    }
+
+    /**
+     * Removes the token of the given Authorization header, e.g. after GitHub rejected it as invalid.
+     */
+    public void remove(String authorizationHeader) {
+        removedHeaders.add(authorizationHeader);
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.gitconflictfinder.core;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Helpers for the asynchronous API, so that cancelling (or timing out) the returned future stops the work behind it.
+ *
+ * How does it work?
+ * - {@link #supplyInterruptibly} runs a blocking task on the given executor and interrupts its thread on cancellation
+ *   (blocking HTTP calls, the rate limit waits and the git process waits all react to interrupts),
+ * - {@link #thenCompose} and {@link #handleCompose} chain two stages like {@link CompletableFuture#thenCompose},
+ *   but cancelling the result also cancels the stage that is running at that moment
+ *   (a plain dependent future never cancels the futures it depends on).
+ *
+ * Used by {@link GitConflictResolver#findConflictsAsync} and the asynchronous GitHub requests.
+ */
+public final class AsyncTasks {
+    private AsyncTasks() {}
+
+    /**
+     * Runs the task on the executor. Cancelling the returned future (or completing it exceptionally, e.g. by a timeout)
+     * interrupts the thread running the task.
+     */
+    public static <T> CompletableFuture<T> supplyInterruptibly(Executor executor, Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        AtomicReference<Thread> worker = new AtomicReference<>();
+
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+
+                worker.set(Thread.currentThread());
+                try {
+                    future.complete(task.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    synchronized (worker) {
+                        worker.set(null);
+                        // an interrupt that came in too late must not leak into the next task of a pooled thread
+                        Thread.interrupted();
+                    }
+                }
+            });
+
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+
+        future.whenComplete((value, error) -> {
+            if (error != null) {
+                synchronized (worker) {
+                    Thread thread = worker.get();
+                    if (thread != null) {
+                        thread.interrupt();
+                    }
+                }
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Like {@link CompletableFuture#thenCompose}, but if the result fails or is cancelled before it completes,
+     * the running stage is cancelled too.
+     */
+    public static <T, U> CompletableFuture<U> thenCompose(CompletableFuture<T> first, Function<? super T, ? extends CompletableFuture<U>> next) {
+        return handleCompose(first, (value, error) -> error != null ? CompletableFuture.failedFuture(error) : next.apply(value));
+    }
+
+    /**
+     * Like {@link #thenCompose}, but the next stage is also called when the first one fails (with the unwrapped error).
+     */
+    public static <T, U> CompletableFuture<U> handleCompose(CompletableFuture<T> first, BiFunction<? super T, Throwable, ? extends CompletableFuture<U>> next) {
+        CompletableFuture<U> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<?>> running = new AtomicReference<>(first);
+
+        first.whenComplete((value, error) -> {
+            if (result.isDone()) {
+                return;
+            }
+
+            CompletableFuture<U> second;
+            try {
+                second = next.apply(value, unwrap(error));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+                return;
+            }
+
+            running.set(second);
+            if (result.isDone()) {
+                second.cancel(true);
+                return;
+            }
+
+            second.whenComplete((secondValue, secondError) -> {
+                if (secondError != null) {
+                    result.completeExceptionally(unwrap(secondError));
+                } else {
+                    result.complete(secondValue);
+                }
+            });
+        });
+
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                running.get().cancel(true);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Returns the cause of a {@link CompletionException} (the wrapper added by dependent futures).
+     */
+    public static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
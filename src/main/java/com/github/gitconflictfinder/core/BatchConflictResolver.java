@@ -0,0 +1,143 @@
+package com.github.gitconflictfinder.core;
+
+import com.github.gitconflictfinder.GitConflictFinder;
+import com.github.gitconflictfinder.clients.GitCommandClient;
+import com.github.gitconflictfinder.clients.GitHubApiClient;
+import com.github.gitconflictfinder.exceptions.GitHubApiException;
+import com.github.gitconflictfinder.strategies.PerCommitDiffStrategy;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the conflicts of many local branches against the same remote branchA, sharing the remote work between them.
+ *
+ * How does it work?
+ * - gets the merge base of every local branch and groups the branches by it (each merge base is handled once),
+ * - lists the branchA commits once, since the oldest merge base (newest first),
+ * - fetches the files of every commit newer than the oldest merge base once,
+ * - walks the list from the newest commit, adding the commit files to one running set - when the walk reaches a merge base,
+ *   the running set is exactly the remote change set of that merge base, and its branches are compared right away,
+ * - the running set is a {@link PathSet}, and the local paths are streamed from git and looked up in it one by one
+ *   (no string per local path that does not conflict, the conflicts keep the local order),
+ * - returns a map from the local branch to its conflicted files (in the order the branches were given).
+ *
+ * So the number of API calls depends on the number of commits, not on the number of branches.
+ *
+ * NOTE: unlike {@link GitConflictResolver}, the local changes are taken from the committed branch ({@code git diff mergeBase branch}),
+ * since the branches are not checked out.
+ *
+ * Used by {@link GitConflictFinder}.
+ */
+public class BatchConflictResolver {
+    private final GitCommandClient cmdClient;
+    private final GitHubApiClient githubClient;
+    private final GitHubRepoContext context;
+    private final PerCommitDiffStrategy perCommitStrategy;
+
+    public BatchConflictResolver(GitCommandClient cmdClient, GitHubApiClient githubClient) {
+        this(cmdClient, githubClient, new PerCommitDiffStrategy(githubClient));
+    }
+
+    public BatchConflictResolver(GitCommandClient cmdClient, GitHubApiClient githubClient, PerCommitDiffStrategy perCommitStrategy) {
+        this.cmdClient = cmdClient;
+        this.githubClient = githubClient;
+        this.context = githubClient.getContext();
+        this.perCommitStrategy = perCommitStrategy;
+    }
+
+    public Map<String, ArrayList<String>> findConflicts(List<String> localBranches) throws IOException, InterruptedException, GitHubApiException {
+        LinkedHashMap<String, List<String>> branchesByMergeBase = new LinkedHashMap<>();
+        for (String branch : localBranches) {
+            String mergeBaseCommit = cmdClient.getMergeBase(context.getLocalRepoPath(), branch, context.getBranchA());
+            branchesByMergeBase.computeIfAbsent(mergeBaseCommit, key -> new ArrayList<>()).add(branch);
+        }
+
+        LinkedHashMap<String, ArrayList<String>> conflicts = new LinkedHashMap<>();
+        for (String branch : localBranches) {
+            conflicts.put(branch, new ArrayList<>());
+        }
+        if (branchesByMergeBase.isEmpty()) {
+            return conflicts;
+        }
+
+        githubClient.validateAccessToken();
+
+        ArrayList<String> commits = perCommitStrategy.getCommitsSince(getOldestCommitDate(branchesByMergeBase.keySet()));
+        HashMap<String, Integer> positions = new HashMap<>();
+        for (int i = commits.size() - 1; i >= 0; i--) {
+            positions.put(commits.get(i), i);
+        }
+
+        ArrayList<String> foundMergeBases = new ArrayList<>();
+        for (String mergeBaseCommit : branchesByMergeBase.keySet()) {
+            if (positions.containsKey(mergeBaseCommit)) {
+                foundMergeBases.add(mergeBaseCommit);
+            } else {
+                PathSet remoteChangedFiles = toPathSet(perCommitStrategy.getRemoteChangedFiles(mergeBaseCommit));
+                updateConflicts(branchesByMergeBase.get(mergeBaseCommit), mergeBaseCommit, remoteChangedFiles, conflicts);
+            }
+        }
+        if (foundMergeBases.isEmpty()) {
+            return conflicts;
+        }
+
+        foundMergeBases.sort(Comparator.comparingInt(positions::get));
+        int oldestPosition = positions.get(foundMergeBases.get(foundMergeBases.size() - 1));
+        Map<String, List<String>> commitFiles = perCommitStrategy.collectCommitFiles(commits.subList(0, oldestPosition));
+
+        PathSet remoteChangedFiles = new PathSet();
+        int position = 0;
+        for (String mergeBaseCommit : foundMergeBases) {
+            int mergeBasePosition = positions.get(mergeBaseCommit);
+            for (; position < mergeBasePosition; position++) {
+                remoteChangedFiles.addAll(commitFiles.get(commits.get(position)));
+            }
+
+            updateConflicts(branchesByMergeBase.get(mergeBaseCommit), mergeBaseCommit, remoteChangedFiles, conflicts);
+        }
+
+        return conflicts;
+    }
+
+    private void updateConflicts(List<String> branches, String mergeBaseCommit, PathSet remoteChangedFiles, Map<String, ArrayList<String>> conflicts) throws IOException, InterruptedException {
+        for (String branch : branches) {
+            ArrayList<String> branchConflicts = new ArrayList<>();
+            cmdClient.forEachChangedPath(context.getLocalRepoPath(), mergeBaseCommit, branch, path -> {
+                if (remoteChangedFiles.idOf(path) != PathDictionary.NOT_FOUND) {
+                    branchConflicts.add(path.toString());
+                }
+            });
+            conflicts.put(branch, branchConflicts);
+        }
+    }
+
+    private static PathSet toPathSet(Set<String> paths) {
+        if (paths instanceof PathSet pathSet) {
+            return pathSet;
+        }
+
+        PathSet pathSet = new PathSet();
+        pathSet.addAll(paths);
+        return pathSet;
+    }
+
+    /**
+     * Returns the date of the oldest of the commits (ISO 8601, UTC), read from the local repository.
+     */
+    private String getOldestCommitDate(Set<String> commits) throws IOException, InterruptedException {
+        long oldestTimestamp = Long.MAX_VALUE;
+        for (String sha : commits) {
+            oldestTimestamp = Math.min(oldestTimestamp, cmdClient.getCommitTime(context.getLocalRepoPath(), sha));
+        }
+
+        return Instant.ofEpochSecond(oldestTimestamp).toString();
+    }
+}
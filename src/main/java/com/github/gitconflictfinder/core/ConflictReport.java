@@ -0,0 +1,53 @@
+package com.github.gitconflictfinder.core;
+
+import com.github.gitconflictfinder.instrumentation.MetricsSummary;
+
+import java.util.List;
+
+/**
+ * Result of the precision mode of {@link GitConflictResolver}: the files whose local and remote hunks overlap or touch.
+ *
+ * How to read it?
+ * - every {@link FileConflict} holds the local and the remote line ranges that collide,
+ *   in the line numbers of the merge base,
+ * - if one side has no line information (a binary file, or a patch GitHub did not send),
+ *   the file is reported with {@code wholeFile} set, together with whatever ranges are known,
+ * - {@link #getMetrics()} tells where the time of the run went (empty unless the resolver was given an enabled instrumentation).
+ */
+public class ConflictReport {
+    /**
+     * Lines {@code start .. start + count - 1} of the merge base version of a file.
+     * A count of 0 means lines were inserted after the line {@code start}.
+     */
+    public record LineRange(int start, int count) {}
+
+    public record FileConflict(String path, List<LineRange> localRanges, List<LineRange> remoteRanges, boolean wholeFile) {}
+
+    private final List<FileConflict> conflicts;
+    private final MetricsSummary metrics;
+
+    public ConflictReport(List<FileConflict> conflicts) {
+        this(conflicts, MetricsSummary.EMPTY);
+    }
+
+    public ConflictReport(List<FileConflict> conflicts, MetricsSummary metrics) {
+        this.conflicts = List.copyOf(conflicts);
+        this.metrics = metrics;
+    }
+
+    public List<FileConflict> getConflicts() {
+        return conflicts;
+    }
+
+    public List<String> getFiles() {
+        return conflicts.stream().map(FileConflict::path).toList();
+    }
+
+    public MetricsSummary getMetrics() {
+        return metrics;
+    }
+
+    public boolean isEmpty() {
+        return conflicts.isEmpty();
+    }
+}
@@ -0,0 +1,330 @@
+package com.github.gitconflictfinder.core;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.gitconflictfinder.clients.GitCommandClient;
+import com.github.gitconflictfinder.clients.GitHubApiClient;
+import com.github.gitconflictfinder.core.ConflictReport.FileConflict;
+import com.github.gitconflictfinder.exceptions.GitHubApiException;
+import com.github.gitconflictfinder.parsers.GitHubJsonParser;
+import com.github.gitconflictfinder.parsers.GitHubJsonParser.CompareStatus;
+import com.github.gitconflictfinder.strategies.PerCommitDiffStrategy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Long-running watcher that keeps the conflicts of one branch pair up to date.
+ *
+ * How does it work?
+ * - on the first tick, collects the remote changes since the merge base with the {@link PerCommitDiffStrategy}
+ *   and remembers the remote head they belong to,
+ * - on every next tick, asks GitHub for the branchA head (one small request, revalidated with its ETag):
+ *   if it did not move, nothing else is fetched, if it did, the compare endpoint {@code lastHead...newHead} lists only the new commits,
+ *   whose files are fetched and added to the remembered set (a delta),
+ * - if the branchA was force-pushed (the old head is no longer an ancestor) or the merge base changed,
+ *   the remote side is recomputed from scratch (the state is kept per merge base, so switching back is cheap),
+ * - watches {@code .git/HEAD}, {@code .git/index}, {@code .git/packed-refs} and {@code .git/refs} with a {@link WatchService},
+ *   and refreshes the local side (merge base and changed files) only after one of them changed,
+ * - passes every changed {@link ConflictReport} to the {@link Listener} (an unchanged report is not emitted again).
+ *
+ * Unstaged edits of tracked files do not touch {@code .git}, so they are seen once git refreshes the index
+ * (e.g. on {@code git status}), or after {@link #refreshLocal()}.
+ *
+ * The report is file-level, every conflict is marked as {@code wholeFile} (it carries no line ranges).
+ */
+public class ConflictWatcher implements AutoCloseable {
+    public static final Duration DEFAULT_POLL_INTERVAL = Duration.ofMinutes(5);
+
+    private static final long LOCAL_REFRESH_DELAY_MILLIS = 200;
+    private static final int COMMITS_PER_PAGE = 100;
+    private static final int MAX_REMEMBERED_MERGE_BASES = 16;
+
+    /**
+     * Receives the updated reports and the errors of the background ticks.
+     */
+    public interface Listener {
+        void onConflicts(ConflictReport report);
+
+        default void onError(Exception e) {}
+    }
+
+    private static final class RemoteState {
+        private String head;
+        private final Set<String> files;
+
+        RemoteState(String head, Set<String> files) {
+            this.head = head;
+            this.files = files;
+        }
+    }
+
+    private final GitCommandClient cmdClient;
+    private final GitHubApiClient githubClient;
+    private final GitHubRepoContext context;
+    private final PerCommitDiffStrategy remoteDiffStrategy;
+    private final Duration pollInterval;
+    private final Listener listener;
+
+    private final Map<String, RemoteState> remoteStates = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RemoteState> eldest) {
+            return size() > MAX_REMEMBERED_MERGE_BASES;
+        }
+    };
+    private final AtomicBoolean localDirty = new AtomicBoolean(true);
+    private final AtomicBoolean localRefreshScheduled = new AtomicBoolean(false);
+
+    private String mergeBaseCommit;
+    private Set<String> localChangedFiles;
+    private ConflictReport lastReport;
+
+    private volatile ScheduledExecutorService scheduler;
+    private WatchService watchService;
+
+    public ConflictWatcher(GitCommandClient cmdClient, GitHubApiClient githubClient, Listener listener) {
+        this(cmdClient, githubClient, new PerCommitDiffStrategy(githubClient), DEFAULT_POLL_INTERVAL, listener);
+    }
+
+    public ConflictWatcher(GitCommandClient cmdClient, GitHubApiClient githubClient, PerCommitDiffStrategy remoteDiffStrategy, Duration pollInterval, Listener listener) {
+        this.cmdClient = cmdClient;
+        this.githubClient = githubClient;
+        this.context = githubClient.getContext();
+        this.remoteDiffStrategy = remoteDiffStrategy;
+        this.pollInterval = pollInterval;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts polling in the background (the first tick runs right away) and watching the local repository.
+     */
+    public synchronized void start() throws IOException {
+        if (scheduler != null) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "conflict-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runTick, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+
+        startWatching(new File(context.getLocalRepoPath(), ".git").toPath());
+    }
+
+    /**
+     * Recomputes the conflicts (fetching only what changed since the last tick), emits the report if it changed and returns it.
+     */
+    public synchronized ConflictReport tick() throws IOException, InterruptedException, GitHubApiException {
+        if (localDirty.getAndSet(false)) {
+            try {
+                mergeBaseCommit = cmdClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA());
+                localChangedFiles = new HashSet<>(cmdClient.getChangedFiles(context.getLocalRepoPath(), mergeBaseCommit));
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                localDirty.set(true);
+                throw e;
+            }
+        }
+
+        Set<String> remoteChangedFiles = updateRemoteState(mergeBaseCommit);
+
+        ArrayList<FileConflict> conflicts = new ArrayList<>();
+        for (String file : localChangedFiles) {
+            if (remoteChangedFiles.contains(file)) {
+                conflicts.add(new FileConflict(file, List.of(), List.of(), true));
+            }
+        }
+        conflicts.sort((a, b) -> a.path().compareTo(b.path()));
+
+        ConflictReport report = new ConflictReport(conflicts);
+        if (lastReport == null || !lastReport.getConflicts().equals(report.getConflicts())) {
+            lastReport = report;
+            listener.onConflicts(report);
+        }
+
+        return report;
+    }
+
+    /**
+     * Makes the next tick re-read the local side, even if nothing in {@code .git} changed.
+     */
+    public void refreshLocal() {
+        localDirty.set(true);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+            watchService = null;
+        }
+    }
+
+    private Set<String> updateRemoteState(String mergeBase) throws GitHubApiException, JsonProcessingException {
+        githubClient.validateAccessToken();
+
+        String remoteHead = fetchRemoteHead();
+        RemoteState state = remoteStates.get(mergeBase);
+
+        if (state != null && state.head.equals(remoteHead)) {
+            return state.files;
+        }
+
+        if (state != null) {
+            List<String> newCommits = fetchNewCommits(state.head, remoteHead);
+            if (newCommits != null) {
+                state.files.addAll(remoteDiffStrategy.collectRemoteChangedFiles(newCommits));
+                state.head = remoteHead;
+                return state.files;
+            }
+        }
+
+        // The head is read before the history, so a commit pushed in between is only applied again on the next tick (the set does not change).
+        state = new RemoteState(remoteHead, new HashSet<>(remoteDiffStrategy.getRemoteChangedFiles(mergeBase)));
+        remoteStates.put(mergeBase, state);
+        return state.files;
+    }
+
+    /**
+     * Returns the commits reachable from the new head but not from the old one, or null if the old head is not an ancestor anymore.
+     */
+    private List<String> fetchNewCommits(String oldHead, String newHead) throws GitHubApiException, JsonProcessingException {
+        String compareApiPaged = context.getApiBaseUrl() + "/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/compare/" + oldHead + "..." + newHead + "?per_page=" + COMMITS_PER_PAGE + "&page=";
+
+        ArrayList<String> commits = new ArrayList<>();
+        CompareStatus status = GitHubJsonParser.parseCompareStatus(githubClient.fetchJsonStream(compareApiPaged + 1), commits);
+        if (!status.status().equals("ahead")) {
+            return null;
+        }
+
+        int pages = (status.totalCommits() + COMMITS_PER_PAGE - 1) / COMMITS_PER_PAGE;
+        for (int page = 2; page <= pages; page++) {
+            GitHubJsonParser.parseCompareStatus(githubClient.fetchJsonStream(compareApiPaged + page), commits);
+        }
+
+        return commits;
+    }
+
+    private String fetchRemoteHead() throws GitHubApiException, JsonProcessingException {
+        String refApi = context.getBranchARefApi();
+        return GitHubJsonParser.parseRefSha(githubClient.fetchJsonStream(refApi));
+    }
+
+    private void runTick() {
+        try {
+            tick();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            listener.onError(e);
+        }
+    }
+
+    private void startWatching(Path gitDir) throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        WatchService service = watchService;
+
+        register(service, gitDir);
+        Path refsDir = gitDir.resolve("refs");
+        if (Files.isDirectory(refsDir)) {
+            try (Stream<Path> dirs = Files.walk(refsDir)) {
+                for (Path dir : dirs.filter(Files::isDirectory).toList()) {
+                    register(service, dir);
+                }
+            }
+        }
+
+        Thread.startVirtualThread(() -> watch(service, gitDir, refsDir));
+    }
+
+    private void watch(WatchService service, Path gitDir, Path refsDir) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Path dir = (Path) key.watchable();
+                boolean changed = false;
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        changed = true;
+                        continue;
+                    }
+
+                    Path name = (Path) event.context();
+                    Path path = dir.resolve(name);
+                    if (path.startsWith(refsDir) && Files.isDirectory(path)) {
+                        register(service, path);
+                    }
+                    changed |= isLocalStateFile(dir, name, gitDir, refsDir);
+                }
+                key.reset();
+
+                if (changed) {
+                    scheduleLocalRefresh();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // The watcher was closed.
+        } catch (IOException e) {
+            listener.onError(e);
+        }
+    }
+
+    private static boolean isLocalStateFile(Path dir, Path name, Path gitDir, Path refsDir) {
+        String fileName = name.toString();
+        if (fileName.endsWith(".lock")) {
+            return false;
+        }
+
+        if (dir.startsWith(refsDir)) {
+            return true;
+        }
+        return dir.equals(gitDir) && (fileName.equals("HEAD") || fileName.equals("index") || fileName.equals("packed-refs"));
+    }
+
+    /**
+     * Marks the local side as changed and runs a tick shortly after, so a burst of file events (e.g. a commit) causes one refresh.
+     */
+    private void scheduleLocalRefresh() {
+        localDirty.set(true);
+
+        ScheduledExecutorService current = scheduler;
+        if (current != null && localRefreshScheduled.compareAndSet(false, true)) {
+            current.schedule(() -> {
+                localRefreshScheduled.set(false);
+                runTick();
+            }, LOCAL_REFRESH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void register(WatchService service, Path dir) throws IOException {
+        dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    }
+}
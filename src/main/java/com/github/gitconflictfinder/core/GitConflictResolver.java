@@ -1,17 +1,36 @@
 package com.github.gitconflictfinder.core;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.gitconflictfinder.GitConflictFinder;
+import com.github.gitconflictfinder.cache.ConflictResultCache;
 import com.github.gitconflictfinder.exceptions.GitHubApiException;
 import com.github.gitconflictfinder.clients.GitCommandClient;
 import com.github.gitconflictfinder.clients.GitHubApiClient;
+import com.github.gitconflictfinder.core.ConflictReport.FileConflict;
+import com.github.gitconflictfinder.core.ConflictReport.LineRange;
+import com.github.gitconflictfinder.instrumentation.Instrumentation;
+import com.github.gitconflictfinder.instrumentation.Phase;
+import com.github.gitconflictfinder.parsers.GitHubJsonParser;
+import com.github.gitconflictfinder.parsers.HunkParser;
+import com.github.gitconflictfinder.strategies.CompareDiffStrategy;
+import com.github.gitconflictfinder.strategies.PerCommitDiffStrategy;
+import com.github.gitconflictfinder.strategies.RemoteDiffStrategy;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Core logic for detecting file conflicts between two Git branches.
@@ -19,9 +38,35 @@ import java.util.HashSet;
  *
  * How does it work?
  * - gets the merge base commit SHA
- * - runs a command to get all local changes from the branchB since merge base commit,
- * - gets all remote changes via GitHub API since the merge base commit,
- * - compares the local and remote changes and returns the overlapping files as conflicts.
+ * - gets all remote changes via GitHub API since the merge base commit, using the chosen {@link RemoteDiffStrategy}
+ *   (by default {@link PerCommitDiffStrategy}),
+ * - streams the local changes from the branchB since merge base commit, one path at a time,
+ *   and keeps the ones changed remotely as well (the local list is never held in memory).
+ *
+ * Precision mode ({@link #findConflictReport()}) goes one step further, but only for the files found above:
+ * - collects the local changed line ranges from {@code git diff -U0} and the remote ones from the compare endpoint patches
+ *   (both relative to the merge base, so they share line numbers),
+ * - puts the remote ranges of every file into an {@link IntervalTree},
+ * - reports only the files whose local and remote ranges overlap or touch (adjacent lines conflict in git merges too).
+ *
+ * With a {@link ConflictResultCache}, {@link #findConflicts()} first builds the key of the result (merge base,
+ * the branchA head the strategy diffs against - from one ref request, a 304 if it did not move, or e.g. the local
+ * remote-tracking ref of {@link com.github.gitconflictfinder.strategies.LocalRefDiffStrategy} - the local HEAD
+ * and a hash of the local changed paths) and returns the cached result on a hit, without any remote diff.
+ *
+ * The short-circuit mode ({@link #anyConflict()}, {@link #findFirstConflicts(int)}) turns the order around, for checks
+ * that only need a yes/no answer or a few examples:
+ * - reads the local changed files first (cheap, no API calls) into a {@link PathSet} - with no local changes it is done,
+ * - lets the strategy walk the remote side and look every remote file name up in that set
+ *   ({@link PerCommitDiffStrategy} goes newest commit first and skips the commits touching no local file without creating strings),
+ * - stops sending requests as soon as the requested number of conflicted files is found.
+ *
+ * The asynchronous version ({@link #findConflictsAsync}) runs the local diff and the remote collection in parallel
+ * on the given executor, once the merge base is known. Cancelling its future (or hitting the timeout)
+ * interrupts the running tasks and cancels the pending requests.
+ *
+ * Every step runs in its own {@link Phase} of the resolver's {@link Instrumentation} (by default the one of the clients),
+ * and the precision mode report carries the summary of the measurements ({@link ConflictReport#getMetrics()}).
  *
  * Used internally by {@link GitConflictFinder}.
  */
@@ -29,148 +74,370 @@ public class GitConflictResolver {
     private final GitCommandClient cmdClient;
     private final GitHubApiClient githubClient;
     private final GitHubRepoContext context;
+    private final RemoteDiffStrategy remoteDiffStrategy;
+    private final CompareDiffStrategy patchSource;
+    private final ConflictResultCache resultCache;
+    private final Instrumentation instrumentation;
 
     public GitConflictResolver(GitCommandClient cmdClient, GitHubApiClient githubClient) {
+        this(cmdClient, githubClient, new PerCommitDiffStrategy(githubClient));
+    }
+
+    public GitConflictResolver(GitCommandClient cmdClient, GitHubApiClient githubClient, RemoteDiffStrategy remoteDiffStrategy) {
+        this(cmdClient, githubClient, remoteDiffStrategy, (ConflictResultCache) null);
+    }
+
+    /**
+     * Memoizes the results of {@link #findConflicts()} in the given cache.
+     */
+    public GitConflictResolver(GitCommandClient cmdClient, GitHubApiClient githubClient, RemoteDiffStrategy remoteDiffStrategy, ConflictResultCache resultCache) {
+        this(cmdClient, githubClient, remoteDiffStrategy, resultCache, null);
+    }
+
+    /**
+     * Measures the runs with the given instrumentation.
+     * NOTE: the requests and git commands are measured by the clients, so the instrumentation is set on both of them:
+     * every other resolver or strategy using the same clients reports to it from then on.
+     * Give an instrumented resolver clients of its own to keep its measurements apart.
+     */
+    public GitConflictResolver(GitCommandClient cmdClient, GitHubApiClient githubClient, RemoteDiffStrategy remoteDiffStrategy, Instrumentation instrumentation) {
+        this(cmdClient, githubClient, remoteDiffStrategy, null, Instrumentation.orDisabled(instrumentation));
+        cmdClient.setInstrumentation(instrumentation);
+        githubClient.setInstrumentation(instrumentation);
+    }
+
+    private GitConflictResolver(GitCommandClient cmdClient, GitHubApiClient githubClient, RemoteDiffStrategy remoteDiffStrategy,
+                                ConflictResultCache resultCache, Instrumentation instrumentation) {
         this.cmdClient = cmdClient;
         this.githubClient = githubClient;
         this.context = githubClient.getContext();
+        this.remoteDiffStrategy = remoteDiffStrategy;
+        this.patchSource = remoteDiffStrategy instanceof CompareDiffStrategy compare ? compare : new CompareDiffStrategy(githubClient);
+        this.resultCache = resultCache;
+        this.instrumentation = instrumentation;
     }
 
     public ArrayList<String> findConflicts() throws IOException, InterruptedException, GitHubApiException {
-        String mergeBaseCommit = cmdClient.runCommand("git merge-base " + context.getBranchB() + " " + context.getBranchA(), context.getLocalRepoPath());
+        String mergeBaseCommit = getMergeBase();
+        if (resultCache == null) {
+            return findConflicts(mergeBaseCommit);
+        }
 
-        ArrayList<String> changedFilesLocal = getLocalChangedFiles(mergeBaseCommit);
-        HashSet<String> changedFilesRemote = getRemoteChangedFiles(mergeBaseCommit);
+        // the remote head and the local changes are read once, for the key and (on a miss) for the result
+        String remoteHead = resolveRemoteHead();
+        String localHead;
+        try (Instrumentation.Scope _ = instrumentation().phase(Phase.LOCAL_DIFF)) {
+            localHead = cmdClient.resolveCommit(context.getLocalRepoPath(), "HEAD");
+        }
+        ArrayList<String> localFiles = getLocalChangedFiles(mergeBaseCommit);
 
-        changedFilesLocal.retainAll(changedFilesRemote);
-        return changedFilesLocal;
-    }
+        ConflictResultCache.Key key = new ConflictResultCache.Key(context.getOwnerName() + "/" + context.getRepoName(), mergeBaseCommit, remoteHead,
+                localHead != null ? localHead : "", fingerprint(localFiles));
+        List<String> cachedConflicts = resultCache.get(key);
+        if (cachedConflicts != null) {
+            return new ArrayList<>(cachedConflicts);
+        }
 
-    private ArrayList<String> getLocalChangedFiles(String mergeBaseCommit) throws IOException, InterruptedException {
-        String changedFilesLocal = cmdClient.runCommand("git diff --name-only " + mergeBaseCommit, context.getLocalRepoPath());
-        try {
-            return new ArrayList<>(Arrays.asList(changedFilesLocal.split("\n")));
+        // if the branchA moved after the key was built, the result holds more than the key says; a later run misses anyway
+        if (remoteDiffStrategy.alwaysUsesGitHubApi()) {
+            validateAccessToken();
+        }
+        Set<String> changedFilesRemote;
+        try (Instrumentation.Scope _ = instrumentation().phase(Phase.REMOTE_DIFF)) {
+            changedFilesRemote = remoteDiffStrategy.getRemoteChangedFiles(mergeBaseCommit, remoteHead);
+        }
 
-        } catch (Exception e) {
-            throw new IOException("Could not get changed files from local repository", e);
+        ArrayList<String> conflictedFiles = new ArrayList<>();
+        for (String file : localFiles) {
+            if (changedFilesRemote.contains(file)) {
+                conflictedFiles.add(file);
+            }
         }
-    }
 
-    private HashSet<String> getRemoteChangedFiles(String mergeBaseCommit) throws GitHubApiException, JsonProcessingException {
-        githubClient.validateAccessToken();
+        resultCache.put(key, conflictedFiles);
+        return conflictedFiles;
+    }
 
-        HashSet<String> remoteChangedFiles = new HashSet<>();
+    /**
+     * Returns true if at least one file was changed on both sides, stopping at the first one found (see {@link #findFirstConflicts(int)}).
+     */
+    public boolean anyConflict() throws IOException, InterruptedException, GitHubApiException {
+        return !findFirstConflicts(1).isEmpty();
+    }
 
-        ArrayList<String> commits = getCommits(mergeBaseCommit);
-        for (String sha : commits) {
-            updateRemoteChangedFiles(sha, remoteChangedFiles);
+    /**
+     * Finds at most {@code limit} files changed on both sides, local side first, and stops the remote walk once they are found.
+     * The files are in the order the strategy found them (newest remote commit first for {@link PerCommitDiffStrategy}).
+     */
+    public ArrayList<String> findFirstConflicts(int limit) throws IOException, InterruptedException, GitHubApiException {
+        if (limit < 1) {
+            throw new IllegalArgumentException("The limit must be positive: " + limit);
         }
 
-        return remoteChangedFiles;
-    }
+        String mergeBaseCommit = getMergeBase();
 
-    private ArrayList<String> getCommits(String mergeBaseCommit) throws GitHubApiException, JsonProcessingException {
-        String mergeBaseCommitDate = getMergeBaseCommitDate(mergeBaseCommit);
-        mergeBaseCommitDate = mergeBaseCommitDate.replace("\"", "");
+        PathSet changedFilesLocal = new PathSet();
+        try (Instrumentation.Scope _ = instrumentation().phase(Phase.LOCAL_DIFF)) {
+            cmdClient.forEachChangedPath(context.getLocalRepoPath(), mergeBaseCommit, changedFilesLocal::addPath);
+        }
+        if (changedFilesLocal.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-        String branchCommitsApiPaged = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits?sha=" + context.getBranchA() + "&since=" + mergeBaseCommitDate + "&per_page=250&page=";
-        int page = 1;
+        if (remoteDiffStrategy.alwaysUsesGitHubApi()) {
+            validateAccessToken();
+        }
 
-        ArrayList<String> commits = new ArrayList<>();
+        try (Instrumentation.Scope _ = instrumentation().phase(Phase.REMOTE_DIFF)) {
+            return new ArrayList<>(remoteDiffStrategy.findChangedFiles(mergeBaseCommit, changedFilesLocal, limit));
+        }
+    }
 
-        while (true) {
-            String commitsRemoteJson = githubClient.fetchJsonData(branchCommitsApiPaged + page);
-            int updatedCommitsCnt = updateCommitsPerPage(mergeBaseCommit, commitsRemoteJson, commits);
+    /**
+     * Finds the files changed on both sides without blocking the caller: the merge base and the token validation,
+     * then the local diff and the remote collection, run in parallel on the executor
+     * (the remote requests are sent asynchronously if the strategy supports it).
+     * The report holds every conflicted file as a whole-file conflict, the line ranges are not compared.
+     */
+    public CompletableFuture<ConflictReport> findConflictsAsync(Executor executor) {
+        CompletableFuture<String> mergeBase = AsyncTasks.supplyInterruptibly(executor, this::getMergeBase);
+        CompletableFuture<Boolean> tokenValidated = remoteDiffStrategy.alwaysUsesGitHubApi()
+                ? AsyncTasks.supplyInterruptibly(executor, () -> {
+                    validateAccessToken();
+                    return true;
+                })
+                : CompletableFuture.completedFuture(true);
+
+        CompletableFuture<ArrayList<String>> local = AsyncTasks.thenCompose(mergeBase,
+                mergeBaseCommit -> AsyncTasks.supplyInterruptibly(executor, () -> getLocalChangedFiles(mergeBaseCommit)));
+        CompletableFuture<Set<String>> remote = AsyncTasks.thenCompose(mergeBase.thenCombine(tokenValidated, (mergeBaseCommit, validated) -> mergeBaseCommit),
+                mergeBaseCommit -> remoteDiffStrategy.getRemoteChangedFilesAsync(mergeBaseCommit, executor));
+
+        CompletableFuture<ConflictReport> report = local.thenCombine(remote, (localFiles, remoteFiles) -> {
+            ArrayList<FileConflict> conflicts = new ArrayList<>();
+            for (String file : localFiles) {
+                if (remoteFiles.contains(file)) {
+                    conflicts.add(new FileConflict(file, List.of(), List.of(), true));
+                }
+            }
+            return new ConflictReport(conflicts, instrumentation().summary());
+        });
 
-            if (updatedCommitsCnt < 250) {
-                break;
+        report.whenComplete((value, error) -> {
+            if (error != null) {
+                List.of(mergeBase, tokenValidated, local, remote).forEach(task -> task.cancel(true));
             }
+        });
 
-            page++;
-        }
+        return report;
+    }
 
-        return commits;
+    /**
+     * Like {@link #findConflictsAsync(Executor)}, but fails with a {@link java.util.concurrent.TimeoutException}
+     * (and stops the running tasks) if the result is not ready in time.
+     */
+    public CompletableFuture<ConflictReport> findConflictsAsync(Executor executor, Duration timeout) {
+        return findConflictsAsync(executor).orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
     }
 
-    private String getMergeBaseCommitDate(String baseMergeCommit) throws GitHubApiException, JsonProcessingException {
-        String mergeBaseCommitDateApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/" + baseMergeCommit + "?per_page=1&page=1";
-        String mergeBaseCommitDetailsJson = githubClient.fetchJsonData(mergeBaseCommitDateApi);
+    /**
+     * Precision mode: finds the files changed on both sides, then keeps only those whose changed line ranges overlap or touch.
+     */
+    public ConflictReport findConflictReport() throws IOException, InterruptedException, GitHubApiException {
+        Instrumentation instrumentation = instrumentation();
+        String mergeBaseCommit = getMergeBase();
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        try {
-            JsonNode rootNode = objectMapper.readTree(mergeBaseCommitDetailsJson);
-            JsonNode mergeBaseCommitDate = rootNode.path("commit").path("author").path("date");
+        ArrayList<String> conflictedFiles = findConflicts(mergeBaseCommit);
+        if (conflictedFiles.isEmpty()) {
+            return new ConflictReport(List.of(), instrumentation.summary());
+        }
 
-            return mergeBaseCommitDate.toString();
+        // the remote hunks always come from the API, even when the strategy found the files without it (validated once per credentials)
+        validateAccessToken();
 
-        } catch (Exception e) {
-            throw new JsonProcessingException("Error getting the merge base commit date.") {};
+        HunkCollector localHunks = new HunkCollector();
+        HunkCollector remoteHunks = new HunkCollector();
+        try (Instrumentation.Scope _ = instrumentation.phase(Phase.HUNKS)) {
+            cmdClient.forEachHunk(context.getLocalRepoPath(), mergeBaseCommit, conflictedFiles, localHunks);
+            patchSource.collectHunks(mergeBaseCommit, new HashSet<>(conflictedFiles), remoteHunks);
         }
+
+        ArrayList<FileConflict> conflicts = new ArrayList<>();
+        for (String file : conflictedFiles) {
+            FileConflict conflict = matchHunks(file, localHunks, remoteHunks);
+            if (conflict != null) {
+                conflicts.add(conflict);
+            }
+        }
+
+        return new ConflictReport(conflicts, instrumentation.summary());
     }
 
-    private int updateCommitsPerPage(String mergeBaseCommit, String commitsRemoteJson, ArrayList<String> commits) throws JsonProcessingException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        try {
-            JsonNode filesRootNode = objectMapper.readTree(commitsRemoteJson);
+    private String getMergeBase() throws IOException, InterruptedException {
+        try (Instrumentation.Scope _ = instrumentation().phase(Phase.MERGE_BASE)) {
+            return cmdClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA());
+        }
+    }
 
-            if (!filesRootNode.isArray()) {
-                throw new JsonProcessingException("Error extracting the conflicted files.") {};
-            }
+    private ArrayList<String> findConflicts(String mergeBaseCommit) throws IOException, InterruptedException, GitHubApiException {
+        Set<String> changedFilesRemote = getRemoteChangedFiles(mergeBaseCommit);
 
-            for (JsonNode fileNode : filesRootNode) {
-                JsonNode filenameNode = fileNode.path("sha");
-                if (filenameNode.isTextual()) {
-                    String sha = filenameNode.asText();
-                    if (!sha.equals(mergeBaseCommit)) {
-                        commits.add(sha);
-                    }
+        ArrayList<String> conflictedFiles = new ArrayList<>();
+        try (Instrumentation.Scope _ = instrumentation().phase(Phase.LOCAL_DIFF)) {
+            cmdClient.forEachChangedFile(context.getLocalRepoPath(), mergeBaseCommit, file -> {
+                if (changedFilesRemote.contains(file)) {
+                    conflictedFiles.add(file);
                 }
-            }
+            });
+        }
 
-            return filesRootNode.size();
+        return conflictedFiles;
+    }
 
-        } catch (Exception e) {
-            throw new JsonProcessingException("Error extracting the conflicted files.") {};
+    /**
+     * Collects the local changed files (the remote side is not known yet when this runs in parallel with it).
+     * Stops the git process if the thread is interrupted, i.e. the asynchronous check was cancelled.
+     */
+    private ArrayList<String> getLocalChangedFiles(String mergeBaseCommit) throws IOException, InterruptedException {
+        ArrayList<String> localFiles = new ArrayList<>();
+        try (Instrumentation.Scope _ = instrumentation().phase(Phase.LOCAL_DIFF)) {
+            cmdClient.forEachChangedFile(context.getLocalRepoPath(), mergeBaseCommit, file -> {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("The conflict check was cancelled.");
+                }
+                localFiles.add(file);
+            });
         }
+
+        return localFiles;
     }
 
-    private void updateRemoteChangedFiles(String sha, HashSet<String> remoteChangedFiles) throws GitHubApiException, JsonProcessingException {
-        String commitFilesApiPaged = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/" + sha + "?per_page=300&page=";
-        int page = 1;
+    private Set<String> getRemoteChangedFiles(String mergeBaseCommit) throws GitHubApiException, IOException {
+        if (remoteDiffStrategy.alwaysUsesGitHubApi()) {
+            validateAccessToken();
+        }
 
-        while (true) {
-            String filesRemoteJson = githubClient.fetchJsonData(commitFilesApiPaged + page);
+        try (Instrumentation.Scope _ = instrumentation().phase(Phase.REMOTE_DIFF)) {
+            return remoteDiffStrategy.getRemoteChangedFiles(mergeBaseCommit);
+        }
+    }
 
-            int updatedFilesCnt = updateRemoteChangedFilesPerPage(filesRemoteJson, remoteChangedFiles);
-            if (updatedFilesCnt < 300) {
-                break;
+    /**
+     * Returns the head the strategy computes its result from, the branchA head on GitHub unless the strategy knows better.
+     */
+    private String resolveRemoteHead() throws GitHubApiException, IOException {
+        try (Instrumentation.Scope _ = instrumentation().phase(Phase.REMOTE_HISTORY)) {
+            String remoteHead = remoteDiffStrategy.resolveRemoteHead();
+            if (remoteHead != null) {
+                return remoteHead;
             }
 
-            page++;
+            validateAccessToken();
+            return GitHubJsonParser.parseRefSha(githubClient.fetchJsonStream(context.getBranchARefApi()));
         }
     }
 
-    private int updateRemoteChangedFilesPerPage(String filesJsonData, HashSet<String> remoteChangedFiles) throws JsonProcessingException {
-        ObjectMapper objectMapper = new ObjectMapper();
+    private static String fingerprint(List<String> localFiles) {
+        MessageDigest digest;
         try {
-            JsonNode rootNode = objectMapper.readTree(filesJsonData);
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+
+        for (String file : localFiles) {
+            digest.update(file.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void validateAccessToken() throws GitHubApiException {
+        try (Instrumentation.Scope _ = instrumentation().phase(Phase.TOKEN_VALIDATION)) {
+            githubClient.validateAccessToken();
+        }
+    }
 
-            JsonNode filesNode = rootNode.path("files");
-            if (!filesNode.isArray()) {
-                throw new JsonProcessingException("Error extracting the conflicted files.") {};
+    /*
+     * The resolver's own instrumentation if it was given one, so rewiring the shared clients later does not move its phases.
+     * Otherwise read from the client on every use, so an instrumentation set after the construction is used too
+     * (and mocked clients, which return null, count as disabled).
+     */
+    private Instrumentation instrumentation() {
+        return instrumentation != null ? instrumentation : Instrumentation.orDisabled(githubClient.getInstrumentation());
+    }
+
+    private static FileConflict matchHunks(String file, HunkCollector localHunks, HunkCollector remoteHunks) {
+        List<LineRange> local = localHunks.ranges.getOrDefault(file, List.of());
+        List<LineRange> remote = remoteHunks.ranges.getOrDefault(file, List.of());
+
+        if (localHunks.wholeFiles.contains(file) || remoteHunks.wholeFiles.contains(file)) {
+            return new FileConflict(file, local, remote, true);
+        }
+        if (local.isEmpty() || remote.isEmpty()) {
+            return null;
+        }
+
+        int[] lows = new int[remote.size()];
+        int[] highs = new int[remote.size()];
+        for (int i = 0; i < remote.size(); i++) {
+            lows[i] = low(remote.get(i));
+            highs[i] = high(remote.get(i));
+        }
+        IntervalTree remoteTree = new IntervalTree(lows, highs);
+
+        ArrayList<LineRange> localConflicts = new ArrayList<>();
+        boolean[] remoteConflicts = new boolean[remote.size()];
+        for (LineRange range : local) {
+            boolean[] hit = {false};
+            // Widened by one line on both sides, so touching ranges (adjacent lines) are found too.
+            remoteTree.query(low(range) - 2, high(range) + 2, id -> {
+                remoteConflicts[id] = true;
+                hit[0] = true;
+            });
+            if (hit[0]) {
+                localConflicts.add(range);
             }
+        }
 
-            for (JsonNode fileNode : filesNode) {
-                JsonNode filenameNode = fileNode.path("filename");
-                if (filenameNode.isTextual()) {
-                    remoteChangedFiles.add(filenameNode.asText());
-                }
+        if (localConflicts.isEmpty()) {
+            return null;
+        }
+
+        ArrayList<LineRange> remoteConflictRanges = new ArrayList<>();
+        for (int i = 0; i < remote.size(); i++) {
+            if (remoteConflicts[i]) {
+                remoteConflictRanges.add(remote.get(i));
             }
+        }
+
+        return new FileConflict(file, localConflicts, remoteConflictRanges, false);
+    }
+
+    /*
+     * Ranges are mapped onto doubled line numbers: the line n is 2n and an insertion after the line n is 2n + 1,
+     * so insertions sit between the lines they separate.
+     */
+    private static int low(LineRange range) {
+        return range.count() == 0 ? 2 * range.start() + 1 : 2 * range.start();
+    }
+
+    private static int high(LineRange range) {
+        return range.count() == 0 ? 2 * range.start() + 1 : 2 * (range.start() + range.count() - 1);
+    }
 
-            return filesNode.size();
+    private static class HunkCollector implements HunkParser.HunkConsumer {
+        private final Map<String, List<LineRange>> ranges = new HashMap<>();
+        private final Set<String> wholeFiles = new HashSet<>();
+
+        @Override
+        public void hunk(String path, int start, int count) {
+            ranges.computeIfAbsent(path, key -> new ArrayList<>()).add(new LineRange(start, count));
+        }
 
-        } catch (Exception e) {
-            throw new JsonProcessingException("Error extracting the conflicted files.") {};
+        @Override
+        public void wholeFile(String path) {
+            wholeFiles.add(path);
         }
     }
 }
@@ -1,5 +1,8 @@
 package com.github.gitconflictfinder.core;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Model class that holds all relevant data about a GitHub repo context:
  * - Owner of the repository (name)
@@ -7,24 +10,33 @@ package com.github.gitconflictfinder.core;
  * - Access token (for private repos)
  * - Branch names
  * - Local repo path
+ * - API base URL (https://api.github.com by default, or the /api/v3 URL of a GitHub Enterprise Server)
  *
  * The model is shared between different components that need this info.
  */
 public class GitHubRepoContext {
+    public static final String DEFAULT_API_BASE_URL = "https://api.github.com";
+
     private final String ownerName;
     private final String repoName;
     private final String accessToken;
     private final String branchA;
     private final String branchB;
     private final String localRepoPath;
+    private final String apiBaseUrl;
 
     public GitHubRepoContext(String ownerName, String repoName, String accessToken, String localRepoPath, String branchA, String branchB) {
+        this(ownerName, repoName, accessToken, localRepoPath, branchA, branchB, DEFAULT_API_BASE_URL);
+    }
+
+    public GitHubRepoContext(String ownerName, String repoName, String accessToken, String localRepoPath, String branchA, String branchB, String apiBaseUrl) {
         this.ownerName = ownerName;
         this.repoName = repoName;
         this.accessToken = accessToken;
         this.branchA = branchA;
         this.localRepoPath = localRepoPath;
         this.branchB = branchB;
+        this.apiBaseUrl = apiBaseUrl.endsWith("/") ? apiBaseUrl.substring(0, apiBaseUrl.length() - 1) : apiBaseUrl;
     }
 
     public String getLocalRepoPath() {
@@ -47,7 +59,39 @@ public class GitHubRepoContext {
         return branchB;
     }
 
+    public String getApiBaseUrl() {
+        return apiBaseUrl;
+    }
+
+    /**
+     * Returns the ref endpoint of the branchA head ({@code /git/ref/heads/<branch>}), with every segment of the branch name URL-encoded,
+     * so a branch such as {@code feature/x} keeps its slash while other special characters do not break the path.
+     */
+    public String getBranchARefApi() {
+        StringBuilder refApi = new StringBuilder(apiBaseUrl).append("/repos/").append(ownerName).append('/').append(repoName).append("/git/ref/heads");
+        for (String segment : branchA.split("/", -1)) {
+            refApi.append('/').append(URLEncoder.encode(segment, StandardCharsets.UTF_8).replace("+", "%20"));
+        }
+        return refApi.toString();
+    }
+
+    /**
+     * Returns the GraphQL endpoint: {@code <base>/graphql}, or {@code /api/graphql} for a GitHub Enterprise Server.
+     */
+    public String getGraphQLUrl() {
+        if (apiBaseUrl.endsWith("/api/v3")) {
+            return apiBaseUrl.substring(0, apiBaseUrl.length() - "/v3".length()) + "/graphql";
+        }
+        return apiBaseUrl + "/graphql";
+    }
+
+    /**
+     * Returns null if there is no access token (public repositories).
+     */
     public String getAuthorizationHeader() {
+        if (accessToken == null || accessToken.isBlank()) {
+            return null;
+        }
         return "Bearer " + accessToken;
     }
 }
@@ -0,0 +1,82 @@
+package com.github.gitconflictfinder.core;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Static interval tree over closed integer intervals {@code [low, high]}.
+ *
+ * How does it work?
+ * - the intervals are sorted by their low end and stored in plain int arrays,
+ * - the sorted array is read as an implicit balanced binary tree (the middle element is the root of every range),
+ * - every node keeps the highest high end of its subtree, so a query skips the subtrees that end before the queried interval,
+ * - a query takes O(log n + k) for k reported intervals.
+ */
+final class IntervalTree {
+    private final int[] lows;
+    private final int[] highs;
+    private final int[] ids;
+    private final int[] maxHighs;
+
+    /**
+     * Builds the tree; the interval {@code i} is {@code [lows[i], highs[i]]} and is reported as {@code i}.
+     */
+    IntervalTree(int[] lows, int[] highs) {
+        int size = lows.length;
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(lows[a], lows[b]));
+
+        this.lows = new int[size];
+        this.highs = new int[size];
+        this.ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            this.lows[i] = lows[order[i]];
+            this.highs[i] = highs[order[i]];
+            this.ids[i] = order[i];
+        }
+
+        this.maxHighs = new int[size];
+        computeMaxHighs(0, size);
+    }
+
+    /**
+     * Passes the ids of all intervals that intersect {@code [low, high]} to the consumer.
+     */
+    void query(int low, int high, IntConsumer consumer) {
+        query(0, lows.length, low, high, consumer);
+    }
+
+    private int computeMaxHighs(int from, int to) {
+        if (from >= to) {
+            return Integer.MIN_VALUE;
+        }
+
+        int middle = (from + to) >>> 1;
+        int maxHigh = Math.max(highs[middle], Math.max(computeMaxHighs(from, middle), computeMaxHighs(middle + 1, to)));
+        maxHighs[middle] = maxHigh;
+        return maxHigh;
+    }
+
+    private void query(int from, int to, int low, int high, IntConsumer consumer) {
+        if (from >= to) {
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        if (maxHighs[middle] < low) {
+            return;
+        }
+
+        query(from, middle, low, high, consumer);
+        if (lows[middle] > high) {
+            return;
+        }
+        if (highs[middle] >= low) {
+            consumer.accept(ids[middle]);
+        }
+        query(middle + 1, to, low, high, consumer);
+    }
+}
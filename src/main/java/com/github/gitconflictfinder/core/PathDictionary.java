@@ -0,0 +1,269 @@
+package com.github.gitconflictfinder.core;
+
+import java.util.Arrays;
+
+/**
+ * Compact dictionary that gives every path an int ID, storing the paths as a trie of their {@code /}-separated segments.
+ *
+ * How does it work?
+ * - every distinct segment (a directory or file name) is stored once, as one string, and gets a segment ID,
+ * - every trie node is a (parent node, segment) pair kept in two int arrays, the root is node 0,
+ *   so a long shared prefix such as {@code services/payments/src/main/java/com/acme/} is stored once, not once per path,
+ * - the children are found through one open-addressing hash table keyed by {@code parent << 32 | segment},
+ * - the ID of a path is the node of its last segment, so IDs are dense and fit a {@link java.util.BitSet},
+ * - paths are looked up straight from a {@link CharSequence} (e.g. a JSON parser or a decoder buffer),
+ *   without creating a string per path; a path string is created only when {@link #path(int)} asks for it.
+ *
+ * The dictionary is thread-safe, the concurrent fetches of the remote strategies intern into one instance.
+ *
+ * Used by {@link PathSet}.
+ */
+public class PathDictionary {
+    public static final int NOT_FOUND = -1;
+
+    private static final int ROOT = 0;
+    private static final long EMPTY = -1;
+
+    private String[] segments = new String[64];
+    private int[] segmentSlots = newSlots(128);
+    private int segmentCnt;
+
+    private int[] parents = new int[64];
+    private int[] nodeSegments = new int[64];
+    private int nodeCnt = 1;
+
+    private long[] childKeys = newKeys(128);
+    private int[] childNodes = new int[128];
+
+    public PathDictionary() {
+        parents[ROOT] = -1;
+        nodeSegments[ROOT] = -1;
+    }
+
+    /**
+     * Returns the ID of the path, adding it if it is new.
+     */
+    public synchronized int intern(CharSequence path) {
+        int node = ROOT;
+        int start = 0;
+        int length = path.length();
+        while (true) {
+            int end = indexOfSlash(path, start, length);
+            node = internChild(node, internSegment(path, start, end));
+            if (end == length) {
+                return node;
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Returns the ID of the path, or {@link #NOT_FOUND} if it was never added (nothing is added).
+     */
+    public synchronized int find(CharSequence path) {
+        int node = ROOT;
+        int start = 0;
+        int length = path.length();
+        while (true) {
+            int end = indexOfSlash(path, start, length);
+            int segment = findSegment(path, start, end);
+            if (segment < 0) {
+                return NOT_FOUND;
+            }
+
+            node = findChild(node, segment);
+            if (node < 0 || end == length) {
+                return node;
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Returns the path with the given ID.
+     */
+    public synchronized String path(int id) {
+        if (id <= ROOT || id >= nodeCnt) {
+            throw new IllegalArgumentException("Unknown path ID: " + id);
+        }
+
+        int[] nodes = new int[16];
+        int depth = 0;
+        for (int node = id; node != ROOT; node = parents[node]) {
+            if (depth == nodes.length) {
+                nodes = Arrays.copyOf(nodes, depth * 2);
+            }
+            nodes[depth++] = node;
+        }
+
+        StringBuilder path = new StringBuilder();
+        for (int i = depth - 1; i >= 0; i--) {
+            path.append(segments[nodeSegments[nodes[i]]]);
+            if (i > 0) {
+                path.append('/');
+            }
+        }
+
+        return path.toString();
+    }
+
+    /**
+     * Returns the number of IDs given out so far (paths and the directories on the way to them). IDs are below this number.
+     */
+    public synchronized int size() {
+        return nodeCnt;
+    }
+
+    private static int indexOfSlash(CharSequence path, int start, int length) {
+        for (int i = start; i < length; i++) {
+            if (path.charAt(i) == '/') {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    private int internSegment(CharSequence path, int start, int end) {
+        int hash = hash(path, start, end);
+        int mask = segmentSlots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int segment = segmentSlots[slot];
+            if (segment < 0) {
+                if (segmentCnt == segments.length) {
+                    segments = Arrays.copyOf(segments, segments.length * 2);
+                }
+                segments[segmentCnt] = path.subSequence(start, end).toString();
+                segmentSlots[slot] = segmentCnt;
+                segmentCnt++;
+
+                if (segmentCnt * 2 > segmentSlots.length) {
+                    rehashSegments();
+                }
+                return segmentCnt - 1;
+            }
+
+            if (equals(segments[segment], path, start, end)) {
+                return segment;
+            }
+        }
+    }
+
+    private int findSegment(CharSequence path, int start, int end) {
+        int mask = segmentSlots.length - 1;
+        for (int slot = hash(path, start, end) & mask; ; slot = (slot + 1) & mask) {
+            int segment = segmentSlots[slot];
+            if (segment < 0 || equals(segments[segment], path, start, end)) {
+                return segment;
+            }
+        }
+    }
+
+    private int internChild(int parent, int segment) {
+        long key = childKey(parent, segment);
+        int mask = childKeys.length - 1;
+        for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            if (childKeys[slot] == key) {
+                return childNodes[slot];
+            }
+
+            if (childKeys[slot] == EMPTY) {
+                if (nodeCnt == parents.length) {
+                    parents = Arrays.copyOf(parents, parents.length * 2);
+                    nodeSegments = Arrays.copyOf(nodeSegments, nodeSegments.length * 2);
+                }
+                int node = nodeCnt++;
+                parents[node] = parent;
+                nodeSegments[node] = segment;
+
+                childKeys[slot] = key;
+                childNodes[slot] = node;
+                if (nodeCnt * 2 > childKeys.length) {
+                    rehashChildren();
+                }
+                return node;
+            }
+        }
+    }
+
+    private int findChild(int parent, int segment) {
+        long key = childKey(parent, segment);
+        int mask = childKeys.length - 1;
+        for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            if (childKeys[slot] == key) {
+                return childNodes[slot];
+            }
+            if (childKeys[slot] == EMPTY) {
+                return NOT_FOUND;
+            }
+        }
+    }
+
+    private void rehashSegments() {
+        segmentSlots = newSlots(segmentSlots.length * 2);
+        int mask = segmentSlots.length - 1;
+        for (int segment = 0; segment < segmentCnt; segment++) {
+            String value = segments[segment];
+            int slot = hash(value, 0, value.length()) & mask;
+            while (segmentSlots[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            segmentSlots[slot] = segment;
+        }
+    }
+
+    private void rehashChildren() {
+        childKeys = newKeys(childKeys.length * 2);
+        childNodes = new int[childKeys.length];
+        int mask = childKeys.length - 1;
+        for (int node = 1; node < nodeCnt; node++) {
+            long key = childKey(parents[node], nodeSegments[node]);
+            int slot = mix(key) & mask;
+            while (childKeys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            childKeys[slot] = key;
+            childNodes[slot] = node;
+        }
+    }
+
+    private static long childKey(int parent, int segment) {
+        return ((long) parent << 32) | (segment & 0xFFFFFFFFL);
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int hash(CharSequence value, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + value.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean equals(String segment, CharSequence path, int start, int end) {
+        if (segment.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (segment.charAt(i) != path.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] newSlots(int capacity) {
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, -1);
+        return slots;
+    }
+
+    private static long[] newKeys(int capacity) {
+        long[] keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+}
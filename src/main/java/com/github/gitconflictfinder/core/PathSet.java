@@ -0,0 +1,198 @@
+package com.github.gitconflictfinder.core;
+
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of paths held as a {@link BitSet} of {@link PathDictionary} IDs, used for the changed files of the remote side.
+ *
+ * How does it work?
+ * - a path is added by interning it into the dictionary and setting its bit,
+ *   the parsers add the paths straight from their char buffers ({@link #addPath(CharSequence)}), so no string is kept per path,
+ * - {@link #contains(Object)} and {@link #idOf(CharSequence)} look a path up without adding it to the dictionary,
+ *   so checking the local paths against the set does not grow it,
+ * - two sets sharing a dictionary are intersected or merged word by word ({@link BitSet#and}, {@link BitSet#or}),
+ * - the iterator creates the path strings lazily, in the order the paths were first added to the dictionary.
+ *
+ * The single-path methods are thread-safe, so concurrent fetches can add to one set; iterate once the writers are done.
+ */
+public class PathSet extends AbstractSet<String> {
+    private final PathDictionary dictionary;
+    private final BitSet ids = new BitSet();
+    private int size;
+
+    public PathSet() {
+        this(new PathDictionary());
+    }
+
+    public PathSet(PathDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    public PathDictionary getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public boolean add(String path) {
+        return addPath(path);
+    }
+
+    /**
+     * Adds the path read from a reusable buffer (the buffer is not kept).
+     */
+    public boolean addPath(CharSequence path) {
+        return addId(dictionary.intern(path));
+    }
+
+    public synchronized boolean addId(int id) {
+        if (ids.get(id)) {
+            return false;
+        }
+
+        ids.set(id);
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object path) {
+        return path instanceof CharSequence chars && idOf(chars) != PathDictionary.NOT_FOUND;
+    }
+
+    /**
+     * Returns the dictionary ID of the path if the path is in the set, otherwise {@link PathDictionary#NOT_FOUND}.
+     */
+    public int idOf(CharSequence path) {
+        int id = dictionary.find(path);
+        return containsId(id) ? id : PathDictionary.NOT_FOUND;
+    }
+
+    public synchronized boolean containsId(int id) {
+        return id >= 0 && ids.get(id);
+    }
+
+    @Override
+    public boolean remove(Object path) {
+        if (!(path instanceof CharSequence chars)) {
+            return false;
+        }
+
+        int id = dictionary.find(chars);
+        synchronized (this) {
+            if (!containsId(id)) {
+                return false;
+            }
+
+            ids.clear(id);
+            size--;
+            return true;
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends String> paths) {
+        if (!(paths instanceof PathSet other) || other.dictionary != dictionary) {
+            return super.addAll(paths);
+        }
+
+        BitSet otherIds = other.copyIds();
+        synchronized (this) {
+            int oldSize = size;
+            ids.or(otherIds);
+            size = ids.cardinality();
+            return size != oldSize;
+        }
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> paths) {
+        if (!(paths instanceof PathSet other) || other.dictionary != dictionary) {
+            return super.retainAll(paths);
+        }
+
+        BitSet otherIds = other.copyIds();
+        synchronized (this) {
+            int oldSize = size;
+            ids.and(otherIds);
+            size = ids.cardinality();
+            return size != oldSize;
+        }
+    }
+
+    /**
+     * Returns the paths in both sets (which must share a dictionary), as a new set.
+     */
+    public PathSet intersection(PathSet other) {
+        if (other.dictionary != dictionary) {
+            throw new IllegalArgumentException("The sets do not share a dictionary.");
+        }
+
+        PathSet intersection = new PathSet(dictionary);
+        intersection.ids.or(copyIds());
+        intersection.ids.and(other.copyIds());
+        intersection.size = intersection.ids.cardinality();
+        return intersection;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void clear() {
+        ids.clear();
+        size = 0;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<>() {
+            private int next = nextId(0);
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public String next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+
+                last = next;
+                next = nextId(next + 1);
+                return dictionary.path(last);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+
+                synchronized (PathSet.this) {
+                    if (ids.get(last)) {
+                        ids.clear(last);
+                        size--;
+                    }
+                }
+                last = -1;
+            }
+        };
+    }
+
+    private synchronized int nextId(int from) {
+        return ids.nextSetBit(from);
+    }
+
+    private synchronized BitSet copyIds() {
+        return (BitSet) ids.clone();
+    }
+}
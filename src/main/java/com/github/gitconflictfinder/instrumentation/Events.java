@@ -0,0 +1,62 @@
+package com.github.gitconflictfinder.instrumentation;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The JDK Flight Recorder events of {@link Instrumentation}. They cost (almost) nothing while no recording is running.
+ */
+final class Events {
+    private Events() {}
+
+    @Name("com.github.gitconflictfinder.Phase")
+    @Label("Conflict Run Phase")
+    @Category("GitConflictFinder")
+    static final class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+    }
+
+    @Name("com.github.gitconflictfinder.GitHubRequest")
+    @Label("GitHub API Request")
+    @Description("A request, from sending it until its body was read (and parsed)")
+    @Category("GitConflictFinder")
+    static final class RequestEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Method")
+        String method;
+
+        @Label("URI")
+        String uri;
+
+        @Label("Status Code")
+        int statusCode;
+
+        @Label("Bytes Received")
+        @DataAmount
+        long bytes;
+
+        @Label("Served From Cache")
+        boolean cacheHit;
+    }
+
+    @Name("com.github.gitconflictfinder.GitCommand")
+    @Label("Git Command")
+    @Category("GitConflictFinder")
+    static final class GitCommandEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Command")
+        String command;
+
+        @Label("Exit Code")
+        int exitCode;
+    }
+}
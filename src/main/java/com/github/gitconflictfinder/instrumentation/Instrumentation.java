@@ -0,0 +1,358 @@
+package com.github.gitconflictfinder.instrumentation;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures where the time of a conflict run goes: per {@link Phase}, the time, the GitHub requests (count, waiting time,
+ * body reading and parsing time, bytes, cache hits, retries) and the git commands.
+ *
+ * How does it work?
+ * - the code marks its phases with {@code try (Instrumentation.Scope _ = instrumentation.phase(Phase.X))}, the phase is kept per thread,
+ *   so requests and git commands are attributed to the phase of the thread that runs them,
+ * - the totals are kept in {@link LongAdder}s (cheap under contention) and returned as a {@link MetricsSummary},
+ * - every measurement is also passed to the {@link MetricsListener}s and emitted as a JDK Flight Recorder event,
+ * - the {@link #disabled()} instance does nothing at all: its scopes and requests are shared no-op objects,
+ *   so the instrumented code pays only for a field read and a virtual call.
+ *
+ * The clients ({@code GitHubApiClient}, {@code GitCommandClient}) and the resolver share one instance.
+ */
+public final class Instrumentation {
+    private static final Instrumentation DISABLED = new Instrumentation(false, List.of());
+
+    /**
+     * A phase scope, closing it ends the phase.
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final Scope NOOP_SCOPE = () -> {};
+    private static final Request NOOP_REQUEST = new Request(null, null, null, null, 0);
+
+    private final boolean enabled;
+    private final List<MetricsListener> listeners;
+    private final ThreadLocal<Phase> currentPhase = new ThreadLocal<>();
+    private final Map<Phase, Counters> counters = new EnumMap<>(Phase.class);
+
+    public Instrumentation(MetricsListener... listeners) {
+        this(true, List.of(listeners));
+    }
+
+    private Instrumentation(boolean enabled, List<MetricsListener> listeners) {
+        this.enabled = enabled;
+        this.listeners = listeners;
+        for (Phase phase : Phase.values()) {
+            counters.put(phase, new Counters());
+        }
+    }
+
+    public static Instrumentation disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Returns the given instance, or the disabled one if it is null.
+     */
+    public static Instrumentation orDisabled(Instrumentation instrumentation) {
+        return instrumentation != null ? instrumentation : DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts a phase on the current thread. The previous phase is restored when the scope is closed.
+     */
+    public Scope phase(Phase phase) {
+        if (!enabled) {
+            return NOOP_SCOPE;
+        }
+
+        Phase previous = currentPhase.get();
+        currentPhase.set(phase);
+
+        Events.PhaseEvent event = new Events.PhaseEvent();
+        event.phase = phase.name();
+        event.begin();
+        long start = System.nanoTime();
+
+        return () -> {
+            long nanos = System.nanoTime() - start;
+            currentPhase.set(previous);
+
+            Counters phaseCounters = counters.get(phase);
+            phaseCounters.count.increment();
+            phaseCounters.nanos.add(nanos);
+
+            event.commit();
+            for (MetricsListener listener : listeners) {
+                listener.phaseFinished(phase, nanos);
+            }
+        };
+    }
+
+    public Phase currentPhase() {
+        Phase phase = currentPhase.get();
+        return phase != null ? phase : Phase.OTHER;
+    }
+
+    /**
+     * Starts measuring a request (right before it is sent).
+     */
+    public Request startRequest(String method, String uri) {
+        if (!enabled) {
+            return NOOP_REQUEST;
+        }
+
+        Events.RequestEvent event = new Events.RequestEvent();
+        event.begin();
+        return new Request(this, currentPhase(), method, uri, System.nanoTime(), event);
+    }
+
+    /**
+     * Records a finished git command.
+     */
+    public void gitCommandFinished(String command, int exitCode, long nanos) {
+        if (!enabled) {
+            return;
+        }
+
+        Phase phase = currentPhase();
+        Counters phaseCounters = counters.get(phase);
+        phaseCounters.gitCommands.increment();
+        phaseCounters.gitNanos.add(nanos);
+
+        Events.GitCommandEvent event = new Events.GitCommandEvent();
+        if (event.isEnabled()) {
+            event.phase = phase.name();
+            event.command = command;
+            event.exitCode = exitCode;
+            event.commit();
+        }
+
+        for (MetricsListener listener : listeners) {
+            listener.gitCommandFinished(phase, command, exitCode, nanos);
+        }
+    }
+
+    /**
+     * Returns the totals so far.
+     */
+    public MetricsSummary summary() {
+        if (!enabled) {
+            return MetricsSummary.EMPTY;
+        }
+
+        Map<Phase, PhaseStats> phases = new EnumMap<>(Phase.class);
+        for (Map.Entry<Phase, Counters> entry : counters.entrySet()) {
+            Counters c = entry.getValue();
+            PhaseStats stats = new PhaseStats(entry.getKey(), c.count.sum(), c.nanos.sum(), c.requests.sum(), c.requestNanos.sum(), c.bodyNanos.sum(),
+                    c.bytesReceived.sum(), c.cacheHits.sum(), c.retries.sum(), c.gitCommands.sum(), c.gitNanos.sum());
+
+            if (!stats.equals(PhaseStats.empty(entry.getKey()))) {
+                phases.put(entry.getKey(), stats);
+            }
+        }
+
+        return new MetricsSummary(phases);
+    }
+
+    /**
+     * Clears the totals (e.g. between two runs that share the clients).
+     */
+    public void reset() {
+        counters.values().forEach(Counters::reset);
+    }
+
+    private static final class Counters {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder requestNanos = new LongAdder();
+        private final LongAdder bodyNanos = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+        private final LongAdder cacheHits = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder gitCommands = new LongAdder();
+        private final LongAdder gitNanos = new LongAdder();
+
+        void reset() {
+            for (LongAdder adder : List.of(count, nanos, requests, requestNanos, bodyNanos, bytesReceived, cacheHits, retries, gitCommands, gitNanos)) {
+                adder.reset();
+            }
+        }
+    }
+
+    /**
+     * One measured request. The methods of the disabled instance's request do nothing.
+     */
+    public static final class Request {
+        private final Instrumentation instrumentation;
+        private final Phase phase;
+        private final String method;
+        private final String uri;
+        private final Events.RequestEvent event;
+        private long start;
+        private long respondedAt;
+        private int statusCode;
+        private boolean finished;
+
+        private Request(Instrumentation instrumentation, Phase phase, String method, String uri, long start) {
+            this(instrumentation, phase, method, uri, start, null);
+        }
+
+        private Request(Instrumentation instrumentation, Phase phase, String method, String uri, long start, Events.RequestEvent event) {
+            this.instrumentation = instrumentation;
+            this.phase = phase;
+            this.method = method;
+            this.uri = uri;
+            this.start = start;
+            this.event = event;
+        }
+
+        /**
+         * The response headers arrived.
+         */
+        public void responded(int statusCode) {
+            if (instrumentation == null) {
+                return;
+            }
+            this.statusCode = statusCode;
+            this.respondedAt = System.nanoTime();
+        }
+
+        /**
+         * The response was dropped and the request is sent again (e.g. after a secondary rate limit).
+         */
+        public void retried() {
+            if (instrumentation == null) {
+                return;
+            }
+
+            instrumentation.counters.get(phase).retries.increment();
+            for (MetricsListener listener : instrumentation.listeners) {
+                listener.requestRetried(phase, uri, statusCode);
+            }
+            start = System.nanoTime();
+        }
+
+        /**
+         * The request finished without a body to read (a cache hit or an error).
+         */
+        public void finished(boolean cacheHit) {
+            finished(0, cacheHit);
+        }
+
+        /**
+         * The request finished and its body (of the given size) was already read by the HTTP client.
+         */
+        public void finished(long bytes, boolean cacheHit) {
+            finish(bytes, 0, cacheHit);
+        }
+
+        /**
+         * Returns the body, counting its bytes; the request finishes when the body is fully read or closed.
+         */
+        public InputStream trackBody(InputStream body) {
+            if (instrumentation == null) {
+                return body;
+            }
+            return new CountingInputStream(body, this);
+        }
+
+        private synchronized void finish(long bytes, long bodyNanos, boolean cacheHit) {
+            if (instrumentation == null || finished) {
+                return;
+            }
+            finished = true;
+
+            long waitNanos = (respondedAt != 0 ? respondedAt : System.nanoTime()) - start;
+            Counters phaseCounters = instrumentation.counters.get(phase);
+            phaseCounters.requests.increment();
+            phaseCounters.requestNanos.add(waitNanos);
+            phaseCounters.bodyNanos.add(bodyNanos);
+            phaseCounters.bytesReceived.add(bytes);
+            if (cacheHit) {
+                phaseCounters.cacheHits.increment();
+            }
+
+            if (event.shouldCommit()) {
+                event.phase = phase.name();
+                event.method = method;
+                event.uri = uri;
+                event.statusCode = statusCode;
+                event.bytes = bytes;
+                event.cacheHit = cacheHit;
+                event.commit();
+            }
+
+            for (MetricsListener listener : instrumentation.listeners) {
+                listener.requestFinished(phase, method, uri, statusCode, bytes, waitNanos, bodyNanos, cacheHit);
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes read from a response body and finishes its request at the end of the body or on close.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final Request request;
+        private long bytes;
+
+        CountingInputStream(InputStream body, Request request) {
+            super(body);
+            this.request = request;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                finish();
+            } else {
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read < 0) {
+                finish();
+            } else {
+                bytes += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            bytes += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                finish();
+            }
+        }
+
+        private void finish() {
+            long bodyStart = request.respondedAt != 0 ? request.respondedAt : request.start;
+            request.finish(bytes, System.nanoTime() - bodyStart, false);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.gitconflictfinder.instrumentation;
+
+/**
+ * Receives the measurements of an {@link Instrumentation} as they happen (e.g. to forward them to a metrics system).
+ *
+ * The methods are called from the threads doing the work, so they must be thread-safe and fast.
+ * The times are in nanoseconds.
+ */
+public interface MetricsListener {
+    default void phaseFinished(Phase phase, long nanos) {}
+
+    /**
+     * A request finished: {@code nanos} until the response headers, {@code bodyNanos} for reading (and parsing) the body.
+     * A cache hit is a 304 response served from the stored body.
+     */
+    default void requestFinished(Phase phase, String method, String uri, int statusCode, long bytes, long nanos, long bodyNanos, boolean cacheHit) {}
+
+    default void requestRetried(Phase phase, String uri, int statusCode) {}
+
+    default void gitCommandFinished(Phase phase, String command, int exitCode, long nanos) {}
+}
@@ -0,0 +1,53 @@
+package com.github.gitconflictfinder.instrumentation;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Snapshot of the per-phase totals of an {@link Instrumentation}, returned next to the results.
+ * Only the phases with any activity are present.
+ */
+public class MetricsSummary {
+    public static final MetricsSummary EMPTY = new MetricsSummary(new EnumMap<>(Phase.class));
+
+    private final Map<Phase, PhaseStats> phases;
+
+    public MetricsSummary(Map<Phase, PhaseStats> phases) {
+        this.phases = Collections.unmodifiableMap(phases.isEmpty() ? new EnumMap<>(Phase.class) : new EnumMap<>(phases));
+    }
+
+    public Map<Phase, PhaseStats> getPhases() {
+        return phases;
+    }
+
+    public PhaseStats get(Phase phase) {
+        return phases.getOrDefault(phase, PhaseStats.empty(phase));
+    }
+
+    public boolean isEmpty() {
+        return phases.isEmpty();
+    }
+
+    public long getTotalRequests() {
+        return phases.values().stream().mapToLong(PhaseStats::requests).sum();
+    }
+
+    public long getTotalBytesReceived() {
+        return phases.values().stream().mapToLong(PhaseStats::bytesReceived).sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder table = new StringBuilder(String.format("%-16s %6s %10s %8s %10s %10s %12s %6s %7s %6s %10s%n",
+                "phase", "count", "ms", "requests", "wait ms", "body ms", "bytes", "cached", "retries", "git", "git ms"));
+
+        for (PhaseStats stats : phases.values()) {
+            table.append(String.format("%-16s %6d %10.1f %8d %10.1f %10.1f %12d %6d %7d %6d %10.1f%n",
+                    stats.phase(), stats.count(), stats.nanos() / 1e6, stats.requests(), stats.requestNanos() / 1e6, stats.bodyNanos() / 1e6,
+                    stats.bytesReceived(), stats.cacheHits(), stats.retries(), stats.gitCommands(), stats.gitNanos() / 1e6));
+        }
+
+        return table.toString();
+    }
+}
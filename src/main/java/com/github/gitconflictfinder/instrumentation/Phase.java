@@ -0,0 +1,19 @@
+package com.github.gitconflictfinder.instrumentation;
+
+/**
+ * The phases of a conflict run, used to attribute time, requests and git commands.
+ *
+ * The phases nest: {@link #REMOTE_DIFF} is the whole remote side, {@link #REMOTE_HISTORY}, {@link #COMMIT_FILES}
+ * and {@link #REMOTE_TREES} are the parts of it. Work done outside of any phase is counted as {@link #OTHER}.
+ */
+public enum Phase {
+    TOKEN_VALIDATION,
+    MERGE_BASE,
+    LOCAL_DIFF,
+    REMOTE_DIFF,
+    REMOTE_HISTORY,
+    COMMIT_FILES,
+    REMOTE_TREES,
+    HUNKS,
+    OTHER
+}
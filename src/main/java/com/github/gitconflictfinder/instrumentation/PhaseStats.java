@@ -0,0 +1,23 @@
+package com.github.gitconflictfinder.instrumentation;
+
+/**
+ * The totals of one {@link Phase}. The times are in nanoseconds, summed over all threads
+ * (so concurrent work can add up to more than the wall-clock time).
+ */
+public record PhaseStats(
+        Phase phase,
+        long count,
+        long nanos,
+        long requests,
+        long requestNanos,
+        long bodyNanos,
+        long bytesReceived,
+        long cacheHits,
+        long retries,
+        long gitCommands,
+        long gitNanos
+) {
+    public static PhaseStats empty(Phase phase) {
+        return new PhaseStats(phase, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.gitconflictfinder.objects;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parts of a commit needed for the merge-base walk and the tree diff.
+ *
+ * {@code generation} is the topological level from the commit-graph file,
+ * or {@link #GENERATION_INFINITY} if the commit is not in it.
+ */
+record Commit(ObjectId id, ObjectId tree, List<ObjectId> parents, long commitTime, int generation) {
+    static final int GENERATION_INFINITY = Integer.MAX_VALUE;
+
+    static Commit parse(ObjectId id, byte[] data) throws IOException {
+        ObjectId tree = null;
+        List<ObjectId> parents = new ArrayList<>(2);
+        long commitTime = 0;
+
+        int position = 0;
+        while (position < data.length) {
+            int end = ObjectDatabase.indexOf(data, (byte) '\n', position);
+            if (end < 0) {
+                end = data.length;
+            }
+            if (end == position) {
+                break;
+            }
+
+            if (startsWith(data, position, "tree ")) {
+                tree = ObjectId.fromHex(new String(data, position + 5, 40, StandardCharsets.US_ASCII));
+            } else if (startsWith(data, position, "parent ")) {
+                parents.add(ObjectId.fromHex(new String(data, position + 7, 40, StandardCharsets.US_ASCII)));
+            } else if (startsWith(data, position, "committer ")) {
+                commitTime = parseTime(data, position, end);
+            }
+            position = end + 1;
+        }
+
+        if (tree == null) {
+            throw new IOException("Corrupt commit " + id);
+        }
+        return new Commit(id, tree, List.copyOf(parents), commitTime, GENERATION_INFINITY);
+    }
+
+    /**
+     * Returns the author time (in seconds since the epoch) of the raw commit.
+     */
+    static long parseAuthorTime(byte[] data) {
+        int position = 0;
+        while (position < data.length) {
+            int end = ObjectDatabase.indexOf(data, (byte) '\n', position);
+            if (end < 0) {
+                end = data.length;
+            }
+            if (end == position) {
+                break;
+            }
+            if (startsWith(data, position, "author ")) {
+                return parseTime(data, position, end);
+            }
+            position = end + 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Parses the timestamp of an identity line: {@code <name> <<email>> <timestamp> <timezone>}.
+     */
+    private static long parseTime(byte[] data, int start, int end) {
+        int timezoneStart = end;
+        while (timezoneStart > start && data[timezoneStart - 1] != ' ') {
+            timezoneStart--;
+        }
+        int timeStart = timezoneStart - 1;
+        while (timeStart > start && data[timeStart - 1] != ' ') {
+            timeStart--;
+        }
+
+        long time = 0;
+        for (int i = timeStart; i < timezoneStart - 1; i++) {
+            if (data[i] < '0' || data[i] > '9') {
+                return 0;
+            }
+            time = time * 10 + (data[i] - '0');
+        }
+        return time;
+    }
+
+    private static boolean startsWith(byte[] data, int position, String prefix) {
+        if (data.length - position < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (data[position + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
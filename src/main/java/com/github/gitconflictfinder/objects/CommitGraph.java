@@ -0,0 +1,155 @@
+package com.github.gitconflictfinder.objects;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A memory-mapped {@code objects/info/commit-graph} file.
+ *
+ * How does it work?
+ * - the OIDF (fan-out) and OIDL (sorted SHAs) chunks give the position of a commit,
+ * - the CDAT chunk holds, per position: the root tree, the first two parents (as positions),
+ *   the topological level (generation number) and the commit time,
+ * - octopus merges keep the rest of their parents in the EDGE chunk,
+ * so a commit in the graph can be walked without inflating and parsing its object.
+ *
+ * Split commit-graph chains are not read (only the single file), the walk then falls back to the objects.
+ */
+final class CommitGraph {
+    private static final int SIGNATURE = 0x43475048;
+    private static final int CHUNK_OID_FANOUT = 0x4f494446;
+    private static final int CHUNK_OID_LOOKUP = 0x4f49444c;
+    private static final int CHUNK_COMMIT_DATA = 0x43444154;
+    private static final int CHUNK_EXTRA_EDGES = 0x45444745;
+
+    private static final int COMMIT_DATA_SIZE = ObjectId.LENGTH + 16;
+    private static final int PARENT_NONE = 0x70000000;
+    private static final int EDGE_LAST = 0x80000000;
+
+    private final ByteBuffer graph;
+    private final int fanout;
+    private final int lookup;
+    private final int commitData;
+    private final int extraEdges;
+    private final int commitCount;
+
+    private CommitGraph(ByteBuffer graph, int fanout, int lookup, int commitData, int extraEdges) {
+        this.graph = graph;
+        this.fanout = fanout;
+        this.lookup = lookup;
+        this.commitData = commitData;
+        this.extraEdges = extraEdges;
+        this.commitCount = graph.getInt(fanout + 255 * 4);
+    }
+
+    /**
+     * Opens the commit-graph of the object directory, or returns null if there is none (or it cannot be used).
+     */
+    static CommitGraph open(File objectDirectory) {
+        File file = new File(objectDirectory, "info/commit-graph");
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try {
+            ByteBuffer graph = PackFile.map(file);
+            if (graph.getInt(0) != SIGNATURE || graph.get(4) != 1 || graph.get(5) != 1 || graph.get(7) != 0) {
+                return null;
+            }
+
+            int chunkCount = graph.get(6) & 0xff;
+            int fanout = -1, lookup = -1, commitData = -1, extraEdges = -1;
+            for (int i = 0; i < chunkCount; i++) {
+                int id = graph.getInt(8 + i * 12);
+                int offset = (int) graph.getLong(8 + i * 12 + 4);
+                switch (id) {
+                    case CHUNK_OID_FANOUT -> fanout = offset;
+                    case CHUNK_OID_LOOKUP -> lookup = offset;
+                    case CHUNK_COMMIT_DATA -> commitData = offset;
+                    case CHUNK_EXTRA_EDGES -> extraEdges = offset;
+                    default -> { }
+                }
+            }
+
+            if (fanout < 0 || lookup < 0 || commitData < 0) {
+                return null;
+            }
+            return new CommitGraph(graph, fanout, lookup, commitData, extraEdges);
+
+        } catch (IOException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the commit from the graph, or null if the graph does not contain it.
+     */
+    Commit lookup(ObjectId id) {
+        int position = find(id);
+        if (position < 0) {
+            return null;
+        }
+
+        int data = commitData + position * COMMIT_DATA_SIZE;
+        ObjectId tree = ObjectId.fromBuffer(graph, data);
+        int parent1 = graph.getInt(data + ObjectId.LENGTH);
+        int parent2 = graph.getInt(data + ObjectId.LENGTH + 4);
+        int high = graph.getInt(data + ObjectId.LENGTH + 8);
+        int low = graph.getInt(data + ObjectId.LENGTH + 12);
+
+        List<ObjectId> parents = new ArrayList<>(2);
+        if (parent1 != PARENT_NONE) {
+            parents.add(idAt(parent1));
+        }
+        if (parent2 != PARENT_NONE) {
+            if ((parent2 & EDGE_LAST) == 0) {
+                parents.add(idAt(parent2));
+            } else if (extraEdges >= 0) {
+                int edge = extraEdges + (parent2 & ~EDGE_LAST) * 4;
+                int value;
+                do {
+                    value = graph.getInt(edge);
+                    parents.add(idAt(value & ~EDGE_LAST));
+                    edge += 4;
+                } while ((value & EDGE_LAST) == 0);
+            } else {
+                return null;
+            }
+        }
+
+        // Graphs written without generation numbers store 0, which cannot be used for the walk order.
+        int generation = high >>> 2 == 0 ? Commit.GENERATION_INFINITY : high >>> 2;
+        long commitTime = ((long) (high & 3) << 32) | (low & 0xffffffffL);
+        return new Commit(id, tree, List.copyOf(parents), commitTime, generation);
+    }
+
+    private int find(ObjectId id) {
+        int first = id.firstByte();
+        int low = first == 0 ? 0 : graph.getInt(fanout + (first - 1) * 4);
+        int high = graph.getInt(fanout + first * 4);
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = id.compareTo(graph, lookup + mid * ObjectId.LENGTH);
+            if (cmp == 0) {
+                return mid;
+            }
+            if (cmp < 0) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return -1;
+    }
+
+    private ObjectId idAt(int position) {
+        if (position < 0 || position >= commitCount) {
+            throw new IndexOutOfBoundsException("Corrupt commit-graph parent position " + position);
+        }
+        return ObjectId.fromBuffer(graph, lookup + position * ObjectId.LENGTH);
+    }
+}
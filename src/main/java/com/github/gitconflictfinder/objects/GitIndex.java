@@ -0,0 +1,166 @@
+package com.github.gitconflictfinder.objects;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The entries of the {@code .git/index} file (versions 2 and 3) and its cache-tree extension.
+ *
+ * How does it work?
+ * - every entry holds the path, mode, blob SHA, stage, and the size and modification time the file had when it was staged,
+ * - the cache-tree ({@code TREE}) extension maps a directory to the tree SHA its entries would be written as,
+ *   so a directory whose cached tree equals the commit's tree can be skipped without looking at its entries.
+ *
+ * Version 4 (prefix-compressed paths), split and sparse indexes are reported as unsupported.
+ */
+final class GitIndex {
+    private static final int SIGNATURE = 0x44495243;
+    private static final int EXTENDED_FLAG = 0x4000;
+    private static final int SKIP_WORKTREE_FLAG = 0x4000;
+    private static final int INTENT_TO_ADD_FLAG = 0x2000;
+
+    record Entry(String path, int mode, ObjectId id, int stage, int size, int mtimeSeconds, int mtimeNanos,
+                 boolean skipWorktree, boolean intentToAdd) {}
+
+    private final List<Entry> entries;
+    private final Map<String, ObjectId> cacheTree;
+    private final long modifiedMillis;
+
+    private GitIndex(List<Entry> entries, Map<String, ObjectId> cacheTree, long modifiedMillis) {
+        this.entries = entries;
+        this.cacheTree = cacheTree;
+        this.modifiedMillis = modifiedMillis;
+    }
+
+    static GitIndex read(File file) throws IOException {
+        if (!file.isFile()) {
+            return new GitIndex(List.of(), Map.of(), 0);
+        }
+
+        long modifiedMillis = file.lastModified();
+        ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        if (index.getInt(0) != SIGNATURE) {
+            throw new IOException("Not an index file: " + file);
+        }
+
+        int version = index.getInt(4);
+        if (version != 2 && version != 3) {
+            throw new UnsupportedRepositoryException("Unsupported index version " + version);
+        }
+
+        int count = index.getInt(8);
+        List<Entry> entries = new ArrayList<>(count);
+        int position = 12;
+
+        for (int i = 0; i < count; i++) {
+            int start = position;
+            int mtimeSeconds = index.getInt(start + 8);
+            int mtimeNanos = index.getInt(start + 12);
+            int mode = index.getInt(start + 24);
+            int size = index.getInt(start + 36);
+            ObjectId id = ObjectId.fromBuffer(index, start + 40);
+            int flags = index.getShort(start + 60) & 0xffff;
+
+            int nameStart = start + 62;
+            int extendedFlags = 0;
+            if ((flags & EXTENDED_FLAG) != 0) {
+                extendedFlags = index.getShort(nameStart) & 0xffff;
+                nameStart += 2;
+            }
+
+            int nameLength = flags & 0xfff;
+            if (nameLength == 0xfff) {
+                nameLength = 0;
+                while (index.get(nameStart + nameLength) != 0) {
+                    nameLength++;
+                }
+            }
+
+            String path = new String(index.array(), nameStart, nameLength, StandardCharsets.UTF_8);
+            entries.add(new Entry(path, mode, id, (flags >> 12) & 3, size, mtimeSeconds, mtimeNanos,
+                    (extendedFlags & SKIP_WORKTREE_FLAG) != 0, (extendedFlags & INTENT_TO_ADD_FLAG) != 0));
+
+            // Entries are NUL-padded to a multiple of 8 bytes (with at least one NUL).
+            position = start + ((nameStart - start + nameLength + 8) & ~7);
+        }
+
+        Map<String, ObjectId> cacheTree = new HashMap<>();
+        int end = index.limit() - ObjectId.LENGTH;
+        while (position + 8 <= end) {
+            int signature = index.getInt(position);
+            int size = index.getInt(position + 4);
+            int data = position + 8;
+
+            if (signature == 0x54524545) {
+                readCacheTree(index, data, data + size, cacheTree);
+            } else if (signature == 0x6c696e6b || signature == 0x73646972) {
+                throw new UnsupportedRepositoryException("Split and sparse indexes are not supported");
+            }
+            position = data + size;
+        }
+
+        return new GitIndex(entries, cacheTree, modifiedMillis);
+    }
+
+    List<Entry> entries() {
+        return entries;
+    }
+
+    /**
+     * Returns the cached tree of the directory ("" for the root, "dir/sub/" otherwise), or null if it is not valid.
+     */
+    ObjectId cachedTree(String directory) {
+        return cacheTree.get(directory);
+    }
+
+    long modifiedMillis() {
+        return modifiedMillis;
+    }
+
+    /**
+     * Reads the cache-tree entries: {@code <name>\0<entry count> <subtree count>\n[sha]}, children follow their parent.
+     */
+    private static void readCacheTree(ByteBuffer index, int position, int end, Map<String, ObjectId> cacheTree) {
+        int[] cursor = {position};
+        readCacheTreeNode(index, cursor, end, "", true, cacheTree);
+    }
+
+    private static void readCacheTreeNode(ByteBuffer index, int[] cursor, int end, String parent, boolean root, Map<String, ObjectId> cacheTree) {
+        if (cursor[0] >= end) {
+            return;
+        }
+
+        int nameStart = cursor[0];
+        int nameEnd = nameStart;
+        while (index.get(nameEnd) != 0) {
+            nameEnd++;
+        }
+        String name = new String(index.array(), nameStart, nameEnd - nameStart, StandardCharsets.UTF_8);
+
+        int lineEnd = nameEnd + 1;
+        while (index.get(lineEnd) != '\n') {
+            lineEnd++;
+        }
+        String[] counts = new String(index.array(), nameEnd + 1, lineEnd - nameEnd - 1, StandardCharsets.US_ASCII).split(" ");
+        int entryCount = Integer.parseInt(counts[0]);
+        int subtreeCount = Integer.parseInt(counts[1]);
+        cursor[0] = lineEnd + 1;
+
+        String directory = root ? "" : parent + name + "/";
+        if (entryCount >= 0) {
+            cacheTree.put(directory, ObjectId.fromBuffer(index, cursor[0]));
+            cursor[0] += ObjectId.LENGTH;
+        }
+
+        for (int i = 0; i < subtreeCount; i++) {
+            readCacheTreeNode(index, cursor, end, directory, false, cacheTree);
+        }
+    }
+}
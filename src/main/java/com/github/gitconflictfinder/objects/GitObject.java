@@ -0,0 +1,21 @@
+package com.github.gitconflictfinder.objects;
+
+/**
+ * An inflated git object: its type and content (without the {@code "<type> <size>\0"} header).
+ */
+record GitObject(int type, byte[] data) {
+    static final int COMMIT = 1;
+    static final int TREE = 2;
+    static final int BLOB = 3;
+    static final int TAG = 4;
+
+    static int typeOf(String name) {
+        return switch (name) {
+            case "commit" -> COMMIT;
+            case "tree" -> TREE;
+            case "blob" -> BLOB;
+            case "tag" -> TAG;
+            default -> -1;
+        };
+    }
+}
@@ -0,0 +1,409 @@
+package com.github.gitconflictfinder.objects;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Reads a local repository straight from its {@code .git} directory, without starting git.
+ *
+ * How does it work?
+ * - branch, tag and remote-tracking names are resolved from the loose refs and {@code packed-refs},
+ * - objects are read by the {@link ObjectDatabase} (memory-mapped packs and loose objects),
+ * - commits come from the commit-graph when it has them (no object is inflated), otherwise they are parsed,
+ * - the merge base is found by the {@link MergeBaseFinder},
+ * - tree-to-tree and tree-to-working-tree diffs are done by {@link TreeDiff} and {@link WorktreeDiff},
+ *   both skip every subtree whose SHA did not change.
+ *
+ * Only plain names (branches, tags, remote branches, HEAD) and full SHAs can be resolved.
+ * Anything else - revision expressions, abbreviated SHAs, SHA-256 or reftable repositories -
+ * throws {@link UnsupportedRepositoryException}, so the caller can ask git instead.
+ *
+ * A repository is safe to use from many threads.
+ */
+public final class LocalRepository {
+    private static final Pattern SPECIAL_REVISION = Pattern.compile("[~^:@{}\\\\*?\\[\\s]|\\.\\.");
+    private static final Pattern ABBREVIATED_SHA = Pattern.compile("[0-9a-fA-F]{4,39}");
+
+    private final File gitDirectory;
+    private final File commonDirectory;
+    private final File worktree;
+    private final ObjectDatabase objects;
+    private final CommitGraph commitGraph;
+    private final Map<String, String> config;
+
+    private volatile PackedRefs packedRefs;
+
+    private record PackedRefs(long modified, Map<String, String> refs) {}
+
+    private LocalRepository(File worktree, File gitDirectory, File commonDirectory) throws IOException {
+        this.worktree = worktree;
+        this.gitDirectory = gitDirectory;
+        this.commonDirectory = commonDirectory;
+        this.config = readConfig(new File(commonDirectory, "config"));
+
+        String objectFormat = config.getOrDefault("extensions.objectformat", "sha1");
+        if (!objectFormat.equalsIgnoreCase("sha1")) {
+            throw new UnsupportedRepositoryException("Unsupported object format: " + objectFormat);
+        }
+        if (config.containsKey("extensions.refstorage") && !config.get("extensions.refstorage").equalsIgnoreCase("files")) {
+            throw new UnsupportedRepositoryException("Unsupported ref storage: " + config.get("extensions.refstorage"));
+        }
+
+        File objectDirectory = new File(commonDirectory, "objects");
+        this.objects = new ObjectDatabase(objectDirectory);
+        this.commitGraph = CommitGraph.open(objectDirectory);
+    }
+
+    /**
+     * Opens the repository whose working tree is the given directory.
+     */
+    public static LocalRepository open(File worktree) throws IOException {
+        File dotGit = new File(worktree, ".git");
+
+        File gitDirectory = dotGit;
+        if (dotGit.isFile()) {
+            String content = Files.readString(dotGit.toPath()).trim();
+            if (!content.startsWith("gitdir:")) {
+                throw new IOException("Not a git repository: " + worktree);
+            }
+            gitDirectory = resolve(worktree, content.substring("gitdir:".length()).trim());
+        }
+        if (!gitDirectory.isDirectory()) {
+            throw new IOException("Not a git repository: " + worktree);
+        }
+
+        File commonDirectory = gitDirectory;
+        File commonDirFile = new File(gitDirectory, "commondir");
+        if (commonDirFile.isFile()) {
+            commonDirectory = resolve(gitDirectory, Files.readString(commonDirFile.toPath()).trim());
+        }
+
+        return new LocalRepository(worktree, gitDirectory, commonDirectory);
+    }
+
+    /**
+     * Returns the SHA of the commit the revision points to, or null if there is no such commit.
+     */
+    public String resolveCommit(String revision) throws IOException {
+        ObjectId id = resolve(revision);
+        return id == null ? null : id.hex();
+    }
+
+    /**
+     * Returns the merge base of the two revisions, like {@code git merge-base a b}.
+     */
+    public String mergeBase(String revisionA, String revisionB) throws IOException {
+        ObjectId base = new MergeBaseFinder(this::readCommit).find(resolveExisting(revisionA), resolveExisting(revisionB));
+        if (base == null) {
+            throw new IOException("There is no merge base between " + revisionA + " and " + revisionB);
+        }
+        return base.hex();
+    }
+
+    /**
+     * Returns the paths that differ between the two commits, like {@code git diff --name-only from to}.
+     */
+    public ArrayList<String> diffCommits(String fromRevision, String toRevision) throws IOException {
+        ArrayList<String> changed = new ArrayList<>();
+        diffCommits(fromRevision, toRevision, changed::add);
+        changed.sort(null);
+        return changed;
+    }
+
+    /**
+     * Passes the paths that differ between the two commits to the consumer as the trees are walked,
+     * in the order {@code git diff --name-only from to} prints them, without collecting them.
+     */
+    public void diffCommits(String fromRevision, String toRevision, Consumer<String> consumer) throws IOException {
+        ObjectId fromTree = readCommit(resolveExisting(fromRevision)).tree();
+        ObjectId toTree = readCommit(resolveExisting(toRevision)).tree();
+
+        new TreeDiff(this::readTree).diff(fromTree, toTree, "", consumer);
+    }
+
+    /**
+     * Returns the tracked paths changed in the working tree since the commit, like {@code git diff --name-only from}.
+     * The paths are collected and sorted, as the commit and the index are compared in two passes.
+     */
+    public ArrayList<String> diffWorktree(String fromRevision) throws IOException {
+        ObjectId fromTree = readCommit(resolveExisting(fromRevision)).tree();
+        GitIndex index = GitIndex.read(new File(gitDirectory, "index"));
+
+        boolean trustFileMode = !"false".equalsIgnoreCase(config.get("core.filemode"));
+
+        List<String> changed = new ArrayList<>();
+        new WorktreeDiff(this::readTree, index, worktree.toPath(), trustFileMode, filtersPossible(index)).diff(fromTree, changed);
+
+        return new ArrayList<>(changed.stream().distinct().sorted().toList());
+    }
+
+    /**
+     * Returns the author time of the commit (in seconds since the epoch).
+     */
+    public long getAuthorTime(String revision) throws IOException {
+        GitObject object = objects.read(resolveExisting(revision));
+        return Commit.parseAuthorTime(object.data());
+    }
+
+    Commit readCommit(ObjectId id) throws IOException {
+        if (commitGraph != null) {
+            Commit commit = commitGraph.lookup(id);
+            if (commit != null) {
+                return commit;
+            }
+        }
+
+        GitObject object = objects.read(id);
+        if (object.type() != GitObject.COMMIT) {
+            throw new IOException(id + " is not a commit");
+        }
+        return Commit.parse(id, object.data());
+    }
+
+    List<TreeDiff.TreeEntry> readTree(ObjectId id) throws IOException {
+        GitObject object = objects.read(id);
+        if (object.type() != GitObject.TREE) {
+            throw new IOException(id + " is not a tree");
+        }
+        return TreeDiff.parse(object.data());
+    }
+
+    private ObjectId resolveExisting(String revision) throws IOException {
+        ObjectId id = resolve(revision);
+        if (id == null) {
+            // git may still know it (e.g. a unique SHA prefix), let it decide.
+            throw new UnsupportedRepositoryException("Cannot resolve the revision " + revision);
+        }
+        return id;
+    }
+
+    private ObjectId resolve(String revision) throws IOException {
+        if (revision == null || revision.isEmpty() || SPECIAL_REVISION.matcher(revision).find()) {
+            throw new UnsupportedRepositoryException("Unsupported revision: " + revision);
+        }
+
+        ObjectId id = null;
+        if (ObjectId.isHex(revision)) {
+            id = ObjectId.fromHex(revision);
+            if (!objects.contains(id)) {
+                return null;
+            }
+        } else {
+            String[] candidates = {
+                    revision, "refs/" + revision, "refs/tags/" + revision, "refs/heads/" + revision,
+                    "refs/remotes/" + revision, "refs/remotes/" + revision + "/HEAD"
+            };
+            for (String candidate : candidates) {
+                String sha = readRef(candidate, 0);
+                if (sha != null) {
+                    id = ObjectId.fromHex(sha);
+                    break;
+                }
+            }
+        }
+
+        if (id == null) {
+            if (ABBREVIATED_SHA.matcher(revision).matches()) {
+                throw new UnsupportedRepositoryException("Abbreviated SHAs are not supported: " + revision);
+            }
+            return null;
+        }
+        return peelToCommit(id);
+    }
+
+    private ObjectId peelToCommit(ObjectId id) throws IOException {
+        for (int depth = 0; depth < 16; depth++) {
+            if (commitGraph != null && commitGraph.lookup(id) != null) {
+                return id;
+            }
+
+            GitObject object = objects.read(id);
+            if (object.type() == GitObject.COMMIT) {
+                return id;
+            }
+            if (object.type() != GitObject.TAG) {
+                return null;
+            }
+
+            String tag = new String(object.data(), StandardCharsets.UTF_8);
+            if (!tag.startsWith("object ")) {
+                throw new IOException("Corrupt tag " + id);
+            }
+            id = ObjectId.fromHex(tag.substring(7, 47));
+        }
+        return null;
+    }
+
+    /**
+     * Returns the SHA the ref points to (following symbolic refs), or null if the ref does not exist.
+     */
+    private String readRef(String name, int depth) throws IOException {
+        if (depth > 5) {
+            return null;
+        }
+
+        // Per-worktree refs (HEAD) live in the worktree's git directory, shared refs in the common directory.
+        for (File directory : gitDirectory.equals(commonDirectory) ? List.of(gitDirectory) : List.of(gitDirectory, commonDirectory)) {
+            File file = new File(directory, name);
+            if (!file.isFile()) {
+                continue;
+            }
+
+            String content = Files.readString(file.toPath()).trim();
+            if (content.startsWith("ref:")) {
+                return readRef(content.substring(4).trim(), depth + 1);
+            }
+            if (ObjectId.isHex(content)) {
+                return content;
+            }
+        }
+
+        return readPackedRefs().get(name);
+    }
+
+    private Map<String, String> readPackedRefs() throws IOException {
+        File file = new File(commonDirectory, "packed-refs");
+        long modified = file.lastModified();
+
+        PackedRefs current = packedRefs;
+        if (current != null && current.modified() == modified) {
+            return current.refs();
+        }
+
+        Map<String, String> refs = new HashMap<>();
+        if (file.isFile()) {
+            for (String line : Files.readAllLines(file.toPath())) {
+                if (line.isEmpty() || line.startsWith("#") || line.startsWith("^")) {
+                    continue;
+                }
+                int space = line.indexOf(' ');
+                if (space == 40) {
+                    refs.put(line.substring(41).trim(), line.substring(0, 40));
+                }
+            }
+        }
+
+        packedRefs = new PackedRefs(modified, refs);
+        return refs;
+    }
+
+    /**
+     * Returns true if content filters may apply to the working tree: {@code core.autocrlf} in any config git reads
+     * (system, global, repository), an attributes file ({@code core.attributesFile}, {@code info/attributes})
+     * or a {@code .gitattributes} in the working tree root or tracked anywhere in it.
+     * Config includes, {@code -c} parameters and Windows (where the system config of Git for Windows can be anywhere)
+     * are answered with true, as the effective config cannot be known without git.
+     */
+    private boolean filtersPossible(GitIndex index) throws IOException {
+        if (File.separatorChar == '\\' || System.getenv("GIT_CONFIG_PARAMETERS") != null || System.getenv("GIT_CONFIG_COUNT") != null) {
+            return true;
+        }
+
+        Map<String, String> effective = new HashMap<>();
+        for (File file : globalConfigFiles()) {
+            effective.putAll(readConfig(file));
+        }
+        effective.putAll(config);
+
+        for (String key : effective.keySet()) {
+            if (key.startsWith("include.") || key.startsWith("includeif.")) {
+                return true;
+            }
+        }
+        if (!"false".equalsIgnoreCase(effective.getOrDefault("core.autocrlf", "false"))) {
+            return true;
+        }
+
+        String attributesFile = effective.get("core.attributesfile");
+        File globalAttributes = attributesFile != null ? expandHome(attributesFile) : new File(xdgConfigHome(), "git/attributes");
+        if (globalAttributes.exists() || new File(worktree, ".gitattributes").exists() || new File(commonDirectory, "info/attributes").exists()) {
+            return true;
+        }
+
+        for (GitIndex.Entry entry : index.entries()) {
+            if (entry.path().equals(".gitattributes") || entry.path().endsWith("/.gitattributes")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the system and global config files git reads before the repository one, in that order.
+     */
+    private static List<File> globalConfigFiles() {
+        List<File> files = new ArrayList<>();
+
+        String noSystem = System.getenv("GIT_CONFIG_NOSYSTEM");
+        if (noSystem == null || noSystem.isEmpty() || noSystem.equalsIgnoreCase("false") || noSystem.equals("0")) {
+            String system = System.getenv("GIT_CONFIG_SYSTEM");
+            files.add(new File(system != null ? system : "/etc/gitconfig"));
+        }
+
+        String global = System.getenv("GIT_CONFIG_GLOBAL");
+        if (global != null) {
+            files.add(new File(global));
+        } else {
+            files.add(new File(xdgConfigHome(), "git/config"));
+            files.add(new File(System.getProperty("user.home"), ".gitconfig"));
+        }
+
+        return files;
+    }
+
+    private static File xdgConfigHome() {
+        String xdg = System.getenv("XDG_CONFIG_HOME");
+        return xdg != null && !xdg.isEmpty() ? new File(xdg) : new File(System.getProperty("user.home"), ".config");
+    }
+
+    private static File expandHome(String path) {
+        return path.startsWith("~/") ? new File(System.getProperty("user.home"), path.substring(2)) : new File(path);
+    }
+
+    /**
+     * Reads the {@code section.key} (or {@code section.subsection.key}) values of a git config file, lowercased keys.
+     */
+    private static Map<String, String> readConfig(File file) throws IOException {
+        Map<String, String> config = new HashMap<>();
+        if (!file.isFile()) {
+            return config;
+        }
+
+        String section = "";
+        for (String line : Files.readAllLines(file.toPath())) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#") || line.startsWith(";")) {
+                continue;
+            }
+
+            if (line.startsWith("[") && line.endsWith("]")) {
+                String header = line.substring(1, line.length() - 1).trim();
+                int quote = header.indexOf('"');
+                section = quote < 0
+                        ? header.toLowerCase()
+                        : header.substring(0, quote).trim().toLowerCase() + "." + header.substring(quote + 1, header.lastIndexOf('"'));
+                continue;
+            }
+
+            int equals = line.indexOf('=');
+            String key = (equals < 0 ? line : line.substring(0, equals)).trim().toLowerCase();
+            String value = equals < 0 ? "true" : line.substring(equals + 1).trim();
+            config.put(section + "." + key, value);
+        }
+
+        return config;
+    }
+
+    private static File resolve(File base, String path) {
+        File file = new File(path);
+        return file.isAbsolute() ? file : new File(base, path);
+    }
+}
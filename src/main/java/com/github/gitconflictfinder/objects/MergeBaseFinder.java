@@ -0,0 +1,169 @@
+package com.github.gitconflictfinder.objects;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Finds the best common ancestor of two commits, the same way {@code git merge-base} does.
+ *
+ * How does it work?
+ * - both commits are painted (PARENT1 / PARENT2) and their ancestors are walked in a priority queue,
+ *   highest generation number first, then newest commit time first,
+ * - a commit painted with both colors is a merge-base candidate, and its ancestors are painted STALE,
+ * - the walk stops as soon as every commit left in the queue is STALE,
+ * - candidates that turned STALE later are dropped, and if more than one is left,
+ *   the ones reachable from another candidate are removed,
+ * - the newest remaining candidate is returned.
+ *
+ * With a commit-graph the generation numbers keep the walk exact and short,
+ * without it the commit times are used (like git does).
+ */
+final class MergeBaseFinder {
+    private static final int PARENT1 = 1;
+    private static final int PARENT2 = 2;
+    private static final int STALE = 4;
+    private static final int RESULT = 8;
+
+    private static final Comparator<Commit> WALK_ORDER = Comparator
+            .comparingInt(Commit::generation).reversed()
+            .thenComparing(Comparator.comparingLong(Commit::commitTime).reversed());
+
+    interface CommitLoader {
+        Commit load(ObjectId id) throws IOException;
+    }
+
+    private final CommitLoader loader;
+    private final Map<ObjectId, Commit> commits = new HashMap<>();
+
+    MergeBaseFinder(CommitLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Returns the merge base of the two commits, or null if they have no common ancestor.
+     */
+    ObjectId find(ObjectId a, ObjectId b) throws IOException {
+        if (a.equals(b)) {
+            return a;
+        }
+
+        Map<ObjectId, Integer> flags = new HashMap<>();
+        PriorityQueue<Commit> queue = new PriorityQueue<>(WALK_ORDER);
+        List<Commit> candidates = new ArrayList<>();
+
+        flags.put(a, PARENT1);
+        flags.put(b, PARENT2);
+        queue.add(load(a));
+        queue.add(load(b));
+
+        while (hasNonStale(queue, flags)) {
+            Commit commit = queue.poll();
+            int commitFlags = flags.get(commit.id());
+            int paint = commitFlags & (PARENT1 | PARENT2 | STALE);
+
+            if ((paint & (PARENT1 | PARENT2)) == (PARENT1 | PARENT2)) {
+                if ((commitFlags & RESULT) == 0) {
+                    flags.put(commit.id(), commitFlags | RESULT);
+                    candidates.add(commit);
+                }
+                paint |= STALE;
+            }
+
+            for (ObjectId parent : commit.parents()) {
+                int parentFlags = flags.getOrDefault(parent, 0);
+                if ((parentFlags & paint) == paint) {
+                    continue;
+                }
+                flags.put(parent, parentFlags | paint);
+                queue.add(load(parent));
+            }
+        }
+
+        List<Commit> bases = new ArrayList<>();
+        for (Commit candidate : candidates) {
+            if ((flags.get(candidate.id()) & STALE) == 0) {
+                bases.add(candidate);
+            }
+        }
+
+        if (bases.size() > 1) {
+            bases = removeRedundant(bases);
+        }
+        if (bases.isEmpty()) {
+            return null;
+        }
+
+        bases.sort(Comparator.comparingLong(Commit::commitTime).reversed());
+        return bases.getFirst().id();
+    }
+
+    /**
+     * Removes the candidates that are ancestors of another candidate.
+     */
+    private List<Commit> removeRedundant(List<Commit> candidates) throws IOException {
+        int minGeneration = Integer.MAX_VALUE;
+        for (Commit candidate : candidates) {
+            minGeneration = Math.min(minGeneration, candidate.generation());
+        }
+
+        Set<ObjectId> reachable = new HashSet<>();
+        for (Commit candidate : candidates) {
+            Deque<Commit> stack = new ArrayDeque<>();
+            Set<ObjectId> visited = new HashSet<>();
+            for (ObjectId parent : candidate.parents()) {
+                stack.push(load(parent));
+            }
+
+            while (!stack.isEmpty()) {
+                Commit commit = stack.pop();
+                if (!visited.add(commit.id())) {
+                    continue;
+                }
+                reachable.add(commit.id());
+
+                // A commit below every candidate's generation cannot lead to a candidate.
+                if (minGeneration != Commit.GENERATION_INFINITY && commit.generation() < minGeneration) {
+                    continue;
+                }
+                for (ObjectId parent : commit.parents()) {
+                    stack.push(load(parent));
+                }
+            }
+        }
+
+        List<Commit> result = new ArrayList<>();
+        for (Commit candidate : candidates) {
+            if (!reachable.contains(candidate.id())) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
+    private static boolean hasNonStale(PriorityQueue<Commit> queue, Map<ObjectId, Integer> flags) {
+        for (Commit commit : queue) {
+            if ((flags.get(commit.id()) & STALE) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Commit load(ObjectId id) throws IOException {
+        Commit commit = commits.get(id);
+        if (commit == null) {
+            commit = loader.load(id);
+            commits.put(id, commit);
+        }
+        return commit;
+    }
+}
@@ -0,0 +1,287 @@
+package com.github.gitconflictfinder.objects;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads objects from the {@code objects} directory of a repository (and from its alternates).
+ *
+ * How does it work?
+ * - packed objects are looked up in every {@link PackFile}, loose objects are read from {@code objects/xx/yyyy...},
+ * - delta chains are followed down to the base object and the deltas are applied on the way back up,
+ * - recently used packed objects (mostly delta bases and trees) are kept in a small LRU cache,
+ * - if an object is not found, the pack directories are scanned again once (a {@code git gc} may have repacked them).
+ */
+final class ObjectDatabase {
+    private static final long MAX_CACHE_BYTES = 16L * 1024 * 1024;
+
+    private final List<File> objectDirectories;
+    private volatile List<PackFile> packs;
+    private volatile long packsScannedAt;
+
+    private final Map<PackKey, GitObject> cache = new LinkedHashMap<>(256, 0.75f, true);
+    private long cacheBytes;
+
+    private record PackKey(PackFile pack, long offset) {}
+
+    ObjectDatabase(File objectDirectory) throws IOException {
+        this.objectDirectories = new ArrayList<>();
+        this.objectDirectories.add(objectDirectory);
+        this.objectDirectories.addAll(readAlternates(objectDirectory));
+        this.packs = scanPacks();
+    }
+
+    GitObject read(ObjectId id) throws IOException {
+        GitObject object = find(id);
+        if (object == null && reloadPacks()) {
+            object = find(id);
+        }
+        if (object == null) {
+            throw new UnsupportedRepositoryException("Object " + id + " is not in the local object database");
+        }
+        return object;
+    }
+
+    boolean contains(ObjectId id) throws IOException {
+        for (PackFile pack : packs) {
+            if (pack.findOffset(id) >= 0) {
+                return true;
+            }
+        }
+        for (File directory : objectDirectories) {
+            if (looseFile(directory, id).isFile()) {
+                return true;
+            }
+        }
+        return reloadPacks() && contains(id);
+    }
+
+    private GitObject find(ObjectId id) throws IOException {
+        for (PackFile pack : packs) {
+            long offset = pack.findOffset(id);
+            if (offset >= 0) {
+                return readPacked(pack, offset);
+            }
+        }
+
+        for (File directory : objectDirectories) {
+            GitObject object = readLoose(looseFile(directory, id));
+            if (object != null) {
+                return object;
+            }
+        }
+
+        return null;
+    }
+
+    private GitObject readPacked(PackFile pack, long offset) throws IOException {
+        List<PackFile.Entry> deltas = new ArrayList<>();
+        List<PackKey> keys = new ArrayList<>();
+
+        GitObject base;
+        while (true) {
+            PackKey key = new PackKey(pack, offset);
+            base = getCached(key);
+            if (base != null) {
+                break;
+            }
+
+            PackFile.Entry entry = pack.read(offset);
+            if (entry.type() == PackFile.OFS_DELTA) {
+                deltas.add(entry);
+                keys.add(key);
+                offset = entry.baseOffset();
+            } else if (entry.type() == PackFile.REF_DELTA) {
+                deltas.add(entry);
+                keys.add(key);
+                base = read(entry.baseId());
+                break;
+            } else {
+                base = new GitObject(entry.type(), entry.data());
+                putCached(key, base);
+                break;
+            }
+        }
+
+        for (int i = deltas.size() - 1; i >= 0; i--) {
+            base = new GitObject(base.type(), applyDelta(base.data(), deltas.get(i).data()));
+            putCached(keys.get(i), base);
+        }
+
+        return base;
+    }
+
+    private synchronized GitObject getCached(PackKey key) {
+        return cache.get(key);
+    }
+
+    private synchronized void putCached(PackKey key, GitObject object) {
+        if (object.data().length > MAX_CACHE_BYTES / 4) {
+            return;
+        }
+
+        if (cache.put(key, object) == null) {
+            cacheBytes += object.data().length;
+        }
+
+        var iterator = cache.values().iterator();
+        while (cacheBytes > MAX_CACHE_BYTES && iterator.hasNext()) {
+            cacheBytes -= iterator.next().data().length;
+            iterator.remove();
+        }
+    }
+
+    private static File looseFile(File directory, ObjectId id) {
+        String hex = id.hex();
+        return new File(new File(directory, hex.substring(0, 2)), hex.substring(2));
+    }
+
+    private static GitObject readLoose(File file) throws IOException {
+        byte[] raw;
+        try (InputStream in = new InflaterInputStream(Files.newInputStream(file.toPath()))) {
+            raw = in.readAllBytes();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        int space = indexOf(raw, (byte) ' ', 0);
+        int nul = indexOf(raw, (byte) 0, 0);
+        if (space < 0 || nul < space) {
+            throw new IOException("Corrupt loose object: " + file);
+        }
+
+        int type = GitObject.typeOf(new String(raw, 0, space, StandardCharsets.US_ASCII));
+        byte[] data = new byte[raw.length - nul - 1];
+        System.arraycopy(raw, nul + 1, data, 0, data.length);
+        return new GitObject(type, data);
+    }
+
+    static byte[] applyDelta(byte[] base, byte[] delta) throws IOException {
+        int[] position = {0};
+        long baseSize = readSize(delta, position);
+        long resultSize = readSize(delta, position);
+        if (baseSize != base.length || resultSize > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt delta");
+        }
+
+        byte[] result = new byte[(int) resultSize];
+        int written = 0;
+        int p = position[0];
+
+        while (p < delta.length) {
+            int op = delta[p++] & 0xff;
+            if ((op & 0x80) != 0) {
+                int copyOffset = 0;
+                int copySize = 0;
+                for (int i = 0; i < 4; i++) {
+                    if ((op & (1 << i)) != 0) {
+                        copyOffset |= (delta[p++] & 0xff) << (i * 8);
+                    }
+                }
+                for (int i = 0; i < 3; i++) {
+                    if ((op & (0x10 << i)) != 0) {
+                        copySize |= (delta[p++] & 0xff) << (i * 8);
+                    }
+                }
+                if (copySize == 0) {
+                    copySize = 0x10000;
+                }
+                System.arraycopy(base, copyOffset, result, written, copySize);
+                written += copySize;
+            } else if (op != 0) {
+                System.arraycopy(delta, p, result, written, op);
+                p += op;
+                written += op;
+            } else {
+                throw new IOException("Corrupt delta");
+            }
+        }
+
+        if (written != result.length) {
+            throw new IOException("Corrupt delta");
+        }
+        return result;
+    }
+
+    private static long readSize(byte[] delta, int[] position) {
+        long size = 0;
+        int shift = 0;
+        int c;
+        do {
+            c = delta[position[0]++] & 0xff;
+            size |= (long) (c & 0x7f) << shift;
+            shift += 7;
+        } while ((c & 0x80) != 0);
+        return size;
+    }
+
+    private synchronized boolean reloadPacks() throws IOException {
+        long lastModified = 0;
+        for (File directory : objectDirectories) {
+            lastModified = Math.max(lastModified, new File(directory, "pack").lastModified());
+        }
+        if (lastModified <= packsScannedAt) {
+            return false;
+        }
+
+        packs = scanPacks();
+        cache.clear();
+        cacheBytes = 0;
+        return true;
+    }
+
+    private List<PackFile> scanPacks() throws IOException {
+        packsScannedAt = System.currentTimeMillis();
+
+        List<PackFile> found = new ArrayList<>();
+        for (File directory : objectDirectories) {
+            File[] indexFiles = new File(directory, "pack").listFiles((dir, name) -> name.startsWith("pack-") && name.endsWith(".idx"));
+            if (indexFiles == null) {
+                continue;
+            }
+            for (File indexFile : indexFiles) {
+                found.add(new PackFile(indexFile));
+            }
+        }
+
+        // Bigger packs first: after a gc almost everything is in one pack.
+        found.sort((a, b) -> Long.compare(b.getFile().length(), a.getFile().length()));
+        return found;
+    }
+
+    private static List<File> readAlternates(File objectDirectory) throws IOException {
+        File alternates = new File(objectDirectory, "info/alternates");
+        if (!alternates.isFile()) {
+            return List.of();
+        }
+
+        List<File> directories = new ArrayList<>();
+        for (String line : Files.readAllLines(alternates.toPath())) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            File directory = new File(line);
+            directories.add(directory.isAbsolute() ? directory : new File(objectDirectory, line));
+        }
+        return directories;
+    }
+
+    static int indexOf(byte[] data, byte value, int from) {
+        for (int i = from; i < data.length; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.gitconflictfinder.objects;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * A SHA-1 object name (20 raw bytes).
+ */
+final class ObjectId implements Comparable<ObjectId> {
+    static final int LENGTH = 20;
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final byte[] bytes;
+    private final int hash;
+
+    private ObjectId(byte[] bytes) {
+        this.bytes = bytes;
+        this.hash = ((bytes[0] & 0xff) << 24) | ((bytes[1] & 0xff) << 16) | ((bytes[2] & 0xff) << 8) | (bytes[3] & 0xff);
+    }
+
+    static ObjectId fromBytes(byte[] source, int offset) {
+        return new ObjectId(Arrays.copyOfRange(source, offset, offset + LENGTH));
+    }
+
+    static ObjectId fromBuffer(ByteBuffer source, int offset) {
+        byte[] bytes = new byte[LENGTH];
+        source.get(offset, bytes);
+        return new ObjectId(bytes);
+    }
+
+    static ObjectId fromHex(String hex) {
+        if (!isHex(hex)) {
+            throw new IllegalArgumentException("Not a SHA-1: " + hex);
+        }
+        return new ObjectId(HEX.parseHex(hex.toLowerCase()));
+    }
+
+    static boolean isHex(String value) {
+        if (value == null || value.length() != LENGTH * 2) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int firstByte() {
+        return bytes[0] & 0xff;
+    }
+
+    /**
+     * Compares this id with the 20 bytes stored in the buffer at the given offset.
+     */
+    int compareTo(ByteBuffer buffer, int offset) {
+        for (int i = 0; i < LENGTH; i++) {
+            int cmp = Integer.compare(bytes[i] & 0xff, buffer.get(offset + i) & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    String hex() {
+        return HEX.formatHex(bytes);
+    }
+
+    @Override
+    public int compareTo(ObjectId other) {
+        return Arrays.compareUnsigned(bytes, other.bytes);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ObjectId id && hash == id.hash && Arrays.equals(bytes, id.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return hex();
+    }
+}
@@ -0,0 +1,168 @@
+package com.github.gitconflictfinder.objects;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A memory-mapped pack file ({@code pack-*.pack}) together with its v2 index ({@code pack-*.idx}).
+ *
+ * How does it work?
+ * - both files are mapped read-only once, only the touched pages are ever read from the disk,
+ * - the 256-entry fan-out table of the index narrows an object lookup to the SHAs starting with the same byte,
+ *   which are then binary-searched,
+ * - an entry is read from its offset: the type and size header, the delta base (offset or SHA) and the zlib stream,
+ *   inflated straight from the mapped buffer.
+ *
+ * Delta chains are resolved by {@link ObjectDatabase}.
+ * Only absolute reads are done on the shared buffers, so one pack can be read by many threads at the same time.
+ */
+final class PackFile {
+    static final int OFS_DELTA = 6;
+    static final int REF_DELTA = 7;
+
+    private static final int INDEX_MAGIC = 0xff744f63;
+    private static final int PACK_MAGIC = 0x5041434b;
+    private static final int FANOUT_OFFSET = 8;
+    private static final int SHA_TABLE_OFFSET = FANOUT_OFFSET + 256 * 4;
+
+    private final File packFile;
+    private final ByteBuffer index;
+    private final ByteBuffer pack;
+    private final int objectCount;
+
+    /**
+     * A raw pack entry. For deltas, {@code data} is the delta and the base is given by {@code baseOffset} or {@code baseId}.
+     */
+    record Entry(int type, byte[] data, long baseOffset, ObjectId baseId) {}
+
+    PackFile(File indexFile) throws IOException {
+        String name = indexFile.getName();
+        this.packFile = new File(indexFile.getParentFile(), name.substring(0, name.length() - ".idx".length()) + ".pack");
+        this.index = map(indexFile);
+        this.pack = map(packFile);
+
+        if (index.getInt(0) != INDEX_MAGIC || index.getInt(4) != 2) {
+            throw new UnsupportedRepositoryException("Unsupported pack index version: " + indexFile);
+        }
+        if (pack.getInt(0) != PACK_MAGIC) {
+            throw new IOException("Not a pack file: " + packFile);
+        }
+
+        this.objectCount = index.getInt(FANOUT_OFFSET + 255 * 4);
+    }
+
+    File getFile() {
+        return packFile;
+    }
+
+    /**
+     * Returns the offset of the object in the pack, or -1 if the pack does not contain it.
+     */
+    long findOffset(ObjectId id) {
+        int first = id.firstByte();
+        int low = first == 0 ? 0 : index.getInt(FANOUT_OFFSET + (first - 1) * 4);
+        int high = index.getInt(FANOUT_OFFSET + first * 4);
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = id.compareTo(index, SHA_TABLE_OFFSET + mid * ObjectId.LENGTH);
+            if (cmp == 0) {
+                return offsetAt(mid);
+            }
+            if (cmp < 0) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+
+        return -1;
+    }
+
+    Entry read(long offset) throws IOException {
+        int position = (int) offset;
+
+        int c = pack.get(position++) & 0xff;
+        int type = (c >> 4) & 7;
+        long size = c & 15;
+        int shift = 4;
+        while ((c & 0x80) != 0) {
+            c = pack.get(position++) & 0xff;
+            size |= (long) (c & 0x7f) << shift;
+            shift += 7;
+        }
+
+        long baseOffset = -1;
+        ObjectId baseId = null;
+        if (type == OFS_DELTA) {
+            c = pack.get(position++) & 0xff;
+            long distance = c & 0x7f;
+            while ((c & 0x80) != 0) {
+                c = pack.get(position++) & 0xff;
+                distance = ((distance + 1) << 7) | (c & 0x7f);
+            }
+            baseOffset = offset - distance;
+        } else if (type == REF_DELTA) {
+            baseId = ObjectId.fromBuffer(pack, position);
+            position += ObjectId.LENGTH;
+        }
+
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new UnsupportedRepositoryException("Object too large at offset " + offset + " in " + packFile);
+        }
+
+        return new Entry(type, inflate(position, (int) size), baseOffset, baseId);
+    }
+
+    private long offsetAt(int position) {
+        int offsetTable = SHA_TABLE_OFFSET + objectCount * (ObjectId.LENGTH + 4);
+        int offset = index.getInt(offsetTable + position * 4);
+        if ((offset & 0x80000000) == 0) {
+            return offset;
+        }
+
+        int largeOffsetTable = offsetTable + objectCount * 4;
+        return index.getLong(largeOffsetTable + (offset & 0x7fffffff) * 8);
+    }
+
+    private byte[] inflate(int position, int size) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(pack.slice(position, pack.limit() - position));
+
+            byte[] data = new byte[size];
+            int read = 0;
+            while (read < size) {
+                int n = inflater.inflate(data, read, size - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+
+            if (read != size) {
+                throw new IOException("Corrupt object at offset " + position + " in " + packFile);
+            }
+            return data;
+
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt object at offset " + position + " in " + packFile, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    static ByteBuffer map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new UnsupportedRepositoryException("File too large to map: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.github.gitconflictfinder.objects;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Lists the paths that differ between two trees.
+ *
+ * How does it work?
+ * - both trees are walked side by side, their entries are already sorted in git's tree order,
+ * - entries with the same name and the same SHA (and mode) are skipped, so an unchanged subtree is never read,
+ * - a changed subtree is walked recursively, an added or removed subtree is listed completely,
+ * - every changed blob, symlink or submodule is reported with its full path, as soon as it is found,
+ *   in git's tree order (the order {@code git diff --name-only} prints them in).
+ *
+ * Renames are not detected, so a renamed file is reported with both its old and its new path.
+ */
+final class TreeDiff {
+    static final int MODE_TYPE_MASK = 0170000;
+    static final int MODE_TREE = 0040000;
+    static final int MODE_SYMLINK = 0120000;
+    static final int MODE_GITLINK = 0160000;
+
+    record TreeEntry(int mode, byte[] name, ObjectId id) {
+        boolean isTree() {
+            return (mode & MODE_TYPE_MASK) == MODE_TREE;
+        }
+
+        String path(String prefix) {
+            return prefix + new String(name, StandardCharsets.UTF_8);
+        }
+    }
+
+    interface TreeReader {
+        List<TreeEntry> read(ObjectId tree) throws IOException;
+    }
+
+    private final TreeReader reader;
+
+    TreeDiff(TreeReader reader) {
+        this.reader = reader;
+    }
+
+    void diff(ObjectId a, ObjectId b, String prefix, Consumer<String> changed) throws IOException {
+        if (a != null && a.equals(b)) {
+            return;
+        }
+
+        List<TreeEntry> entriesA = a == null ? List.of() : reader.read(a);
+        List<TreeEntry> entriesB = b == null ? List.of() : reader.read(b);
+
+        int i = 0, j = 0;
+        while (i < entriesA.size() || j < entriesB.size()) {
+            TreeEntry entryA = i < entriesA.size() ? entriesA.get(i) : null;
+            TreeEntry entryB = j < entriesB.size() ? entriesB.get(j) : null;
+            int cmp = entryA == null ? 1 : entryB == null ? -1 : compare(entryA, entryB);
+
+            if (cmp < 0) {
+                addAll(entryA, prefix, changed);
+                i++;
+            } else if (cmp > 0) {
+                addAll(entryB, prefix, changed);
+                j++;
+            } else {
+                if (!entryA.id().equals(entryB.id()) || entryA.mode() != entryB.mode()) {
+                    if (entryA.isTree()) {
+                        diff(entryA.id(), entryB.id(), entryA.path(prefix) + "/", changed);
+                    } else {
+                        changed.accept(entryA.path(prefix));
+                    }
+                }
+                i++;
+                j++;
+            }
+        }
+    }
+
+    /**
+     * Lists the entry (and everything under it, if it is a tree) as changed.
+     */
+    private void addAll(TreeEntry entry, String prefix, Consumer<String> changed) throws IOException {
+        if (entry.isTree()) {
+            diff(null, entry.id(), entry.path(prefix) + "/", changed);
+        } else {
+            changed.accept(entry.path(prefix));
+        }
+    }
+
+    static List<TreeEntry> parse(byte[] data) throws IOException {
+        List<TreeEntry> entries = new ArrayList<>();
+
+        int position = 0;
+        while (position < data.length) {
+            int mode = 0;
+            while (data[position] != ' ') {
+                mode = (mode << 3) | (data[position++] - '0');
+            }
+            position++;
+
+            int nul = ObjectDatabase.indexOf(data, (byte) 0, position);
+            if (nul < 0 || nul + 1 + ObjectId.LENGTH > data.length) {
+                throw new IOException("Corrupt tree");
+            }
+
+            byte[] name = new byte[nul - position];
+            System.arraycopy(data, position, name, 0, name.length);
+            entries.add(new TreeEntry(mode, name, ObjectId.fromBytes(data, nul + 1)));
+            position = nul + 1 + ObjectId.LENGTH;
+        }
+
+        return entries;
+    }
+
+    /**
+     * Git's tree order: names are compared byte by byte, and a tree sorts as if its name ended with '/'.
+     */
+    static int compare(TreeEntry a, TreeEntry b) {
+        byte[] nameA = a.name();
+        byte[] nameB = b.name();
+        int length = Math.min(nameA.length, nameB.length);
+
+        for (int i = 0; i < length; i++) {
+            int cmp = Integer.compare(nameA[i] & 0xff, nameB[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+
+        int nextA = nameA.length > length ? nameA[length] & 0xff : a.isTree() ? '/' : 0;
+        int nextB = nameB.length > length ? nameB[length] & 0xff : b.isTree() ? '/' : 0;
+        if (nextA == nextB && nameA.length == nameB.length) {
+            return 0;
+        }
+        return nextA != nextB ? Integer.compare(nextA, nextB) : Integer.compare(nameA.length, nameB.length);
+    }
+}
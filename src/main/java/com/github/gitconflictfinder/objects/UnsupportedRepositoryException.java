@@ -0,0 +1,18 @@
+package com.github.gitconflictfinder.objects;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the repository uses something the pure-Java reader does not handle
+ * (e.g. SHA-256 objects, a v4 or split index, revision expressions, objects missing in a partial clone).
+ * The caller is expected to ask git itself instead.
+ */
+public class UnsupportedRepositoryException extends IOException {
+    public UnsupportedRepositoryException(String message) {
+        super(message);
+    }
+
+    public UnsupportedRepositoryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
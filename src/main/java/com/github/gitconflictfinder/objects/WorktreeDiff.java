@@ -0,0 +1,195 @@
+package com.github.gitconflictfinder.objects;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lists the tracked paths whose working-tree content differs from a commit (like {@code git diff --name-only <commit>}).
+ *
+ * How does it work?
+ * - commit tree vs index: the commit's tree is walked against the index entries,
+ *   skipping every directory whose cache-tree SHA equals the commit's subtree SHA,
+ * - index vs working tree: every entry is checked with one stat call, only a file whose size/mtime do not match
+ *   the index (or that was modified in the same second the index was written) is read and hashed,
+ * - untracked files are ignored, just like git does.
+ *
+ * If the repository may use content filters (autocrlf, attributes), the size of a file says nothing, so every file
+ * whose stat data does not match is hashed, and if it hashes differently the answer cannot be trusted
+ * and {@link UnsupportedRepositoryException} is thrown. Submodules are not checked.
+ */
+final class WorktreeDiff {
+    private final TreeDiff.TreeReader reader;
+    private final GitIndex index;
+    private final Path worktree;
+    private final boolean trustFileMode;
+    private final boolean filtersPossible;
+
+    private final Map<String, Integer> positions = new HashMap<>();
+    private final boolean[] seen;
+
+    WorktreeDiff(TreeDiff.TreeReader reader, GitIndex index, Path worktree, boolean trustFileMode, boolean filtersPossible) {
+        this.reader = reader;
+        this.index = index;
+        this.worktree = worktree;
+        this.trustFileMode = trustFileMode;
+        this.filtersPossible = filtersPossible;
+        this.seen = new boolean[index.entries().size()];
+
+        List<GitIndex.Entry> entries = index.entries();
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).stage() == 0) {
+                positions.put(entries.get(i).path(), i);
+            }
+        }
+    }
+
+    void diff(ObjectId commitTree, Collection<String> changed) throws IOException {
+        compareTree(commitTree, "", changed);
+
+        List<GitIndex.Entry> entries = index.entries();
+        for (int i = 0; i < entries.size(); i++) {
+            GitIndex.Entry entry = entries.get(i);
+
+            if (!seen[i] || entry.stage() != 0 || entry.intentToAdd()) {
+                changed.add(entry.path());
+            } else if (isModifiedInWorktree(entry)) {
+                changed.add(entry.path());
+            }
+        }
+    }
+
+    private void compareTree(ObjectId tree, String prefix, Collection<String> changed) throws IOException {
+        if (tree.equals(index.cachedTree(prefix)) && markSeen(prefix)) {
+            return;
+        }
+
+        for (TreeDiff.TreeEntry entry : reader.read(tree)) {
+            String path = entry.path(prefix);
+            if (entry.isTree()) {
+                compareTree(entry.id(), path + "/", changed);
+                continue;
+            }
+
+            Integer position = positions.get(path);
+            if (position == null) {
+                changed.add(path);
+                continue;
+            }
+
+            seen[position] = true;
+            GitIndex.Entry indexEntry = index.entries().get(position);
+            if (!indexEntry.id().equals(entry.id()) || indexEntry.mode() != entry.mode()) {
+                changed.add(path);
+            }
+        }
+    }
+
+    /**
+     * Marks every stage-0 entry under the directory as matching the commit.
+     * Returns false if the index does not look sorted as expected, then the directory is compared entry by entry.
+     */
+    private boolean markSeen(String prefix) {
+        List<GitIndex.Entry> entries = index.entries();
+
+        int low = 0, high = entries.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries.get(mid).path().compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        for (int i = low; i < entries.size() && entries.get(i).path().startsWith(prefix); i++) {
+            if (entries.get(i).stage() != 0) {
+                return false;
+            }
+            seen[i] = true;
+        }
+        return true;
+    }
+
+    private boolean isModifiedInWorktree(GitIndex.Entry entry) throws IOException {
+        int type = entry.mode() & TreeDiff.MODE_TYPE_MASK;
+        if (entry.skipWorktree() || type == TreeDiff.MODE_GITLINK) {
+            return false;
+        }
+
+        Path file = worktree.resolve(entry.path());
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return true;
+        }
+
+        boolean symlink = type == TreeDiff.MODE_SYMLINK;
+        if (symlink ? !attributes.isSymbolicLink() : !attributes.isRegularFile()) {
+            return true;
+        }
+        if (!symlink && trustFileMode && isExecutable(file) != ((entry.mode() & 0100) != 0)) {
+            return true;
+        }
+        // with filters, the working-tree bytes (e.g. CRLF) may differ in size and still be the same blob
+        if (!filtersPossible && (int) attributes.size() != entry.size()) {
+            return true;
+        }
+
+        long modifiedNanos = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        long seconds = TimeUnit.NANOSECONDS.toSeconds(modifiedNanos);
+        int nanos = (int) (modifiedNanos - TimeUnit.SECONDS.toNanos(seconds));
+        boolean sameTime = (int) attributes.size() == entry.size()
+                && (int) seconds == entry.mtimeSeconds() && (entry.mtimeNanos() == 0 || nanos == entry.mtimeNanos());
+        boolean racy = TimeUnit.SECONDS.toMillis(Integer.toUnsignedLong(entry.mtimeSeconds())) + 1000 > index.modifiedMillis();
+        if (sameTime && !racy) {
+            return false;
+        }
+
+        byte[] content = symlink
+                ? Files.readSymbolicLink(file).toString().getBytes(StandardCharsets.UTF_8)
+                : Files.readAllBytes(file);
+        if (hashBlob(content).equals(entry.id())) {
+            return false;
+        }
+
+        if (filtersPossible && !symlink) {
+            throw new UnsupportedRepositoryException("Content filters may apply to " + entry.path());
+        }
+        return true;
+    }
+
+    private static boolean isExecutable(Path file) throws IOException {
+        try {
+            PosixFileAttributes attributes = Files.readAttributes(file, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            return attributes.permissions().contains(PosixFilePermission.OWNER_EXECUTE);
+        } catch (UnsupportedOperationException e) {
+            return new File(file.toString()).canExecute();
+        }
+    }
+
+    static ObjectId hashBlob(byte[] content) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            sha1.update(("blob " + content.length + "\0").getBytes(StandardCharsets.US_ASCII));
+            return ObjectId.fromBytes(sha1.digest(content), 0);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.github.gitconflictfinder.parsers;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.gitconflictfinder.exceptions.GitHubApiException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming parser for the GitHub GraphQL API responses ({@code {"data": {"repository": ...}, "errors": [...]}}).
+ *
+ * How does it work?
+ * - like the {@link GitHubJsonParser}, reads the response token by token and skips everything that is not needed,
+ * - every response is read from its {@code data.repository} object,
+ * - if the response has {@code errors}, they are thrown as a {@link GitHubApiException} (GraphQL errors come with a 200 status).
+ *
+ * Throws {@link JsonProcessingException} if the response does not have the expected shape.
+ */
+public final class GitHubGraphQLParser {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * A commit of the history: its SHA, its root tree and the root tree of its first parent (null for a root commit).
+     */
+    public record HistoryCommit(String sha, String treeSha, String parentTreeSha) {}
+
+    private GitHubGraphQLParser() {}
+
+    private interface FieldHandler {
+        /**
+         * Handles the value of the field and returns true, or returns false to skip it.
+         */
+        boolean handle(String field, JsonToken value) throws IOException;
+    }
+
+    /**
+     * Parses {@code repository.object.committedDate} of a commit, or returns an empty string if there is none.
+     */
+    public static String parseCommitDate(InputStream json) throws GitHubApiException, JsonProcessingException {
+        String[] date = {""};
+
+        parseRepository(json, "Error getting the merge base commit date.", parser ->
+            readObject(parser, (field, value) -> {
+                if (field.equals("object") && value == JsonToken.START_OBJECT) {
+                    readObject(parser, (commitField, commitValue) -> {
+                        if (commitField.equals("committedDate") && commitValue == JsonToken.VALUE_STRING) {
+                            date[0] = parser.getText();
+                            return true;
+                        }
+                        return false;
+                    });
+                    return true;
+                }
+                return false;
+            })
+        );
+
+        return date[0];
+    }
+
+    /**
+     * Parses a page of {@code repository.object.history} and adds its commits (except the excluded one).
+     * Returns the cursor of the next page, or null if this was the last page.
+     */
+    public static String parseHistory(InputStream json, String excludedSha, Collection<HistoryCommit> commits) throws GitHubApiException, JsonProcessingException {
+        String[] nextCursor = {null};
+        boolean[] hasHistory = {false};
+
+        parseRepository(json, "Error extracting the commit history.", parser ->
+            readObject(parser, (field, value) -> {
+                if (!field.equals("object") || value != JsonToken.START_OBJECT) {
+                    return false;
+                }
+                readObject(parser, (commitField, commitValue) -> {
+                    if (!commitField.equals("history") || commitValue != JsonToken.START_OBJECT) {
+                        return false;
+                    }
+                    hasHistory[0] = true;
+                    readObject(parser, (historyField, historyValue) -> {
+                        if (historyField.equals("pageInfo") && historyValue == JsonToken.START_OBJECT) {
+                            nextCursor[0] = parsePageInfo(parser);
+                            return true;
+                        }
+                        if (historyField.equals("nodes") && historyValue == JsonToken.START_ARRAY) {
+                            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                                HistoryCommit commit = parseHistoryCommit(parser);
+                                if (!commit.sha().equals(excludedSha)) {
+                                    commits.add(commit);
+                                }
+                            }
+                            return true;
+                        }
+                        return false;
+                    });
+                    return true;
+                });
+                return true;
+            })
+        );
+
+        if (!hasHistory[0]) {
+            throw new JsonProcessingException("Error extracting the commit history.") {};
+        }
+        return nextCursor[0];
+    }
+
+    /**
+     * Parses aliased tree objects ({@code repository.<alias>.entries}) and returns their entries by alias.
+     * A missing tree ({@code null}) is left out of the result.
+     */
+    public static Map<String, List<RemoteTreeEntry>> parseTrees(InputStream json) throws GitHubApiException, JsonProcessingException {
+        Map<String, List<RemoteTreeEntry>> trees = new HashMap<>();
+
+        parseRepository(json, "Error extracting the trees.", parser ->
+            readObject(parser, (alias, value) -> {
+                if (value != JsonToken.START_OBJECT) {
+                    return false;
+                }
+                readObject(parser, (treeField, treeValue) -> {
+                    if (treeField.equals("entries") && treeValue == JsonToken.START_ARRAY) {
+                        trees.put(alias, parseTreeEntries(parser));
+                        return true;
+                    }
+                    return false;
+                });
+                return true;
+            })
+        );
+
+        return trees;
+    }
+
+    private interface RepositoryReader {
+        void read(JsonParser parser) throws IOException;
+    }
+
+    private static void parseRepository(InputStream json, String errorMessage, RepositoryReader reader) throws GitHubApiException, JsonProcessingException {
+        List<String> errors = new ArrayList<>();
+        boolean[] hasRepository = {false};
+
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonProcessingException(errorMessage) {};
+            }
+
+            readObject(parser, (field, value) -> {
+                if (field.equals("data") && value == JsonToken.START_OBJECT) {
+                    readObject(parser, (dataField, dataValue) -> {
+                        if (dataField.equals("repository") && dataValue == JsonToken.START_OBJECT) {
+                            reader.read(parser);
+                            hasRepository[0] = true;
+                            return true;
+                        }
+                        return false;
+                    });
+                    return true;
+                }
+                if (field.equals("errors") && value == JsonToken.START_ARRAY) {
+                    parseErrors(parser, errors);
+                    return true;
+                }
+                return false;
+            });
+
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            throw new JsonProcessingException(errorMessage) {};
+        }
+
+        if (!errors.isEmpty()) {
+            throw new GitHubApiException("GraphQL error: " + String.join("; ", errors));
+        }
+        if (!hasRepository[0]) {
+            throw new JsonProcessingException(errorMessage) {};
+        }
+    }
+
+    private static void readObject(JsonParser parser, FieldHandler handler) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!handler.handle(field, value)) {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static String parsePageInfo(JsonParser parser) throws IOException {
+        boolean[] hasNextPage = {false};
+        String[] endCursor = {null};
+
+        readObject(parser, (field, value) -> {
+            if (field.equals("hasNextPage")) {
+                hasNextPage[0] = value == JsonToken.VALUE_TRUE;
+                return true;
+            }
+            if (field.equals("endCursor") && value == JsonToken.VALUE_STRING) {
+                endCursor[0] = parser.getText();
+                return true;
+            }
+            return false;
+        });
+
+        return hasNextPage[0] ? endCursor[0] : null;
+    }
+
+    private static HistoryCommit parseHistoryCommit(JsonParser parser) throws IOException {
+        String[] values = new String[3];
+
+        readObject(parser, (field, value) -> {
+            if (field.equals("oid") && value == JsonToken.VALUE_STRING) {
+                values[0] = parser.getText();
+                return true;
+            }
+            if (field.equals("tree") && value == JsonToken.START_OBJECT) {
+                values[1] = parseOid(parser);
+                return true;
+            }
+            if (field.equals("parents") && value == JsonToken.START_OBJECT) {
+                readObject(parser, (parentsField, parentsValue) -> {
+                    if (!parentsField.equals("nodes") || parentsValue != JsonToken.START_ARRAY) {
+                        return false;
+                    }
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        readObject(parser, (parentField, parentValue) -> {
+                            if (parentField.equals("tree") && parentValue == JsonToken.START_OBJECT && values[2] == null) {
+                                values[2] = parseOid(parser);
+                                return true;
+                            }
+                            return false;
+                        });
+                    }
+                    return true;
+                });
+                return true;
+            }
+            return false;
+        });
+
+        if (values[0] == null || values[1] == null) {
+            throw new JsonProcessingException("Error extracting the commit history.") {};
+        }
+        return new HistoryCommit(values[0], values[1], values[2]);
+    }
+
+    private static String parseOid(JsonParser parser) throws IOException {
+        String[] oid = {null};
+        readObject(parser, (field, value) -> {
+            if (field.equals("oid") && value == JsonToken.VALUE_STRING) {
+                oid[0] = parser.getText();
+                return true;
+            }
+            return false;
+        });
+        return oid[0];
+    }
+
+    private static List<RemoteTreeEntry> parseTreeEntries(JsonParser parser) throws IOException {
+        List<RemoteTreeEntry> entries = new ArrayList<>();
+
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String[] values = new String[3];
+            readObject(parser, (field, value) -> {
+                int slot = switch (field) {
+                    case "name" -> 0;
+                    case "type" -> 1;
+                    case "oid" -> 2;
+                    default -> -1;
+                };
+                if (slot < 0 || value != JsonToken.VALUE_STRING) {
+                    return false;
+                }
+                values[slot] = parser.getText();
+                return true;
+            });
+
+            if (values[0] == null || values[1] == null || values[2] == null) {
+                throw new JsonProcessingException("Error extracting the trees.") {};
+            }
+            entries.add(new RemoteTreeEntry(values[0], values[1], values[2]));
+        }
+
+        return entries;
+    }
+
+    private static void parseErrors(JsonParser parser, List<String> errors) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String[] values = {null, null};
+            readObject(parser, (field, value) -> {
+                if (field.equals("type") && value == JsonToken.VALUE_STRING) {
+                    values[0] = parser.getText();
+                    return true;
+                }
+                if (field.equals("message") && value == JsonToken.VALUE_STRING) {
+                    values[1] = parser.getText();
+                    return true;
+                }
+                return false;
+            });
+            errors.add(values[0] == null ? String.valueOf(values[1]) : values[0] + ": " + values[1]);
+        }
+    }
+}
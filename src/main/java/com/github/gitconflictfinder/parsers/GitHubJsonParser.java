@@ -0,0 +1,524 @@
+package com.github.gitconflictfinder.parsers;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.gitconflictfinder.core.PathDictionary;
+import com.github.gitconflictfinder.core.PathSet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Streaming parser for the GitHub API responses used by the remote diff strategies.
+ *
+ * How does it work?
+ * - reads the response token by token with one shared (thread-safe) {@link JsonFactory},
+ * - pulls out only the needed values ({@code sha}, {@code files[].filename}, {@code commit.author.date}...),
+ * - skips everything else, so large values such as {@code patch} are never turned into strings or trees,
+ * - adds the file names to a {@link PathSet} straight from the parser's char buffer (no string per file name),
+ *   or looks them up in one and creates strings only for the names found there,
+ * - closes the given stream when done.
+ *
+ * Throws {@link JsonProcessingException} if the response does not have the expected shape.
+ */
+public final class GitHubJsonParser {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * The {@code status} of a compare response ({@code ahead}, {@code behind}, {@code identical} or {@code diverged})
+     * and its total number of compared commits.
+     */
+    public record CompareStatus(String status, int totalCommits) {}
+
+    /**
+     * The total number of compared commits of a compare page and the number of files it lists (0 if the files were not read).
+     */
+    public record ComparePage(int totalCommits, int filesCnt) {}
+
+    /**
+     * A commit of the commits list with the SHAs of its parents (the first parent first).
+     */
+    public record CommitParents(String sha, List<String> parents) {
+        public boolean isMerge() {
+            return parents.size() > 1;
+        }
+    }
+
+    private GitHubJsonParser() {}
+
+    /**
+     * Parses a page of the commits list and adds the commit SHAs (except the excluded one).
+     * Returns the number of commits on the page.
+     */
+    public static int parseCommitShas(InputStream json, String excludedSha, Collection<String> commits) throws JsonProcessingException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonProcessingException("Error extracting the conflicted files.") {};
+            }
+
+            return parseCommitShasInArray(parser, excludedSha, commits);
+
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            throw new JsonProcessingException("Error extracting the conflicted files.") {};
+        }
+    }
+
+    /**
+     * Parses a page of the commits list and adds every commit with its parents ({@code parents[].sha}).
+     * Returns the number of commits on the page.
+     */
+    public static int parseCommitParents(InputStream json, Collection<CommitParents> commits) throws JsonProcessingException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonProcessingException("Error extracting the commit parents.") {};
+            }
+
+            int commitsCnt = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                commitsCnt++;
+                String sha = null;
+                ArrayList<String> parents = new ArrayList<>(2);
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    if (field.equals("sha") && value == JsonToken.VALUE_STRING) {
+                        sha = parser.getText();
+                    } else if (field.equals("parents") && value == JsonToken.START_ARRAY) {
+                        parseCommitShasInArray(parser, null, parents);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+
+                if (sha == null) {
+                    throw new JsonProcessingException("Error extracting the commit parents.") {};
+                }
+                commits.add(new CommitParents(sha, parents));
+            }
+
+            return commitsCnt;
+
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            throw new JsonProcessingException("Error extracting the commit parents.") {};
+        }
+    }
+
+    /**
+     * Parses a page of a single commit and adds the changed file names.
+     * Returns the number of files on the page.
+     */
+    public static int parseCommitFiles(InputStream json, Collection<String> files) throws JsonProcessingException {
+        return parseCommitFiles(json, null, files);
+    }
+
+    /**
+     * Parses a page of a single commit and adds only the changed file names contained in the candidates
+     * (the other names are checked from the parser's buffer, without creating strings).
+     * Returns the number of files on the page.
+     */
+    public static int parseCommitFiles(InputStream json, PathSet candidates, Collection<String> files) throws JsonProcessingException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonProcessingException("Error extracting the conflicted files.") {};
+            }
+
+            int filesCnt = -1;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("files") && value == JsonToken.START_ARRAY) {
+                    filesCnt = parseFileNames(parser, candidates, files);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (filesCnt < 0) {
+                throw new JsonProcessingException("Error extracting the conflicted files.") {};
+            }
+
+            return filesCnt;
+
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            throw new JsonProcessingException("Error extracting the conflicted files.") {};
+        }
+    }
+
+    /**
+     * Parses a single commit and returns its {@code commit.author.date}, or an empty string if there is none.
+     */
+    public static String parseCommitDate(InputStream json) throws JsonProcessingException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonProcessingException("Error getting the merge base commit date.") {};
+            }
+
+            String date = "";
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("commit") && value == JsonToken.START_OBJECT) {
+                    date = parseAuthorDate(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            return date;
+
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            throw new JsonProcessingException("Error getting the merge base commit date.") {};
+        }
+    }
+
+    /**
+     * Parses a git reference ({@code /git/ref/heads/<branch>}) and returns the SHA it points to ({@code object.sha}).
+     */
+    public static String parseRefSha(InputStream json) throws JsonProcessingException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonProcessingException("Error getting the branch head.") {};
+            }
+
+            String sha = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("object") && value == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String objectField = parser.currentName();
+                        JsonToken objectValue = parser.nextToken();
+                        if (objectField.equals("sha") && objectValue == JsonToken.VALUE_STRING) {
+                            sha = parser.getText();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (sha == null) {
+                throw new JsonProcessingException("Error getting the branch head.") {};
+            }
+
+            return sha;
+
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            throw new JsonProcessingException("Error getting the branch head.") {};
+        }
+    }
+
+    /**
+     * Parses a tree of the Git Trees API ({@code /git/trees/<sha>}), adds its entries ({@code tree[].path}, {@code type}, {@code sha})
+     * and returns the SHA of the tree. A truncated tree is an error, as its entries are incomplete.
+     */
+    public static String parseTree(InputStream json, Collection<RemoteTreeEntry> entries) throws JsonProcessingException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonProcessingException("Error extracting the tree.") {};
+            }
+
+            String sha = null;
+            boolean isTruncated = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("sha") && value == JsonToken.VALUE_STRING) {
+                    sha = parser.getText();
+                } else if (field.equals("truncated")) {
+                    isTruncated = value == JsonToken.VALUE_TRUE;
+                } else if (field.equals("tree") && value == JsonToken.START_ARRAY) {
+                    parseTreeEntries(parser, entries);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (sha == null || isTruncated) {
+                throw new JsonProcessingException("Error extracting the tree.") {};
+            }
+
+            return sha;
+
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            throw new JsonProcessingException("Error extracting the tree.") {};
+        }
+    }
+
+    /**
+     * Parses a page of the compare endpoint, adds the compared commit SHAs and (if {@code files} is not null) the changed file names.
+     * Returns the total number of compared commits and the number of listed files.
+     */
+    public static ComparePage parseCompare(InputStream json, Collection<String> commits, Collection<String> files) throws JsonProcessingException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonProcessingException("Error extracting the compared files.") {};
+            }
+
+            int totalCommits = -1;
+            int commitsCnt = -1;
+            int filesCnt = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("total_commits") && value == JsonToken.VALUE_NUMBER_INT) {
+                    totalCommits = parser.getIntValue();
+                } else if (field.equals("commits") && value == JsonToken.START_ARRAY) {
+                    commitsCnt = parseCommitShasInArray(parser, null, commits);
+                } else if (field.equals("files") && value == JsonToken.START_ARRAY && files != null) {
+                    filesCnt = parseFileNames(parser, null, files);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (commitsCnt < 0) {
+                throw new JsonProcessingException("Error extracting the compared commits.") {};
+            }
+
+            return new ComparePage(totalCommits >= 0 ? totalCommits : commitsCnt, filesCnt);
+
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            throw new JsonProcessingException("Error extracting the compared files.") {};
+        }
+    }
+
+    /**
+     * Parses a page of the compare endpoint, adds the compared commit SHAs and returns the compare status.
+     */
+    public static CompareStatus parseCompareStatus(InputStream json, Collection<String> commits) throws JsonProcessingException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonProcessingException("Error extracting the compared commits.") {};
+            }
+
+            String status = null;
+            int totalCommits = -1;
+            int commitsCnt = -1;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("status") && value == JsonToken.VALUE_STRING) {
+                    status = parser.getText();
+                } else if (field.equals("total_commits") && value == JsonToken.VALUE_NUMBER_INT) {
+                    totalCommits = parser.getIntValue();
+                } else if (field.equals("commits") && value == JsonToken.START_ARRAY) {
+                    commitsCnt = parseCommitShasInArray(parser, null, commits);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (status == null || commitsCnt < 0) {
+                throw new JsonProcessingException("Error extracting the compared commits.") {};
+            }
+
+            return new CompareStatus(status, totalCommits >= 0 ? totalCommits : commitsCnt);
+
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            throw new JsonProcessingException("Error extracting the compared commits.") {};
+        }
+    }
+
+    /**
+     * Parses the first page of the compare endpoint and passes the hunks of the {@code patch} of every wanted file to the consumer.
+     * A wanted file without a patch (binary, or too large) is reported as changed as a whole.
+     * The listed wanted files are added to {@code listedFiles}. Returns the number of files in the response.
+     *
+     * The patch text is handed to {@link HunkParser} as the parser's own character buffer, and the patches of the other files are skipped,
+     * so no patch is ever turned into a string.
+     */
+    public static int parseComparePatches(InputStream json, Set<String> files, Collection<String> listedFiles, HunkParser.HunkConsumer consumer) throws JsonProcessingException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonProcessingException("Error extracting the compared patches.") {};
+            }
+
+            int filesCnt = -1;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("files") && value == JsonToken.START_ARRAY) {
+                    filesCnt = parseFilePatches(parser, files, listedFiles, consumer);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (filesCnt < 0) {
+                throw new JsonProcessingException("Error extracting the compared patches.") {};
+            }
+
+            return filesCnt;
+
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            throw new JsonProcessingException("Error extracting the compared patches.") {};
+        }
+    }
+
+    private static int parseFilePatches(JsonParser parser, Set<String> files, Collection<String> listedFiles, HunkParser.HunkConsumer consumer) throws IOException {
+        int filesCnt = 0;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            filesCnt++;
+            String filename = null;
+            String earlyPatch = null;
+            boolean hasPatch = false;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("filename") && value == JsonToken.VALUE_STRING) {
+                    filename = parser.getText();
+                } else if (field.equals("patch") && value == JsonToken.VALUE_STRING) {
+                    hasPatch = true;
+                    if (filename == null) {
+                        // GitHub sends the file name first, this is only a safety net for another field order.
+                        earlyPatch = parser.getText();
+                    } else if (files.contains(filename)) {
+                        HunkParser.parsePatch(filename, parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength(), consumer);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (filename == null || !files.contains(filename)) {
+                continue;
+            }
+
+            listedFiles.add(filename);
+            if (earlyPatch != null) {
+                HunkParser.parsePatch(filename, earlyPatch.toCharArray(), 0, earlyPatch.length(), consumer);
+            } else if (!hasPatch) {
+                consumer.wholeFile(filename);
+            }
+        }
+
+        return filesCnt;
+    }
+
+    private static int parseFileNames(JsonParser parser, PathSet candidates, Collection<String> files) throws IOException {
+        int filesCnt = 0;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            filesCnt++;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("filename") && value == JsonToken.VALUE_STRING) {
+                    CharBuffer filename = CharBuffer.wrap(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                    if (candidates != null) {
+                        if (candidates.idOf(filename) != PathDictionary.NOT_FOUND) {
+                            files.add(filename.toString());
+                        }
+                    } else if (files instanceof PathSet pathSet) {
+                        pathSet.addPath(filename);
+                    } else {
+                        files.add(parser.getText());
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return filesCnt;
+    }
+
+    private static int parseCommitShasInArray(JsonParser parser, String excludedSha, Collection<String> commits) throws IOException {
+        int commitsCnt = 0;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            commitsCnt++;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("sha") && value == JsonToken.VALUE_STRING) {
+                    String sha = parser.getText();
+                    if (!sha.equals(excludedSha)) {
+                        commits.add(sha);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return commitsCnt;
+    }
+
+    private static void parseTreeEntries(JsonParser parser, Collection<RemoteTreeEntry> entries) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String path = null;
+            String type = null;
+            String sha = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value != JsonToken.VALUE_STRING) {
+                    parser.skipChildren();
+                    continue;
+                }
+                switch (field) {
+                    case "path" -> path = parser.getText();
+                    case "type" -> type = parser.getText();
+                    case "sha" -> sha = parser.getText();
+                    default -> { }
+                }
+            }
+
+            if (path == null || type == null || sha == null) {
+                throw new JsonProcessingException("Error extracting the tree.") {};
+            }
+            entries.add(new RemoteTreeEntry(path, type, sha));
+        }
+    }
+
+    private static String parseAuthorDate(JsonParser parser) throws IOException {
+        String date = "";
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (field.equals("author") && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String authorField = parser.currentName();
+                    JsonToken authorValue = parser.nextToken();
+                    if (authorField.equals("date") && authorValue == JsonToken.VALUE_STRING) {
+                        date = parser.getText();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return date;
+    }
+}
@@ -0,0 +1,243 @@
+package com.github.gitconflictfinder.parsers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streaming parser of unified diff hunk headers ({@code @@ -start,count +start,count @@}).
+ *
+ * How does it work?
+ * - reads the diff line by line into one reusable buffer, so no string is created for a content line,
+ * - takes the file path from the {@code diff --git a/<path> b/<path>} line (C-quoted names are unquoted),
+ * - reports the old-side range of every hunk (the merge-base coordinates, when the diff is taken against the merge base),
+ * - uses the line counts of the hunk header to skip the hunk body, so a content line can never be taken for a header,
+ * - reports a binary file (no line information) as changed as a whole.
+ */
+public final class HunkParser {
+    private static final int INITIAL_LINE_BUFFER_SIZE = 8 * 1024;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Receives the hunks of the parsed diff.
+     */
+    public interface HunkConsumer {
+        /**
+         * A hunk that replaces {@code count} lines starting at the line {@code start} of the old file.
+         * A count of 0 means lines were inserted after the line {@code start}.
+         */
+        void hunk(String path, int start, int count);
+
+        /**
+         * The file changed, but there is no line information (e.g. a binary file, or a missing patch).
+         */
+        void wholeFile(String path);
+    }
+
+    private HunkParser() {}
+
+    /**
+     * Parses the output of {@code git diff -U0 --no-renames}.
+     */
+    public static void parseUnifiedDiff(InputStream diff, HunkConsumer consumer) throws IOException {
+        byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+        byte[] line = new byte[INITIAL_LINE_BUFFER_SIZE];
+        int lineLength = 0;
+
+        DiffState state = new DiffState(consumer);
+
+        int read;
+        while ((read = diff.read(readBuffer)) >= 0) {
+            for (int i = 0; i < read; i++) {
+                byte b = readBuffer[i];
+                if (b == '\n') {
+                    state.line(line, lineLength);
+                    lineLength = 0;
+                } else {
+                    if (lineLength == line.length) {
+                        line = Arrays.copyOf(line, line.length * 2);
+                    }
+                    line[lineLength++] = b;
+                }
+            }
+        }
+
+        if (lineLength > 0) {
+            state.line(line, lineLength);
+        }
+    }
+
+    /**
+     * Parses the hunks of a single file's patch (the {@code patch} field of the GitHub API), given as characters.
+     */
+    public static void parsePatch(String path, char[] patch, int offset, int length, HunkConsumer consumer) {
+        int end = offset + length;
+        int lineStart = offset;
+
+        while (lineStart < end) {
+            int lineEnd = lineStart;
+            while (lineEnd < end && patch[lineEnd] != '\n') {
+                lineEnd++;
+            }
+
+            // Content lines start with '+', '-', ' ' or '\', so only a hunk header can start with '@'.
+            if (lineEnd - lineStart > 4 && patch[lineStart] == '@' && patch[lineStart + 1] == '@'
+                    && patch[lineStart + 2] == ' ' && patch[lineStart + 3] == '-') {
+                int[] position = {lineStart + 4};
+                int start = parseInt(patch, position, lineEnd);
+                int count = 1;
+                if (position[0] < lineEnd && patch[position[0]] == ',') {
+                    position[0]++;
+                    count = parseInt(patch, position, lineEnd);
+                }
+                consumer.hunk(path, start, count);
+            }
+
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    private static final class DiffState {
+        private final HunkConsumer consumer;
+        private String path;
+        private int oldRemaining;
+        private int newRemaining;
+
+        DiffState(HunkConsumer consumer) {
+            this.consumer = consumer;
+        }
+
+        void line(byte[] line, int length) {
+            if (oldRemaining > 0 || newRemaining > 0) {
+                byte first = length > 0 ? line[0] : (byte) ' ';
+                if (first == '-') {
+                    oldRemaining--;
+                } else if (first == '+') {
+                    newRemaining--;
+                } else if (first == ' ') {
+                    oldRemaining--;
+                    newRemaining--;
+                }
+                return;
+            }
+
+            if (startsWith(line, length, "diff --git ")) {
+                path = parseDiffGitPath(line, "diff --git ".length(), length);
+            } else if (startsWith(line, length, "@@ -")) {
+                int[] position = {4};
+                int oldStart = parseInt(line, position, length);
+                int oldCount = 1;
+                if (position[0] < length && line[position[0]] == ',') {
+                    position[0]++;
+                    oldCount = parseInt(line, position, length);
+                }
+
+                // Skip to the new side: " +start[,count] @@".
+                while (position[0] < length && line[position[0]] != '+') {
+                    position[0]++;
+                }
+                position[0]++;
+                parseInt(line, position, length);
+                int newCount = 1;
+                if (position[0] < length && line[position[0]] == ',') {
+                    position[0]++;
+                    newCount = parseInt(line, position, length);
+                }
+
+                if (path != null) {
+                    consumer.hunk(path, oldStart, oldCount);
+                }
+                oldRemaining = oldCount;
+                newRemaining = newCount;
+            } else if (startsWith(line, length, "Binary files ") && path != null) {
+                consumer.wholeFile(path);
+            }
+        }
+    }
+
+    /**
+     * Returns the path of a {@code a/<path> b/<path>} pair (renames are off, so both sides hold the same path).
+     */
+    static String parseDiffGitPath(byte[] line, int start, int end) {
+        if (line[start] == '"') {
+            int[] position = {start};
+            String quoted = unquote(line, position, end);
+            return quoted.startsWith("a/") ? quoted.substring(2) : quoted;
+        }
+
+        // "a/<path> b/<path>": the path length is (length - "a/ b/".length) / 2.
+        int pathLength = (end - start - 5) / 2;
+        if (pathLength <= 0) {
+            return null;
+        }
+        return new String(line, start + 2, pathLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a C-quoted string ({@code "a\tb\"c\303\244"}) starting at the opening quote.
+     */
+    private static String unquote(byte[] line, int[] position, int end) {
+        byte[] out = new byte[end - position[0]];
+        int length = 0;
+        int i = position[0] + 1;
+
+        while (i < end && line[i] != '"') {
+            byte b = line[i++];
+            if (b != '\\' || i >= end) {
+                out[length++] = b;
+                continue;
+            }
+
+            byte escaped = line[i++];
+            switch (escaped) {
+                case 'n' -> out[length++] = '\n';
+                case 't' -> out[length++] = '\t';
+                case 'r' -> out[length++] = '\r';
+                case 'a' -> out[length++] = 7;
+                case 'b' -> out[length++] = '\b';
+                case 'f' -> out[length++] = '\f';
+                case 'v' -> out[length++] = 11;
+                default -> {
+                    if (escaped >= '0' && escaped <= '7' && i + 1 < end) {
+                        out[length++] = (byte) (((escaped - '0') << 6) | ((line[i] - '0') << 3) | (line[i + 1] - '0'));
+                        i += 2;
+                    } else {
+                        out[length++] = escaped;
+                    }
+                }
+            }
+        }
+
+        position[0] = i + 1;
+        return new String(out, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static boolean startsWith(byte[] line, int length, String prefix) {
+        if (length < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (line[i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int parseInt(byte[] line, int[] position, int end) {
+        int value = 0;
+        while (position[0] < end && line[position[0]] >= '0' && line[position[0]] <= '9') {
+            value = value * 10 + (line[position[0]++] - '0');
+        }
+        return value;
+    }
+
+    private static int parseInt(char[] chars, int[] position, int end) {
+        int value = 0;
+        while (position[0] < end && chars[position[0]] >= '0' && chars[position[0]] <= '9') {
+            value = value * 10 + (chars[position[0]++] - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,10 @@
+package com.github.gitconflictfinder.parsers;
+
+/**
+ * An entry of a remote tree: its name, type ({@code blob}, {@code tree} or {@code commit} for a submodule) and SHA.
+ */
+public record RemoteTreeEntry(String name, String type, String sha) {
+    public boolean isTree() {
+        return type.equals("tree");
+    }
+}
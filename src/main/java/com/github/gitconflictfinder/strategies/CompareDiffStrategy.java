@@ -0,0 +1,129 @@
+package com.github.gitconflictfinder.strategies;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.gitconflictfinder.clients.GitHubApiClient;
+import com.github.gitconflictfinder.core.AsyncTasks;
+import com.github.gitconflictfinder.core.GitHubRepoContext;
+import com.github.gitconflictfinder.core.PathSet;
+import com.github.gitconflictfinder.exceptions.GitHubApiException;
+import com.github.gitconflictfinder.instrumentation.Instrumentation;
+import com.github.gitconflictfinder.instrumentation.Phase;
+import com.github.gitconflictfinder.parsers.GitHubJsonParser;
+import com.github.gitconflictfinder.parsers.HunkParser;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Remote diff strategy that uses the GitHub compare endpoint ({@code mergeBase...branchA}).
+ *
+ * How does it work?
+ * - fetches the first compare page, which holds the whole list of changed files,
+ * - if the list is complete, returns it right away (a single request),
+ * - if the list is truncated (GitHub returns at most 300 files), pages through the compared commits
+ *   and falls back to fetching the files of every commit with {@link PerCommitDiffStrategy},
+ * - asynchronously, the first page is requested with {@code sendAsync} and only parsed on the executor,
+ * - for the precision mode, reads the line ranges of the {@code patch} of the given files from the same first page
+ *   (the patches are relative to the merge base, so they share the coordinates of the local {@code git diff -U0}).
+ *
+ * NOTE: the compare endpoint returns the diff between the merge base and the branchA head,
+ * so a file changed and then reverted on the branchA is not reported, unlike with the per-commit walk.
+ */
+public class CompareDiffStrategy implements RemoteDiffStrategy {
+    public static final int MAX_COMPARE_FILES = 300;
+    private static final int COMMITS_PER_PAGE = 100;
+
+    private final GitHubApiClient githubClient;
+    private final GitHubRepoContext context;
+    private final PerCommitDiffStrategy fallbackStrategy;
+
+    public CompareDiffStrategy(GitHubApiClient githubClient) {
+        this(githubClient, new PerCommitDiffStrategy(githubClient));
+    }
+
+    public CompareDiffStrategy(GitHubApiClient githubClient, PerCommitDiffStrategy fallbackStrategy) {
+        this.githubClient = githubClient;
+        this.context = githubClient.getContext();
+        this.fallbackStrategy = fallbackStrategy;
+    }
+
+    @Override
+    public Set<String> getRemoteChangedFiles(String mergeBaseCommit) throws GitHubApiException, JsonProcessingException {
+        String compareApiPaged = getCompareApiPaged(mergeBaseCommit);
+        return collect(compareApiPaged, githubClient.fetchJsonStream(compareApiPaged + 1));
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> getRemoteChangedFilesAsync(String mergeBaseCommit, Executor executor) {
+        String compareApiPaged = getCompareApiPaged(mergeBaseCommit);
+
+        return AsyncTasks.thenCompose(githubClient.fetchJsonStreamAsync(compareApiPaged + 1),
+                firstPage -> AsyncTasks.supplyInterruptibly(executor, () -> collect(compareApiPaged, firstPage)));
+    }
+
+    /**
+     * Reads the changed files from the first compare page, or if its list is truncated, from the files of every compared commit.
+     */
+    private Set<String> collect(String compareApiPaged, InputStream firstPage) throws GitHubApiException, JsonProcessingException {
+        PathSet remoteChangedFiles = new PathSet();
+        ArrayList<String> commits = new ArrayList<>();
+
+        try (Instrumentation.Scope _ = instrumentation().phase(Phase.REMOTE_HISTORY)) {
+            GitHubJsonParser.ComparePage page = GitHubJsonParser.parseCompare(firstPage, commits, remoteChangedFiles);
+            if (!isTruncated(page.filesCnt())) {
+                return remoteChangedFiles;
+            }
+
+            fetchRemainingCommits(compareApiPaged, page.totalCommits(), commits);
+        }
+
+        remoteChangedFiles.addAll(fallbackStrategy.collectRemoteChangedFiles(commits));
+
+        return remoteChangedFiles;
+    }
+
+    private void fetchRemainingCommits(String compareApiPaged, int totalCommits, ArrayList<String> commits) throws GitHubApiException, JsonProcessingException {
+        int pages = (totalCommits + COMMITS_PER_PAGE - 1) / COMMITS_PER_PAGE;
+        for (int page = 2; page <= pages; page++) {
+            GitHubJsonParser.parseCompare(githubClient.fetchJsonStream(compareApiPaged + page), commits, null);
+        }
+    }
+
+    /**
+     * Passes the changed line ranges of the given files (between the merge base and the branchA head) to the consumer.
+     * A file missing from a truncated file list, or without a patch, is reported as changed as a whole.
+     * A file missing from a complete list was changed and reverted on the branchA, so it has no ranges at all.
+     */
+    public void collectHunks(String mergeBaseCommit, Set<String> files, HunkParser.HunkConsumer consumer) throws GitHubApiException, JsonProcessingException {
+        HashSet<String> listedFiles = new HashSet<>();
+        int filesCnt = GitHubJsonParser.parseComparePatches(githubClient.fetchJsonStream(getCompareApiPaged(mergeBaseCommit) + 1), files, listedFiles, consumer);
+
+        if (isTruncated(filesCnt)) {
+            for (String file : files) {
+                if (!listedFiles.contains(file)) {
+                    consumer.wholeFile(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * GitHub lists at most {@code MAX_COMPARE_FILES} files, so a list of that many files is taken as truncated
+     * (counted as listed, not as distinct paths, so both the file list and the patches come to the same answer).
+     */
+    private static boolean isTruncated(int filesCnt) {
+        return filesCnt >= MAX_COMPARE_FILES;
+    }
+
+    private Instrumentation instrumentation() {
+        return Instrumentation.orDisabled(githubClient.getInstrumentation());
+    }
+
+    private String getCompareApiPaged(String mergeBaseCommit) {
+        return context.getApiBaseUrl() + "/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/compare/" + mergeBaseCommit + "..." + context.getBranchA() + "?per_page=" + COMMITS_PER_PAGE + "&page=";
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.gitconflictfinder.strategies;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.gitconflictfinder.exceptions.GitHubApiException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs one fetch task per SHA (of a commit or a tree) on virtual threads, with a cap on how many of them run at the same time.
+ *
+ * How does it work?
+ * - starts a virtual thread for every SHA, each one waits for a permit before sending its requests,
+ * - waits for the tasks in the order they finish,
+ * - on the first failure, cancels (interrupts) all outstanding tasks, waits for them to stop and rethrows the error.
+ *
+ * The tasks are expected to write their results into a thread-safe collection.
+ */
+public class ConcurrentFetcher {
+    private final int maxConcurrentRequests;
+
+    @FunctionalInterface
+    public interface FetchTask {
+        void run(String sha) throws GitHubApiException, JsonProcessingException;
+    }
+
+    public ConcurrentFetcher(int maxConcurrentRequests) {
+        if (maxConcurrentRequests < 1) {
+            throw new IllegalArgumentException("maxConcurrentRequests must be at least 1");
+        }
+
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public void forEach(List<String> shas, FetchTask task) throws GitHubApiException, JsonProcessingException {
+        Semaphore permits = new Semaphore(maxConcurrentRequests);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+            List<Future<Void>> futures = new ArrayList<>(shas.size());
+
+            for (String sha : shas) {
+                futures.add(completionService.submit(() -> {
+                    permits.acquire();
+                    try {
+                        task.run(sha);
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                }));
+            }
+
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    completionService.take().get();
+                }
+
+            } catch (ExecutionException e) {
+                cancelAll(futures);
+                rethrow(e.getCause());
+
+            } catch (InterruptedException e) {
+                cancelAll(futures);
+                Thread.currentThread().interrupt();
+                throw new GitHubApiException("Interrupted while fetching from the GitHub API.", e);
+            }
+        }
+    }
+
+    private void cancelAll(List<Future<Void>> futures) {
+        for (Future<Void> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    private void rethrow(Throwable cause) throws GitHubApiException, JsonProcessingException {
+        if (cause instanceof GitHubApiException gitHubApiException) {
+            throw gitHubApiException;
+        }
+        if (cause instanceof JsonProcessingException jsonProcessingException) {
+            throw jsonProcessingException;
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+
+        throw new GitHubApiException("Error fetching from the GitHub API.", cause);
+    }
+}
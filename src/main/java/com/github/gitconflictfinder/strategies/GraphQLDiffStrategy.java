@@ -0,0 +1,156 @@
+package com.github.gitconflictfinder.strategies;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.gitconflictfinder.clients.GitHubApiClient;
+import com.github.gitconflictfinder.core.GitHubRepoContext;
+import com.github.gitconflictfinder.exceptions.GitHubApiException;
+import com.github.gitconflictfinder.instrumentation.Instrumentation;
+import com.github.gitconflictfinder.instrumentation.Phase;
+import com.github.gitconflictfinder.parsers.GitHubGraphQLParser;
+import com.github.gitconflictfinder.parsers.RemoteTreeEntry;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Remote diff strategy that uses the GitHub GraphQL API instead of one REST request per commit.
+ *
+ * How does it work?
+ * - gets the merge base commit date (one query),
+ * - lists the branchA history since that date, 100 commits per query, with the root tree of every commit and of its first parent,
+ * - diffs every commit's tree against its parent's tree with the {@link RemoteTreeWalker}:
+ *   the trees needed on a level (by all the commits) are fetched together, up to {@code treesPerQuery} aliased objects per query,
+ *   and unchanged subtrees are never fetched.
+ *
+ * So the number of requests depends on the depth and the breadth of the changes, not on the number of commits.
+ *
+ * NOTE: GraphQL has no field with the changed paths of a commit, that is why the trees are compared.
+ * The result is the same as with {@link PerCommitDiffStrategy} (merge commits are compared with their first parent).
+ *
+ * Query cost: a history page asks for 100 commits with one parent each (200 nodes, 2 points),
+ * a tree query asks for plain objects, no connections (1 point). With the default of 100 trees per query,
+ * the queries stay far below the node limit (500,000) and the response time limit.
+ *
+ * The GraphQL API always needs a valid access token.
+ */
+public class GraphQLDiffStrategy implements RemoteDiffStrategy {
+    public static final int DEFAULT_TREES_PER_QUERY = 100;
+
+    private static final int COMMITS_PER_PAGE = 100;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final Pattern SHA = Pattern.compile("[0-9a-f]{40}");
+
+    private static final String COMMIT_DATE_QUERY =
+            "query($owner: String!, $name: String!, $oid: GitObjectID!) { repository(owner: $owner, name: $name) { "
+            + "object(oid: $oid) { ... on Commit { committedDate } } } }";
+
+    private static final String HISTORY_QUERY =
+            "query($owner: String!, $name: String!, $branch: String!, $since: GitTimestamp, $cursor: String) { "
+            + "repository(owner: $owner, name: $name) { object(expression: $branch) { ... on Commit { "
+            + "history(first: " + COMMITS_PER_PAGE + ", since: $since, after: $cursor) { pageInfo { hasNextPage endCursor } "
+            + "nodes { oid tree { oid } parents(first: 1) { nodes { tree { oid } } } } } } } } }";
+
+    private final GitHubApiClient githubClient;
+    private final GitHubRepoContext context;
+    private final int treesPerQuery;
+
+    public GraphQLDiffStrategy(GitHubApiClient githubClient) {
+        this(githubClient, DEFAULT_TREES_PER_QUERY);
+    }
+
+    public GraphQLDiffStrategy(GitHubApiClient githubClient, int treesPerQuery) {
+        if (treesPerQuery < 1) {
+            throw new IllegalArgumentException("treesPerQuery must be at least 1");
+        }
+
+        this.githubClient = githubClient;
+        this.context = githubClient.getContext();
+        this.treesPerQuery = treesPerQuery;
+    }
+
+    @Override
+    public Set<String> getRemoteChangedFiles(String mergeBaseCommit) throws GitHubApiException, IOException {
+        Instrumentation instrumentation = Instrumentation.orDisabled(githubClient.getInstrumentation());
+
+        List<GitHubGraphQLParser.HistoryCommit> commits = new ArrayList<>();
+        try (Instrumentation.Scope _ = instrumentation.phase(Phase.REMOTE_HISTORY)) {
+            String since = GitHubGraphQLParser.parseCommitDate(githubClient.postGraphQL(request(COMMIT_DATE_QUERY, Map.of("oid", mergeBaseCommit))));
+
+            String cursor = null;
+            do {
+                Map<String, String> variables = new HashMap<>();
+                variables.put("branch", context.getBranchA());
+                variables.put("since", since.isEmpty() ? null : since);
+                variables.put("cursor", cursor);
+
+                cursor = GitHubGraphQLParser.parseHistory(githubClient.postGraphQL(request(HISTORY_QUERY, variables)), mergeBaseCommit, commits);
+            } while (cursor != null);
+        }
+
+        List<RemoteTreeWalker.TreePair> pairs = new ArrayList<>(commits.size());
+        for (GitHubGraphQLParser.HistoryCommit commit : commits) {
+            pairs.add(new RemoteTreeWalker.TreePair("", commit.parentTreeSha(), commit.treeSha()));
+        }
+
+        try (Instrumentation.Scope _ = instrumentation.phase(Phase.REMOTE_TREES)) {
+            return new RemoteTreeWalker(this::fetchTrees).diff(pairs);
+        }
+    }
+
+    private Map<String, List<RemoteTreeEntry>> fetchTrees(List<String> treeShas) throws GitHubApiException, IOException {
+        Map<String, List<RemoteTreeEntry>> trees = new HashMap<>();
+
+        for (int start = 0; start < treeShas.size(); start += treesPerQuery) {
+            List<String> batch = treeShas.subList(start, Math.min(start + treesPerQuery, treeShas.size()));
+
+            StringBuilder query = new StringBuilder("query($owner: String!, $name: String!) { repository(owner: $owner, name: $name) {");
+            for (int i = 0; i < batch.size(); i++) {
+                String sha = batch.get(i);
+                if (!SHA.matcher(sha).matches()) {
+                    throw new GitHubApiException("Unexpected tree SHA: " + sha);
+                }
+                query.append(" t").append(i).append(": object(oid: \"").append(sha).append("\") { ... on Tree { entries { name type oid } } }");
+            }
+            query.append(" } }");
+
+            Map<String, List<RemoteTreeEntry>> byAlias = GitHubGraphQLParser.parseTrees(githubClient.postGraphQL(request(query.toString(), Map.of())));
+            for (int i = 0; i < batch.size(); i++) {
+                List<RemoteTreeEntry> entries = byAlias.get("t" + i);
+                if (entries != null) {
+                    trees.put(batch.get(i), entries);
+                }
+            }
+        }
+
+        return trees;
+    }
+
+    /**
+     * Builds the request body: {@code {"query": ..., "variables": {"owner": ..., "name": ..., ...}}}.
+     */
+    private String request(String query, Map<String, String> variables) throws IOException {
+        StringWriter body = new StringWriter();
+
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(body)) {
+            generator.writeStartObject();
+            generator.writeStringField("query", query);
+            generator.writeObjectFieldStart("variables");
+            generator.writeStringField("owner", context.getOwnerName());
+            generator.writeStringField("name", context.getRepoName());
+            for (Map.Entry<String, String> variable : variables.entrySet()) {
+                generator.writeStringField(variable.getKey(), variable.getValue());
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+
+        return body.toString();
+    }
+}
@@ -0,0 +1,123 @@
+package com.github.gitconflictfinder.strategies;
+
+import com.github.gitconflictfinder.clients.GitCommandClient;
+import com.github.gitconflictfinder.clients.GitHubApiClient;
+import com.github.gitconflictfinder.core.GitHubRepoContext;
+import com.github.gitconflictfinder.exceptions.GitHubApiException;
+import com.github.gitconflictfinder.parsers.GitHubJsonParser;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Remote diff strategy that diffs the remote-tracking branch ({@code origin/branchA}) locally, when it is already fetched.
+ *
+ * How does it work?
+ * - resolves {@code refs/remotes/<remote>/<branchA>} in the local repository,
+ * - checks that it is not stale: asks GitHub for the head SHA of the branchA (one small request, revalidated with its ETag),
+ *   unless the caller already resolved it (the resolver does for the key of its result cache),
+ *   this check can be turned off to run with no API calls at all (e.g. in CI, right after a fetch),
+ * - for the key of the result cache, reports the commit of the local ref when the diff is taken from it,
+ *   so moving the ref (e.g. with {@code git fetch}) misses the cache,
+ * - if the local ref is up to date, returns the files changed between the merge base and it, with a local diff,
+ * - if the local ref is missing or stale, falls back to the given strategy (by default {@link PerCommitDiffStrategy}).
+ *
+ * The access token is validated only right before the first API request, so the offline mode never touches the network.
+ *
+ * NOTE: like the compare endpoint, the local diff is taken between the merge base and the branchA head,
+ * so a file changed and then reverted on the branchA is not reported.
+ */
+public class LocalRefDiffStrategy implements RemoteDiffStrategy {
+    public static final String DEFAULT_REMOTE_NAME = "origin";
+
+    private final GitCommandClient cmdClient;
+    private final GitHubApiClient githubClient;
+    private final GitHubRepoContext context;
+    private final String remoteName;
+    private final boolean verifyRemoteHead;
+    private final RemoteDiffStrategy fallbackStrategy;
+
+    public LocalRefDiffStrategy(GitCommandClient cmdClient, GitHubApiClient githubClient) {
+        this(cmdClient, githubClient, DEFAULT_REMOTE_NAME, true, new PerCommitDiffStrategy(githubClient));
+    }
+
+    public LocalRefDiffStrategy(GitCommandClient cmdClient, GitHubApiClient githubClient, String remoteName, boolean verifyRemoteHead, RemoteDiffStrategy fallbackStrategy) {
+        this.cmdClient = cmdClient;
+        this.githubClient = githubClient;
+        this.context = githubClient.getContext();
+        this.remoteName = remoteName;
+        this.verifyRemoteHead = verifyRemoteHead;
+        this.fallbackStrategy = fallbackStrategy;
+    }
+
+    @Override
+    public Set<String> getRemoteChangedFiles(String mergeBaseCommit) throws GitHubApiException, IOException {
+        return getRemoteChangedFiles(mergeBaseCommit, null);
+    }
+
+    /**
+     * With a known remote head, the local ref is checked against it without a request.
+     * The head (known or fetched for the check) is passed on to the fallback strategy.
+     */
+    @Override
+    public Set<String> getRemoteChangedFiles(String mergeBaseCommit, String remoteHead) throws GitHubApiException, IOException {
+        String localHead = resolveLocalRef();
+
+        if (localHead != null && verifyRemoteHead && remoteHead == null) {
+            remoteHead = fetchRemoteHead();
+        }
+        if (localHead != null && (!verifyRemoteHead || localHead.equals(remoteHead))) {
+            try {
+                return new HashSet<>(cmdClient.getChangedFiles(context.getLocalRepoPath(), mergeBaseCommit, localHead));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while diffing the remote-tracking branch");
+            }
+        }
+
+        githubClient.validateAccessToken();
+        if (remoteHead == null) {
+            return fallbackStrategy.getRemoteChangedFiles(mergeBaseCommit);
+        }
+        // the head is passed on, so e.g. the tree strategy does not resolve it again
+        return fallbackStrategy.getRemoteChangedFiles(mergeBaseCommit, remoteHead);
+    }
+
+    /**
+     * Returns the commit of the local ref if the diff is taken from it: always in the offline mode (with no request),
+     * otherwise the head GitHub reports, which is the local ref only if it is up to date.
+     * Without a local ref, returns null (the fallback diffs against the head on GitHub).
+     */
+    @Override
+    public String resolveRemoteHead() throws GitHubApiException, IOException {
+        String localHead = resolveLocalRef();
+        if (localHead == null || !verifyRemoteHead) {
+            return localHead;
+        }
+
+        return fetchRemoteHead();
+    }
+
+    @Override
+    public boolean alwaysUsesGitHubApi() {
+        return false;
+    }
+
+    private String resolveLocalRef() throws IOException {
+        try {
+            return cmdClient.resolveCommit(context.getLocalRepoPath(), "refs/remotes/" + remoteName + "/" + context.getBranchA());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while resolving the remote-tracking branch");
+        }
+    }
+
+    private String fetchRemoteHead() throws GitHubApiException, IOException {
+        githubClient.validateAccessToken();
+
+        String refApi = context.getBranchARefApi();
+        return GitHubJsonParser.parseRefSha(githubClient.fetchJsonStream(refApi));
+    }
+}
@@ -0,0 +1,342 @@
+package com.github.gitconflictfinder.strategies;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.gitconflictfinder.cache.CommitFilesCache;
+import com.github.gitconflictfinder.clients.GitHubApiClient;
+import com.github.gitconflictfinder.clients.JsonPages;
+import com.github.gitconflictfinder.core.GitHubRepoContext;
+import com.github.gitconflictfinder.core.PathSet;
+import com.github.gitconflictfinder.exceptions.GitHubApiException;
+import com.github.gitconflictfinder.instrumentation.Instrumentation;
+import com.github.gitconflictfinder.instrumentation.Phase;
+import com.github.gitconflictfinder.parsers.GitHubJsonParser;
+import com.github.gitconflictfinder.parsers.GitHubJsonParser.CommitParents;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remote diff strategy that walks the branchA history commit by commit.
+ *
+ * How does it work?
+ * - gets the date of the merge base commit,
+ * - lists all commits on the branchA since that date,
+ * - fetches the changed files of every listed commit and collects them into one {@link PathSet}
+ *   (the parser writes the file names straight into it, shared directory prefixes are stored once).
+ *
+ * Costs one request per commit, so it is the slowest strategy, but it never misses a file.
+ * When only the first few conflicts are needed ({@link #findChangedFiles(String, PathSet, int)}), the commits are walked
+ * newest first, page by page, and the walk stops as soon as enough of the given paths are found.
+ * With {@code maxConcurrentRequests > 1} the commits are fetched concurrently by {@link ConcurrentFetcher}.
+ * With a {@link CommitFilesCache}, the files of already seen commits are read from disk instead of the API.
+ * With the ancestry walk, the history is walked by the commit parents instead of the date, and the merge commits are skipped
+ * (see {@link #getCommitsByAncestry(String)}).
+ *
+ * Both lists are paginated; the pages are followed by their {@code Link} header ({@link JsonPages}),
+ * so the next page is already downloading while the current one is parsed.
+ */
+public class PerCommitDiffStrategy implements RemoteDiffStrategy {
+    // GitHub caps the commits list at 100 per page, a larger value is silently lowered
+    private static final int COMMITS_PER_PAGE = 100;
+    private static final int FILES_PER_PAGE = 300;
+
+    private final GitHubApiClient githubClient;
+    private final GitHubRepoContext context;
+    private final ConcurrentFetcher concurrentFetcher;
+    private final CommitFilesCache commitFilesCache;
+    private final boolean ancestryWalk;
+    private final LongAdder avoidedFetches = new LongAdder();
+
+    public PerCommitDiffStrategy(GitHubApiClient githubClient) {
+        this(githubClient, 1);
+    }
+
+    public PerCommitDiffStrategy(GitHubApiClient githubClient, int maxConcurrentRequests) {
+        this(githubClient, maxConcurrentRequests, null);
+    }
+
+    public PerCommitDiffStrategy(GitHubApiClient githubClient, int maxConcurrentRequests, CommitFilesCache commitFilesCache) {
+        this(githubClient, maxConcurrentRequests, commitFilesCache, false);
+    }
+
+    /**
+     * With {@code ancestryWalk}, {@link #getRemoteChangedFiles(String)} lists the commits by their parents and skips the merge commits.
+     */
+    public PerCommitDiffStrategy(GitHubApiClient githubClient, int maxConcurrentRequests, CommitFilesCache commitFilesCache, boolean ancestryWalk) {
+        this.githubClient = githubClient;
+        this.context = githubClient.getContext();
+        this.concurrentFetcher = maxConcurrentRequests > 1 ? new ConcurrentFetcher(maxConcurrentRequests) : null;
+        this.commitFilesCache = commitFilesCache;
+        this.ancestryWalk = ancestryWalk;
+    }
+
+    /**
+     * Returns the number of commit file fetches the ancestry walk avoided so far (the skipped merge commits).
+     */
+    public long getAvoidedFetches() {
+        return avoidedFetches.sum();
+    }
+
+    @Override
+    public Set<String> getRemoteChangedFiles(String mergeBaseCommit) throws GitHubApiException, JsonProcessingException {
+        return collectRemoteChangedFiles(getCommits(mergeBaseCommit));
+    }
+
+    /**
+     * Fetches the changed files of all given commits, serially or concurrently (depending on the configuration).
+     */
+    public Set<String> collectRemoteChangedFiles(List<String> commits) throws GitHubApiException, JsonProcessingException {
+        PathSet remoteChangedFiles = new PathSet();
+        if (concurrentFetcher == null) {
+            for (String sha : commits) {
+                updateRemoteChangedFiles(sha, remoteChangedFiles);
+            }
+
+            return remoteChangedFiles;
+        }
+
+        concurrentFetcher.forEach(commits, sha -> updateRemoteChangedFiles(sha, remoteChangedFiles));
+
+        return remoteChangedFiles;
+    }
+
+    /**
+     * Walks the commits since the merge base newest first (serially, even with a concurrent fetcher, so nothing is fetched
+     * past the point where the limit is reached) and returns the given paths changed by them, in the order they were found.
+     * The file names of a commit are only looked up in the paths, a commit touching none of them creates no strings.
+     */
+    @Override
+    public List<String> findChangedFiles(String mergeBaseCommit, PathSet paths, int limit) throws GitHubApiException, JsonProcessingException {
+        LinkedHashSet<String> changedFiles = new LinkedHashSet<>();
+
+        JsonPages pages;
+        try (Instrumentation.Scope _ = instrumentation().phase(Phase.REMOTE_HISTORY)) {
+            pages = githubClient.fetchJsonPages(getBranchCommitsApi(getMergeBaseCommitDate(mergeBaseCommit)));
+        }
+
+        try (pages) {
+            while (true) {
+                ArrayList<String> commits = new ArrayList<>();
+                try (Instrumentation.Scope _ = instrumentation().phase(Phase.REMOTE_HISTORY)) {
+                    InputStream page = pages.next();
+                    if (page == null) {
+                        return new ArrayList<>(changedFiles);
+                    }
+                    GitHubJsonParser.parseCommitShas(page, mergeBaseCommit, commits);
+                }
+
+                for (String sha : commits) {
+                    findChangedFiles(sha, paths, limit, changedFiles);
+                    if (changedFiles.size() >= limit) {
+                        return new ArrayList<>(changedFiles);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Fetches the changed files of every given commit (each commit once), serially or concurrently.
+     * Returns a map from the commit SHA to its files.
+     */
+    public Map<String, List<String>> collectCommitFiles(List<String> commits) throws GitHubApiException, JsonProcessingException {
+        Map<String, List<String>> commitFiles = new ConcurrentHashMap<>();
+
+        if (concurrentFetcher == null) {
+            for (String sha : commits) {
+                commitFiles.put(sha, getCommitFiles(sha));
+            }
+        } else {
+            concurrentFetcher.forEach(commits, sha -> commitFiles.put(sha, getCommitFiles(sha)));
+        }
+
+        return commitFiles;
+    }
+
+    private ArrayList<String> getCommits(String mergeBaseCommit) throws GitHubApiException, JsonProcessingException {
+        try (Instrumentation.Scope _ = instrumentation().phase(Phase.REMOTE_HISTORY)) {
+            if (ancestryWalk) {
+                return getCommitsByAncestry(mergeBaseCommit);
+            }
+
+            ArrayList<String> commits = getCommitsSince(getMergeBaseCommitDate(mergeBaseCommit));
+            commits.remove(mergeBaseCommit);
+            return commits;
+        }
+    }
+
+    /**
+     * Lists all commits on the branchA since the given date (ISO 8601), newest first.
+     */
+    public ArrayList<String> getCommitsSince(String date) throws GitHubApiException, JsonProcessingException {
+        ArrayList<String> commits = new ArrayList<>();
+
+        try (JsonPages pages = githubClient.fetchJsonPages(getBranchCommitsApi(date))) {
+            for (InputStream page = pages.next(); page != null; page = pages.next()) {
+                GitHubJsonParser.parseCommitShas(page, null, commits);
+            }
+        }
+
+        return commits;
+    }
+
+    /**
+     * Lists the commits reachable from the branchA head but not from the merge base, newest first, without the covered merge commits.
+     *
+     * The pages list the commits newest first, so every commit comes after its children:
+     * - the head and every parent of a taken commit is open; an open commit is taken when its turn comes, and its parents are opened,
+     * - the merge base and every parent of an excluded commit is excluded (an ancestor of the merge base), even if it is open as well,
+     * - the walk stops once no commit is open, so no older page is fetched and no date filter can cut off a merged branch.
+     *
+     * A merge commit whose parents were all taken or excluded is skipped: its diff against the first parent repeats the files
+     * of the merged commits, which are fetched on their own (only edits made in the merge itself are not seen, hence the opt-in).
+     */
+    private ArrayList<String> getCommitsByAncestry(String mergeBaseCommit) throws GitHubApiException, JsonProcessingException {
+        String branchCommitsApi = context.getApiBaseUrl() + "/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits?sha=" + context.getBranchA() + "&per_page=" + COMMITS_PER_PAGE;
+
+        HashSet<String> open = new HashSet<>();
+        HashSet<String> excluded = new HashSet<>(Set.of(mergeBaseCommit));
+        HashSet<String> seen = new HashSet<>();
+        ArrayList<CommitParents> taken = new ArrayList<>();
+
+        try (JsonPages pages = githubClient.fetchJsonPages(branchCommitsApi)) {
+            for (InputStream page = pages.next(); page != null; page = pages.next()) {
+                ArrayList<CommitParents> commits = new ArrayList<>();
+                GitHubJsonParser.parseCommitParents(page, commits);
+                if (seen.isEmpty() && !commits.isEmpty()) {
+                    open.add(commits.get(0).sha());
+                }
+
+                for (CommitParents commit : commits) {
+                    seen.add(commit.sha());
+                    if (excluded.contains(commit.sha())) {
+                        open.remove(commit.sha());
+                        excluded.addAll(commit.parents());
+                    } else if (open.remove(commit.sha())) {
+                        taken.add(commit);
+                        for (String parent : commit.parents()) {
+                            // a parent listed before its child (clock skew) would stay open forever
+                            if (!seen.contains(parent)) {
+                                open.add(parent);
+                            }
+                        }
+                    }
+
+                    if (open.isEmpty()) {
+                        break;
+                    }
+                }
+
+                if (open.isEmpty()) {
+                    break;
+                }
+            }
+        }
+
+        ArrayList<String> shas = new ArrayList<>(taken.size());
+        for (CommitParents commit : taken) {
+            if (commit.isMerge() && seen.containsAll(commit.parents())) {
+                avoidedFetches.increment();
+            } else {
+                shas.add(commit.sha());
+            }
+        }
+
+        return shas;
+    }
+
+    private String getBranchCommitsApi(String date) {
+        return context.getApiBaseUrl() + "/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits?sha=" + context.getBranchA() + "&since=" + date + "&per_page=" + COMMITS_PER_PAGE;
+    }
+
+    private String getMergeBaseCommitDate(String baseMergeCommit) throws GitHubApiException, JsonProcessingException {
+        String mergeBaseCommitDateApi = context.getApiBaseUrl() + "/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/" + baseMergeCommit + "?per_page=1&page=1";
+        return GitHubJsonParser.parseCommitDate(githubClient.fetchJsonStream(mergeBaseCommitDateApi));
+    }
+
+    /**
+     * Adds all files changed by the given commit to the set, checking the cache first.
+     * The set must be thread-safe if the strategy fetches concurrently (a {@link PathSet} is).
+     */
+    private void updateRemoteChangedFiles(String sha, Set<String> remoteChangedFiles) throws GitHubApiException, JsonProcessingException {
+        if (commitFilesCache == null) {
+            fetchRemoteChangedFiles(sha, remoteChangedFiles);
+            return;
+        }
+
+        remoteChangedFiles.addAll(getCommitFiles(sha));
+    }
+
+    /**
+     * Adds the given paths changed by the commit to the found ones, until the limit is reached.
+     * Without a cache only the matching file names are parsed into strings; with one, the full list is read (or fetched and stored).
+     */
+    private void findChangedFiles(String sha, PathSet paths, int limit, Set<String> changedFiles) throws GitHubApiException, JsonProcessingException {
+        if (commitFilesCache != null) {
+            for (String file : getCommitFiles(sha)) {
+                if (changedFiles.size() >= limit) {
+                    return;
+                }
+                if (paths.contains(file)) {
+                    changedFiles.add(file);
+                }
+            }
+            return;
+        }
+
+        try (Instrumentation.Scope _ = instrumentation().phase(Phase.COMMIT_FILES);
+             JsonPages pages = githubClient.fetchJsonPages(getCommitFilesApi(sha))) {
+            InputStream page;
+            while (changedFiles.size() < limit && (page = pages.next()) != null) {
+                ArrayList<String> matches = new ArrayList<>();
+                GitHubJsonParser.parseCommitFiles(page, paths, matches);
+                for (String file : matches) {
+                    if (changedFiles.size() >= limit) {
+                        return;
+                    }
+                    changedFiles.add(file);
+                }
+            }
+        }
+    }
+
+    private List<String> getCommitFiles(String sha) throws GitHubApiException, JsonProcessingException {
+        List<String> commitFiles = commitFilesCache != null ? commitFilesCache.get(sha) : null;
+        if (commitFiles == null) {
+            commitFiles = new ArrayList<>();
+            fetchRemoteChangedFiles(sha, commitFiles);
+
+            if (commitFilesCache != null) {
+                commitFilesCache.put(sha, commitFiles);
+            }
+        }
+
+        return commitFiles;
+    }
+
+    private void fetchRemoteChangedFiles(String sha, Collection<String> remoteChangedFiles) throws GitHubApiException, JsonProcessingException {
+        // Opened here rather than around the whole loop, as the concurrent fetcher runs this on its own threads.
+        try (Instrumentation.Scope _ = instrumentation().phase(Phase.COMMIT_FILES);
+             JsonPages pages = githubClient.fetchJsonPages(getCommitFilesApi(sha))) {
+            for (InputStream page = pages.next(); page != null; page = pages.next()) {
+                GitHubJsonParser.parseCommitFiles(page, remoteChangedFiles);
+            }
+        }
+    }
+
+    private String getCommitFilesApi(String sha) {
+        return context.getApiBaseUrl() + "/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/" + sha + "?per_page=" + FILES_PER_PAGE;
+    }
+
+    private Instrumentation instrumentation() {
+        return Instrumentation.orDisabled(githubClient.getInstrumentation());
+    }
+}
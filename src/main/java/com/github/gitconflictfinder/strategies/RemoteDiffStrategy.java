@@ -0,0 +1,84 @@
+package com.github.gitconflictfinder.strategies;
+
+import com.github.gitconflictfinder.core.AsyncTasks;
+import com.github.gitconflictfinder.core.GitConflictResolver;
+import com.github.gitconflictfinder.core.PathSet;
+import com.github.gitconflictfinder.exceptions.GitHubApiException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Strategy for collecting the files changed remotely on the branchA since the merge base commit.
+ *
+ * Implementations:
+ * - {@link PerCommitDiffStrategy} - lists every commit since the merge base and fetches its files one by one,
+ * - {@link CompareDiffStrategy} - asks the GitHub compare endpoint for the whole diff in a few paginated calls,
+ * - {@link GraphQLDiffStrategy} - lists the history and diffs the commit trees with batched GraphQL queries,
+ * - {@link TreeDiffStrategy} - diffs the merge base tree against the branchA head tree with the REST Trees API, entering only changed subtrees,
+ * - {@link LocalRefDiffStrategy} - diffs the already fetched remote-tracking branch locally, the API is only a fallback.
+ *
+ * Used by {@link GitConflictResolver} to get the remote side of the comparison.
+ */
+public interface RemoteDiffStrategy {
+    Set<String> getRemoteChangedFiles(String mergeBaseCommit) throws GitHubApiException, IOException;
+
+    /**
+     * Like {@link #getRemoteChangedFiles(String)}, with the branchA head commit already resolved by the caller
+     * (for the key of the result cache), so a strategy that needs the head does not ask GitHub for it again.
+     */
+    default Set<String> getRemoteChangedFiles(String mergeBaseCommit, String remoteHead) throws GitHubApiException, IOException {
+        return getRemoteChangedFiles(mergeBaseCommit);
+    }
+
+    /**
+     * Returns the branchA head commit the result of {@link #getRemoteChangedFiles(String, String)} is computed from
+     * (a part of the key of the result cache), or null if it is the head of the branchA on GitHub, which the caller resolves then.
+     * A strategy diffing a local copy of the branchA returns the commit of that copy, so a stale copy never gets the key of a current one.
+     */
+    default String resolveRemoteHead() throws GitHubApiException, IOException {
+        return null;
+    }
+
+    /**
+     * Asynchronous version of {@link #getRemoteChangedFiles(String)}, used by {@link GitConflictResolver#findConflictsAsync}.
+     * By default the blocking version runs on the executor (and is interrupted if the future is cancelled),
+     * a strategy that can send its requests asynchronously overrides it.
+     */
+    default CompletableFuture<Set<String>> getRemoteChangedFilesAsync(String mergeBaseCommit, Executor executor) {
+        return AsyncTasks.supplyInterruptibly(executor, () -> getRemoteChangedFiles(mergeBaseCommit));
+    }
+
+    /**
+     * Returns at most {@code limit} of the given paths that were changed remotely, used by {@link GitConflictResolver#findFirstConflicts}.
+     * By default the whole remote side is collected and the paths are returned in their order,
+     * a strategy that can walk the remote side incrementally overrides it and stops as soon as the limit is reached.
+     */
+    default List<String> findChangedFiles(String mergeBaseCommit, PathSet paths, int limit) throws GitHubApiException, IOException {
+        Set<String> remoteChangedFiles = getRemoteChangedFiles(mergeBaseCommit);
+
+        ArrayList<String> changedFiles = new ArrayList<>();
+        for (String path : paths) {
+            if (changedFiles.size() >= limit) {
+                break;
+            }
+            if (remoteChangedFiles.contains(path)) {
+                changedFiles.add(path);
+            }
+        }
+
+        return changedFiles;
+    }
+
+    /**
+     * Returns true if the strategy always calls the GitHub API, so the access token is validated before it runs.
+     * A strategy that may not need the API at all validates the token itself, right before its first request.
+     */
+    default boolean alwaysUsesGitHubApi() {
+        return true;
+    }
+}
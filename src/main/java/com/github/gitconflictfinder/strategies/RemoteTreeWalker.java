@@ -0,0 +1,153 @@
+package com.github.gitconflictfinder.strategies;
+
+import com.github.gitconflictfinder.exceptions.GitHubApiException;
+import com.github.gitconflictfinder.parsers.RemoteTreeEntry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Finds the changed paths between pairs of remote trees, fetching the trees level by level.
+ *
+ * How does it work?
+ * - starts with the given (old tree, new tree) pairs, e.g. the root trees of a commit and its parent,
+ * - on every level, all the trees still needed by all the pairs are fetched together by the {@link TreeSource}
+ *   (so one request can serve many commits and directories),
+ * - entries with the same name and SHA are skipped, so an unchanged subtree is never fetched,
+ * - changed subtrees become the pairs of the next level, changed files are collected with their full path,
+ * - fetched trees are kept by SHA (a tree never changes), so a tree shared by many commits is fetched once,
+ * - optionally, only the subtrees accepted by a filter are entered (e.g. the directories that hold a local change).
+ *
+ * Used by {@link GraphQLDiffStrategy} and {@link TreeDiffStrategy}.
+ */
+public class RemoteTreeWalker {
+    /**
+     * Fetches the entries of many trees at once. Returns the entries by tree SHA.
+     */
+    public interface TreeSource {
+        Map<String, List<RemoteTreeEntry>> fetchTrees(List<String> treeShas) throws GitHubApiException, IOException;
+    }
+
+    /**
+     * Two trees to compare under the given path prefix ("" for the root, "dir/" otherwise). A null tree is empty.
+     */
+    public record TreePair(String prefix, String oldTree, String newTree) {}
+
+    private final TreeSource source;
+    private final Map<String, List<RemoteTreeEntry>> trees = new HashMap<>();
+
+    public RemoteTreeWalker(TreeSource source) {
+        this.source = source;
+    }
+
+    public Set<String> diff(List<TreePair> pairs) throws GitHubApiException, IOException {
+        return diff(pairs, prefix -> true);
+    }
+
+    /**
+     * Like {@link #diff(List)}, but enters a changed subtree only if the filter accepts its path prefix ("dir/sub/"),
+     * the files directly in the given pairs are always listed.
+     */
+    public Set<String> diff(List<TreePair> pairs, Predicate<String> enterSubtree) throws GitHubApiException, IOException {
+        Set<String> changed = new HashSet<>();
+
+        Set<TreePair> level = new LinkedHashSet<>(pairs);
+        while (!level.isEmpty()) {
+            fetchMissing(level);
+
+            Set<TreePair> nextLevel = new LinkedHashSet<>();
+            for (TreePair pair : level) {
+                if (pair.oldTree() != null && pair.oldTree().equals(pair.newTree())) {
+                    continue;
+                }
+                compare(pair, changed, nextLevel);
+            }
+            nextLevel.removeIf(pair -> !enterSubtree.test(pair.prefix()));
+            level = nextLevel;
+        }
+
+        return changed;
+    }
+
+    private void compare(TreePair pair, Set<String> changed, Set<TreePair> nextLevel) {
+        Map<String, RemoteTreeEntry> oldEntries = new HashMap<>();
+        for (RemoteTreeEntry entry : entries(pair.oldTree())) {
+            oldEntries.put(entry.name(), entry);
+        }
+
+        for (RemoteTreeEntry newEntry : entries(pair.newTree())) {
+            RemoteTreeEntry oldEntry = oldEntries.remove(newEntry.name());
+            if (oldEntry != null && oldEntry.sha().equals(newEntry.sha()) && oldEntry.type().equals(newEntry.type())) {
+                continue;
+            }
+
+            String path = pair.prefix() + newEntry.name();
+            if (oldEntry != null && oldEntry.isTree() && newEntry.isTree()) {
+                nextLevel.add(new TreePair(path + "/", oldEntry.sha(), newEntry.sha()));
+                continue;
+            }
+
+            addSide(newEntry, path, false, changed, nextLevel);
+            if (oldEntry != null) {
+                addSide(oldEntry, path, true, changed, nextLevel);
+            }
+        }
+
+        for (RemoteTreeEntry oldEntry : oldEntries.values()) {
+            addSide(oldEntry, pair.prefix() + oldEntry.name(), true, changed, nextLevel);
+        }
+    }
+
+    /**
+     * Lists a file as changed, or every file under a tree that exists only on one side.
+     */
+    private static void addSide(RemoteTreeEntry entry, String path, boolean isOld, Set<String> changed, Set<TreePair> nextLevel) {
+        if (!entry.isTree()) {
+            changed.add(path);
+        } else if (isOld) {
+            nextLevel.add(new TreePair(path + "/", entry.sha(), null));
+        } else {
+            nextLevel.add(new TreePair(path + "/", null, entry.sha()));
+        }
+    }
+
+    private void fetchMissing(Set<TreePair> level) throws GitHubApiException, IOException {
+        Set<String> missing = new LinkedHashSet<>();
+        for (TreePair pair : level) {
+            if (pair.oldTree() != null && pair.oldTree().equals(pair.newTree())) {
+                continue;
+            }
+            for (String tree : new String[] {pair.oldTree(), pair.newTree()}) {
+                if (tree != null && !trees.containsKey(tree)) {
+                    missing.add(tree);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        List<String> shas = new ArrayList<>(missing);
+        shas.sort(null);
+
+        Map<String, List<RemoteTreeEntry>> fetched = source.fetchTrees(shas);
+        for (String sha : shas) {
+            List<RemoteTreeEntry> entries = fetched.get(sha);
+            if (entries == null) {
+                throw new GitHubApiException("Could not fetch the tree " + sha + ".");
+            }
+            trees.put(sha, entries);
+        }
+    }
+
+    private List<RemoteTreeEntry> entries(String tree) {
+        return tree == null ? List.of() : trees.get(tree);
+    }
+}
@@ -0,0 +1,201 @@
+package com.github.gitconflictfinder.strategies;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.gitconflictfinder.clients.GitHubApiClient;
+import com.github.gitconflictfinder.core.GitHubRepoContext;
+import com.github.gitconflictfinder.core.PathSet;
+import com.github.gitconflictfinder.exceptions.GitHubApiException;
+import com.github.gitconflictfinder.instrumentation.Instrumentation;
+import com.github.gitconflictfinder.instrumentation.Phase;
+import com.github.gitconflictfinder.parsers.GitHubJsonParser;
+import com.github.gitconflictfinder.parsers.RemoteTreeEntry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Remote diff strategy that compares the root tree of the merge base with the root tree of the branchA head (Git Trees API).
+ *
+ * How does it work?
+ * - resolves the branchA head to its commit ({@code /git/ref/heads/<branch>}, conditional), so the trees are only ever fetched by SHA
+ *   (a branch name such as {@code feature/x} never ends up in the trees path),
+ * - fetches the root tree of the merge base commit and of the branchA head commit ({@code /git/trees/<commit>}),
+ * - diffs them level by level with the {@link RemoteTreeWalker}, so only the subtrees whose SHAs differ are fetched,
+ * - the trees needed on a level are fetched concurrently by {@link ConcurrentFetcher} (up to {@code maxConcurrentRequests}),
+ * - keeps the fetched trees by SHA (a tree never changes) up to {@code maxCachedTrees}, so a repeated run
+ *   (e.g. the next branch of a batch) fetches only the trees that changed since,
+ * - when only some paths matter ({@link #findChangedFiles(String, PathSet, int)}), only the directories holding one of them are entered.
+ *
+ * So the number of requests grows with the number of changed directories, not with the number of commits.
+ *
+ * NOTE: the result is the net diff of the two trees (like the compare endpoint): a file changed and changed back
+ * since the merge base is not listed, while {@link PerCommitDiffStrategy} lists it.
+ */
+public class TreeDiffStrategy implements RemoteDiffStrategy {
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 8;
+    public static final int DEFAULT_MAX_CACHED_TREES = 10_000;
+
+    private final GitHubApiClient githubClient;
+    private final GitHubRepoContext context;
+    private final ConcurrentFetcher concurrentFetcher;
+    private final Map<String, List<RemoteTreeEntry>> treeCache;
+    private final Map<String, String> rootTrees = new ConcurrentHashMap<>();
+
+    public TreeDiffStrategy(GitHubApiClient githubClient) {
+        this(githubClient, DEFAULT_MAX_CONCURRENT_REQUESTS);
+    }
+
+    public TreeDiffStrategy(GitHubApiClient githubClient, int maxConcurrentRequests) {
+        this(githubClient, maxConcurrentRequests, DEFAULT_MAX_CACHED_TREES);
+    }
+
+    public TreeDiffStrategy(GitHubApiClient githubClient, int maxConcurrentRequests, int maxCachedTrees) {
+        if (maxCachedTrees < 0) {
+            throw new IllegalArgumentException("maxCachedTrees must not be negative");
+        }
+
+        this.githubClient = githubClient;
+        this.context = githubClient.getContext();
+        this.concurrentFetcher = maxConcurrentRequests > 1 ? new ConcurrentFetcher(maxConcurrentRequests) : null;
+        this.treeCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<RemoteTreeEntry>> eldest) {
+                return size() > maxCachedTrees;
+            }
+        };
+    }
+
+    @Override
+    public Set<String> getRemoteChangedFiles(String mergeBaseCommit) throws GitHubApiException, IOException {
+        return diff(mergeBaseCommit, null, prefix -> true);
+    }
+
+    @Override
+    public Set<String> getRemoteChangedFiles(String mergeBaseCommit, String remoteHead) throws GitHubApiException, IOException {
+        return diff(mergeBaseCommit, remoteHead, prefix -> true);
+    }
+
+    /**
+     * Enters only the directories that hold one of the given paths, so the trees of unrelated directories are never fetched.
+     */
+    @Override
+    public List<String> findChangedFiles(String mergeBaseCommit, PathSet paths, int limit) throws GitHubApiException, IOException {
+        HashSet<String> directories = new HashSet<>();
+        for (String path : paths) {
+            for (int slash = path.indexOf('/'); slash >= 0; slash = path.indexOf('/', slash + 1)) {
+                directories.add(path.substring(0, slash + 1));
+            }
+        }
+
+        Set<String> remoteChangedFiles = diff(mergeBaseCommit, null, directories::contains);
+
+        ArrayList<String> changedFiles = new ArrayList<>();
+        for (String path : paths) {
+            if (changedFiles.size() >= limit) {
+                break;
+            }
+            if (remoteChangedFiles.contains(path)) {
+                changedFiles.add(path);
+            }
+        }
+
+        return changedFiles;
+    }
+
+    /**
+     * Diffs the merge base against the given head commit, or against the branchA head if it is null.
+     */
+    private Set<String> diff(String mergeBaseCommit, String headCommit, Predicate<String> enterSubtree) throws GitHubApiException, IOException {
+        try (Instrumentation.Scope _ = instrumentation().phase(Phase.REMOTE_TREES)) {
+            // the branch head is resolved every time (conditionally, with its ETag), the root tree of a commit never changes
+            if (headCommit == null) {
+                headCommit = GitHubJsonParser.parseRefSha(githubClient.fetchJsonStream(context.getBranchARefApi()));
+            }
+            String mergeBaseTree = getRootTree(mergeBaseCommit);
+            String headTree = getRootTree(headCommit);
+
+            return new RemoteTreeWalker(this::fetchTrees).diff(List.of(new RemoteTreeWalker.TreePair("", mergeBaseTree, headTree)), enterSubtree);
+        }
+    }
+
+    private String getRootTree(String commit) throws GitHubApiException, JsonProcessingException {
+        String rootTree = rootTrees.get(commit);
+        if (rootTree == null) {
+            rootTree = fetchTree(commit, new ArrayList<>());
+            rootTrees.put(commit, rootTree);
+        }
+        return rootTree;
+    }
+
+    /**
+     * Returns the entries of the given trees, from the cache or fetched (concurrently, if configured).
+     */
+    private Map<String, List<RemoteTreeEntry>> fetchTrees(List<String> treeShas) throws GitHubApiException, JsonProcessingException {
+        Map<String, List<RemoteTreeEntry>> trees = new ConcurrentHashMap<>();
+
+        ArrayList<String> missing = new ArrayList<>();
+        for (String sha : treeShas) {
+            List<RemoteTreeEntry> entries = getCachedTree(sha);
+            if (entries != null) {
+                trees.put(sha, entries);
+            } else {
+                missing.add(sha);
+            }
+        }
+
+        if (concurrentFetcher == null || missing.size() == 1) {
+            for (String sha : missing) {
+                fetchMissingTree(sha, trees);
+            }
+        } else {
+            concurrentFetcher.forEach(missing, sha -> fetchMissingTree(sha, trees));
+        }
+
+        return trees;
+    }
+
+    private void fetchMissingTree(String sha, Map<String, List<RemoteTreeEntry>> trees) throws GitHubApiException, JsonProcessingException {
+        // Opened here as well, as the concurrent fetcher runs this on its own threads.
+        try (Instrumentation.Scope _ = instrumentation().phase(Phase.REMOTE_TREES)) {
+            ArrayList<RemoteTreeEntry> entries = new ArrayList<>();
+            fetchTree(sha, entries);
+            trees.put(sha, entries);
+        }
+    }
+
+    /**
+     * Fetches a tree by its SHA, or the root tree of a commit, adds its entries and caches them.
+     * Returns the SHA of the tree.
+     */
+    private String fetchTree(String treeIsh, List<RemoteTreeEntry> entries) throws GitHubApiException, JsonProcessingException {
+        String sha = GitHubJsonParser.parseTree(githubClient.fetchJsonStream(getTreeApi(treeIsh)), entries);
+
+        synchronized (treeCache) {
+            treeCache.put(sha, List.copyOf(entries));
+        }
+
+        return sha;
+    }
+
+    private List<RemoteTreeEntry> getCachedTree(String sha) {
+        synchronized (treeCache) {
+            return treeCache.get(sha);
+        }
+    }
+
+    private String getTreeApi(String treeIsh) {
+        // only SHAs get here, so nothing needs to be encoded
+        return context.getApiBaseUrl() + "/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/git/trees/" + treeIsh;
+    }
+
+    private Instrumentation instrumentation() {
+        return Instrumentation.orDisabled(githubClient.getInstrumentation());
+    }
+}
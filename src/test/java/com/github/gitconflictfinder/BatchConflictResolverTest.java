@@ -0,0 +1,122 @@
+package com.github.gitconflictfinder;
+
+import com.github.gitconflictfinder.clients.GitCommandClient;
+import com.github.gitconflictfinder.clients.GitHubApiClient;
+import com.github.gitconflictfinder.clients.JsonPages;
+import com.github.gitconflictfinder.core.BatchConflictResolver;
+import com.github.gitconflictfinder.core.GitHubRepoContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link BatchConflictResolver}.
+ *
+ * Checks that many local branches are resolved against one remote branch with every remote commit fetched only once,
+ * and that every merge base gets exactly the commits made after it.
+ *
+ * Mocked dependencies: {@link GitCommandClient} and {@link GitHubApiClient}.
+ */
+@ExtendWith(MockitoExtension.class)
+public class BatchConflictResolverTest {
+    @Mock
+    private GitCommandClient gitClient;
+    @Mock
+    private GitHubApiClient githubClient;
+
+    private GitHubRepoContext context;
+    private BatchConflictResolver resolver;
+
+    private static InputStream jsonStream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static JsonPages jsonPages(String json) {
+        return JsonPages.of(jsonStream(json));
+    }
+
+    private void stubChangedPaths(String path, String fromCommit, String toCommit, String... changedPaths) throws Exception {
+        doAnswer(invocation -> {
+            Consumer<CharSequence> consumer = invocation.getArgument(3);
+            // passed through one reused buffer, like the real client does
+            CharBuffer buffer = CharBuffer.allocate(64);
+            for (String changedPath : changedPaths) {
+                buffer.clear();
+                consumer.accept(buffer.put(changedPath).flip());
+            }
+            return null;
+        }).when(gitClient).forEachChangedPath(eq(path), eq(fromCommit), eq(toCommit), any());
+    }
+
+    @BeforeEach
+    void setUp() {
+        context = new GitHubRepoContext("ownerName", "repoName", "", "/local/repo/path", "main", null);
+        when(githubClient.getContext()).thenReturn(context);
+
+        resolver = new BatchConflictResolver(gitClient, githubClient);
+    }
+
+    @Test
+    void findConflicts_BranchesWithDifferentMergeBases_FetchesEveryCommitOnce() throws Exception {
+        String path = context.getLocalRepoPath();
+        when(gitClient.getMergeBase(path, "feature1", "main")).thenReturn("base2");
+        when(gitClient.getMergeBase(path, "feature2", "main")).thenReturn("base2");
+        when(gitClient.getMergeBase(path, "feature3", "main")).thenReturn("base1");
+
+        when(gitClient.getCommitTime(path, "base2")).thenReturn(1743760800L);
+        when(gitClient.getCommitTime(path, "base1")).thenReturn(1743674400L);
+
+        stubChangedPaths(path, "base2", "feature1", "a.txt", "x.txt");
+        stubChangedPaths(path, "base2", "feature2", "c.txt");
+        stubChangedPaths(path, "base1", "feature3", "c.txt", "d.txt", "y.txt");
+
+        when(githubClient.validateAccessToken()).thenReturn(true);
+
+        String branchCommitsApi = "https://api.github.com/repos/ownerName/repoName/commits?sha=main&since=2025-04-03T10:00:00Z&per_page=100";
+        when(githubClient.fetchJsonPages(branchCommitsApi)).thenReturn(jsonPages("""
+            [
+              { "sha": "commit3" },
+              { "sha": "commit2" },
+              { "sha": "base2" },
+              { "sha": "commit1" },
+              { "sha": "base1" }
+            ]
+        """));
+
+        String commitApi = "https://api.github.com/repos/ownerName/repoName/commits/";
+        when(githubClient.fetchJsonPages(commitApi + "commit3?per_page=300")).thenReturn(jsonPages("{ \"files\": [ { \"filename\": \"a.txt\" } ] }"));
+        when(githubClient.fetchJsonPages(commitApi + "commit2?per_page=300")).thenReturn(jsonPages("{ \"files\": [ { \"filename\": \"b.txt\" } ] }"));
+        when(githubClient.fetchJsonPages(commitApi + "base2?per_page=300")).thenReturn(jsonPages("{ \"files\": [ { \"filename\": \"c.txt\" } ] }"));
+        when(githubClient.fetchJsonPages(commitApi + "commit1?per_page=300")).thenReturn(jsonPages("{ \"files\": [ { \"filename\": \"d.txt\" } ] }"));
+
+        Map<String, ArrayList<String>> conflicts = resolver.findConflicts(List.of("feature1", "feature2", "feature3"));
+
+        assertEquals(List.of("feature1", "feature2", "feature3"), new ArrayList<>(conflicts.keySet()));
+        assertEquals(List.of("a.txt"), conflicts.get("feature1"));
+        assertTrue(conflicts.get("feature2").isEmpty());
+        assertEquals(List.of("c.txt", "d.txt"), conflicts.get("feature3"));
+
+        for (String sha : List.of("commit3", "commit2", "base2", "commit1")) {
+            verify(githubClient, times(1)).fetchJsonPages(commitApi + sha + "?per_page=300");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.gitconflictfinder;
+
+import com.github.gitconflictfinder.cache.CommitFilesCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link CommitFilesCache}.
+ *
+ * These tests cover:
+ * - Storing and reading the files of a commit (also after reopening the cache)
+ * - SHAs that cannot be cached
+ * - Eviction of the oldest commits when the size limit is reached
+ * - Locking the cache directory against a second instance
+ */
+public class CommitFilesCacheTest {
+    @TempDir
+    Path cacheDir;
+
+    private static String sha(int i) {
+        return String.format("%040x", i * 7919L + 1);
+    }
+
+    @Test
+    void get_CommitStored_ReturnsFilesAfterReopen() throws Exception {
+        try (CommitFilesCache cache = new CommitFilesCache(cacheDir)) {
+            assertNull(cache.get(sha(1)));
+            cache.put(sha(1), List.of("src/Main.java", "docs/ünïcödé.md"));
+            cache.put(sha(2), List.of());
+
+            assertEquals(List.of("src/Main.java", "docs/ünïcödé.md"), cache.get(sha(1)));
+        }
+
+        try (CommitFilesCache cache = new CommitFilesCache(cacheDir)) {
+            assertEquals(List.of("src/Main.java", "docs/ünïcödé.md"), cache.get(sha(1)));
+            assertEquals(List.of(), cache.get(sha(2)));
+            assertNull(cache.get(sha(3)));
+        }
+    }
+
+    @Test
+    void put_ShaNotHex_IsNotCached() throws Exception {
+        try (CommitFilesCache cache = new CommitFilesCache(cacheDir)) {
+            cache.put("commit1", List.of("file1.txt"));
+
+            assertNull(cache.get("commit1"));
+            assertTrue(cache.isEnabled());
+        }
+    }
+
+    @Test
+    void put_SizeLimitReached_EvictsOldestCommits() throws Exception {
+        try (CommitFilesCache cache = new CommitFilesCache(cacheDir, 64 * 1024)) {
+            List<String> files = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                files.add("src/main/java/com/example/module/File" + i + ".java");
+            }
+
+            for (int i = 0; i < 200; i++) {
+                cache.put(sha(i), files);
+            }
+
+            assertNull(cache.get(sha(0)));
+            assertEquals(files, cache.get(sha(199)));
+        }
+    }
+
+    @Test
+    void constructor_DirectoryAlreadyLocked_DisablesSecondCache() throws Exception {
+        try (CommitFilesCache cache = new CommitFilesCache(cacheDir)) {
+            cache.put(sha(1), List.of("file1.txt"));
+
+            try (CommitFilesCache secondCache = new CommitFilesCache(cacheDir)) {
+                assertFalse(secondCache.isEnabled());
+                assertNull(secondCache.get(sha(1)));
+            }
+
+            assertEquals(List.of("file1.txt"), cache.get(sha(1)));
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.github.gitconflictfinder;
+
+import com.github.gitconflictfinder.cache.ETagStore;
+import com.github.gitconflictfinder.clients.GitCommandClient;
+import com.github.gitconflictfinder.clients.GitHubApiClient;
+import com.github.gitconflictfinder.clients.GitHubCredentials;
+import com.github.gitconflictfinder.clients.JsonPages;
+import com.github.gitconflictfinder.core.GitConflictResolver;
+import com.github.gitconflictfinder.core.GitHubRepoContext;
+import com.github.gitconflictfinder.strategies.PerCommitDiffStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests running many {@link GitConflictResolver}s with their own {@link GitHubApiClient}s concurrently in one JVM,
+ * against the {@link StubGitHubServer}.
+ *
+ * These tests cover:
+ * - Hundreds of parallel checks with different tokens and repositories: every check gets its own result,
+ *   sends only its own token and validates it once (credentials shared by several clients are validated once in total)
+ * - Fetching (also asynchronously, or page by page) with a client whose token was not validated yet (validated on the first request)
+ *
+ * Mocked dependencies: {@link GitCommandClient}.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ConcurrentFindersTest {
+    private static final int CHECKS = 300;
+    private static final List<String> REPOS = List.of("repoA", "repoB");
+
+    @Mock
+    private GitCommandClient gitClient;
+
+    private StubGitHubServer server;
+    private Map<String, String> rateLimitHeaders;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new StubGitHubServer();
+
+        // the budget of a fresh token, the shared one sends a few hundred requests of it without being delayed
+        rateLimitHeaders = Map.of("X-RateLimit-Remaining", "4900", "X-RateLimit-Reset", String.valueOf(System.currentTimeMillis() / 1000 + 3600));
+        server.respond("GET", "/user", 200, rateLimitHeaders, "{}");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private static String repoPath(String repo) {
+        return "/repos/ownerName/" + repo;
+    }
+
+    private void stubRemoteRepository(String repo) {
+        server.respond("GET", repoPath(repo) + "/commits/base-" + repo + "?per_page=1&page=1", 200, rateLimitHeaders, "{ \"commit\": { \"author\": { \"date\": \"2025-04-04T10:00:00Z\" } } }")
+                .respond("GET", repoPath(repo) + "/commits?sha=main&since=2025-04-04T10:00:00Z&per_page=100", 200, rateLimitHeaders, "[ { \"sha\": \"commit-" + repo + "\" } ]")
+                .respond("GET", repoPath(repo) + "/commits/commit-" + repo + "?per_page=300", 200, rateLimitHeaders, "{ \"files\": [ { \"filename\": \"" + repo + "/a.txt\" }, { \"filename\": \"shared.txt\" } ] }");
+    }
+
+    private void stubLocalRepository(String repo) throws Exception {
+        String localPath = "/local/" + repo;
+        when(gitClient.getMergeBase(localPath, "dev", "main")).thenReturn("base-" + repo);
+        doAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(2);
+            List.of(repo + "/a.txt", repo + "/local.txt").forEach(consumer);
+            return null;
+        }).when(gitClient).forEachChangedFile(eq(localPath), eq("base-" + repo), any());
+    }
+
+    @Test
+    void findConflicts_ManyFindersInParallel_KeepTheirOwnState() throws Exception {
+        for (String repo : REPOS) {
+            stubRemoteRepository(repo);
+            stubLocalRepository(repo);
+        }
+
+        // every third check uses the same token through shared credentials, the others have a token of their own
+        String sharedToken = UUID.randomUUID().toString();
+        GitHubCredentials sharedCredentials = GitHubCredentials.of(new GitHubRepoContext("ownerName", "repoA", sharedToken, "/local/repoA", "main", "dev", server.getBaseUrl()));
+
+        Map<String, List<String>> tokensByRepo = new HashMap<>();
+        ArrayList<Future<List<String>>> results = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            for (int i = 0; i < CHECKS; i++) {
+                String repo = REPOS.get(i % REPOS.size());
+                boolean isShared = i % 3 == 0;
+                String token = isShared ? sharedToken : UUID.randomUUID().toString();
+                tokensByRepo.computeIfAbsent(repo, key -> new ArrayList<>()).add("Bearer " + token);
+
+                GitHubRepoContext context = new GitHubRepoContext("ownerName", repo, token, "/local/" + repo, "main", "dev", server.getBaseUrl());
+                results.add(executor.submit(() -> {
+                    GitHubApiClient githubClient = isShared
+                            ? new GitHubApiClient(context, new ETagStore(), sharedCredentials)
+                            : new GitHubApiClient(context, new ETagStore());
+                    return new GitConflictResolver(gitClient, githubClient, new PerCommitDiffStrategy(githubClient)).findConflicts();
+                }));
+            }
+
+            for (int i = 0; i < CHECKS; i++) {
+                assertEquals(List.of(REPOS.get(i % REPOS.size()) + "/a.txt"), results.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(CHECKS - CHECKS / 3 + 1, server.countRequests("GET", "/user"));
+        for (String repo : REPOS) {
+            List<String> sent = server.getRequests().stream()
+                    .filter(request -> request.path().equals(repoPath(repo) + "/commits/commit-" + repo + "?per_page=300"))
+                    .map(StubGitHubServer.RecordedRequest::authorization)
+                    .sorted()
+                    .collect(Collectors.toList());
+            assertEquals(tokensByRepo.get(repo).stream().sorted().collect(Collectors.toList()), sent);
+        }
+    }
+
+    @Test
+    void fetchJsonData_NotValidatedYet_ValidatesFirst() throws Exception {
+        server.respond("GET", "/repos/ownerName/repoA", 200, "{}");
+        String token = UUID.randomUUID().toString();
+        GitHubRepoContext context = new GitHubRepoContext("ownerName", "repoA", token, "/local/repoA", "main", "dev", server.getBaseUrl());
+        GitHubApiClient githubClient = new GitHubApiClient(context);
+
+        assertEquals("{}", githubClient.fetchJsonData(server.getBaseUrl() + "/repos/ownerName/repoA"));
+        assertEquals(Boolean.TRUE, githubClient.getCredentials().isValid());
+
+        List<StubGitHubServer.RecordedRequest> requests = server.getRequests();
+        assertEquals(List.of("/user", "/repos/ownerName/repoA"), requests.stream().map(StubGitHubServer.RecordedRequest::path).collect(Collectors.toList()));
+        assertEquals("Bearer " + token, requests.get(1).authorization());
+    }
+
+    @Test
+    void fetchJsonStreamAsync_NotValidatedYet_ValidatesFirst() throws Exception {
+        server.respond("GET", "/repos/ownerName/repoA", 200, "{}");
+        String token = UUID.randomUUID().toString();
+        GitHubRepoContext context = new GitHubRepoContext("ownerName", "repoA", token, "/local/repoA", "main", "dev", server.getBaseUrl());
+        GitHubApiClient githubClient = new GitHubApiClient(context);
+
+        try (InputStream body = githubClient.fetchJsonStreamAsync(server.getBaseUrl() + "/repos/ownerName/repoA").get()) {
+            assertEquals("{}", new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        List<StubGitHubServer.RecordedRequest> requests = server.getRequests();
+        assertEquals(List.of("/user", "/repos/ownerName/repoA"), requests.stream().map(StubGitHubServer.RecordedRequest::path).collect(Collectors.toList()));
+        assertEquals("Bearer " + token, requests.get(1).authorization());
+    }
+
+    @Test
+    void fetchJsonPages_NotValidatedYet_ValidatesFirst() throws Exception {
+        server.respond("GET", "/repos/ownerName/repoA/commits?per_page=100", 200, "[]");
+        String token = UUID.randomUUID().toString();
+        GitHubRepoContext context = new GitHubRepoContext("ownerName", "repoA", token, "/local/repoA", "main", "dev", server.getBaseUrl());
+        GitHubApiClient githubClient = new GitHubApiClient(context);
+
+        try (JsonPages pages = githubClient.fetchJsonPages(server.getBaseUrl() + "/repos/ownerName/repoA/commits?per_page=100");
+             InputStream body = pages.next()) {
+            assertEquals("[]", new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        List<StubGitHubServer.RecordedRequest> requests = server.getRequests();
+        assertEquals(List.of("/user", "/repos/ownerName/repoA/commits?per_page=100"), requests.stream().map(StubGitHubServer.RecordedRequest::path).collect(Collectors.toList()));
+        assertEquals("Bearer " + token, requests.get(1).authorization());
+    }
+}
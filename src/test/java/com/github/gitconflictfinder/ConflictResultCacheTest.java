@@ -0,0 +1,224 @@
+package com.github.gitconflictfinder;
+
+import com.github.gitconflictfinder.cache.ConflictResultCache;
+import com.github.gitconflictfinder.cache.ETagStore;
+import com.github.gitconflictfinder.clients.GitCommandClient;
+import com.github.gitconflictfinder.clients.GitHubApiClient;
+import com.github.gitconflictfinder.core.GitConflictResolver;
+import com.github.gitconflictfinder.core.GitHubRepoContext;
+import com.github.gitconflictfinder.strategies.LocalRefDiffStrategy;
+import com.github.gitconflictfinder.strategies.PerCommitDiffStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ConflictResultCache}, also run through {@link GitConflictResolver#findConflicts()} against the {@link StubGitHubServer}.
+ *
+ * These tests cover:
+ * - Answering a repeated run from the cache after one conditional ref request (304)
+ * - Missing the cache when the local changes differ
+ * - Sharing the ref request and the local diff of the key with the strategy on a miss
+ * - Keying an offline local ref diff on the local ref, with no requests at all
+ * - Persisting the entries and their LRU order across instances
+ * - Leaving the file to the cache holding its lock (a second cache only reads it), and dropping a file without the header
+ *
+ * Mocked dependencies: {@link GitCommandClient}.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ConflictResultCacheTest {
+    @Mock
+    private GitCommandClient gitClient;
+
+    @TempDir
+    Path cacheDir;
+
+    private StubGitHubServer server;
+    private GitHubApiClient githubClient;
+
+    private final String mockBaseMergeCommit = "a123456";
+    private final String repoPath = "/repos/ownerName/repoName";
+    private final String refRoute = repoPath + "/git/ref/heads/main";
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new StubGitHubServer();
+        GitHubRepoContext context = new GitHubRepoContext("ownerName", "repoName", "token", "/local/repo/path", "main", "dev", server.getBaseUrl());
+        githubClient = new GitHubApiClient(context, new ETagStore());
+
+        // the second ref request is only answered with a 304, so it must be sent with the ETag of the first one
+        server.respond("GET", "/user", 200, "{}")
+                .respond("GET", refRoute, 200, Map.of("ETag", "\"head1\""), "{ \"object\": { \"sha\": \"head1\" } }")
+                .respond("GET", refRoute, 304, "")
+                .respond("GET", repoPath + "/commits/" + mockBaseMergeCommit + "?per_page=1&page=1", 200, "{ \"commit\": { \"author\": { \"date\": \"2025-04-04T10:00:00Z\" } } }")
+                .respond("GET", repoPath + "/commits?sha=main&since=2025-04-04T10:00:00Z&per_page=100", 200, "[ { \"sha\": \"commit1\" } ]")
+                .respond("GET", repoPath + "/commits/commit1?per_page=300", 200, "{ \"files\": [ { \"filename\": \"src/a.txt\" }, { \"filename\": \"src/b.txt\" } ] }");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private void stubLocalRepository(List<String> files) throws Exception {
+        when(gitClient.getMergeBase("/local/repo/path", "dev", "main")).thenReturn(mockBaseMergeCommit);
+        when(gitClient.resolveCommit("/local/repo/path", "HEAD")).thenReturn("local1");
+        doAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(2);
+            files.forEach(consumer);
+            return null;
+        }).when(gitClient).forEachChangedFile(eq("/local/repo/path"), eq(mockBaseMergeCommit), any());
+    }
+
+    @Test
+    void findConflicts_NothingChanged_AnsweredFromCache() throws Exception {
+        stubLocalRepository(List.of("src/a.txt", "src/c.txt"));
+
+        try (ConflictResultCache resultCache = new ConflictResultCache(cacheDir.resolve("results.bin"))) {
+            GitConflictResolver resolver = new GitConflictResolver(gitClient, githubClient, new PerCommitDiffStrategy(githubClient), resultCache);
+
+            assertEquals(List.of("src/a.txt"), resolver.findConflicts());
+            assertEquals(List.of("src/a.txt"), resolver.findConflicts());
+        }
+
+        assertEquals(2, server.countRequests("GET", refRoute));
+        assertEquals(1, server.countRequests("GET", repoPath + "/commits?sha=main&since=2025-04-04T10:00:00Z&per_page=100"));
+        assertEquals(1, server.countRequests("GET", repoPath + "/commits/commit1?per_page=300"));
+    }
+
+    @Test
+    void findConflicts_LocalChangesDiffer_RecomputesResult() throws Exception {
+        ArrayList<String> localFiles = new ArrayList<>(List.of("src/a.txt"));
+        stubLocalRepository(localFiles);
+
+        ConflictResultCache resultCache = new ConflictResultCache();
+        GitConflictResolver resolver = new GitConflictResolver(gitClient, githubClient, new PerCommitDiffStrategy(githubClient), resultCache);
+
+        assertEquals(List.of("src/a.txt"), resolver.findConflicts());
+        localFiles.add("src/b.txt");
+        assertEquals(List.of("src/a.txt", "src/b.txt"), resolver.findConflicts());
+
+        assertEquals(2, resultCache.size());
+        assertEquals(2, server.countRequests("GET", repoPath + "/commits/commit1?per_page=300"));
+    }
+
+    @Test
+    void findConflicts_CacheMissWithLocalRef_ReadsHeadAndLocalChangesOnce() throws Exception {
+        List<String> localFiles = List.of("src/a.txt", "src/c.txt");
+        stubLocalRepository(localFiles);
+        when(gitClient.resolveCommit("/local/repo/path", "refs/remotes/origin/main")).thenReturn("head1");
+        when(gitClient.getChangedFiles("/local/repo/path", mockBaseMergeCommit, "head1")).thenReturn(new ArrayList<>(List.of("src/a.txt")));
+
+        LocalRefDiffStrategy localRefStrategy = new LocalRefDiffStrategy(gitClient, githubClient, "origin", true, new PerCommitDiffStrategy(githubClient));
+        GitConflictResolver resolver = new GitConflictResolver(gitClient, githubClient, localRefStrategy, new ConflictResultCache());
+
+        assertEquals(List.of("src/a.txt"), resolver.findConflicts());
+
+        assertEquals(1, server.countRequests("GET", refRoute));
+        verify(gitClient, times(1)).forEachChangedFile(eq("/local/repo/path"), eq(mockBaseMergeCommit), any());
+    }
+
+    @Test
+    void findConflicts_OfflineLocalRefMoved_MissesWithoutRequests() throws Exception {
+        stubLocalRepository(List.of("src/a.txt", "src/c.txt"));
+        when(gitClient.resolveCommit("/local/repo/path", "refs/remotes/origin/main")).thenReturn("stale1", "stale1", "fetched2", "fetched2");
+        when(gitClient.getChangedFiles("/local/repo/path", mockBaseMergeCommit, "stale1")).thenReturn(new ArrayList<>(List.of("src/b.txt")));
+        when(gitClient.getChangedFiles("/local/repo/path", mockBaseMergeCommit, "fetched2")).thenReturn(new ArrayList<>(List.of("src/a.txt")));
+
+        LocalRefDiffStrategy localRefStrategy = new LocalRefDiffStrategy(gitClient, githubClient, "origin", false, new PerCommitDiffStrategy(githubClient));
+        ConflictResultCache resultCache = new ConflictResultCache();
+        GitConflictResolver resolver = new GitConflictResolver(gitClient, githubClient, localRefStrategy, resultCache);
+
+        assertEquals(List.of(), resolver.findConflicts());
+        // after a git fetch the local ref moved, the stale result must not be returned
+        assertEquals(List.of("src/a.txt"), resolver.findConflicts());
+
+        assertEquals(2, resultCache.size());
+        assertTrue(server.getRequests().isEmpty());
+    }
+
+    @Test
+    void get_Reopened_KeepsRecentlyUsedEntries() throws Exception {
+        Path file = cacheDir.resolve("results.bin");
+        ConflictResultCache.Key key1 = new ConflictResultCache.Key("o/r", "base", "head1", "local", "f1");
+        ConflictResultCache.Key key2 = new ConflictResultCache.Key("o/r", "base", "head2", "local", "f1");
+        ConflictResultCache.Key key3 = new ConflictResultCache.Key("o/r", "base", "head3", "local", "f1");
+
+        try (ConflictResultCache cache = new ConflictResultCache(file, 2)) {
+            cache.put(key1, List.of("a.txt"));
+            cache.put(key2, List.of());
+            assertEquals(List.of("a.txt"), cache.get(key1));
+        }
+
+        try (ConflictResultCache cache = new ConflictResultCache(file, 2)) {
+            cache.put(key3, List.of("c.txt", "d.txt"));
+        }
+
+        try (ConflictResultCache cache = new ConflictResultCache(file, 2)) {
+            assertEquals(2, cache.size());
+            assertEquals(List.of("a.txt"), cache.get(key1));
+            assertNull(cache.get(key2));
+            assertEquals(List.of("c.txt", "d.txt"), cache.get(key3));
+        }
+    }
+
+    @Test
+    void put_FileLockedByOtherCache_OnlyLockHolderWritesFile() throws Exception {
+        Path file = cacheDir.resolve("results.bin");
+        ConflictResultCache.Key key1 = new ConflictResultCache.Key("o/r", "base", "head1", "local", "f1");
+        ConflictResultCache.Key key2 = new ConflictResultCache.Key("o/r", "base", "head2", "local", "f1");
+        ConflictResultCache.Key key3 = new ConflictResultCache.Key("o/r", "base", "head3", "local", "f1");
+
+        try (ConflictResultCache owner = new ConflictResultCache(file)) {
+            owner.put(key1, List.of("a.txt"));
+
+            try (ConflictResultCache reader = new ConflictResultCache(file)) {
+                assertEquals(List.of("a.txt"), reader.get(key1));
+                reader.put(key2, List.of("b.txt"));
+                assertEquals(List.of("b.txt"), reader.get(key2));
+            }
+
+            owner.put(key3, List.of("c.txt"));
+        }
+
+        try (ConflictResultCache reopened = new ConflictResultCache(file)) {
+            assertEquals(2, reopened.size());
+            assertNull(reopened.get(key2));
+            assertEquals(List.of("c.txt"), reopened.get(key3));
+        }
+    }
+
+    @Test
+    void open_FileWithoutHeader_StartsEmpty() throws Exception {
+        Path file = cacheDir.resolve("results.bin");
+        Files.write(file, new byte[] {'P', 0, 3, 'o', '/', 'r'});
+
+        try (ConflictResultCache cache = new ConflictResultCache(file)) {
+            assertEquals(0, cache.size());
+            cache.put(new ConflictResultCache.Key("o/r", "base", "head", "local", "f1"), List.of("a.txt"));
+        }
+
+        try (ConflictResultCache cache = new ConflictResultCache(file)) {
+            assertEquals(1, cache.size());
+        }
+    }
+}
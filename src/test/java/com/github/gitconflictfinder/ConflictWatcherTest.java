@@ -0,0 +1,154 @@
+package com.github.gitconflictfinder;
+
+import com.github.gitconflictfinder.clients.GitCommandClient;
+import com.github.gitconflictfinder.clients.GitHubApiClient;
+import com.github.gitconflictfinder.core.ConflictReport;
+import com.github.gitconflictfinder.core.ConflictWatcher;
+import com.github.gitconflictfinder.core.GitHubRepoContext;
+import com.github.gitconflictfinder.strategies.PerCommitDiffStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ConflictWatcher}.
+ *
+ * These tests cover applying only the new remote commits as a delta, recomputing after a force-push,
+ * not emitting unchanged reports and refreshing the local side when {@code .git} changes.
+ *
+ * Mocked dependencies: {@link GitCommandClient}, {@link GitHubApiClient} and {@link PerCommitDiffStrategy}.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ConflictWatcherTest {
+    @Mock
+    private GitCommandClient gitClient;
+    @Mock
+    private GitHubApiClient githubClient;
+    @Mock
+    private PerCommitDiffStrategy remoteStrategy;
+
+    @TempDir
+    Path repo;
+
+    private GitHubRepoContext context;
+    private String mockBaseMergeCommit = "a123456";
+    private String refApi;
+    private String compareApi;
+
+    private final List<ConflictReport> reports = new ArrayList<>();
+
+    private static InputStream jsonStream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static InputStream refJson(String sha) {
+        return jsonStream("{ \"ref\": \"refs/heads/main\", \"object\": { \"sha\": \"" + sha + "\" } }");
+    }
+
+    private ConflictWatcher newWatcher() {
+        return new ConflictWatcher(gitClient, githubClient, remoteStrategy, Duration.ofHours(1), reports::add);
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.createDirectories(repo.resolve(".git/refs/heads"));
+        context = new GitHubRepoContext("ownerName", "repoName", "", repo.toString(), "main", "dev");
+        when(githubClient.getContext()).thenReturn(context);
+
+        refApi = "https://api.github.com/repos/ownerName/repoName/git/ref/heads/main";
+        compareApi = "https://api.github.com/repos/ownerName/repoName/compare/";
+
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), "dev", "main")).thenReturn(mockBaseMergeCommit);
+    }
+
+    @Test
+    void tick_NewRemoteCommits_FetchesOnlyTheDelta() throws Exception {
+        when(gitClient.getChangedFiles(context.getLocalRepoPath(), mockBaseMergeCommit)).thenReturn(new ArrayList<>(List.of("a.txt", "b.txt", "c.txt")));
+        when(githubClient.fetchJsonStream(refApi)).thenReturn(refJson("head1"), refJson("head2"), refJson("head2"));
+        when(remoteStrategy.getRemoteChangedFiles(mockBaseMergeCommit)).thenReturn(Set.of("a.txt", "x.txt"));
+
+        String delta = """
+            {
+              "status": "ahead",
+              "total_commits": 1,
+              "commits": [ { "sha": "head2" } ],
+              "files": [ { "filename": "b.txt", "patch": "@@ -1 +1 @@" } ]
+            }
+        """;
+        when(githubClient.fetchJsonStream(compareApi + "head1...head2?per_page=100&page=1")).thenReturn(jsonStream(delta));
+        when(remoteStrategy.collectRemoteChangedFiles(List.of("head2"))).thenReturn(Set.of("b.txt"));
+
+        try (ConflictWatcher watcher = newWatcher()) {
+            assertEquals(List.of("a.txt"), watcher.tick().getFiles());
+            assertEquals(List.of("a.txt", "b.txt"), watcher.tick().getFiles());
+            assertEquals(List.of("a.txt", "b.txt"), watcher.tick().getFiles());
+        }
+
+        assertEquals(2, reports.size());
+        verify(remoteStrategy, times(1)).getRemoteChangedFiles(mockBaseMergeCommit);
+        verify(gitClient, times(1)).getChangedFiles(context.getLocalRepoPath(), mockBaseMergeCommit);
+    }
+
+    @Test
+    void tick_RemoteBranchForcePushed_RecomputesFromScratch() throws Exception {
+        when(gitClient.getChangedFiles(context.getLocalRepoPath(), mockBaseMergeCommit)).thenReturn(new ArrayList<>(List.of("a.txt", "b.txt")));
+        when(githubClient.fetchJsonStream(refApi)).thenReturn(refJson("head1"), refJson("rewritten"));
+        when(remoteStrategy.getRemoteChangedFiles(mockBaseMergeCommit)).thenReturn(Set.of("a.txt")).thenReturn(Set.of("b.txt"));
+        when(githubClient.fetchJsonStream(compareApi + "head1...rewritten?per_page=100&page=1"))
+            .thenReturn(jsonStream("{ \"status\": \"diverged\", \"total_commits\": 1, \"commits\": [ { \"sha\": \"rewritten\" } ] }"));
+
+        try (ConflictWatcher watcher = newWatcher()) {
+            assertEquals(List.of("a.txt"), watcher.tick().getFiles());
+            assertEquals(List.of("b.txt"), watcher.tick().getFiles());
+        }
+
+        verify(remoteStrategy, never()).collectRemoteChangedFiles(any());
+        assertEquals(2, reports.size());
+    }
+
+    @Test
+    void start_LocalRefChanges_RefreshesLocalSideOnly() throws Exception {
+        when(gitClient.getChangedFiles(context.getLocalRepoPath(), mockBaseMergeCommit))
+            .thenReturn(new ArrayList<>(List.of("a.txt"))).thenReturn(new ArrayList<>(List.of("a.txt", "b.txt")));
+        when(githubClient.fetchJsonStream(refApi)).thenAnswer(invocation -> refJson("head1"));
+        when(remoteStrategy.getRemoteChangedFiles(mockBaseMergeCommit)).thenReturn(Set.of("a.txt", "b.txt"));
+
+        BlockingQueue<ConflictReport> emitted = new LinkedBlockingQueue<>();
+        try (ConflictWatcher watcher = new ConflictWatcher(gitClient, githubClient, remoteStrategy, Duration.ofHours(1), emitted::add)) {
+            watcher.start();
+            assertEquals(List.of("a.txt"), emitted.poll(10, TimeUnit.SECONDS).getFiles());
+
+            Files.writeString(repo.resolve(".git/refs/heads/dev"), "0123456789012345678901234567890123456789\n");
+
+            ConflictReport refreshed = emitted.poll(10, TimeUnit.SECONDS);
+            assertNotNull(refreshed);
+            assertEquals(List.of("a.txt", "b.txt"), refreshed.getFiles());
+        }
+
+        verify(remoteStrategy, times(1)).getRemoteChangedFiles(anyString());
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.gitconflictfinder;
+
+import com.github.gitconflictfinder.cache.ETagStore;
+import com.github.gitconflictfinder.clients.GitHubApiClient;
+import com.github.gitconflictfinder.core.GitHubRepoContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ETagStore}, filled by a {@link GitHubApiClient} against the {@link StubGitHubServer}.
+ *
+ * These tests cover:
+ * - Recording a body with its ETag and answering the next request from it (304)
+ * - Streaming an oversized body through without storing it (and dropping the outdated entry of the URL)
+ * - Not recording the bodies of commits fetched by SHA
+ * - Leaving the file to the store holding its lock (a second store only reads it)
+ */
+public class ETagStoreTest {
+    private StubGitHubServer server;
+    private ETagStore eTagStore;
+    private GitHubApiClient githubClient;
+
+    private final String repoApi = "/repos/ownerName/repoName";
+
+    @TempDir
+    Path cacheDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new StubGitHubServer();
+        eTagStore = new ETagStore();
+        GitHubRepoContext context = new GitHubRepoContext("ownerName", "repoName", null, "/local/repo/path", "main", "dev", server.getBaseUrl());
+        githubClient = new GitHubApiClient(context, eTagStore);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void fetchJsonData_StoredETag_AnsweredFromStore() throws Exception {
+        server.respond("GET", repoApi, 200, Map.of("ETag", "\"v1\""), "{ \"id\": 1 }")
+                .respond("GET", repoApi, 304, "");
+
+        assertEquals("{ \"id\": 1 }", githubClient.fetchJsonData(server.getBaseUrl() + repoApi));
+        assertEquals("{ \"id\": 1 }", githubClient.fetchJsonData(server.getBaseUrl() + repoApi));
+
+        assertEquals(1, githubClient.getRevalidatedRequestCount());
+    }
+
+    @Test
+    void fetchJsonData_OversizedBody_StreamedWithoutStoring() throws Exception {
+        String large = "\"" + "x".repeat(eTagStore.getMaxEntryBytes()) + "\"";
+        server.respond("GET", repoApi, 200, Map.of("ETag", "\"v1\""), "{ \"id\": 1 }")
+                .respond("GET", repoApi, 200, Map.of("ETag", "\"v2\""), large);
+
+        githubClient.fetchJsonData(server.getBaseUrl() + repoApi);
+        assertEquals(1, eTagStore.size());
+
+        assertEquals(large, githubClient.fetchJsonData(server.getBaseUrl() + repoApi));
+        assertEquals(0, eTagStore.size());
+    }
+
+    @Test
+    void fetchJsonData_CommitBySha_NotRecorded() throws Exception {
+        String commitApi = repoApi + "/commits/0123456789abcdef0123456789abcdef01234567?per_page=300";
+        server.respond("GET", commitApi, 200, Map.of("ETag", "\"c1\""), "{ \"files\": [] }");
+
+        assertEquals("{ \"files\": [] }", githubClient.fetchJsonData(server.getBaseUrl() + commitApi));
+
+        assertNull(eTagStore.get(server.getBaseUrl() + commitApi));
+    }
+
+    @Test
+    void put_FileLockedByOtherStore_OnlyLockHolderWritesFile() throws Exception {
+        Path file = cacheDir.resolve("etags.bin");
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+
+        try (ETagStore owner = new ETagStore(file)) {
+            owner.put("https://api.github.com/a", "\"a\"", body);
+
+            try (ETagStore reader = new ETagStore(file)) {
+                assertEquals("\"a\"", reader.get("https://api.github.com/a").etag());
+                reader.put("https://api.github.com/b", "\"b\"", body);
+                assertEquals(2, reader.size());
+            }
+
+            owner.put("https://api.github.com/c", "\"c\"", body);
+        }
+
+        try (ETagStore reopened = new ETagStore(file)) {
+            assertEquals(2, reopened.size());
+            assertNull(reopened.get("https://api.github.com/b"));
+            assertEquals("\"c\"", reopened.get("https://api.github.com/c").etag());
+        }
+    }
+}
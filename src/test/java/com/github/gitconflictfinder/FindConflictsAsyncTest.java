@@ -0,0 +1,144 @@
+package com.github.gitconflictfinder;
+
+import com.github.gitconflictfinder.clients.GitCommandClient;
+import com.github.gitconflictfinder.clients.GitHubApiClient;
+import com.github.gitconflictfinder.core.ConflictReport;
+import com.github.gitconflictfinder.core.GitConflictResolver;
+import com.github.gitconflictfinder.core.GitHubRepoContext;
+import com.github.gitconflictfinder.strategies.CompareDiffStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link GitConflictResolver#findConflictsAsync}, run against the {@link StubGitHubServer}
+ * with the {@link CompareDiffStrategy} (requests sent with {@code sendAsync}).
+ *
+ * These tests cover running the local and the remote side at the same time, and stopping the local git work
+ * when the timeout is hit or the future is cancelled.
+ *
+ * Mocked dependencies: {@link GitCommandClient}.
+ */
+@ExtendWith(MockitoExtension.class)
+public class FindConflictsAsyncTest {
+    @Mock
+    private GitCommandClient gitClient;
+
+    private StubGitHubServer server;
+    private GitConflictResolver resolver;
+    private ExecutorService executor;
+
+    private final String mockBaseMergeCommit = "a123456";
+    private final String compareRoute = "/repos/ownerName/repoName/compare/a123456...main?per_page=100&page=1";
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new StubGitHubServer();
+        GitHubRepoContext context = new GitHubRepoContext("ownerName", "repoName", "token", "/local/repo/path", "main", "dev", server.getBaseUrl());
+        GitHubApiClient githubClient = new GitHubApiClient(context);
+
+        resolver = new GitConflictResolver(gitClient, githubClient, new CompareDiffStrategy(githubClient));
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        server.respond("GET", "/user", 200, "{}")
+                .respond("GET", compareRoute, 200, """
+                    {
+                      "total_commits": 1,
+                      "commits": [ { "sha": "commit1" } ],
+                      "files": [ { "filename": "src/a.txt" }, { "filename": "src/b.txt" } ]
+                    }
+                """);
+
+        when(gitClient.getMergeBase("/local/repo/path", "dev", "main")).thenReturn(mockBaseMergeCommit);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        server.close();
+    }
+
+    @Test
+    void findConflictsAsync_LocalAndRemote_RunInParallel() throws Exception {
+        doAnswer(invocation -> {
+            // the local diff finishes only after the remote request was received, so a sequential run would time out
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (server.countRequests("GET", compareRoute) == 0) {
+                assertTrue(System.nanoTime() < deadline, "The remote side did not start while the local diff was running.");
+                Thread.sleep(10);
+            }
+
+            Consumer<String> consumer = invocation.getArgument(2);
+            List.of("src/c.txt", "src/b.txt", "src/a.txt").forEach(consumer);
+            return null;
+        }).when(gitClient).forEachChangedFile(eq("/local/repo/path"), eq(mockBaseMergeCommit), any());
+
+        ConflictReport report = resolver.findConflictsAsync(executor, Duration.ofSeconds(30)).get();
+
+        assertEquals(List.of("src/b.txt", "src/a.txt"), report.getFiles());
+        assertTrue(report.getConflicts().stream().allMatch(ConflictReport.FileConflict::wholeFile));
+    }
+
+    @Test
+    void findConflictsAsync_Timeout_StopsTheLocalDiff() throws Exception {
+        CountDownLatch localStopped = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(2);
+            try {
+                while (true) {
+                    consumer.accept("src/a.txt");
+                    Thread.sleep(10);
+                }
+            } finally {
+                localStopped.countDown();
+            }
+        }).when(gitClient).forEachChangedFile(eq("/local/repo/path"), eq(mockBaseMergeCommit), any());
+
+        CompletableFuture<ConflictReport> report = resolver.findConflictsAsync(executor, Duration.ofMillis(300));
+
+        ExecutionException error = assertThrows(ExecutionException.class, report::get);
+        assertTrue(error.getCause() instanceof TimeoutException);
+        assertTrue(localStopped.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void findConflictsAsync_Cancelled_StopsTheLocalDiff() throws Exception {
+        CountDownLatch localStarted = new CountDownLatch(1);
+        CountDownLatch localStopped = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            localStarted.countDown();
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } finally {
+                localStopped.countDown();
+            }
+            return null;
+        }).when(gitClient).forEachChangedFile(eq("/local/repo/path"), eq(mockBaseMergeCommit), any());
+
+        CompletableFuture<ConflictReport> report = resolver.findConflictsAsync(executor);
+        assertTrue(localStarted.await(10, TimeUnit.SECONDS));
+
+        assertTrue(report.cancel(true));
+        assertTrue(localStopped.await(10, TimeUnit.SECONDS));
+    }
+}
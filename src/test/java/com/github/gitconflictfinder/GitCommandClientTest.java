@@ -0,0 +1,174 @@
+package com.github.gitconflictfinder;
+
+import com.github.gitconflictfinder.clients.GitCommandClient;
+import com.github.gitconflictfinder.parsers.HunkParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link GitCommandClient}, run against a real (temporary) git repository.
+ *
+ * These tests cover running git without a shell, the persistent git cat-file processes
+ * (single and pipelined lookups), giving the same answers in both modes, streaming paths and hunks
+ * and rejecting revisions git would read as options.
+ */
+public class GitCommandClientTest {
+    @TempDir
+    Path repo;
+
+    private String repoPath;
+
+    private void git(String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of("git", "-c", "user.name=test", "-c", "user.email=test@example.com"));
+        command.addAll(Arrays.asList(args));
+
+        Process process = new ProcessBuilder(command).directory(repo.toFile()).redirectErrorStream(true).start();
+        process.getInputStream().readAllBytes();
+        assertEquals(0, process.waitFor(), "git " + String.join(" ", args));
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        repoPath = repo.toString();
+        git("init", "-q", "-b", "main");
+        Files.writeString(repo.resolve("a.txt"), "a");
+        git("add", ".");
+        git("commit", "-q", "-m", "first", "--date=2025-04-04T10:00:00Z");
+        git("checkout", "-q", "-b", "dev");
+        Files.writeString(repo.resolve("b; rm -rf c.txt"), "b");
+        git("add", ".");
+        git("commit", "-q", "-m", "second");
+    }
+
+    @Test
+    void resolveCommit_PersistentAndOneShot_ReturnSameCommits() throws Exception {
+        try (GitCommandClient oneShot = new GitCommandClient(); GitCommandClient persistent = new GitCommandClient(true)) {
+            String main = oneShot.resolveCommit(repoPath, "main");
+            String dev = oneShot.resolveCommit(repoPath, "dev");
+
+            assertEquals(40, main.length());
+            assertEquals(main, persistent.resolveCommit(repoPath, "main"));
+            assertEquals(dev, persistent.resolveCommit(repoPath, "dev"));
+            assertNull(oneShot.resolveCommit(repoPath, "missing-branch"));
+            assertNull(persistent.resolveCommit(repoPath, "missing-branch"));
+
+            assertEquals(Arrays.asList(dev, null, main), persistent.resolveCommits(repoPath, List.of("dev", "missing-branch", "main")));
+            assertEquals(1743760800L, persistent.getCommitTime(repoPath, main));
+            assertEquals(1743760800L, oneShot.getCommitTime(repoPath, main));
+        }
+    }
+
+    @Test
+    void getChangedFiles_FileNameWithShellCharacters_IsPassedAsArgument() throws Exception {
+        try (GitCommandClient client = new GitCommandClient(true)) {
+            String mergeBase = client.getMergeBase(repoPath, "dev", "main");
+
+            assertEquals(client.resolveCommit(repoPath, "main"), mergeBase);
+            assertEquals(List.of("b; rm -rf c.txt"), client.getChangedFiles(repoPath, mergeBase, "dev"));
+            assertTrue(client.getChangedFiles(repoPath, mergeBase).contains("b; rm -rf c.txt"));
+        }
+    }
+
+    @Test
+    void runGitCommand_NotAGitRepo_RaisesIOException() throws Exception {
+        try (GitCommandClient client = new GitCommandClient()) {
+            IOException exception = assertThrows(IOException.class, () -> client.runGitCommand(repo.resolve("missing").toString(), "status"));
+            assertEquals("The local repository is not a git repo", exception.getMessage());
+
+            assertThrows(IOException.class, () -> client.getMergeBase(repoPath, "dev", "missing-branch"));
+        }
+    }
+
+    @Test
+    void forEachChangedFile_UnusualFileNames_StreamsExactPaths() throws Exception {
+        Files.writeString(repo.resolve("new\nline.txt"), "n");
+        Files.writeString(repo.resolve("tab\tand \"quotes\".txt"), "u");
+        git("add", ".");
+        git("commit", "-q", "-m", "third");
+
+        try (GitCommandClient client = new GitCommandClient()) {
+            List<String> streamed = new ArrayList<>();
+            client.forEachChangedFile(repoPath, "main", "dev", streamed::add);
+
+            assertEquals(List.of("b; rm -rf c.txt", "new\nline.txt", "tab\tand \"quotes\".txt"), streamed);
+            assertEquals(streamed, client.getChangedFiles(repoPath, "main", "dev"));
+        }
+    }
+
+    @Test
+    void forEachHunk_ModifiedInsertedAndBinaryFiles_ReportsMergeBaseRanges() throws Exception {
+        git("checkout", "-q", "main");
+        Files.writeString(repo.resolve("lines.txt"), "1\n2\n3\n4\n5\n6\n7\n8\n9\n10\n");
+        Files.writeString(repo.resolve("tab\tname.txt"), "x\n");
+        Files.write(repo.resolve("image.bin"), new byte[]{0, 1, 2});
+        git("add", ".");
+        git("commit", "-q", "-m", "base");
+
+        // "--- x" is a removed line "-- x" and must not be taken for a file header.
+        Files.writeString(repo.resolve("lines.txt"), "1\n2\nthree\n4\n5\n6\n7\nnew\n8\n9\n");
+        Files.writeString(repo.resolve("tab\tname.txt"), "-- x\n");
+        Files.write(repo.resolve("image.bin"), new byte[]{0, 1, 3});
+
+        List<String> hunks = new ArrayList<>();
+        HunkParser.HunkConsumer consumer = new HunkParser.HunkConsumer() {
+            @Override
+            public void hunk(String path, int start, int count) {
+                hunks.add(path + ":" + start + "," + count);
+            }
+
+            @Override
+            public void wholeFile(String path) {
+                hunks.add(path + ":binary");
+            }
+        };
+
+        try (GitCommandClient client = new GitCommandClient()) {
+            client.forEachHunk(repoPath, "HEAD", List.of("lines.txt", "tab\tname.txt", "image.bin"), consumer);
+        }
+
+        assertEquals(List.of("image.bin:binary", "lines.txt:3,1", "lines.txt:7,0", "lines.txt:10,1", "tab\tname.txt:1,1"), hunks);
+    }
+
+    @Test
+    void forEachHunk_NoPrefixConfigured_ParsesPaths() throws Exception {
+        Files.writeString(repo.resolve("a.txt"), "changed");
+        git("config", "diff.noprefix", "true");
+        git("config", "diff.srcPrefix", "left/");
+
+        List<String> hunks = new ArrayList<>();
+        try (GitCommandClient client = new GitCommandClient()) {
+            client.forEachHunk(repoPath, "HEAD", List.of("a.txt"), new HunkParser.HunkConsumer() {
+                @Override
+                public void hunk(String path, int start, int count) {
+                    hunks.add(path + ":" + start + "," + count);
+                }
+
+                @Override
+                public void wholeFile(String path) {
+                    hunks.add(path + ":binary");
+                }
+            });
+        }
+
+        assertEquals(List.of("a.txt:1,1"), hunks);
+    }
+
+    @Test
+    void getMergeBase_RevisionStartingWithDash_IsRejected() throws Exception {
+        try (GitCommandClient client = new GitCommandClient(true)) {
+            assertThrows(IllegalArgumentException.class, () -> client.getMergeBase(repoPath, "--output=/tmp/x", "main"));
+            assertThrows(IllegalArgumentException.class, () -> client.getChangedFiles(repoPath, "-p"));
+            assertThrows(IllegalArgumentException.class, () -> client.resolveCommit(repoPath, "--all"));
+        }
+    }
+}
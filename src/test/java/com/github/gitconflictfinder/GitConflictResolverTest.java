@@ -2,20 +2,43 @@ package com.github.gitconflictfinder;
 
 import com.github.gitconflictfinder.clients.GitCommandClient;
 import com.github.gitconflictfinder.clients.GitHubApiClient;
+import com.github.gitconflictfinder.clients.JsonPages;
+import com.github.gitconflictfinder.core.ConflictReport;
+import com.github.gitconflictfinder.core.ConflictReport.FileConflict;
+import com.github.gitconflictfinder.core.ConflictReport.LineRange;
 import com.github.gitconflictfinder.core.GitConflictResolver;
 import com.github.gitconflictfinder.core.GitHubRepoContext;
 import com.github.gitconflictfinder.exceptions.GitHubApiException;
+import com.github.gitconflictfinder.parsers.HunkParser;
+import com.github.gitconflictfinder.strategies.CompareDiffStrategy;
+import com.github.gitconflictfinder.strategies.LocalRefDiffStrategy;
+import com.github.gitconflictfinder.strategies.PerCommitDiffStrategy;
+import com.github.gitconflictfinder.strategies.RemoteDiffStrategy;
+import com.github.gitconflictfinder.strategies.TreeDiffStrategy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -27,6 +50,13 @@ import static org.mockito.Mockito.when;
  * - Proper handling of exceptions (API failures, missing repos)
  * - Happy path cases where everything works :)
  *
+ * - The remote diff strategies: the per-commit walk (default, serial or concurrent), the compare endpoint
+ *   and the local diff of the remote-tracking branch (up to date, stale, offline)
+ * - The precision mode, which keeps only the files whose changed line ranges overlap or touch
+ * - The ancestry walk of the per-commit strategy, which skips the merge commits
+ * - The short-circuit mode, which stops fetching remote commits once enough conflicts are found
+ * - The tree diff strategy, which enters only the changed subtrees (and only the local directories when a limit is given)
+ *
  * Mocked dependencies: {@link GitCommandClient} and {@link GitHubApiClient}.
  * The goal is to simulate realistic conflict situations and ensure correct behavior.
  */
@@ -42,23 +72,50 @@ public class GitConflictResolverTest {
 
     private GitConflictResolver resolver;
 
+    private static InputStream jsonStream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static JsonPages jsonPages(String json) {
+        return JsonPages.of(jsonStream(json));
+    }
+
+    /**
+     * Makes the git client stream the given local changes to the resolver.
+     */
+    private void stubLocalChangedFiles(List<String> files) throws Exception {
+        doAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(2);
+            files.forEach(consumer);
+            return null;
+        }).when(gitClient).forEachChangedFile(eq(context.getLocalRepoPath()), eq(mockBaseMergeCommit), any());
+    }
+
+    /**
+     * Like {@link #stubLocalChangedFiles(List)}, for the resolver methods that read the paths as char buffers.
+     */
+    private void stubLocalChangedPaths(List<String> files) throws Exception {
+        doAnswer(invocation -> {
+            Consumer<CharSequence> consumer = invocation.getArgument(2);
+            files.forEach(consumer);
+            return null;
+        }).when(gitClient).forEachChangedPath(eq(context.getLocalRepoPath()), eq(mockBaseMergeCommit), any());
+    }
+
     @BeforeEach
     void setUp() {
         context = new GitHubRepoContext("ownerName", "repoName", "", "/local/repo/path", "main", "dev");
         when(githubClient.getContext()).thenReturn(context);
 
         resolver = new GitConflictResolver(gitClient, githubClient);
-        GitHubApiClient.isAccessTokenValid = true;
     }
 
     @Test
     void findConflicts_ConflictsExist_ReturnsConflictedFiles_Example1() throws Exception {
-        String mergeBaseCommand = "git merge-base " + context.getBranchB() + " " + context.getBranchA();
-        when(gitClient.runCommand(mergeBaseCommand, context.getLocalRepoPath())).thenReturn(mockBaseMergeCommit);
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenReturn(mockBaseMergeCommit);
 
-        String mockChangedFilesLocal = "src/java/model/Event.java\nsrc/java/services/EventService.java\nsrc/java/Test.java";
-        String gitDiffCommand = "git diff --name-only " + mockBaseMergeCommit;
-        when(gitClient.runCommand(gitDiffCommand, context.getLocalRepoPath())).thenReturn(mockChangedFilesLocal);
+        ArrayList<String> mockChangedFilesLocal = new ArrayList<>(List.of("src/java/model/Event.java", "src/java/services/EventService.java", "src/java/Test.java"));
+        stubLocalChangedFiles(mockChangedFilesLocal);
 
         when(githubClient.validateAccessToken()).thenReturn(true);
 
@@ -72,18 +129,18 @@ public class GitConflictResolverTest {
               }
             }
         """;
-        when(githubClient.fetchJsonData(mergeBaseCommitDateApi)).thenReturn(mockCommitDetailsJson);
+        when(githubClient.fetchJsonStream(mergeBaseCommitDateApi)).thenReturn(jsonStream(mockCommitDetailsJson));
 
-        String branchCommitsApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits?sha=" + context.getBranchA() + "&since=2025-04-04T10:00:00Z&per_page=250&page=1";
+        String branchCommitsApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits?sha=" + context.getBranchA() + "&since=2025-04-04T10:00:00Z&per_page=100";
         String mockCommitsJson = """
             [
               { "sha": "commit1" },
               { "sha": "commit2" }
             ]
         """;
-        when(githubClient.fetchJsonData(branchCommitsApi)).thenReturn(mockCommitsJson);
+        when(githubClient.fetchJsonPages(branchCommitsApi)).thenReturn(jsonPages(mockCommitsJson));
 
-        String commit1Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit1?per_page=300&page=1";
+        String commit1Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit1?per_page=300";
         String mockCommit1FilesJson = """
             {
               "files": [
@@ -93,9 +150,9 @@ public class GitConflictResolverTest {
               ]
             }
         """;
-        when(githubClient.fetchJsonData(commit1Api)).thenReturn(mockCommit1FilesJson);
+        when(githubClient.fetchJsonPages(commit1Api)).thenReturn(jsonPages(mockCommit1FilesJson));
 
-        String commit2Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit2?per_page=300&page=1";
+        String commit2Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit2?per_page=300";
         String mockCommit2FilesJson = """
             {
               "files": [
@@ -103,7 +160,7 @@ public class GitConflictResolverTest {
               ]
             }
         """;
-        when(githubClient.fetchJsonData(commit2Api)).thenReturn(mockCommit2FilesJson);
+        when(githubClient.fetchJsonPages(commit2Api)).thenReturn(jsonPages(mockCommit2FilesJson));
 
         ArrayList<String> conflictedFiles = resolver.findConflicts();
 
@@ -113,12 +170,10 @@ public class GitConflictResolverTest {
 
     @Test
     void findConflicts_ConflictsExist_ReturnsConflictedFiles_Example2() throws Exception {
-        String mergeBaseCommand = "git merge-base " + context.getBranchB() + " " + context.getBranchA();
-        when(gitClient.runCommand(mergeBaseCommand, context.getLocalRepoPath())).thenReturn(mockBaseMergeCommit);
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenReturn(mockBaseMergeCommit);
 
-        String mockChangedFilesLocal = "file1.txt\nfiles/file1.txt";
-        String gitDiffCommand = "git diff --name-only " + mockBaseMergeCommit;
-        when(gitClient.runCommand(gitDiffCommand, context.getLocalRepoPath())).thenReturn(mockChangedFilesLocal);
+        ArrayList<String> mockChangedFilesLocal = new ArrayList<>(List.of("file1.txt", "files/file1.txt"));
+        stubLocalChangedFiles(mockChangedFilesLocal);
 
         when(githubClient.validateAccessToken()).thenReturn(true);
 
@@ -132,18 +187,18 @@ public class GitConflictResolverTest {
               }
             }
         """;
-        when(githubClient.fetchJsonData(mergeBaseCommitDateApi)).thenReturn(mockCommitDetailsJson);
+        when(githubClient.fetchJsonStream(mergeBaseCommitDateApi)).thenReturn(jsonStream(mockCommitDetailsJson));
 
-        String branchCommitsApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits?sha=" + context.getBranchA() + "&since=2025-04-04T10:00:00Z&per_page=250&page=1";
+        String branchCommitsApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits?sha=" + context.getBranchA() + "&since=2025-04-04T10:00:00Z&per_page=100";
         String mockCommitsJson = """
             [
               { "sha": "commit1" },
               { "sha": "commit2" }
             ]
         """;
-        when(githubClient.fetchJsonData(branchCommitsApi)).thenReturn(mockCommitsJson);
+        when(githubClient.fetchJsonPages(branchCommitsApi)).thenReturn(jsonPages(mockCommitsJson));
 
-        String commit1Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit1?per_page=300&page=1";
+        String commit1Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit1?per_page=300";
         String mockCommit1FilesJson = """
             {
               "files": [
@@ -152,9 +207,9 @@ public class GitConflictResolverTest {
               ]
             }
         """;
-        when(githubClient.fetchJsonData(commit1Api)).thenReturn(mockCommit1FilesJson);
+        when(githubClient.fetchJsonPages(commit1Api)).thenReturn(jsonPages(mockCommit1FilesJson));
 
-        String commit2Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit2?per_page=300&page=1";
+        String commit2Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit2?per_page=300";
         String mockCommit2FilesJson = """
             {
               "files": [
@@ -163,7 +218,7 @@ public class GitConflictResolverTest {
               ]
             }
         """;
-        when(githubClient.fetchJsonData(commit2Api)).thenReturn(mockCommit2FilesJson);
+        when(githubClient.fetchJsonPages(commit2Api)).thenReturn(jsonPages(mockCommit2FilesJson));
 
         ArrayList<String> conflictedFiles = resolver.findConflicts();
 
@@ -173,12 +228,7 @@ public class GitConflictResolverTest {
 
     @Test
     void findConflicts_OnlyRemoteFilesChanged_ReturnsEmptyList() throws Exception {
-        String mergeBaseCommand = "git merge-base " + context.getBranchB() + " " + context.getBranchA();
-        when(gitClient.runCommand(mergeBaseCommand, context.getLocalRepoPath())).thenReturn(mockBaseMergeCommit);
-
-        String mockChangedFilesLocal = "";
-        String gitDiffCommand = "git diff --name-only " + mockBaseMergeCommit;
-        when(gitClient.runCommand(gitDiffCommand, context.getLocalRepoPath())).thenReturn(mockChangedFilesLocal);
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenReturn(mockBaseMergeCommit);
 
         when(githubClient.validateAccessToken()).thenReturn(true);
 
@@ -192,18 +242,18 @@ public class GitConflictResolverTest {
               }
             }
         """;
-        when(githubClient.fetchJsonData(mergeBaseCommitDateApi)).thenReturn(mockCommitDetailsJson);
+        when(githubClient.fetchJsonStream(mergeBaseCommitDateApi)).thenReturn(jsonStream(mockCommitDetailsJson));
 
-        String branchCommitsApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits?sha=" + context.getBranchA() + "&since=2025-04-04T10:00:00Z&per_page=250&page=1";
+        String branchCommitsApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits?sha=" + context.getBranchA() + "&since=2025-04-04T10:00:00Z&per_page=100";
         String mockCommitsJson = """
             [
               { "sha": "commit1" },
               { "sha": "commit2" }
             ]
         """;
-        when(githubClient.fetchJsonData(branchCommitsApi)).thenReturn(mockCommitsJson);
+        when(githubClient.fetchJsonPages(branchCommitsApi)).thenReturn(jsonPages(mockCommitsJson));
 
-        String commit1Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit1?per_page=300&page=1";
+        String commit1Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit1?per_page=300";
         String mockCommit1FilesJson = """
             {
               "files": [
@@ -212,9 +262,9 @@ public class GitConflictResolverTest {
               ]
             }
         """;
-        when(githubClient.fetchJsonData(commit1Api)).thenReturn(mockCommit1FilesJson);
+        when(githubClient.fetchJsonPages(commit1Api)).thenReturn(jsonPages(mockCommit1FilesJson));
 
-        String commit2Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit2?per_page=300&page=1";
+        String commit2Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit2?per_page=300";
         String mockCommit2FilesJson = """
             {
               "files": [
@@ -223,7 +273,7 @@ public class GitConflictResolverTest {
               ]
             }
         """;
-        when(githubClient.fetchJsonData(commit2Api)).thenReturn(mockCommit2FilesJson);
+        when(githubClient.fetchJsonPages(commit2Api)).thenReturn(jsonPages(mockCommit2FilesJson));
 
         ArrayList<String> conflictedFiles = resolver.findConflicts();
 
@@ -232,12 +282,10 @@ public class GitConflictResolverTest {
 
     @Test
     void findConflicts_OnlyLocalFilesChanged_ReturnsEmptyList() throws Exception {
-        String mergeBaseCommand = "git merge-base " + context.getBranchB() + " " + context.getBranchA();
-        when(gitClient.runCommand(mergeBaseCommand, context.getLocalRepoPath())).thenReturn(mockBaseMergeCommit);
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenReturn(mockBaseMergeCommit);
 
-        String mockChangedFilesLocal = "file1.txt\nfile2.txt\nfile3.txt";
-        String gitDiffCommand = "git diff --name-only " + mockBaseMergeCommit;
-        when(gitClient.runCommand(gitDiffCommand, context.getLocalRepoPath())).thenReturn(mockChangedFilesLocal);
+        ArrayList<String> mockChangedFilesLocal = new ArrayList<>(List.of("file1.txt", "file2.txt", "file3.txt"));
+        stubLocalChangedFiles(mockChangedFilesLocal);
 
         when(githubClient.validateAccessToken()).thenReturn(true);
 
@@ -251,32 +299,32 @@ public class GitConflictResolverTest {
               }
             }
         """;
-        when(githubClient.fetchJsonData(mergeBaseCommitDateApi)).thenReturn(mockCommitDetailsJson);
+        when(githubClient.fetchJsonStream(mergeBaseCommitDateApi)).thenReturn(jsonStream(mockCommitDetailsJson));
 
-        String branchCommitsApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits?sha=" + context.getBranchA() + "&since=2025-04-04T10:00:00Z&per_page=250&page=1";
+        String branchCommitsApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits?sha=" + context.getBranchA() + "&since=2025-04-04T10:00:00Z&per_page=100";
         String mockCommitsJson = """
             [
               { "sha": "commit1" },
               { "sha": "commit2" }
             ]
         """;
-        when(githubClient.fetchJsonData(branchCommitsApi)).thenReturn(mockCommitsJson);
+        when(githubClient.fetchJsonPages(branchCommitsApi)).thenReturn(jsonPages(mockCommitsJson));
 
-        String commit1Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit1?per_page=300&page=1";
+        String commit1Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit1?per_page=300";
         String mockCommit1FilesJson = """
             {
               "files": []
             }
         """;
-        when(githubClient.fetchJsonData(commit1Api)).thenReturn(mockCommit1FilesJson);
+        when(githubClient.fetchJsonPages(commit1Api)).thenReturn(jsonPages(mockCommit1FilesJson));
 
-        String commit2Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit2?per_page=300&page=1";
+        String commit2Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit2?per_page=300";
         String mockCommit2FilesJson = """
             {
               "files": []
             }
         """;
-        when(githubClient.fetchJsonData(commit2Api)).thenReturn(mockCommit2FilesJson);
+        when(githubClient.fetchJsonPages(commit2Api)).thenReturn(jsonPages(mockCommit2FilesJson));
 
         ArrayList<String> conflictedFiles = resolver.findConflicts();
 
@@ -285,12 +333,10 @@ public class GitConflictResolverTest {
 
     @Test
     void findConflicts_ChangesExistButNoConflicts_ReturnsEmptyList_Example1() throws Exception {
-        String mergeBaseCommand = "git merge-base " + context.getBranchB() + " " + context.getBranchA();
-        when(gitClient.runCommand(mergeBaseCommand, context.getLocalRepoPath())).thenReturn(mockBaseMergeCommit);
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenReturn(mockBaseMergeCommit);
 
-        String mockChangedFilesLocal = "file1.txt\nfile2.txt";
-        String gitDiffCommand = "git diff --name-only " + mockBaseMergeCommit;
-        when(gitClient.runCommand(gitDiffCommand, context.getLocalRepoPath())).thenReturn(mockChangedFilesLocal);
+        ArrayList<String> mockChangedFilesLocal = new ArrayList<>(List.of("file1.txt", "file2.txt"));
+        stubLocalChangedFiles(mockChangedFilesLocal);
 
         when(githubClient.validateAccessToken()).thenReturn(true);
 
@@ -304,18 +350,18 @@ public class GitConflictResolverTest {
               }
             }
         """;
-        when(githubClient.fetchJsonData(mergeBaseCommitDateApi)).thenReturn(mockCommitDetailsJson);
+        when(githubClient.fetchJsonStream(mergeBaseCommitDateApi)).thenReturn(jsonStream(mockCommitDetailsJson));
 
-        String branchCommitsApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits?sha=" + context.getBranchA() + "&since=2025-04-04T10:00:00Z&per_page=250&page=1";
+        String branchCommitsApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits?sha=" + context.getBranchA() + "&since=2025-04-04T10:00:00Z&per_page=100";
         String mockCommitsJson = """
             [
               { "sha": "commit1" },
               { "sha": "commit2" }
             ]
         """;
-        when(githubClient.fetchJsonData(branchCommitsApi)).thenReturn(mockCommitsJson);
+        when(githubClient.fetchJsonPages(branchCommitsApi)).thenReturn(jsonPages(mockCommitsJson));
 
-        String commit1Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit1?per_page=300&page=1";
+        String commit1Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit1?per_page=300";
         String mockCommit1FilesJson = """
             {
               "files": [
@@ -324,9 +370,9 @@ public class GitConflictResolverTest {
               ]
             }
         """;
-        when(githubClient.fetchJsonData(commit1Api)).thenReturn(mockCommit1FilesJson);
+        when(githubClient.fetchJsonPages(commit1Api)).thenReturn(jsonPages(mockCommit1FilesJson));
 
-        String commit2Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit2?per_page=300&page=1";
+        String commit2Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit2?per_page=300";
         String mockCommit2FilesJson = """
             {
               "files": [
@@ -335,7 +381,7 @@ public class GitConflictResolverTest {
               ]
             }
         """;
-        when(githubClient.fetchJsonData(commit2Api)).thenReturn(mockCommit2FilesJson);
+        when(githubClient.fetchJsonPages(commit2Api)).thenReturn(jsonPages(mockCommit2FilesJson));
 
         ArrayList<String> conflictedFiles = resolver.findConflicts();
 
@@ -344,12 +390,10 @@ public class GitConflictResolverTest {
 
     @Test
     void findConflicts_ChangesExistButNoConflicts_ReturnsEmptyList_Example2() throws Exception {
-        String mergeBaseCommand = "git merge-base " + context.getBranchB() + " " + context.getBranchA();
-        when(gitClient.runCommand(mergeBaseCommand, context.getLocalRepoPath())).thenReturn(mockBaseMergeCommit);
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenReturn(mockBaseMergeCommit);
 
-        String mockChangedFilesLocal = "file1.txt\nfiles/file.txt";
-        String gitDiffCommand = "git diff --name-only " + mockBaseMergeCommit;
-        when(gitClient.runCommand(gitDiffCommand, context.getLocalRepoPath())).thenReturn(mockChangedFilesLocal);
+        ArrayList<String> mockChangedFilesLocal = new ArrayList<>(List.of("file1.txt", "files/file.txt"));
+        stubLocalChangedFiles(mockChangedFilesLocal);
 
         when(githubClient.validateAccessToken()).thenReturn(true);
 
@@ -363,18 +407,18 @@ public class GitConflictResolverTest {
               }
             }
         """;
-        when(githubClient.fetchJsonData(mergeBaseCommitDateApi)).thenReturn(mockCommitDetailsJson);
+        when(githubClient.fetchJsonStream(mergeBaseCommitDateApi)).thenReturn(jsonStream(mockCommitDetailsJson));
 
-        String branchCommitsApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits?sha=" + context.getBranchA() + "&since=2025-04-04T10:00:00Z&per_page=250&page=1";
+        String branchCommitsApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits?sha=" + context.getBranchA() + "&since=2025-04-04T10:00:00Z&per_page=100";
         String mockCommitsJson = """
             [
               { "sha": "commit1" },
               { "sha": "commit2" }
             ]
         """;
-        when(githubClient.fetchJsonData(branchCommitsApi)).thenReturn(mockCommitsJson);
+        when(githubClient.fetchJsonPages(branchCommitsApi)).thenReturn(jsonPages(mockCommitsJson));
 
-        String commit1Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit1?per_page=300&page=1";
+        String commit1Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit1?per_page=300";
         String mockCommit1FilesJson = """
             {
               "files": [
@@ -382,9 +426,9 @@ public class GitConflictResolverTest {
               ]
             }
         """;
-        when(githubClient.fetchJsonData(commit1Api)).thenReturn(mockCommit1FilesJson);
+        when(githubClient.fetchJsonPages(commit1Api)).thenReturn(jsonPages(mockCommit1FilesJson));
 
-        String commit2Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit2?per_page=300&page=1";
+        String commit2Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit2?per_page=300";
         String mockCommit2FilesJson = """
             {
               "files": [
@@ -392,7 +436,7 @@ public class GitConflictResolverTest {
               ]
             }
         """;
-        when(githubClient.fetchJsonData(commit2Api)).thenReturn(mockCommit2FilesJson);
+        when(githubClient.fetchJsonPages(commit2Api)).thenReturn(jsonPages(mockCommit2FilesJson));
 
         ArrayList<String> conflictedFiles = resolver.findConflicts();
 
@@ -401,8 +445,7 @@ public class GitConflictResolverTest {
 
     @Test
     void findConflicts_LocalRepoNotGitRepo_RaisesIOException() throws Exception {
-        String mergeBaseCommand = "git merge-base " + context.getBranchB() + " " + context.getBranchA();
-        when(gitClient.runCommand(mergeBaseCommand, context.getLocalRepoPath())).thenThrow(new IOException("The local repository is not a git repo"));
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenThrow(new IOException("The local repository is not a git repo"));
 
         IOException exception = assertThrows(IOException.class, () -> {
             resolver.findConflicts();
@@ -413,8 +456,7 @@ public class GitConflictResolverTest {
 
     @Test
     void findConflicts_LocalRepoParameterNull_RaisesNullPointerException() throws Exception {
-        String mergeBaseCommand = "git merge-base " + context.getBranchB() + " " + context.getBranchA();
-        when(gitClient.runCommand(mergeBaseCommand, context.getLocalRepoPath())).thenThrow(new NullPointerException("localRepoPath is null"));
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenThrow(new NullPointerException("localRepoPath is null"));
 
         NullPointerException exception = assertThrows(NullPointerException.class, () -> {
             resolver.findConflicts();
@@ -425,18 +467,427 @@ public class GitConflictResolverTest {
 
     @Test
     void findConflicts_fetchJsonError_RaisesGitHubApiException() throws Exception {
-        String mergeBaseCommand = "git merge-base " + context.getBranchB() + " " + context.getBranchA();
-        when(gitClient.runCommand(mergeBaseCommand, context.getLocalRepoPath())).thenReturn(mockBaseMergeCommit);
-
-        String mockChangedFilesLocal = "";
-        String gitDiffCommand = "git diff --name-only " + mockBaseMergeCommit;
-        when(gitClient.runCommand(gitDiffCommand, context.getLocalRepoPath())).thenReturn(mockChangedFilesLocal);
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenReturn(mockBaseMergeCommit);
 
         when(githubClient.validateAccessToken()).thenReturn(true);
 
         String mergeBaseCommitDateApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/" + mockBaseMergeCommit + "?per_page=1&page=1";
-        when(githubClient.fetchJsonData(mergeBaseCommitDateApi)).thenThrow(GitHubApiException.class);
+        when(githubClient.fetchJsonStream(mergeBaseCommitDateApi)).thenThrow(GitHubApiException.class);
 
         assertThrows(GitHubApiException.class, () -> resolver.findConflicts());
     }
+
+    @Test
+    void findConflicts_CompareStrategy_ReturnsConflictedFiles() throws Exception {
+        GitConflictResolver compareResolver = new GitConflictResolver(gitClient, githubClient, new CompareDiffStrategy(githubClient));
+
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenReturn(mockBaseMergeCommit);
+
+        ArrayList<String> mockChangedFilesLocal = new ArrayList<>(List.of("file1.txt", "files/file1.txt", "file4.txt"));
+        stubLocalChangedFiles(mockChangedFilesLocal);
+
+        when(githubClient.validateAccessToken()).thenReturn(true);
+
+        String compareApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/compare/" + mockBaseMergeCommit + "..." + context.getBranchA() + "?per_page=100&page=1";
+        String mockCompareJson = """
+            {
+              "total_commits": 2,
+              "commits": [
+                { "sha": "commit1" },
+                { "sha": "commit2" }
+              ],
+              "files": [
+                { "filename": "files/file1.txt" },
+                { "filename": "file4.txt" },
+                { "filename": "file5.txt" }
+              ]
+            }
+        """;
+        when(githubClient.fetchJsonStream(compareApi)).thenReturn(jsonStream(mockCompareJson));
+
+        ArrayList<String> conflictedFiles = compareResolver.findConflicts();
+
+        assertEquals(List.of("files/file1.txt", "file4.txt"), conflictedFiles);
+    }
+
+    @Test
+    void findConflicts_CompareResponseTruncated_FallsBackToPerCommitWalk() throws Exception {
+        GitConflictResolver compareResolver = new GitConflictResolver(gitClient, githubClient, new CompareDiffStrategy(githubClient));
+
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenReturn(mockBaseMergeCommit);
+
+        ArrayList<String> mockChangedFilesLocal = new ArrayList<>(List.of("generated/file7.txt", "late/file.txt", "file1.txt"));
+        stubLocalChangedFiles(mockChangedFilesLocal);
+
+        when(githubClient.validateAccessToken()).thenReturn(true);
+
+        StringBuilder truncatedFiles = new StringBuilder();
+        for (int i = 0; i < CompareDiffStrategy.MAX_COMPARE_FILES; i++) {
+            truncatedFiles.append(i == 0 ? "" : ",").append("{ \"filename\": \"generated/file").append(i).append(".txt\" }");
+        }
+
+        String compareApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/compare/" + mockBaseMergeCommit + "..." + context.getBranchA() + "?per_page=100&page=";
+        String mockComparePage1Json = "{ \"total_commits\": 101, \"commits\": [ { \"sha\": \"commit1\" } ], \"files\": [" + truncatedFiles + "] }";
+        when(githubClient.fetchJsonStream(compareApi + 1)).thenReturn(jsonStream(mockComparePage1Json));
+
+        String mockComparePage2Json = """
+            {
+              "total_commits": 101,
+              "commits": [
+                { "sha": "commit2" }
+              ]
+            }
+        """;
+        when(githubClient.fetchJsonStream(compareApi + 2)).thenReturn(jsonStream(mockComparePage2Json));
+
+        String commit1Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit1?per_page=300";
+        String mockCommit1FilesJson = """
+            {
+              "files": [
+                 { "filename": "generated/file7.txt" }
+              ]
+            }
+        """;
+        when(githubClient.fetchJsonPages(commit1Api)).thenReturn(jsonPages(mockCommit1FilesJson));
+
+        String commit2Api = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/commit2?per_page=300";
+        String mockCommit2FilesJson = """
+            {
+              "files": [
+                 { "filename": "late/file.txt" }
+              ]
+            }
+        """;
+        when(githubClient.fetchJsonPages(commit2Api)).thenReturn(jsonPages(mockCommit2FilesJson));
+
+        ArrayList<String> conflictedFiles = compareResolver.findConflicts();
+
+        assertEquals(List.of("generated/file7.txt", "late/file.txt"), conflictedFiles);
+    }
+
+    @Test
+    void findConflicts_ConcurrentPerCommitStrategy_ReturnsConflictedFiles() throws Exception {
+        GitConflictResolver concurrentResolver = new GitConflictResolver(gitClient, githubClient, new PerCommitDiffStrategy(githubClient, 4));
+
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenReturn(mockBaseMergeCommit);
+
+        ArrayList<String> mockChangedFilesLocal = new ArrayList<>(List.of("file1.txt", "files/file1.txt", "file3.txt"));
+        stubLocalChangedFiles(mockChangedFilesLocal);
+
+        when(githubClient.validateAccessToken()).thenReturn(true);
+
+        String mergeBaseCommitDateApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/" + mockBaseMergeCommit + "?per_page=1&page=1";
+        String mockCommitDetailsJson = """
+            {
+              "commit": {
+                "author": {
+                  "date": "2025-04-04T10:00:00Z"
+                }
+              }
+            }
+        """;
+        when(githubClient.fetchJsonStream(mergeBaseCommitDateApi)).thenReturn(jsonStream(mockCommitDetailsJson));
+
+        String branchCommitsApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits?sha=" + context.getBranchA() + "&since=2025-04-04T10:00:00Z&per_page=100";
+        String mockCommitsJson = """
+            [
+              { "sha": "commit1" },
+              { "sha": "commit2" },
+              { "sha": "commit3" }
+            ]
+        """;
+        when(githubClient.fetchJsonPages(branchCommitsApi)).thenReturn(jsonPages(mockCommitsJson));
+
+        String commitApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/";
+        when(githubClient.fetchJsonPages(commitApi + "commit1?per_page=300")).thenReturn(jsonPages("{ \"files\": [ { \"filename\": \"file2.txt\" } ] }"));
+        when(githubClient.fetchJsonPages(commitApi + "commit2?per_page=300")).thenReturn(jsonPages("{ \"files\": [ { \"filename\": \"files/file1.txt\" } ] }"));
+        when(githubClient.fetchJsonPages(commitApi + "commit3?per_page=300")).thenReturn(jsonPages("{ \"files\": [ { \"filename\": \"file3.txt\" } ] }"));
+
+        ArrayList<String> conflictedFiles = concurrentResolver.findConflicts();
+
+        assertEquals(List.of("files/file1.txt", "file3.txt"), conflictedFiles);
+    }
+
+    @Test
+    void findConflicts_ConcurrentFetchFails_RaisesGitHubApiException() throws Exception {
+        GitConflictResolver concurrentResolver = new GitConflictResolver(gitClient, githubClient, new PerCommitDiffStrategy(githubClient, 2));
+
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenReturn(mockBaseMergeCommit);
+
+        when(githubClient.validateAccessToken()).thenReturn(true);
+
+        String mergeBaseCommitDateApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/" + mockBaseMergeCommit + "?per_page=1&page=1";
+        when(githubClient.fetchJsonStream(mergeBaseCommitDateApi)).thenReturn(jsonStream("{ \"commit\": { \"author\": { \"date\": \"2025-04-04T10:00:00Z\" } } }"));
+
+        String branchCommitsApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits?sha=" + context.getBranchA() + "&since=2025-04-04T10:00:00Z&per_page=100";
+        when(githubClient.fetchJsonPages(branchCommitsApi)).thenReturn(jsonPages("[ { \"sha\": \"commit1\" }, { \"sha\": \"commit2\" } ]"));
+
+        String commitApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/commits/";
+        JsonPages failingPages = Mockito.mock(JsonPages.class);
+        when(failingPages.next()).thenThrow(new GitHubApiException("Unexpected status code: 500."));
+        when(githubClient.fetchJsonPages(commitApi + "commit1?per_page=300")).thenReturn(failingPages);
+        lenient().when(githubClient.fetchJsonPages(commitApi + "commit2?per_page=300")).thenReturn(jsonPages("{ \"files\": [] }"));
+
+        GitHubApiException exception = assertThrows(GitHubApiException.class, () -> concurrentResolver.findConflicts());
+
+        assertEquals("Unexpected status code: 500.", exception.getMessage());
+    }
+
+    @Test
+    void findConflicts_LocalRefUpToDate_DiffsLocally() throws Exception {
+        GitConflictResolver localRefResolver = new GitConflictResolver(gitClient, githubClient, new LocalRefDiffStrategy(gitClient, githubClient));
+
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenReturn(mockBaseMergeCommit);
+        stubLocalChangedFiles(new ArrayList<>(List.of("file1.txt", "file2.txt")));
+        when(gitClient.resolveCommit(context.getLocalRepoPath(), "refs/remotes/origin/main")).thenReturn("remoteHead");
+        when(gitClient.getChangedFiles(context.getLocalRepoPath(), mockBaseMergeCommit, "remoteHead")).thenReturn(new ArrayList<>(List.of("file2.txt", "file3.txt")));
+
+        when(githubClient.validateAccessToken()).thenReturn(true);
+
+        String refApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/git/ref/heads/" + context.getBranchA();
+        when(githubClient.fetchJsonStream(refApi)).thenReturn(jsonStream("{ \"ref\": \"refs/heads/main\", \"object\": { \"sha\": \"remoteHead\", \"type\": \"commit\" } }"));
+
+        ArrayList<String> conflictedFiles = localRefResolver.findConflicts();
+
+        assertEquals(List.of("file2.txt"), conflictedFiles);
+        verify(githubClient).fetchJsonStream(anyString());
+    }
+
+    @Test
+    void findConflicts_LocalRefStale_FallsBackToRemoteStrategy() throws Exception {
+        RemoteDiffStrategy fallbackStrategy = Mockito.mock(RemoteDiffStrategy.class);
+        GitConflictResolver localRefResolver = new GitConflictResolver(gitClient, githubClient, new LocalRefDiffStrategy(gitClient, githubClient, "origin", true, fallbackStrategy));
+
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenReturn(mockBaseMergeCommit);
+        stubLocalChangedFiles(new ArrayList<>(List.of("file1.txt", "file2.txt")));
+        when(gitClient.resolveCommit(context.getLocalRepoPath(), "refs/remotes/origin/main")).thenReturn("oldHead");
+
+        when(githubClient.validateAccessToken()).thenReturn(true);
+
+        String refApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/git/ref/heads/" + context.getBranchA();
+        when(githubClient.fetchJsonStream(refApi)).thenReturn(jsonStream("{ \"object\": { \"sha\": \"newHead\" } }"));
+        when(fallbackStrategy.getRemoteChangedFiles(mockBaseMergeCommit, "newHead")).thenReturn(Set.of("file1.txt"));
+
+        ArrayList<String> conflictedFiles = localRefResolver.findConflicts();
+
+        assertEquals(List.of("file1.txt"), conflictedFiles);
+        verify(gitClient, never()).getChangedFiles(context.getLocalRepoPath(), mockBaseMergeCommit, "oldHead");
+    }
+
+    @Test
+    void findConflicts_LocalRefOffline_MakesNoApiCalls() throws Exception {
+        RemoteDiffStrategy fallbackStrategy = Mockito.mock(RemoteDiffStrategy.class);
+        GitConflictResolver localRefResolver = new GitConflictResolver(gitClient, githubClient, new LocalRefDiffStrategy(gitClient, githubClient, "upstream", false, fallbackStrategy));
+
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenReturn(mockBaseMergeCommit);
+        stubLocalChangedFiles(new ArrayList<>(List.of("file1.txt", "file2.txt")));
+        when(gitClient.resolveCommit(context.getLocalRepoPath(), "refs/remotes/upstream/main")).thenReturn("remoteHead");
+        when(gitClient.getChangedFiles(context.getLocalRepoPath(), mockBaseMergeCommit, "remoteHead")).thenReturn(new ArrayList<>(List.of("file1.txt")));
+
+        ArrayList<String> conflictedFiles = localRefResolver.findConflicts();
+
+        assertEquals(List.of("file1.txt"), conflictedFiles);
+        verify(githubClient, never()).validateAccessToken();
+        verify(githubClient, never()).fetchJsonStream(anyString());
+        verify(githubClient, never()).fetchJsonPages(anyString());
+        verify(fallbackStrategy, never()).getRemoteChangedFiles(anyString());
+    }
+
+    @Test
+    void findConflictReport_OverlappingAndDisjointHunks_ReportsOnlyCollidingRanges() throws Exception {
+        GitConflictResolver compareResolver = new GitConflictResolver(gitClient, githubClient, new CompareDiffStrategy(githubClient));
+
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenReturn(mockBaseMergeCommit);
+        stubLocalChangedFiles(new ArrayList<>(List.of("pom.xml", "README.md", "logo.png", "notes.txt")));
+
+        doAnswer(invocation -> {
+            HunkParser.HunkConsumer consumer = invocation.getArgument(3);
+            consumer.hunk("pom.xml", 12, 1);
+            consumer.hunk("pom.xml", 30, 2);
+            consumer.hunk("README.md", 5, 1);
+            consumer.wholeFile("logo.png");
+            return null;
+        }).when(gitClient).forEachHunk(eq(context.getLocalRepoPath()), eq(mockBaseMergeCommit), eq(List.of("pom.xml", "README.md", "logo.png")), any());
+
+        when(githubClient.validateAccessToken()).thenReturn(true);
+
+        String compareApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/compare/" + mockBaseMergeCommit + "..." + context.getBranchA() + "?per_page=100&page=1";
+        String mockCompareJson = """
+            {
+              "total_commits": 1,
+              "commits": [ { "sha": "commit1" } ],
+              "files": [
+                { "filename": "pom.xml", "patch": "@@ -10,2 +10,2 @@\\n-a\\n-b\\n+c\\n+d\\n@@ -50 +50 @@\\n-e\\n+f" },
+                { "filename": "README.md", "patch": "@@ -1 +1 @@\\n-x\\n+y" },
+                { "filename": "logo.png" },
+                { "filename": "other.txt", "patch": "@@ -1 +1 @@\\n-x\\n+y" }
+              ]
+            }
+        """;
+        when(githubClient.fetchJsonStream(compareApi)).thenReturn(jsonStream(mockCompareJson), jsonStream(mockCompareJson));
+
+        ConflictReport report = compareResolver.findConflictReport();
+
+        assertEquals(List.of(
+            new FileConflict("pom.xml", List.of(new LineRange(12, 1)), List.of(new LineRange(10, 2)), false),
+            new FileConflict("logo.png", List.of(), List.of(), true)
+        ), report.getConflicts());
+        assertEquals(List.of("pom.xml", "logo.png"), report.getFiles());
+    }
+
+    @Test
+    void findConflictReport_NoFileLevelConflicts_SkipsHunkCollection() throws Exception {
+        RemoteDiffStrategy remoteStrategy = Mockito.mock(RemoteDiffStrategy.class);
+        GitConflictResolver precisionResolver = new GitConflictResolver(gitClient, githubClient, remoteStrategy);
+
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenReturn(mockBaseMergeCommit);
+        stubLocalChangedFiles(new ArrayList<>(List.of("file1.txt")));
+        when(remoteStrategy.alwaysUsesGitHubApi()).thenReturn(true);
+        when(remoteStrategy.getRemoteChangedFiles(mockBaseMergeCommit)).thenReturn(Set.of("file2.txt"));
+
+        ConflictReport report = precisionResolver.findConflictReport();
+
+        assertTrue(report.isEmpty());
+        verify(gitClient, never()).forEachHunk(anyString(), anyString(), any(), any());
+        verify(githubClient, never()).fetchJsonStream(anyString());
+        verify(githubClient, never()).fetchJsonPages(anyString());
+    }
+
+    @Test
+    void findFirstConflicts_LimitReached_StopsFetchingCommits() throws Exception {
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenReturn(mockBaseMergeCommit);
+        stubLocalChangedPaths(List.of("src/a.txt", "src/b.txt", "src/c.txt"));
+        when(githubClient.validateAccessToken()).thenReturn(true);
+
+        String repoApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName();
+        when(githubClient.fetchJsonStream(repoApi + "/commits/" + mockBaseMergeCommit + "?per_page=1&page=1"))
+                .thenReturn(jsonStream("{ \"commit\": { \"author\": { \"date\": \"2025-04-04T10:00:00Z\" } } }"));
+        when(githubClient.fetchJsonPages(repoApi + "/commits?sha=main&since=2025-04-04T10:00:00Z&per_page=100"))
+                .thenReturn(jsonPages("[ { \"sha\": \"commit3\" }, { \"sha\": \"commit2\" }, { \"sha\": \"commit1\" }, { \"sha\": \"a123456\" } ]"));
+        when(githubClient.fetchJsonPages(repoApi + "/commits/commit3?per_page=300"))
+                .thenReturn(jsonPages("{ \"files\": [ { \"filename\": \"docs/x.md\" }, { \"filename\": \"src/b.txt\" } ] }"));
+        when(githubClient.fetchJsonPages(repoApi + "/commits/commit2?per_page=300"))
+                .thenReturn(jsonPages("{ \"files\": [ { \"filename\": \"src/d.txt\" }, { \"filename\": \"src/a.txt\" }, { \"filename\": \"src/c.txt\" } ] }"));
+
+        assertEquals(List.of("src/b.txt", "src/a.txt"), resolver.findFirstConflicts(2));
+
+        verify(githubClient, never()).fetchJsonPages(repoApi + "/commits/commit1?per_page=300");
+    }
+
+    @Test
+    void anyConflict_NoLocalChanges_SendsNoRequests() throws Exception {
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenReturn(mockBaseMergeCommit);
+        stubLocalChangedPaths(List.of());
+
+        assertFalse(resolver.anyConflict());
+
+        verify(githubClient, never()).validateAccessToken();
+        verify(githubClient, never()).fetchJsonStream(anyString());
+        verify(githubClient, never()).fetchJsonPages(anyString());
+    }
+
+    @Test
+    void findConflicts_AncestryWalk_SkipsMergeCommitsAndStopsAtMergeBase() throws Exception {
+        PerCommitDiffStrategy ancestryStrategy = new PerCommitDiffStrategy(githubClient, 1, null, true);
+        GitConflictResolver ancestryResolver = new GitConflictResolver(gitClient, githubClient, ancestryStrategy);
+
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenReturn(mockBaseMergeCommit);
+        stubLocalChangedFiles(List.of("main.txt", "feature.txt", "merged.txt", "old.txt"));
+        when(githubClient.validateAccessToken()).thenReturn(true);
+
+        // "feature1" was branched off before the merge base ("old") and merged by "merge"
+        String repoApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName();
+        when(githubClient.fetchJsonPages(repoApi + "/commits?sha=main&per_page=100")).thenReturn(jsonPages("""
+            [
+              { "sha": "merge", "parents": [ { "sha": "main2" }, { "sha": "feature1" } ] },
+              { "sha": "main2", "parents": [ { "sha": "main1" } ] },
+              { "sha": "feature1", "parents": [ { "sha": "old" } ] },
+              { "sha": "main1", "parents": [ { "sha": "a123456" } ] },
+              { "sha": "a123456", "parents": [ { "sha": "old" } ] },
+              { "sha": "old", "parents": [ { "sha": "older" } ] },
+              { "sha": "older", "parents": [] }
+            ]
+        """));
+        when(githubClient.fetchJsonPages(repoApi + "/commits/main2?per_page=300")).thenReturn(jsonPages("{ \"files\": [ { \"filename\": \"main.txt\" } ] }"));
+        when(githubClient.fetchJsonPages(repoApi + "/commits/feature1?per_page=300")).thenReturn(jsonPages("{ \"files\": [ { \"filename\": \"feature.txt\" } ] }"));
+        when(githubClient.fetchJsonPages(repoApi + "/commits/main1?per_page=300")).thenReturn(jsonPages("{ \"files\": [ { \"filename\": \"merged.txt\" } ] }"));
+
+        assertEquals(List.of("main.txt", "feature.txt", "merged.txt"), ancestryResolver.findConflicts());
+        assertEquals(1, ancestryStrategy.getAvoidedFetches());
+
+        verify(githubClient, never()).fetchJsonPages(repoApi + "/commits/merge?per_page=300");
+        verify(githubClient, never()).fetchJsonPages(repoApi + "/commits/old?per_page=300");
+        verify(githubClient, never()).fetchJsonStream(repoApi + "/commits/" + mockBaseMergeCommit + "?per_page=1&page=1");
+    }
+
+    private void stubTrees(String treeApi) throws Exception {
+        when(githubClient.fetchJsonStream(treeApi + mockBaseMergeCommit)).thenReturn(jsonStream("""
+            { "sha": "root1", "tree": [
+              { "path": "README.md", "mode": "100644", "type": "blob", "sha": "r1" },
+              { "path": "src", "mode": "040000", "type": "tree", "sha": "s1" }
+            ], "truncated": false }
+        """));
+        when(githubClient.fetchJsonStream(context.getBranchARefApi())).thenAnswer(invocation -> jsonStream("{ \"object\": { \"sha\": \"head1\" } }"));
+        when(githubClient.fetchJsonStream(treeApi + "head1")).thenReturn(jsonStream("""
+            { "sha": "root2", "tree": [
+              { "path": "README.md", "mode": "100644", "type": "blob", "sha": "r1" },
+              { "path": "docs", "mode": "040000", "type": "tree", "sha": "d1" },
+              { "path": "src", "mode": "040000", "type": "tree", "sha": "s2" }
+            ], "truncated": false }
+        """));
+        when(githubClient.fetchJsonStream(treeApi + "s1")).thenReturn(jsonStream("""
+            { "sha": "s1", "tree": [ { "path": "a.txt", "type": "blob", "sha": "a1" }, { "path": "b.txt", "type": "blob", "sha": "b1" } ] }
+        """));
+        when(githubClient.fetchJsonStream(treeApi + "s2")).thenReturn(jsonStream("""
+            { "sha": "s2", "tree": [ { "path": "a.txt", "type": "blob", "sha": "a2" }, { "path": "b.txt", "type": "blob", "sha": "b1" } ] }
+        """));
+    }
+
+    @Test
+    void findConflicts_TreeDiff_EntersOnlyChangedSubtreesAndCachesThem() throws Exception {
+        GitConflictResolver treeResolver = new GitConflictResolver(gitClient, githubClient, new TreeDiffStrategy(githubClient));
+
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenReturn(mockBaseMergeCommit);
+        stubLocalChangedFiles(List.of("README.md", "src/a.txt", "src/b.txt", "docs/guide.md"));
+        when(githubClient.validateAccessToken()).thenReturn(true);
+
+        String treeApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/git/trees/";
+        stubTrees(treeApi);
+        when(githubClient.fetchJsonStream(treeApi + "d1")).thenReturn(jsonStream("""
+            { "sha": "d1", "tree": [ { "path": "guide.md", "type": "blob", "sha": "g1" } ] }
+        """));
+
+        assertEquals(List.of("src/a.txt", "docs/guide.md"), treeResolver.findConflicts());
+        assertEquals(List.of("src/a.txt", "docs/guide.md"), treeResolver.findConflicts());
+
+        // the root trees and the subtrees are cached by SHA, only the branch ref is fetched again
+        verify(githubClient, times(2)).fetchJsonStream(context.getBranchARefApi());
+        verify(githubClient, times(1)).fetchJsonStream(treeApi + "head1");
+        verify(githubClient, times(1)).fetchJsonStream(treeApi + mockBaseMergeCommit);
+        verify(githubClient, times(1)).fetchJsonStream(treeApi + "s1");
+        verify(githubClient, times(1)).fetchJsonStream(treeApi + "d1");
+    }
+
+    @Test
+    void findFirstConflicts_TreeDiff_SkipsDirectoriesWithoutLocalChanges() throws Exception {
+        GitConflictResolver treeResolver = new GitConflictResolver(gitClient, githubClient, new TreeDiffStrategy(githubClient));
+
+        when(gitClient.getMergeBase(context.getLocalRepoPath(), context.getBranchB(), context.getBranchA())).thenReturn(mockBaseMergeCommit);
+        stubLocalChangedPaths(List.of("src/a.txt", "src/c.txt"));
+        when(githubClient.validateAccessToken()).thenReturn(true);
+
+        String treeApi = "https://api.github.com/repos/" + context.getOwnerName() + "/" + context.getRepoName() + "/git/trees/";
+        stubTrees(treeApi);
+
+        assertEquals(List.of("src/a.txt"), treeResolver.findFirstConflicts(5));
+
+        verify(githubClient, never()).fetchJsonStream(treeApi + "d1");
+    }
+
+    @Test
+    void getBranchARefApi_BranchWithSlashAndSpecialCharacters_EncodesSegments() {
+        GitHubRepoContext featureContext = new GitHubRepoContext("ownerName", "repoName", "", "/local/repo/path", "feature/x#1 y", "dev");
+
+        assertEquals("https://api.github.com/repos/ownerName/repoName/git/ref/heads/feature/x%231%20y", featureContext.getBranchARefApi());
+    }
 }
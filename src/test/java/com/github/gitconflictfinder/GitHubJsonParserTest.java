@@ -0,0 +1,134 @@
+package com.github.gitconflictfinder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.gitconflictfinder.parsers.GitHubJsonParser;
+import com.github.gitconflictfinder.parsers.HunkParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link GitHubJsonParser}.
+ *
+ * These tests cover extracting only the needed values from realistic GitHub payloads
+ * (with patches, nested objects and unknown fields), reading hunk headers from patches and rejecting unexpected shapes.
+ */
+public class GitHubJsonParserTest {
+    private static InputStream jsonStream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void parseCommitFiles_PayloadWithPatches_ReturnsOnlyFileNames() throws Exception {
+        String json = """
+            {
+              "sha": "commit1",
+              "commit": { "author": { "name": "a", "date": "2025-04-04T10:00:00Z" }, "message": "filename" },
+              "parents": [ { "sha": "parent1" } ],
+              "files": [
+                { "sha": "f1", "filename": "src/A.java", "status": "modified", "patch": "@@ -1 +1 @@\\n-\\"filename\\": x\\n+y" },
+                { "filename": "src/B.java", "patch": "@@ -1,2 +1,2 @@", "nested": { "filename": "not/a/file" } }
+              ],
+              "stats": { "total": 2 }
+            }
+        """;
+        List<String> files = new ArrayList<>();
+
+        int filesCnt = GitHubJsonParser.parseCommitFiles(jsonStream(json), files);
+
+        assertEquals(2, filesCnt);
+        assertEquals(List.of("src/A.java", "src/B.java"), files);
+    }
+
+    @Test
+    void parseCommitShas_CommitsPage_SkipsExcludedSha() throws Exception {
+        String json = """
+            [
+              { "sha": "commit2", "commit": { "tree": { "sha": "tree2" } }, "parents": [ { "sha": "commit1" } ] },
+              { "sha": "commit1", "parents": [ { "sha": "base" } ] },
+              { "sha": "base", "parents": [] }
+            ]
+        """;
+        List<String> commits = new ArrayList<>();
+
+        int commitsCnt = GitHubJsonParser.parseCommitShas(jsonStream(json), "base", commits);
+
+        assertEquals(3, commitsCnt);
+        assertEquals(List.of("commit2", "commit1"), commits);
+    }
+
+    @Test
+    void parseCommitDate_CommitDetails_ReturnsAuthorDate() throws Exception {
+        String json = """
+            { "sha": "a1", "author": { "date": "wrong" }, "commit": { "committer": { "date": "wrong" }, "author": { "date": "2025-04-04T10:00:00Z" } } }
+        """;
+
+        assertEquals("2025-04-04T10:00:00Z", GitHubJsonParser.parseCommitDate(jsonStream(json)));
+    }
+
+    @Test
+    void parseCompare_ComparePage_ReturnsTotalCommitsAndListedFiles() throws Exception {
+        String json = """
+            {
+              "status": "ahead",
+              "total_commits": 250,
+              "commits": [ { "sha": "commit1", "parents": [ { "sha": "base" } ] }, { "sha": "commit2" } ],
+              "files": [ { "filename": "src/A.java", "patch": "@@ -1 +1 @@" }, { "filename": "src/A.java" }, { "filename": "src/B.java" } ]
+            }
+        """;
+        List<String> commits = new ArrayList<>();
+        List<String> files = new ArrayList<>();
+
+        assertEquals(new GitHubJsonParser.ComparePage(250, 3), GitHubJsonParser.parseCompare(jsonStream(json), commits, files));
+        assertEquals(List.of("commit1", "commit2"), commits);
+        assertEquals(List.of("src/A.java", "src/A.java", "src/B.java"), files);
+
+        // without a file collection (the later pages), the files are not read
+        assertEquals(new GitHubJsonParser.ComparePage(250, 0), GitHubJsonParser.parseCompare(jsonStream(json), new ArrayList<>(), null));
+    }
+
+    @Test
+    void parseCommitFiles_NoFilesArray_RaisesJsonProcessingException() {
+        assertThrows(JsonProcessingException.class, () -> GitHubJsonParser.parseCommitFiles(jsonStream("{ \"message\": \"Not Found\" }"), new ArrayList<>()));
+        assertThrows(JsonProcessingException.class, () -> GitHubJsonParser.parseCommitFiles(jsonStream("[ 1, 2"), new ArrayList<>()));
+    }
+
+    @Test
+    void parseComparePatches_WantedFiles_ReportsHunksAndFilesWithoutPatch() throws Exception {
+        String json = """
+            {
+              "total_commits": 1,
+              "files": [
+                { "filename": "pom.xml", "status": "modified", "patch": "@@ -10,2 +10,3 @@ <dependencies>\\n-a\\n+@@ -1 +1 @@\\n@@ -40 +41,0 @@\\n-b" },
+                { "filename": "other.txt", "patch": "@@ -1 +1 @@\\n-x\\n+y" },
+                { "filename": "logo.png", "status": "modified" }
+              ]
+            }
+        """;
+        List<String> hunks = new ArrayList<>();
+        List<String> listedFiles = new ArrayList<>();
+
+        int filesCnt = GitHubJsonParser.parseComparePatches(jsonStream(json), Set.of("pom.xml", "logo.png", "missing.txt"), listedFiles, new HunkParser.HunkConsumer() {
+            @Override
+            public void hunk(String path, int start, int count) {
+                hunks.add(path + ":" + start + "," + count);
+            }
+
+            @Override
+            public void wholeFile(String path) {
+                hunks.add(path + ":whole");
+            }
+        });
+
+        assertEquals(3, filesCnt);
+        assertEquals(List.of("pom.xml", "logo.png"), listedFiles);
+        assertEquals(List.of("pom.xml:10,2", "pom.xml:40,1", "logo.png:whole"), hunks);
+    }
+}
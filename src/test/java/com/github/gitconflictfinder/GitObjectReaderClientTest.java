@@ -0,0 +1,176 @@
+package com.github.gitconflictfinder;
+
+import com.github.gitconflictfinder.clients.GitCommandClient;
+import com.github.gitconflictfinder.clients.GitObjectReaderClient;
+import com.github.gitconflictfinder.objects.LocalRepository;
+import com.github.gitconflictfinder.objects.UnsupportedRepositoryException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link GitObjectReaderClient} and {@link LocalRepository}: every answer read from the .git directory
+ * must match the answer of git itself, with loose objects and after the repository was packed (deltas, packed refs, commit-graph).
+ *
+ * The {@link LocalRepository} is called directly where possible, so a silent fallback to git cannot hide a wrong answer.
+ */
+public class GitObjectReaderClientTest {
+    @TempDir
+    Path repo;
+
+    private String repoPath;
+
+    private void git(String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of("git", "-c", "user.name=test", "-c", "user.email=test@example.com"));
+        command.addAll(Arrays.asList(args));
+
+        Process process = new ProcessBuilder(command).directory(repo.toFile()).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes());
+        assertEquals(0, process.waitFor(), "git " + String.join(" ", args) + ": " + output);
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = repo.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    private void commit(String message) throws IOException, InterruptedException {
+        git("add", "-A");
+        git("commit", "-q", "-m", message);
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        repoPath = repo.toString();
+        String lines = "line\n".repeat(200);
+
+        git("init", "-q", "-b", "main");
+        write("a.txt", "a");
+        write("big.txt", lines);
+        write("dir/sub/b.txt", "b");
+        write("dir/c.txt", "c");
+        write("other/d.txt", "d");
+        commit("first");
+
+        git("checkout", "-q", "-b", "dev");
+        write("dir/sub/b.txt", "b2");
+        write("dir/new.txt", "new");
+        commit("dev 1");
+        write("big.txt", lines + "dev\n");
+        commit("dev 2");
+
+        git("checkout", "-q", "main");
+        write("other/d.txt", "d2");
+        write("big.txt", "main\n" + lines);
+        commit("main 1");
+
+        git("checkout", "-q", "-b", "feature", "dev");
+        git("merge", "-q", "--no-edit", "main");
+        write("a.txt", "a2");
+        Files.delete(repo.resolve("dir/c.txt"));
+        commit("feature 1");
+
+        git("checkout", "-q", "main");
+        write("other/e.txt", "e");
+        commit("main 2");
+        git("tag", "-a", "v1", "-m", "tag");
+        git("checkout", "-q", "dev");
+    }
+
+    private void assertSameAsGit() throws Exception {
+        LocalRepository reader = LocalRepository.open(repo.toFile());
+        try (GitCommandClient git = new GitCommandClient()) {
+            String[][] pairs = {{"dev", "main"}, {"feature", "main"}, {"main", "feature"}, {"v1", "dev"}, {"HEAD", "feature"}};
+            for (String[] pair : pairs) {
+                String expected = git.getMergeBase(repoPath, pair[0], pair[1]);
+                assertEquals(expected, reader.mergeBase(pair[0], pair[1]), String.join("...", pair));
+                assertEquals(git.getChangedFiles(repoPath, expected, pair[0]), reader.diffCommits(expected, pair[0]));
+            }
+
+            assertEquals(git.getChangedFiles(repoPath, "main", "feature"), reader.diffCommits("main", "feature"));
+            try (GitObjectReaderClient readerClient = new GitObjectReaderClient()) {
+                // streamed as the trees are walked, in the order git prints them
+                assertEquals(git.getChangedFiles(repoPath, "v1", "feature"), readerClient.getChangedFiles(repoPath, "v1", "feature"));
+            }
+            assertEquals(git.getChangedFiles(repoPath, "main"), reader.diffWorktree("main"));
+
+            for (String revision : List.of("main", "v1", "feature", "refs/heads/dev", "missing")) {
+                assertEquals(git.resolveCommit(repoPath, revision), reader.resolveCommit(revision), revision);
+            }
+            String main = git.resolveCommit(repoPath, "main");
+            assertEquals(git.getCommitTime(repoPath, main), reader.getAuthorTime(main));
+        }
+    }
+
+    @Test
+    void looseObjects_AnswersMatchGit() throws Exception {
+        assertSameAsGit();
+    }
+
+    @Test
+    void packedRepository_AnswersMatchGit() throws Exception {
+        git("repack", "-a", "-d", "-f", "-q");
+        git("pack-refs", "--all");
+        git("commit-graph", "write", "--reachable");
+
+        assertSameAsGit();
+    }
+
+    @Test
+    void worktreeChanges_AnswersMatchGit() throws Exception {
+        git("repack", "-a", "-d", "-q");
+        write("dir/sub/b.txt", "changed");
+        Files.delete(repo.resolve("a.txt"));
+        write("staged.txt", "staged");
+        git("add", "staged.txt");
+        write("untracked.txt", "untracked");
+
+        LocalRepository reader = LocalRepository.open(repo.toFile());
+        try (GitCommandClient git = new GitCommandClient()) {
+            String base = git.getMergeBase(repoPath, "dev", "main");
+
+            assertEquals(List.of("a.txt", "big.txt", "dir/new.txt", "dir/sub/b.txt", "staged.txt"), reader.diffWorktree(base));
+            assertEquals(git.getChangedFiles(repoPath, base), reader.diffWorktree(base));
+            assertEquals(git.getChangedFiles(repoPath, "HEAD"), reader.diffWorktree("HEAD"));
+        }
+    }
+
+    @Test
+    void worktreeWithAttributesFileFromConfig_FallsBackToGit() throws Exception {
+        Path attributes = repo.resolveSibling(repo.getFileName() + "-attributes");
+        Files.writeString(attributes, "*.txt text eol=crlf\n");
+        git("config", "core.attributesFile", attributes.toString());
+        write("lf.txt", "x\n");
+        commit("lf");
+
+        // the same blob once the line endings are normalized, so git does not report it
+        write("lf.txt", "x\r\n");
+
+        try (GitCommandClient git = new GitCommandClient(); GitObjectReaderClient reader = new GitObjectReaderClient()) {
+            assertThrows(UnsupportedRepositoryException.class, () -> LocalRepository.open(repo.toFile()).diffWorktree("HEAD"));
+            assertEquals(git.getChangedFiles(repoPath, "HEAD"), reader.getChangedFiles(repoPath, "HEAD"));
+            assertFalse(reader.getChangedFiles(repoPath, "HEAD").contains("lf.txt"));
+        } finally {
+            Files.delete(attributes);
+        }
+    }
+
+    @Test
+    void revisionExpression_FallsBackToGit() throws Exception {
+        try (GitCommandClient git = new GitCommandClient(); GitObjectReaderClient reader = new GitObjectReaderClient()) {
+            assertEquals(git.getMergeBase(repoPath, "dev~1", "main"), reader.getMergeBase(repoPath, "dev~1", "main"));
+            assertEquals(git.resolveCommit(repoPath, "main^"), reader.resolveCommit(repoPath, "main^"));
+            assertThrows(IOException.class, () -> reader.getMergeBase(repoPath, "dev", "missing-branch"));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.github.gitconflictfinder;
+
+import com.github.gitconflictfinder.clients.GitCommandClient;
+import com.github.gitconflictfinder.clients.GitHubApiClient;
+import com.github.gitconflictfinder.core.GitConflictResolver;
+import com.github.gitconflictfinder.core.GitHubRepoContext;
+import com.github.gitconflictfinder.exceptions.GitHubApiException;
+import com.github.gitconflictfinder.strategies.GraphQLDiffStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link GraphQLDiffStrategy}, run against the {@link StubGitHubServer} replaying recorded GraphQL responses
+ * (src/test/resources/graphql).
+ *
+ * The recorded branch has two commits since the merge base: the first one changes src/a.txt,
+ * the second one changes README.md and adds docs/guide.md.
+ */
+@ExtendWith(MockitoExtension.class)
+public class GraphQLDiffStrategyTest {
+    @Mock
+    private GitCommandClient gitClient;
+
+    private StubGitHubServer server;
+    private GitHubApiClient githubClient;
+
+    private final String mockBaseMergeCommit = "b000000000000000000000000000000000000000";
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new StubGitHubServer();
+        GitHubRepoContext context = new GitHubRepoContext("ownerName", "repoName", "token", "/local/repo/path", "main", "dev", server.getBaseUrl());
+        githubClient = new GitHubApiClient(context);
+
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void getRemoteChangedFiles_RecordedHistory_DiffsTreesInBatchedQueries() throws Exception {
+        server.respond("GET", "/user", 200, "{}")
+                .respondWithResource("POST", "/graphql", "graphql/commit-date.json")
+                .respondWithResource("POST", "/graphql", "graphql/history-page-1.json")
+                .respondWithResource("POST", "/graphql", "graphql/history-page-2.json")
+                .respondWithResource("POST", "/graphql", "graphql/trees-root.json")
+                .respondWithResource("POST", "/graphql", "graphql/trees-level-1.json");
+
+        GitConflictResolver resolver = new GitConflictResolver(gitClient, githubClient, new GraphQLDiffStrategy(githubClient));
+        when(gitClient.getMergeBase("/local/repo/path", "dev", "main")).thenReturn(mockBaseMergeCommit);
+        doAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(2);
+            List.of("src/a.txt", "src/b.txt", "docs/guide.md").forEach(consumer);
+            return null;
+        }).when(gitClient).forEachChangedFile(eq("/local/repo/path"), eq(mockBaseMergeCommit), any());
+
+        ArrayList<String> conflictedFiles = resolver.findConflicts();
+
+        assertEquals(List.of("src/a.txt", "docs/guide.md"), conflictedFiles);
+        assertEquals(5, server.countRequests("POST", "/graphql"));
+
+        List<StubGitHubServer.RecordedRequest> requests = server.getRequests();
+        StubGitHubServer.RecordedRequest secondPage = requests.stream().filter(request -> request.body().contains("\"cursor\":\"cursor-1\"")).findFirst().orElseThrow();
+        assertTrue(secondPage.body().contains("\"since\":\"2025-04-04T10:00:00Z\""));
+        assertEquals("Bearer token", secondPage.authorization());
+    }
+
+    @Test
+    void getRemoteChangedFiles_SmallBatches_SplitsTreeQueries() throws Exception {
+        server.respond("GET", "/user", 200, "{}")
+                .respondWithResource("POST", "/graphql", "graphql/commit-date.json")
+                .respondWithResource("POST", "/graphql", "graphql/history-page-2.json")
+                .respond("POST", "/graphql", 200, "{ \"data\": { \"repository\": { \"t0\": { \"entries\": [ { \"name\": \"src\", \"type\": \"tree\", \"oid\": \"d000000000000000000000000000000000000000\" } ] } } } }")
+                .respond("POST", "/graphql", 200, "{ \"data\": { \"repository\": { \"t0\": { \"entries\": [ { \"name\": \"src\", \"type\": \"tree\", \"oid\": \"d100000000000000000000000000000000000000\" } ] } } } }")
+                .respond("POST", "/graphql", 200, "{ \"data\": { \"repository\": { \"t0\": { \"entries\": [ { \"name\": \"a.txt\", \"type\": \"blob\", \"oid\": \"f200000000000000000000000000000000000000\" } ] } } } }")
+                .respond("POST", "/graphql", 200, "{ \"data\": { \"repository\": { \"t0\": { \"entries\": [ { \"name\": \"a.txt\", \"type\": \"blob\", \"oid\": \"f400000000000000000000000000000000000000\" } ] } } } }");
+
+        githubClient.validateAccessToken();
+        Set<String> remoteChangedFiles = new GraphQLDiffStrategy(githubClient, 1).getRemoteChangedFiles(mockBaseMergeCommit);
+
+        assertEquals(Set.of("src/a.txt"), remoteChangedFiles);
+        assertEquals(6, server.countRequests("POST", "/graphql"));
+    }
+
+    @Test
+    void getRemoteChangedFiles_GraphQLError_RaisesGitHubApiException() throws Exception {
+        server.respond("GET", "/user", 200, "{}")
+                .respondWithResource("POST", "/graphql", "graphql/error.json");
+
+        githubClient.validateAccessToken();
+        GitHubApiException exception = assertThrows(GitHubApiException.class, () -> new GraphQLDiffStrategy(githubClient).getRemoteChangedFiles(mockBaseMergeCommit));
+
+        assertTrue(exception.getMessage().startsWith("GraphQL error: NOT_FOUND"));
+    }
+
+    @Test
+    void getRemoteChangedFiles_InvalidToken_RaisesGitHubApiException() throws Exception {
+        server.respond("GET", "/user", 401, "{}");
+
+        assertFalse(githubClient.validateAccessToken());
+        assertThrows(GitHubApiException.class, () -> new GraphQLDiffStrategy(githubClient).getRemoteChangedFiles(mockBaseMergeCommit));
+        assertEquals(0, server.countRequests("POST", "/graphql"));
+    }
+}
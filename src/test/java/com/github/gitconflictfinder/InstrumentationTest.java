@@ -0,0 +1,180 @@
+package com.github.gitconflictfinder;
+
+import com.github.gitconflictfinder.cache.ETagStore;
+import com.github.gitconflictfinder.clients.GitCommandClient;
+import com.github.gitconflictfinder.clients.GitHubApiClient;
+import com.github.gitconflictfinder.core.GitConflictResolver;
+import com.github.gitconflictfinder.core.GitHubRepoContext;
+import com.github.gitconflictfinder.instrumentation.Instrumentation;
+import com.github.gitconflictfinder.instrumentation.MetricsListener;
+import com.github.gitconflictfinder.instrumentation.MetricsSummary;
+import com.github.gitconflictfinder.instrumentation.Phase;
+import com.github.gitconflictfinder.instrumentation.PhaseStats;
+import com.github.gitconflictfinder.strategies.PerCommitDiffStrategy;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link Instrumentation}, measuring a per-commit run against the {@link StubGitHubServer}.
+ *
+ * These tests cover attributing the requests (count, bytes, 304 cache hits) to the right phases,
+ * passing them to the listeners, emitting the JFR events and doing nothing when disabled.
+ *
+ * Mocked dependencies: {@link GitCommandClient}.
+ */
+@ExtendWith(MockitoExtension.class)
+public class InstrumentationTest {
+    @Mock
+    private GitCommandClient gitClient;
+
+    private StubGitHubServer server;
+    private GitHubApiClient githubClient;
+
+    private final String mockBaseMergeCommit = "a123456";
+
+    private static final String COMMIT_DATE_JSON = "{ \"commit\": { \"author\": { \"date\": \"2025-04-04T10:00:00Z\" } } }";
+    private static final String COMMITS_JSON = "[ { \"sha\": \"commit1\" }, { \"sha\": \"commit2\" } ]";
+    private static final String COMMIT1_FILES_JSON = "{ \"files\": [ { \"filename\": \"src/a.txt\" }, { \"filename\": \"src/b.txt\" } ] }";
+    private static final String COMMIT2_FILES_JSON = "{ \"files\": [ { \"filename\": \"README.md\" } ] }";
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new StubGitHubServer();
+        GitHubRepoContext context = new GitHubRepoContext("ownerName", "repoName", "token", "/local/repo/path", "main", "dev", server.getBaseUrl());
+        String repoPath = "/repos/ownerName/repoName/commits";
+
+        // commit1 was fetched by an earlier run, so it is revalidated (304) instead of transferred
+        ETagStore eTagStore = new ETagStore();
+        eTagStore.put(server.getBaseUrl() + repoPath + "/commit1?per_page=300", "\"commit1\"", COMMIT1_FILES_JSON.getBytes(StandardCharsets.UTF_8));
+        githubClient = new GitHubApiClient(context, eTagStore);
+
+
+        server.respond("GET", "/user", 200, "{}")
+                .respond("GET", repoPath + "/" + mockBaseMergeCommit + "?per_page=1&page=1", 200, COMMIT_DATE_JSON)
+                .respond("GET", repoPath + "?sha=main&since=2025-04-04T10:00:00Z&per_page=100", 200, COMMITS_JSON)
+                .respond("GET", repoPath + "/commit1?per_page=300", 304, "")
+                .respond("GET", repoPath + "/commit2?per_page=300", 200, COMMIT2_FILES_JSON);
+
+        when(gitClient.getMergeBase("/local/repo/path", "dev", "main")).thenReturn(mockBaseMergeCommit);
+        doAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(2);
+            List.of("src/a.txt", "src/c.txt").forEach(consumer);
+            return null;
+        }).when(gitClient).forEachChangedFile(eq("/local/repo/path"), eq(mockBaseMergeCommit), any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private static long bytes(String... bodies) {
+        long bytes = 0;
+        for (String body : bodies) {
+            bytes += body.getBytes(StandardCharsets.UTF_8).length;
+        }
+        return bytes;
+    }
+
+    @Test
+    void findConflicts_TwoRuns_AttributesRequestsBytesAndCacheHitsToPhases() throws Exception {
+        List<String> finishedRequests = Collections.synchronizedList(new ArrayList<>());
+        MetricsListener listener = new MetricsListener() {
+            @Override
+            public void requestFinished(Phase phase, String method, String uri, int statusCode, long bytes, long nanos, long bodyNanos, boolean cacheHit) {
+                finishedRequests.add(phase + " " + statusCode + (cacheHit ? " cached" : ""));
+            }
+        };
+
+        Instrumentation instrumentation = new Instrumentation(listener);
+        GitConflictResolver resolver = new GitConflictResolver(gitClient, githubClient, new PerCommitDiffStrategy(githubClient), instrumentation);
+
+        assertEquals(List.of("src/a.txt"), resolver.findConflicts());
+        assertEquals(List.of("src/a.txt"), resolver.findConflicts());
+
+        MetricsSummary summary = instrumentation.summary();
+
+        PhaseStats tokenValidation = summary.get(Phase.TOKEN_VALIDATION);
+        assertEquals(2, tokenValidation.count());
+        assertEquals(1, tokenValidation.requests());
+        assertEquals(bytes("{}"), tokenValidation.bytesReceived());
+
+        PhaseStats history = summary.get(Phase.REMOTE_HISTORY);
+        assertEquals(2, history.count());
+        assertEquals(4, history.requests());
+        assertEquals(2 * bytes(COMMIT_DATE_JSON, COMMITS_JSON), history.bytesReceived());
+
+        PhaseStats commitFiles = summary.get(Phase.COMMIT_FILES);
+        assertEquals(4, commitFiles.count());
+        assertEquals(4, commitFiles.requests());
+        assertEquals(2, commitFiles.cacheHits());
+        assertEquals(2 * bytes(COMMIT2_FILES_JSON), commitFiles.bytesReceived());
+
+        assertEquals(2, summary.get(Phase.REMOTE_DIFF).count());
+        assertEquals(0, summary.get(Phase.REMOTE_DIFF).requests());
+        assertEquals(2, summary.get(Phase.MERGE_BASE).count());
+        assertEquals(2, summary.get(Phase.LOCAL_DIFF).count());
+
+        assertEquals(9, summary.getTotalRequests());
+        assertEquals(server.getRequests().size(), summary.getTotalRequests());
+        assertEquals(9, finishedRequests.size());
+        assertTrue(finishedRequests.contains("COMMIT_FILES 304 cached"));
+        assertTrue(summary.toString().contains("COMMIT_FILES"));
+    }
+
+    @Test
+    void findConflicts_JfrRecording_EmitsRequestAndPhaseEvents(@TempDir Path dir) throws Exception {
+        GitConflictResolver resolver = new GitConflictResolver(gitClient, githubClient, new PerCommitDiffStrategy(githubClient), new Instrumentation());
+
+        Path dump = dir.resolve("run.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.github.gitconflictfinder.GitHubRequest");
+            recording.enable("com.github.gitconflictfinder.Phase");
+            recording.start();
+
+            resolver.findConflicts();
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        List<RecordedEvent> requests = events.stream().filter(event -> event.getEventType().getName().equals("com.github.gitconflictfinder.GitHubRequest")).toList();
+        assertEquals(5, requests.size());
+        assertTrue(requests.stream().anyMatch(event -> event.getString("phase").equals("COMMIT_FILES") && event.getBoolean("cacheHit")));
+        assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals("com.github.gitconflictfinder.Phase")
+                && event.getString("phase").equals("REMOTE_DIFF")));
+    }
+
+    @Test
+    void findConflicts_WithoutInstrumentation_ReportsNothing() throws Exception {
+        GitConflictResolver resolver = new GitConflictResolver(gitClient, githubClient, new PerCommitDiffStrategy(githubClient));
+
+        assertEquals(List.of("src/a.txt"), resolver.findConflicts());
+
+        assertSame(Instrumentation.disabled(), githubClient.getInstrumentation());
+        assertTrue(githubClient.getInstrumentation().summary().isEmpty());
+        assertSame(Instrumentation.disabled().phase(Phase.HUNKS), Instrumentation.disabled().phase(Phase.LOCAL_DIFF));
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.gitconflictfinder;
+
+import com.github.gitconflictfinder.cache.ETagStore;
+import com.github.gitconflictfinder.clients.GitHubApiClient;
+import com.github.gitconflictfinder.clients.JsonPages;
+import com.github.gitconflictfinder.core.GitHubRepoContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link JsonPages}, walking paginated responses of the {@link StubGitHubServer} by their {@code Link} header.
+ *
+ * These tests cover:
+ * - Fetching every page up to the {@code rel="last"} one, in order
+ * - Following a chain of {@code rel="next"} links without a last page
+ * - Stopping after a response without a {@code Link} header
+ * - Keeping the links of a page revalidated with a 304
+ */
+public class JsonPagesTest {
+    private StubGitHubServer server;
+    private GitHubApiClient githubClient;
+
+    private final String commitsRoute = "/repos/ownerName/repoName/commits?sha=main&per_page=100";
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new StubGitHubServer();
+        GitHubRepoContext context = new GitHubRepoContext("ownerName", "repoName", null, "/local/repo/path", "main", "dev", server.getBaseUrl());
+        githubClient = new GitHubApiClient(context, new ETagStore());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private String link(String rel, int page) {
+        return "<" + server.getBaseUrl() + commitsRoute + "&page=" + page + ">; rel=\"" + rel + "\"";
+    }
+
+    private List<String> readAll(JsonPages pages) throws Exception {
+        ArrayList<String> bodies = new ArrayList<>();
+        try (pages) {
+            for (InputStream page = pages.next(); page != null; page = pages.next()) {
+                try (InputStream body = page) {
+                    bodies.add(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return bodies;
+    }
+
+    @Test
+    void next_LastPageKnown_FetchesEveryPageInOrder() throws Exception {
+        server.respond("GET", commitsRoute, 200, Map.of("Link", link("next", 2) + ", " + link("last", 6)), "[1]");
+        for (int page = 2; page <= 6; page++) {
+            server.respond("GET", commitsRoute + "&page=" + page, 200, Map.of("Link", link("prev", page - 1)), "[" + page + "]");
+        }
+
+        assertEquals(List.of("[1]", "[2]", "[3]", "[4]", "[5]", "[6]"), readAll(githubClient.fetchJsonPages(server.getBaseUrl() + commitsRoute)));
+
+        for (int page = 2; page <= 6; page++) {
+            assertEquals(1, server.countRequests("GET", commitsRoute + "&page=" + page));
+        }
+        assertEquals(6, server.getRequests().size());
+    }
+
+    @Test
+    void next_OnlyNextLinks_FollowsTheChain() throws Exception {
+        server.respond("GET", commitsRoute, 200, Map.of("Link", link("next", 2)), "[1]")
+                .respond("GET", commitsRoute + "&page=2", 200, Map.of("Link", link("prev", 1) + ", " + link("next", 3)), "[2]")
+                .respond("GET", commitsRoute + "&page=3", 200, Map.of("Link", link("prev", 2)), "[3]");
+
+        assertEquals(List.of("[1]", "[2]", "[3]"), readAll(githubClient.fetchJsonPages(server.getBaseUrl() + commitsRoute)));
+        assertEquals(3, server.getRequests().size());
+    }
+
+    @Test
+    void next_NoLinkHeader_ReturnsOnePage() throws Exception {
+        server.respond("GET", commitsRoute, 200, "[1]");
+
+        assertEquals(List.of("[1]"), readAll(githubClient.fetchJsonPages(server.getBaseUrl() + commitsRoute)));
+        assertEquals(1, server.getRequests().size());
+    }
+
+    @Test
+    void next_FirstPageNotModified_KeepsStoredLinks() throws Exception {
+        server.respond("GET", commitsRoute, 200, Map.of("ETag", "\"page1\"", "Link", link("next", 2)), "[1]")
+                .respond("GET", commitsRoute, 304, "")
+                .respond("GET", commitsRoute + "&page=2", 200, "[2]");
+
+        assertEquals(List.of("[1]", "[2]"), readAll(githubClient.fetchJsonPages(server.getBaseUrl() + commitsRoute)));
+        assertEquals(List.of("[1]", "[2]"), readAll(githubClient.fetchJsonPages(server.getBaseUrl() + commitsRoute)));
+
+        assertEquals(1, githubClient.getRevalidatedRequestCount());
+        assertEquals(2, server.countRequests("GET", commitsRoute + "&page=2"));
+    }
+}
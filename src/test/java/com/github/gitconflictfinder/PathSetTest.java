@@ -0,0 +1,89 @@
+package com.github.gitconflictfinder;
+
+import com.github.gitconflictfinder.core.PathDictionary;
+import com.github.gitconflictfinder.core.PathSet;
+import com.github.gitconflictfinder.parsers.GitHubJsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link PathDictionary} and {@link PathSet}.
+ *
+ * These tests cover:
+ * - Interning paths with shared directories and looking them up without adding them
+ * - Intersecting sets that share a dictionary, keeping the order the paths were added in
+ * - Filling a set straight from the JSON parser
+ */
+public class PathSetTest {
+    @Test
+    void intern_SharedPrefixes_GivesStableIdsAndRebuildsPaths() {
+        PathDictionary dictionary = new PathDictionary();
+        int main = dictionary.intern("services/payments/src/Main.java");
+        int test = dictionary.intern("services/payments/src/Test.java");
+        int readme = dictionary.intern("README.md");
+
+        assertEquals(main, dictionary.intern(CharBuffer.wrap("services/payments/src/Main.java")));
+        assertNotEquals(main, test);
+        // 3 shared directories, 2 files under them, 1 top-level file and the root
+        assertEquals(7, dictionary.size());
+
+        assertEquals("services/payments/src/Main.java", dictionary.path(main));
+        assertEquals("services/payments/src/Test.java", dictionary.path(test));
+        assertEquals("README.md", dictionary.path(readme));
+
+        assertEquals(PathDictionary.NOT_FOUND, dictionary.find("services/payments/src/Other.java"));
+        assertEquals(PathDictionary.NOT_FOUND, dictionary.find("docs/README.md"));
+        assertEquals(7, dictionary.size());
+    }
+
+    @Test
+    void contains_DirectoryOfAddedPath_IsNotInSet() {
+        PathSet paths = new PathSet();
+        paths.add("src/a/b.txt");
+
+        assertTrue(paths.contains("src/a/b.txt"));
+        assertTrue(paths.contains(CharBuffer.wrap("src/a/b.txt")));
+        assertFalse(paths.contains("src/a"));
+        assertFalse(paths.contains("src/a/b.txt/c"));
+        assertEquals(1, paths.size());
+    }
+
+    @Test
+    void retainAll_SharedDictionary_KeepsPathsInBothInAddOrder() {
+        PathDictionary dictionary = new PathDictionary();
+        PathSet remote = new PathSet(dictionary);
+        PathSet other = new PathSet(dictionary);
+        remote.addAll(List.of("c.txt", "dir/a.txt", "b.txt", "dir/d.txt"));
+        other.addAll(List.of("dir/d.txt", "x.txt", "c.txt", "b.txt"));
+
+        PathSet intersection = remote.intersection(other);
+        assertEquals(List.of("c.txt", "b.txt", "dir/d.txt"), new ArrayList<>(intersection));
+
+        assertTrue(remote.retainAll(other));
+        assertEquals(3, remote.size());
+        assertEquals(new ArrayList<>(intersection), new ArrayList<>(remote));
+
+        assertTrue(remote.remove("b.txt"));
+        assertFalse(remote.remove("b.txt"));
+        assertEquals(List.of("c.txt", "dir/d.txt"), new ArrayList<>(remote));
+    }
+
+    @Test
+    void parseCommitFiles_IntoPathSet_AddsEveryFileOnce() throws Exception {
+        String json = """
+            { "files": [ { "filename": "src/a.txt" }, { "filename": "docs/ünïcödé.md" }, { "filename": "src/a.txt" } ] }
+        """;
+
+        PathSet paths = new PathSet();
+        assertEquals(3, GitHubJsonParser.parseCommitFiles(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), paths));
+
+        assertEquals(List.of("src/a.txt", "docs/ünïcödé.md"), new ArrayList<>(paths));
+    }
+}
@@ -0,0 +1,126 @@
+package com.github.gitconflictfinder;
+
+import com.github.gitconflictfinder.clients.RateLimitGovernor;
+import com.github.gitconflictfinder.exceptions.GitHubApiException;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link RateLimitGovernor}.
+ *
+ * These tests cover reading the budget from the rate limit headers, keeping a separate budget per API and token,
+ * not delaying requests while plenty of budget is left, spreading the last requests of a nearly used up budget,
+ * waiting for (or refusing to wait for) the reset and scheduling retries after secondary rate limits.
+ */
+public class RateLimitGovernorTest {
+    private static HttpHeaders headers(Map<String, String> values) {
+        return HttpHeaders.of(values.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> List.of(e.getValue()))), (name, value) -> true);
+    }
+
+    private static final String API = "https://api.github.com";
+    private static final Duration MAX_WAIT = RateLimitGovernor.DEFAULT_MAX_WAIT;
+
+    private static String newToken() {
+        return "Bearer " + UUID.randomUUID();
+    }
+
+    @Test
+    void acquire_BudgetUsedUpUntilFarReset_RaisesGitHubApiException() throws Exception {
+        RateLimitGovernor governor = RateLimitGovernor.forToken(API, newToken());
+
+        long reset = System.currentTimeMillis() / 1000 + 3600;
+        governor.update(headers(Map.of("X-RateLimit-Remaining", "0", "X-RateLimit-Reset", String.valueOf(reset))));
+
+        GitHubApiException exception = assertThrows(GitHubApiException.class, () -> governor.acquire(Duration.ofSeconds(1)));
+        assertTrue(exception.getMessage().startsWith("Rate limit exceeded."));
+    }
+
+    @Test
+    void acquire_PlentyOfBudgetLeft_DoesNotDelayBurst() throws Exception {
+        RateLimitGovernor governor = RateLimitGovernor.forToken(API, newToken());
+        long reset = System.currentTimeMillis() / 1000 + 3600;
+        governor.update(headers(Map.of("X-RateLimit-Remaining", "4900", "X-RateLimit-Reset", String.valueOf(reset))));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 200; i++) {
+            governor.acquire(MAX_WAIT);
+        }
+        assertTrue(System.nanoTime() - start < Duration.ofMillis(500).toNanos());
+        assertEquals(4700, governor.getRemaining());
+    }
+
+    @Test
+    void acquire_LowBudget_SpreadsRequestsUntilReset() throws Exception {
+        RateLimitGovernor governor = RateLimitGovernor.forToken(API, newToken());
+        long reset = System.currentTimeMillis() / 1000 + 2;
+        governor.update(headers(Map.of("X-RateLimit-Remaining", "10", "X-RateLimit-Reset", String.valueOf(reset))));
+
+        long start = System.nanoTime();
+        governor.acquire(MAX_WAIT);
+        governor.acquire(MAX_WAIT);
+        governor.acquire(MAX_WAIT);
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(100).toNanos());
+    }
+
+    @Test
+    void forToken_DifferentTokens_TrackSeparateBudgets() throws Exception {
+        String token = newToken();
+        RateLimitGovernor governor = RateLimitGovernor.forToken(API, token);
+        long reset = System.currentTimeMillis() / 1000 + 3600;
+        governor.update(headers(Map.of("X-RateLimit-Remaining", "0", "X-RateLimit-Reset", String.valueOf(reset))));
+
+        assertSame(governor, RateLimitGovernor.forToken(API, token));
+        assertEquals(0, governor.getRemaining());
+
+        RateLimitGovernor otherGovernor = RateLimitGovernor.forToken(API, newToken());
+        otherGovernor.acquire(MAX_WAIT);
+        assertEquals(4999, otherGovernor.getRemaining());
+    }
+
+    @Test
+    void forToken_SameTokenOnOtherApi_TracksSeparateBudget() throws Exception {
+        String token = newToken();
+        RateLimitGovernor governor = RateLimitGovernor.forToken(API, token);
+        long reset = System.currentTimeMillis() / 1000 + 3600;
+        governor.update(headers(Map.of("X-RateLimit-Remaining", "0", "X-RateLimit-Reset", String.valueOf(reset))));
+
+        RateLimitGovernor enterpriseGovernor = RateLimitGovernor.forToken("https://github.example.com/api/v3", token);
+        assertNotSame(governor, enterpriseGovernor);
+        enterpriseGovernor.acquire(MAX_WAIT);
+        assertEquals(4999, enterpriseGovernor.getRemaining());
+    }
+
+    @Test
+    void update_OutOfOrderResponsesInSameWindow_KeepsLowestRemaining() {
+        RateLimitGovernor governor = RateLimitGovernor.forToken(API, newToken());
+        long reset = System.currentTimeMillis() / 1000 + 3600;
+
+        governor.update(headers(Map.of("X-RateLimit-Remaining", "4000", "X-RateLimit-Reset", String.valueOf(reset))));
+        governor.update(headers(Map.of("X-RateLimit-Remaining", "4100", "X-RateLimit-Reset", String.valueOf(reset))));
+        assertEquals(4000, governor.getRemaining());
+
+        governor.update(headers(Map.of("X-RateLimit-Remaining", "5000", "X-RateLimit-Reset", String.valueOf(reset + 3600))));
+        assertEquals(5000, governor.getRemaining());
+    }
+
+    @Test
+    void retryDelay_SecondaryRateLimit_WaitsForRetryAfter() throws Exception {
+        RateLimitGovernor governor = RateLimitGovernor.forToken(API, newToken());
+
+        assertNull(governor.retryDelay(200, headers(Map.of()), 0));
+        assertNull(governor.retryDelay(403, headers(Map.of()), 0));
+        assertEquals(Duration.ofSeconds(1), governor.retryDelay(429, headers(Map.of("Retry-After", "1")), 0));
+
+        long start = System.nanoTime();
+        governor.acquire(MAX_WAIT);
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(900).toNanos());
+    }
+}
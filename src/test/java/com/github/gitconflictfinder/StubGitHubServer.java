@@ -0,0 +1,124 @@
+package com.github.gitconflictfinder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A local HTTP server that stands in for the GitHub API in tests.
+ *
+ * How does it work?
+ * - listens on a free port of the loopback interface ({@link #getBaseUrl()} is passed as the API base URL),
+ * - replays the responses recorded for a route ({@code "POST /graphql"}, {@code "GET /user"}...) in the order they were added,
+ *   the last response of a route is repeated,
+ * - recorded responses are read from the test resources,
+ * - every received request is kept, so a test can check what was sent and how many requests were made,
+ * - an unknown route gets a 404.
+ */
+public class StubGitHubServer implements AutoCloseable {
+    public record RecordedRequest(String method, String path, String authorization, String body) {}
+
+    private record StubResponse(int status, Map<String, String> headers, byte[] body) {}
+
+    private final HttpServer server;
+    private final Map<String, Deque<StubResponse>> routes = new ConcurrentHashMap<>();
+    private final List<RecordedRequest> requests = Collections.synchronizedList(new ArrayList<>());
+
+    public StubGitHubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public StubGitHubServer respond(String method, String path, int status, String body) {
+        return respond(method, path, status, Map.of(), body);
+    }
+
+    public StubGitHubServer respond(String method, String path, int status, Map<String, String> headers, String body) {
+        routes.computeIfAbsent(method + " " + path, route -> new ArrayDeque<>())
+                .add(new StubResponse(status, headers, body.getBytes(StandardCharsets.UTF_8)));
+        return this;
+    }
+
+    /**
+     * Adds a response recorded in the test resources.
+     */
+    public StubGitHubServer respondWithResource(String method, String path, String resource) {
+        try (InputStream in = StubGitHubServer.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No such test resource: " + resource);
+            }
+            return respond(method, path, 200, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public List<RecordedRequest> getRequests() {
+        synchronized (requests) {
+            return List.copyOf(requests);
+        }
+    }
+
+    public long countRequests(String method, String path) {
+        return getRequests().stream().filter(request -> request.method().equals(method) && request.path().equals(path)).count();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getRawPath();
+        if (exchange.getRequestURI().getRawQuery() != null) {
+            path += "?" + exchange.getRequestURI().getRawQuery();
+        }
+
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        requests.add(new RecordedRequest(method, path, exchange.getRequestHeaders().getFirst("Authorization"), body));
+
+        StubResponse response = next(method + " " + path);
+        try (OutputStream out = exchange.getResponseBody()) {
+            if (response == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            response.headers().forEach((name, value) -> exchange.getResponseHeaders().set(name, value));
+            exchange.sendResponseHeaders(response.status(), response.body().length == 0 ? -1 : response.body().length);
+            out.write(response.body());
+        }
+    }
+
+    private StubResponse next(String route) {
+        Deque<StubResponse> responses = routes.get(route);
+        if (responses == null) {
+            return null;
+        }
+
+        synchronized (responses) {
+            return responses.size() > 1 ? responses.poll() : responses.peek();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
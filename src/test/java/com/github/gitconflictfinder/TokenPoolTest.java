@@ -0,0 +1,122 @@
+package com.github.gitconflictfinder;
+
+import com.github.gitconflictfinder.cache.ETagStore;
+import com.github.gitconflictfinder.clients.GitHubApiClient;
+import com.github.gitconflictfinder.clients.RateLimitGovernor;
+import com.github.gitconflictfinder.clients.TokenPool;
+import com.github.gitconflictfinder.core.GitHubRepoContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpHeaders;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link TokenPool}, also used by a {@link GitHubApiClient} against the {@link StubGitHubServer}.
+ *
+ * These tests cover:
+ * - Picking the token with the most remaining budget
+ * - Parking a used up token until its reset (and picking the first one to reset when all are used up)
+ * - Sending the requests with the picked token and dropping the tokens rejected by the validation
+ */
+public class TokenPoolTest {
+    private StubGitHubServer server;
+
+    private static HttpHeaders headers(Map<String, String> values) {
+        return HttpHeaders.of(values.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> List.of(e.getValue()))), (name, value) -> true);
+    }
+
+    private static final String API = "https://api.github.com";
+
+    private static void setBudget(String apiUrl, String token, long remaining, long resetEpochSeconds) {
+        RateLimitGovernor.forToken(apiUrl, "Bearer " + token).update(headers(Map.of(
+                "X-RateLimit-Remaining", String.valueOf(remaining),
+                "X-RateLimit-Reset", String.valueOf(resetEpochSeconds))));
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new StubGitHubServer();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void nextAuthorizationHeader_DifferentBudgets_PicksMostHeadroom() throws Exception {
+        String low = UUID.randomUUID().toString();
+        String high = UUID.randomUUID().toString();
+        long reset = System.currentTimeMillis() / 1000 + 3600;
+        setBudget(API, low, 10, reset);
+        setBudget(API, high, 4000, reset);
+
+        assertEquals("Bearer " + high, TokenPool.of(low, high).nextAuthorizationHeader(API));
+    }
+
+    @Test
+    void nextAuthorizationHeader_BudgetUsedUp_ParksTokenUntilReset() throws Exception {
+        String exhausted = UUID.randomUUID().toString();
+        String low = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis() / 1000;
+        setBudget(API, exhausted, 0, now + 3600);
+        setBudget(API, low, 1, now + 3600);
+
+        assertEquals("Bearer " + low, TokenPool.of(exhausted, low).nextAuthorizationHeader(API));
+
+        // once every token is used up, the one that resets first is picked
+        String resetsLater = UUID.randomUUID().toString();
+        setBudget(API, resetsLater, 0, now + 7200);
+        assertEquals("Bearer " + exhausted, TokenPool.of(resetsLater, exhausted).nextAuthorizationHeader(API));
+    }
+
+    @Test
+    void nextAuthorizationHeader_BudgetUsedUpOnOtherApi_IgnoresIt() throws Exception {
+        String first = UUID.randomUUID().toString();
+        String second = UUID.randomUUID().toString();
+        long reset = System.currentTimeMillis() / 1000 + 3600;
+        setBudget(API, first, 4000, reset);
+        setBudget(API, second, 3000, reset);
+        setBudget("https://github.example.com/api/v3", first, 0, reset);
+
+        assertEquals("Bearer " + first, TokenPool.of(first, second).nextAuthorizationHeader(API));
+        assertEquals("Bearer " + second, TokenPool.of(first, second).nextAuthorizationHeader("https://github.example.com/api/v3"));
+    }
+
+    @Test
+    void fetchJsonData_TokenPool_SendsWithPickedTokenAndDropsRejectedOnes() throws Exception {
+        String rejected = UUID.randomUUID().toString();
+        String first = UUID.randomUUID().toString();
+        String second = UUID.randomUUID().toString();
+        long reset = System.currentTimeMillis() / 1000 + 3600;
+
+        server.respond("GET", "/rate_limit", 401, "{}")
+                .respond("GET", "/rate_limit", 200, Map.of("X-RateLimit-Remaining", "3000", "X-RateLimit-Reset", String.valueOf(reset)), "{}")
+                .respond("GET", "/repos/ownerName/repoName", 200, "{}");
+
+        TokenPool tokenPool = TokenPool.of(rejected, first, second);
+        GitHubRepoContext context = new GitHubRepoContext("ownerName", "repoName", null, "/local/repo/path", "main", "dev", server.getBaseUrl());
+        GitHubApiClient githubClient = new GitHubApiClient(context, new ETagStore(), tokenPool);
+
+        assertTrue(githubClient.validateAccessToken());
+        assertEquals(List.of("Bearer " + first, "Bearer " + second), tokenPool.getAuthorizationHeaders());
+
+        // the second token reported less budget than the first one
+        setBudget(server.getBaseUrl(), second, 2000, reset);
+        githubClient.fetchJsonData(server.getBaseUrl() + "/repos/ownerName/repoName");
+        setBudget(server.getBaseUrl(), first, 0, reset);
+        githubClient.fetchJsonData(server.getBaseUrl() + "/repos/ownerName/repoName");
+
+        List<StubGitHubServer.RecordedRequest> requests = server.getRequests();
+        assertEquals(5, requests.size());
+        assertEquals("Bearer " + first, requests.get(3).authorization());
+        assertEquals("Bearer " + second, requests.get(4).authorization());
+    }
+}